@@ -17,6 +17,15 @@ public enum BucketInterval {
         return chronoUnit;
     }
 
+    public long millis() {
+        return chronoUnit.getDuration().toMillis();
+    }
+
+    /** Start of the UTC bucket containing {@code epochMillis}; matches {@code Instant.truncatedTo}. */
+    public long floor(long epochMillis) {
+        return epochMillis - Math.floorMod(epochMillis, millis());
+    }
+
     public static BucketInterval from(String raw) {
         if (raw == null || raw.isBlank()) {
             return HOUR;
@@ -12,6 +12,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -29,7 +30,33 @@ public class ClickAggregationController {
         if (occurredAt == null) {
             occurredAt = Instant.now();
         }
-        return service.ingest(request, occurredAt);
+        ClickIngestResult result = service.ingest(request, occurredAt);
+        return switch (result.outcome()) {
+            case ACCEPTED, LATE_ACCEPTED -> result.event();
+            case DUPLICATE -> throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "clickId " + request.clickId() + " was already ingested");
+            case TOO_LATE -> throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "occurredAt is older than the watermark allows; the click was not counted");
+        };
+    }
+
+    @PostMapping("/clicks/stream")
+    public StreamIngestReport ingestStream(@Valid @RequestBody ClickStreamRequest request) {
+        Instant receivedAt = Instant.now();
+        List<ClickEvent> events = new ArrayList<>(request.clicks().size());
+        for (ClickIngestRequest click : request.clicks()) {
+            if (click.clickId() == null || click.clickId().isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every streamed click needs a clickId.");
+            }
+            Instant occurredAt = parseInstant(click.occurredAt());
+            events.add(ClickEvent.from(click, occurredAt == null ? receivedAt : occurredAt));
+        }
+        return service.ingestStream(events);
+    }
+
+    @GetMapping("/ingest/stats")
+    public IngestStats ingestStats() {
+        return service.ingestStats();
     }
 
     @PostMapping("/clicks/seed")
@@ -49,19 +76,26 @@ public class ClickAggregationController {
     @GetMapping("/summary")
     public List<ClickSummary> summary(@RequestParam(required = false) String groupBy,
                                       @RequestParam(required = false) String from,
-                                      @RequestParam(required = false) String to) {
+                                      @RequestParam(required = false) String to,
+                                      @RequestParam(required = false) String source) {
         GroupBy group = parseGroupBy(groupBy);
-        return service.summarize(group, parseInstant(from), parseInstant(to));
+        return service.summarize(group, parseInstant(from), parseInstant(to), parseSource(source));
     }
 
     @GetMapping("/timeseries")
     public List<TimeSeriesPoint> timeseries(@RequestParam(required = false) String groupBy,
                                             @RequestParam(required = false) String interval,
                                             @RequestParam(required = false) String from,
-                                            @RequestParam(required = false) String to) {
+                                            @RequestParam(required = false) String to,
+                                            @RequestParam(required = false) String source) {
         GroupBy group = parseGroupBy(groupBy);
         BucketInterval bucketInterval = parseInterval(interval);
-        return service.timeseries(group, bucketInterval, parseInstant(from), parseInstant(to));
+        return service.timeseries(group, bucketInterval, parseInstant(from), parseInstant(to), parseSource(source));
+    }
+
+    @GetMapping("/storage/stats")
+    public SegmentStoreStats storageStats() {
+        return service.storageStats();
     }
 
     private Instant parseInstant(String raw) {
@@ -93,4 +127,13 @@ public class ClickAggregationController {
                     "Invalid interval. Use minute, hour, or day.");
         }
     }
+
+    private QuerySource parseSource(String raw) {
+        try {
+            return QuerySource.from(raw);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid source. Use rollups or segments.");
+        }
+    }
 }
@@ -1,33 +1,61 @@
 package com.randomproject.adclickaggregator;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
+/**
+ * Click ingest and aggregation. Clicks are folded into a {@link ClickRollupStore} as they arrive rather than kept
+ * as a raw list, so queries merge pre-aggregated buckets. Distinct ad, campaign and publisher counts come from
+ * HyperLogLog sketches: exact up to 128 distinct values per bucket and group, about 1.6% error beyond that.
+ *
+ * <p>Live clicks go through a {@link ClickStreamIngestor}, which drops duplicate click ids and clicks too late for
+ * the event-time watermark. Seeding is a backfill and writes to the stores directly.
+ *
+ * <p>Every stored click is also appended to a columnar {@link ClickSegmentStore}. Summaries and time series read
+ * from the rollups by default; {@link QuerySource#SEGMENTS} scans the segments instead for millisecond-exact
+ * ranges over the raw clicks.
+ */
 @Service
 public class ClickAggregationService {
-    private final List<ClickEvent> events = new CopyOnWriteArrayList<>();
+    private final ClickRollupStore rollups = new ClickRollupStore();
+    private final ClickSegmentStore segments;
+    private final ClickStreamIngestor ingestor;
 
-    public ClickEvent ingest(ClickIngestRequest request, Instant occurredAt) {
-        ClickEvent event = new ClickEvent(
-                UUID.randomUUID().toString(),
-                request.adId(),
-                request.campaignId(),
-                request.publisherId(),
-                occurredAt,
-                request.costCents()
-        );
-        events.add(event);
-        return event;
+    public ClickAggregationService(@Value("${clicks.stream.max-out-of-orderness:PT30S}") Duration maxOutOfOrderness,
+                                   @Value("${clicks.stream.allowed-lateness:PT5M}") Duration allowedLateness,
+                                   @Value("${clicks.dedup.generations:3}") int dedupGenerations,
+                                   @Value("${clicks.dedup.capacity-per-generation:1000000}") long dedupCapacity,
+                                   @Value("${clicks.dedup.false-positive-rate:0.001}") double falsePositiveRate,
+                                   @Value("${clicks.segments.rows-per-segment:65536}") int segmentRows,
+                                   @Value("${clicks.segments.parallel-scan:true}") boolean parallelScan) {
+        this.segments = new ClickSegmentStore(segmentRows, parallelScan);
+        this.ingestor = new ClickStreamIngestor(this::store,
+                new RotatingBloomFilter(dedupGenerations, dedupCapacity, falsePositiveRate),
+                Clock.systemUTC(), maxOutOfOrderness, allowedLateness);
+    }
+
+    /** Ingests one live click. It is deduplicated only when the client supplied a click id. */
+    public ClickIngestResult ingest(ClickIngestRequest request, Instant occurredAt) {
+        ClickEvent event = ClickEvent.from(request, occurredAt);
+        boolean hasClickId = request.clickId() != null && !request.clickId().isBlank();
+        return new ClickIngestResult(ingestor.offer(event, hasClickId), event);
+    }
+
+    /** Ingests a batch of live clicks that all carry client-supplied click ids. */
+    public StreamIngestReport ingestStream(List<ClickEvent> events) {
+        return ingestor.offerAll(events);
+    }
+
+    public IngestStats ingestStats() {
+        return ingestor.stats();
     }
 
     public List<ClickEvent> seed(int count) {
@@ -46,7 +74,7 @@ public class ClickAggregationService {
                     Instant.now().minusSeconds(random.nextLong(0, 60 * 60 * 24)),
                     random.nextLong(5, 75)
             );
-            events.add(event);
+            store(event);
             created.add(event);
         }
 
@@ -54,73 +82,28 @@ public class ClickAggregationService {
     }
 
     public ClickOverview overview(Instant from, Instant to) {
-        List<ClickEvent> filtered = filter(from, to);
-        return new ClickOverview(
-                filtered.size(),
-                filtered.stream().mapToLong(ClickEvent::costCents).sum(),
-                filtered.stream().map(ClickEvent::adId).distinct().count(),
-                filtered.stream().map(ClickEvent::campaignId).distinct().count(),
-                filtered.stream().map(ClickEvent::publisherId).distinct().count()
-        );
-    }
-
-    public List<ClickSummary> summarize(GroupBy groupBy, Instant from, Instant to) {
-        Function<ClickEvent, String> keySelector = groupKey(groupBy);
-        Map<String, List<ClickEvent>> grouped = filter(from, to).stream()
-                .collect(Collectors.groupingBy(keySelector));
-
-        return grouped.entrySet().stream()
-                .map(entry -> {
-                    List<ClickEvent> groupEvents = entry.getValue();
-                    return new ClickSummary(
-                            entry.getKey(),
-                            groupEvents.size(),
-                            groupEvents.stream().mapToLong(ClickEvent::costCents).sum(),
-                            groupEvents.stream().map(ClickEvent::publisherId).distinct().count(),
-                            groupEvents.stream().map(ClickEvent::adId).distinct().count()
-                    );
-                })
-                .sorted(Comparator.comparingLong(ClickSummary::clicks).reversed())
-                .toList();
+        return rollups.overview(from, to);
     }
 
-    public List<TimeSeriesPoint> timeseries(GroupBy groupBy, BucketInterval interval, Instant from, Instant to) {
-        Function<ClickEvent, String> keySelector = groupKey(groupBy);
-        return filter(from, to).stream()
-                .collect(Collectors.groupingBy(event -> new TimeSeriesKey(
-                        keySelector.apply(event),
-                        event.occurredAt().truncatedTo(interval.chronoUnit())
-                )))
-                .entrySet().stream()
-                .map(entry -> {
-                    TimeSeriesKey key = entry.getKey();
-                    List<ClickEvent> groupEvents = entry.getValue();
-                    return new TimeSeriesPoint(
-                            key.groupKey(),
-                            key.bucketStart(),
-                            groupEvents.size(),
-                            groupEvents.stream().mapToLong(ClickEvent::costCents).sum()
-                    );
-                })
-                .sorted(Comparator.comparing(TimeSeriesPoint::bucketStart))
-                .toList();
+    public List<ClickSummary> summarize(GroupBy groupBy, Instant from, Instant to, QuerySource source) {
+        return source == QuerySource.SEGMENTS
+                ? segments.summarize(groupBy, from, to)
+                : rollups.summarize(groupBy, from, to);
     }
 
-    private List<ClickEvent> filter(Instant from, Instant to) {
-        return events.stream()
-                .filter(event -> from == null || !event.occurredAt().isBefore(from))
-                .filter(event -> to == null || event.occurredAt().isBefore(to))
-                .toList();
+    public List<TimeSeriesPoint> timeseries(GroupBy groupBy, BucketInterval interval, Instant from, Instant to,
+                                            QuerySource source) {
+        return source == QuerySource.SEGMENTS
+                ? segments.timeseries(groupBy, interval, from, to)
+                : rollups.timeseries(groupBy, interval, from, to);
     }
 
-    private Function<ClickEvent, String> groupKey(GroupBy groupBy) {
-        return switch (groupBy) {
-            case AD -> ClickEvent::adId;
-            case CAMPAIGN -> ClickEvent::campaignId;
-            case PUBLISHER -> ClickEvent::publisherId;
-        };
+    public SegmentStoreStats storageStats() {
+        return segments.stats();
     }
 
-    private record TimeSeriesKey(String groupKey, Instant bucketStart) {
+    private void store(ClickEvent event) {
+        rollups.add(event);
+        segments.add(event);
     }
 }
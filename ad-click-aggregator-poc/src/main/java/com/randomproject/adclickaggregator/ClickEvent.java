@@ -1,6 +1,7 @@
 package com.randomproject.adclickaggregator;
 
 import java.time.Instant;
+import java.util.UUID;
 
 public record ClickEvent(
         String id,
@@ -10,4 +11,12 @@ public record ClickEvent(
         Instant occurredAt,
         long costCents
 ) {
+    /** Event for {@code request}; a client-supplied click id becomes the event id, otherwise one is generated. */
+    public static ClickEvent from(ClickIngestRequest request, Instant occurredAt) {
+        String id = request.clickId() == null || request.clickId().isBlank()
+                ? UUID.randomUUID().toString()
+                : request.clickId();
+        return new ClickEvent(id, request.adId(), request.campaignId(), request.publisherId(), occurredAt,
+                request.costCents());
+    }
 }
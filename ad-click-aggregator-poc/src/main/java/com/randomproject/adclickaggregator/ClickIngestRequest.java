@@ -2,12 +2,14 @@ package com.randomproject.adclickaggregator;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 public record ClickIngestRequest(
         @NotBlank String adId,
         @NotBlank String campaignId,
         @NotBlank String publisherId,
         String occurredAt,
-        @PositiveOrZero long costCents
+        @PositiveOrZero long costCents,
+        @Size(max = 128) String clickId
 ) {
 }
@@ -0,0 +1,7 @@
+package com.randomproject.adclickaggregator;
+
+public record ClickIngestResult(
+        IngestOutcome outcome,
+        ClickEvent event
+) {
+}
@@ -0,0 +1,130 @@
+package com.randomproject.adclickaggregator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Incremental click rollups at minute, hour and day granularity.
+ *
+ * <p>Each click is added to its minute, hour and day bucket, so every level is complete on its own and an hour or
+ * day bucket equals the merge of the minute buckets it spans. A query covers its range with the widest buckets that
+ * fit: whole days in the middle, whole hours next to them, and minutes only at the ragged edges. Its cost therefore
+ * grows with the number of buckets touched, not with the number of clicks. Ranges snap outward to whole minutes:
+ * {@code from} rounds down and {@code to} rounds up.
+ */
+class ClickRollupStore {
+    private final Map<BucketInterval, ConcurrentSkipListMap<Long, RollupBucket>> levels =
+            new EnumMap<>(BucketInterval.class);
+
+    ClickRollupStore() {
+        for (BucketInterval interval : BucketInterval.values()) {
+            levels.put(interval, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    void add(ClickEvent event) {
+        long millis = event.occurredAt().toEpochMilli();
+        for (BucketInterval interval : BucketInterval.values()) {
+            levels.get(interval)
+                    .computeIfAbsent(interval.floor(millis), ignored -> new RollupBucket())
+                    .add(event);
+        }
+    }
+
+    int bucketCount(BucketInterval interval) {
+        return levels.get(interval).size();
+    }
+
+    ClickOverview overview(Instant from, Instant to) {
+        RollupBucket.OverviewTotals totals = new RollupBucket.OverviewTotals();
+        cover(from, to, BucketInterval.DAY, (start, bucket) -> bucket.mergeInto(totals));
+        return new ClickOverview(
+                totals.clicks,
+                totals.spendCents,
+                totals.ads.estimate(),
+                totals.campaigns.estimate(),
+                totals.publishers.estimate()
+        );
+    }
+
+    List<ClickSummary> summarize(GroupBy groupBy, Instant from, Instant to) {
+        Map<String, RollupBucket.GroupTotals> totals = new HashMap<>();
+        cover(from, to, BucketInterval.DAY, (start, bucket) -> bucket.mergeInto(groupBy, totals));
+        List<ClickSummary> summaries = new ArrayList<>(totals.size());
+        totals.forEach((key, group) -> summaries.add(new ClickSummary(
+                key,
+                group.clicks,
+                group.spendCents,
+                group.publishers.estimate(),
+                group.ads.estimate()
+        )));
+        summaries.sort(Comparator.comparingLong(ClickSummary::clicks).reversed());
+        return summaries;
+    }
+
+    List<TimeSeriesPoint> timeseries(GroupBy groupBy, BucketInterval interval, Instant from, Instant to) {
+        Map<PointKey, long[]> points = new HashMap<>();
+        // Buckets no wider than the interval never straddle two points.
+        cover(from, to, interval, (start, bucket) -> {
+            long pointStart = interval.floor(start);
+            bucket.forEachGroup(groupBy, (groupKey, clicks, spendCents) -> {
+                long[] point = points.computeIfAbsent(new PointKey(groupKey, pointStart), ignored -> new long[2]);
+                point[0] += clicks;
+                point[1] += spendCents;
+            });
+        });
+        List<TimeSeriesPoint> series = new ArrayList<>(points.size());
+        points.forEach((key, point) -> series.add(
+                new TimeSeriesPoint(key.groupKey(), Instant.ofEpochMilli(key.startMillis()), point[0], point[1])));
+        series.sort(Comparator.comparing(TimeSeriesPoint::bucketStart));
+        return series;
+    }
+
+    /**
+     * Visits buckets that exactly tile {@code [from, to)}, none wider than {@code widest}. Open ends default to the
+     * oldest and newest minute stored.
+     */
+    void cover(Instant from, Instant to, BucketInterval widest, BucketVisitor visitor) {
+        ConcurrentSkipListMap<Long, RollupBucket> minutes = levels.get(BucketInterval.MINUTE);
+        if (minutes.isEmpty()) {
+            return;
+        }
+        long minute = BucketInterval.MINUTE.millis();
+        long start = from == null ? minutes.firstKey() : BucketInterval.MINUTE.floor(from.toEpochMilli());
+        long end = to == null
+                ? minutes.lastKey() + minute
+                : BucketInterval.MINUTE.floor(to.toEpochMilli() + minute - 1);
+        long t = start;
+        while (t < end) {
+            BucketInterval level = BucketInterval.MINUTE;
+            for (BucketInterval candidate : BucketInterval.values()) {
+                if (candidate.compareTo(widest) <= 0 && candidate.floor(t) == t && t + candidate.millis() <= end) {
+                    level = candidate;
+                }
+            }
+            long segmentEnd = level.floor(end);
+            if (level != widest) {
+                // Step back up to the next wider level as soon as its boundary is reached.
+                BucketInterval wider = BucketInterval.values()[level.ordinal() + 1];
+                segmentEnd = Math.min(segmentEnd, wider.floor(t) + wider.millis());
+            }
+            for (Map.Entry<Long, RollupBucket> entry : levels.get(level).subMap(t, segmentEnd).entrySet()) {
+                visitor.visit(entry.getKey(), entry.getValue());
+            }
+            t = segmentEnd;
+        }
+    }
+
+    interface BucketVisitor {
+        void visit(long startMillis, RollupBucket bucket);
+    }
+
+    private record PointKey(String groupKey, long startMillis) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.randomproject.adclickaggregator;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, column-oriented block of clicks.
+ *
+ * <p>Each click is one row across five primitive columns: its time as an {@code int} millisecond offset from the
+ * segment's base time, the dictionary codes of its ad, campaign and publisher, and its cost. That is 24 bytes per
+ * click, against a couple of hundred for a {@link ClickEvent} with its id and time objects. Click ids are not kept;
+ * deduplication happens before a click is stored. A segment holds clicks within about 24 days of its first click,
+ * the reach of an {@code int} offset; {@link Builder#fits} tells the store when to start a new one.
+ *
+ * <p>Columns may be longer than {@link #rows()}; every scan is bounded by the row count, never the array length.
+ */
+final class ClickSegment {
+    private final int rows;
+    private final long baseMillis;
+    private final long minMillis;
+    private final long maxMillis;
+    private final int[] offsets;
+    private final int[] ads;
+    private final int[] campaigns;
+    private final int[] publishers;
+    private final long[] costCents;
+
+    private ClickSegment(Builder builder, int[] offsets, int[] ads, int[] campaigns, int[] publishers,
+                         long[] costCents) {
+        this.rows = builder.rows;
+        this.baseMillis = builder.baseMillis;
+        this.minMillis = builder.minMillis;
+        this.maxMillis = builder.maxMillis;
+        this.offsets = offsets;
+        this.ads = ads;
+        this.campaigns = campaigns;
+        this.publishers = publishers;
+        this.costCents = costCents;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    long baseMillis() {
+        return baseMillis;
+    }
+
+    long minMillis() {
+        return minMillis;
+    }
+
+    long maxMillis() {
+        return maxMillis;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] ads() {
+        return ads;
+    }
+
+    int[] publishers() {
+        return publishers;
+    }
+
+    long[] costCents() {
+        return costCents;
+    }
+
+    int[] codes(GroupBy groupBy) {
+        return switch (groupBy) {
+            case AD -> ads;
+            case CAMPAIGN -> campaigns;
+            case PUBLISHER -> publishers;
+        };
+    }
+
+    long memoryBytes() {
+        return 5 * 16 + 64 + rows * 24L;
+    }
+
+    /** Mutable tail of the store. Columns grow by doubling up to the segment size. */
+    static final class Builder {
+        private final int capacity;
+        private int rows;
+        private long baseMillis;
+        private long minMillis = Long.MAX_VALUE;
+        private long maxMillis = Long.MIN_VALUE;
+        private int[] offsets;
+        private int[] ads;
+        private int[] campaigns;
+        private int[] publishers;
+        private long[] costCents;
+
+        Builder(int capacity) {
+            this.capacity = capacity;
+            int initial = Math.min(capacity, 1024);
+            this.offsets = new int[initial];
+            this.ads = new int[initial];
+            this.campaigns = new int[initial];
+            this.publishers = new int[initial];
+            this.costCents = new long[initial];
+        }
+
+        int rows() {
+            return rows;
+        }
+
+        boolean isFull() {
+            return rows == capacity;
+        }
+
+        /** Whether a click at {@code millis} is within {@code int} offset reach of this segment's base time. */
+        boolean fits(long millis) {
+            if (rows == 0) {
+                return true;
+            }
+            long offset = millis - baseMillis;
+            return offset >= Integer.MIN_VALUE && offset < Integer.MAX_VALUE;
+        }
+
+        void append(long millis, int ad, int campaign, int publisher, long cost) {
+            if (rows == 0) {
+                baseMillis = millis;
+            }
+            if (rows == offsets.length) {
+                int grown = Math.min(capacity, rows * 2);
+                offsets = Arrays.copyOf(offsets, grown);
+                ads = Arrays.copyOf(ads, grown);
+                campaigns = Arrays.copyOf(campaigns, grown);
+                publishers = Arrays.copyOf(publishers, grown);
+                costCents = Arrays.copyOf(costCents, grown);
+            }
+            offsets[rows] = (int) (millis - baseMillis);
+            ads[rows] = ad;
+            campaigns[rows] = campaign;
+            publishers[rows] = publisher;
+            costCents[rows] = cost;
+            minMillis = Math.min(minMillis, millis);
+            maxMillis = Math.max(maxMillis, millis);
+            rows++;
+        }
+
+        long memoryBytes() {
+            return 5 * 16 + 64 + offsets.length * 24L;
+        }
+
+        /**
+         * Segment over the rows appended so far that shares the columns instead of copying them. Slots below
+         * {@code rows} are never written again and growth copies into new arrays, so later appends do not show
+         * through. The builder stays usable.
+         */
+        ClickSegment view() {
+            return new ClickSegment(this, offsets, ads, campaigns, publishers, costCents);
+        }
+
+        /** Segment over the rows appended so far, with the columns trimmed to size. The builder stays usable. */
+        ClickSegment build() {
+            if (rows == offsets.length) {
+                return view();
+            }
+            return new ClickSegment(this, Arrays.copyOf(offsets, rows), Arrays.copyOf(ads, rows),
+                    Arrays.copyOf(campaigns, rows), Arrays.copyOf(publishers, rows), Arrays.copyOf(costCents, rows));
+        }
+    }
+}
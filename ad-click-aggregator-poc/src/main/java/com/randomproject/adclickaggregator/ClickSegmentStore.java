@@ -0,0 +1,318 @@
+package com.randomproject.adclickaggregator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Every stored click, kept column-wise in {@link ClickSegment}s for exact historical queries.
+ *
+ * <p>Ad, campaign and publisher ids are dictionary-encoded once per store. Clicks append to an active segment that
+ * is sealed into an immutable one every {@code segmentRows} clicks. A query takes a snapshot of the sealed
+ * segments plus a view of the active tail that shares its columns up to the row count at snapshot time, so the
+ * store lock is held for O(segments) rather than a copy of up to {@code segmentRows} rows. It then scans each segment with a primitive loop over its columns,
+ * skipping segments whose time span misses the range. With {@code parallelScan} the segments are scanned on the
+ * common fork-join pool and the partial results merged. Unlike the rollups, ranges are exact to the millisecond.
+ */
+class ClickSegmentStore {
+    static final int DEFAULT_SEGMENT_ROWS = 1 << 16;
+
+    private final int segmentRows;
+    private final boolean parallelScan;
+    private final Map<GroupBy, IdDictionary> dictionaries = new EnumMap<>(GroupBy.class);
+    private final List<ClickSegment> sealed = new ArrayList<>();
+    private ClickSegment.Builder active;
+
+    ClickSegmentStore(int segmentRows, boolean parallelScan) {
+        if (segmentRows < 1) {
+            throw new IllegalArgumentException("segmentRows must be positive");
+        }
+        this.segmentRows = segmentRows;
+        this.parallelScan = parallelScan;
+        this.active = new ClickSegment.Builder(segmentRows);
+        for (GroupBy groupBy : GroupBy.values()) {
+            dictionaries.put(groupBy, new IdDictionary());
+        }
+    }
+
+    synchronized void add(ClickEvent event) {
+        long millis = event.occurredAt().toEpochMilli();
+        if (active.isFull() || !active.fits(millis)) {
+            seal();
+        }
+        active.append(millis,
+                dictionaries.get(GroupBy.AD).encode(event.adId()),
+                dictionaries.get(GroupBy.CAMPAIGN).encode(event.campaignId()),
+                dictionaries.get(GroupBy.PUBLISHER).encode(event.publisherId()),
+                event.costCents());
+    }
+
+    List<ClickSummary> summarize(GroupBy groupBy, Instant from, Instant to) {
+        Snapshot snapshot = snapshot();
+        IdDictionary.View keys = snapshot.dictionaries().get(groupBy);
+        long[] adHashes = snapshot.dictionaries().get(GroupBy.AD).hashes();
+        long[] publisherHashes = snapshot.dictionaries().get(GroupBy.PUBLISHER).hashes();
+        long fromMillis = fromMillis(from);
+        long toMillis = toMillis(to);
+        GroupScan scan = segments(snapshot).collect(() -> new GroupScan(keys.size()),
+                (partial, segment) -> partial.scan(segment, groupBy, fromMillis, toMillis, adHashes, publisherHashes),
+                GroupScan::merge);
+
+        List<ClickSummary> summaries = new ArrayList<>();
+        for (int code = 0; code < keys.size(); code++) {
+            if (scan.clicks[code] > 0) {
+                summaries.add(new ClickSummary(
+                        keys.values()[code],
+                        scan.clicks[code],
+                        scan.spendCents[code],
+                        scan.publishers[code].estimate(),
+                        scan.ads[code].estimate()
+                ));
+            }
+        }
+        summaries.sort(Comparator.comparingLong(ClickSummary::clicks).reversed());
+        return summaries;
+    }
+
+    List<TimeSeriesPoint> timeseries(GroupBy groupBy, BucketInterval interval, Instant from, Instant to) {
+        Snapshot snapshot = snapshot();
+        IdDictionary.View keys = snapshot.dictionaries().get(groupBy);
+        int groups = Math.max(1, keys.size());
+        long intervalMillis = interval.millis();
+        long fromMillis = fromMillis(from);
+        long toMillis = toMillis(to);
+        PointTable table = segments(snapshot).collect(PointTable::new,
+                (partial, segment) -> partial.scan(segment, groupBy, intervalMillis, groups, fromMillis, toMillis),
+                PointTable::merge);
+
+        List<TimeSeriesPoint> series = new ArrayList<>(table.size);
+        table.forEach((key, clicks, spendCents) -> series.add(new TimeSeriesPoint(
+                keys.values()[Math.floorMod(key, groups)],
+                Instant.ofEpochMilli(Math.floorDiv(key, groups) * intervalMillis),
+                clicks,
+                spendCents
+        )));
+        series.sort(Comparator.comparing(TimeSeriesPoint::bucketStart));
+        return series;
+    }
+
+    synchronized SegmentStoreStats stats() {
+        long clicks = active.rows();
+        long bytes = active.memoryBytes();
+        for (ClickSegment segment : sealed) {
+            clicks += segment.rows();
+            bytes += segment.memoryBytes();
+        }
+        for (IdDictionary dictionary : dictionaries.values()) {
+            bytes += dictionary.memoryBytes();
+        }
+        return new SegmentStoreStats(
+                sealed.size(),
+                clicks,
+                dictionaries.get(GroupBy.AD).size(),
+                dictionaries.get(GroupBy.CAMPAIGN).size(),
+                dictionaries.get(GroupBy.PUBLISHER).size(),
+                bytes,
+                clicks == 0 ? 0 : (double) bytes / clicks
+        );
+    }
+
+    private void seal() {
+        if (active.rows() > 0) {
+            sealed.add(active.build());
+            active = new ClickSegment.Builder(segmentRows);
+        }
+    }
+
+    private synchronized Snapshot snapshot() {
+        List<ClickSegment> segments = new ArrayList<>(sealed.size() + 1);
+        segments.addAll(sealed);
+        if (active.rows() > 0) {
+            segments.add(active.view());
+        }
+        Map<GroupBy, IdDictionary.View> views = new EnumMap<>(GroupBy.class);
+        dictionaries.forEach((groupBy, dictionary) -> views.put(groupBy, dictionary.view()));
+        return new Snapshot(segments, views);
+    }
+
+    private Stream<ClickSegment> segments(Snapshot snapshot) {
+        return parallelScan ? snapshot.segments().parallelStream() : snapshot.segments().stream();
+    }
+
+    private static long fromMillis(Instant from) {
+        return from == null ? Long.MIN_VALUE : from.toEpochMilli();
+    }
+
+    private static long toMillis(Instant to) {
+        return to == null ? Long.MAX_VALUE : to.toEpochMilli();
+    }
+
+    /** Offsets {@code [lo, hi)} of the segment's rows inside {@code [from, to)}, or null if there are none. */
+    private static int[] offsetRange(ClickSegment segment, long from, long to) {
+        long lo = Math.max(from, segment.minMillis());
+        long hi = Math.min(to, segment.maxMillis() + 1);
+        if (lo >= hi) {
+            return null;
+        }
+        return new int[] {(int) (lo - segment.baseMillis()), (int) (hi - segment.baseMillis())};
+    }
+
+    private record Snapshot(List<ClickSegment> segments, Map<GroupBy, IdDictionary.View> dictionaries) {
+    }
+
+    /** Per-group totals indexed by dictionary code. */
+    private static final class GroupScan {
+        private final long[] clicks;
+        private final long[] spendCents;
+        private final HyperLogLog[] ads;
+        private final HyperLogLog[] publishers;
+
+        private GroupScan(int groups) {
+            this.clicks = new long[groups];
+            this.spendCents = new long[groups];
+            this.ads = new HyperLogLog[groups];
+            this.publishers = new HyperLogLog[groups];
+        }
+
+        private void scan(ClickSegment segment, GroupBy groupBy, long from, long to, long[] adHashes,
+                          long[] publisherHashes) {
+            int[] range = offsetRange(segment, from, to);
+            if (range == null) {
+                return;
+            }
+            int lo = range[0];
+            int hi = range[1];
+            int[] offsets = segment.offsets();
+            int[] keys = segment.codes(groupBy);
+            int[] adCodes = segment.ads();
+            int[] publisherCodes = segment.publishers();
+            long[] costs = segment.costCents();
+            for (int i = 0; i < segment.rows(); i++) {
+                int offset = offsets[i];
+                if (offset < lo || offset >= hi) {
+                    continue;
+                }
+                int key = keys[i];
+                clicks[key]++;
+                spendCents[key] += costs[i];
+                sketch(ads, key).addHash(adHashes[adCodes[i]]);
+                sketch(publishers, key).addHash(publisherHashes[publisherCodes[i]]);
+            }
+        }
+
+        private void merge(GroupScan other) {
+            for (int key = 0; key < clicks.length; key++) {
+                if (other.clicks[key] == 0) {
+                    continue;
+                }
+                clicks[key] += other.clicks[key];
+                spendCents[key] += other.spendCents[key];
+                sketch(ads, key).merge(other.ads[key]);
+                sketch(publishers, key).merge(other.publishers[key]);
+            }
+        }
+
+        private static HyperLogLog sketch(HyperLogLog[] sketches, int key) {
+            HyperLogLog sketch = sketches[key];
+            if (sketch == null) {
+                sketch = new HyperLogLog();
+                sketches[key] = sketch;
+            }
+            return sketch;
+        }
+    }
+
+    /**
+     * Click and spend totals keyed by {@code period * groups + groupCode}, in an open-addressing table of primitive
+     * arrays so the scan loop does not box a key per row.
+     */
+    private static final class PointTable {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = emptyKeys(64);
+        private long[] clicks = new long[64];
+        private long[] spendCents = new long[64];
+        private int size;
+
+        private void scan(ClickSegment segment, GroupBy groupBy, long intervalMillis, int groups, long from,
+                          long to) {
+            int[] range = offsetRange(segment, from, to);
+            if (range == null) {
+                return;
+            }
+            int lo = range[0];
+            int hi = range[1];
+            long base = segment.baseMillis();
+            int[] offsets = segment.offsets();
+            int[] codes = segment.codes(groupBy);
+            long[] costs = segment.costCents();
+            for (int i = 0; i < segment.rows(); i++) {
+                int offset = offsets[i];
+                if (offset < lo || offset >= hi) {
+                    continue;
+                }
+                long period = Math.floorDiv(base + offset, intervalMillis);
+                add(period * groups + codes[i], 1, costs[i]);
+            }
+        }
+
+        private void add(long key, long clickCount, long spend) {
+            int mask = keys.length - 1;
+            int slot = (int) Hashing.fmix64(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            clicks[slot] += clickCount;
+            spendCents[slot] += spend;
+            if (size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        private void merge(PointTable other) {
+            other.forEach(this::add);
+        }
+
+        private void forEach(PointVisitor visitor) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    visitor.visit(keys[slot], clicks[slot], spendCents[slot]);
+                }
+            }
+        }
+
+        private void resize() {
+            long[] previousKeys = keys;
+            long[] previousClicks = clicks;
+            long[] previousSpend = spendCents;
+            keys = emptyKeys(previousKeys.length * 2);
+            clicks = new long[previousKeys.length * 2];
+            spendCents = new long[previousKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < previousKeys.length; slot++) {
+                if (previousKeys[slot] != EMPTY) {
+                    add(previousKeys[slot], previousClicks[slot], previousSpend[slot]);
+                }
+            }
+        }
+
+        private static long[] emptyKeys(int length) {
+            long[] keys = new long[length];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+
+    private interface PointVisitor {
+        void visit(long key, long clicks, long spendCents);
+    }
+}
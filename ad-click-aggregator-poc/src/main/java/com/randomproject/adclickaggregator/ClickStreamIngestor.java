@@ -0,0 +1,111 @@
+package com.randomproject.adclickaggregator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Exactly-once, event-time ingest in front of the rollups.
+ *
+ * <p>The watermark trails the newest event time seen by {@code maxOutOfOrderness}; event times past the wall clock
+ * do not advance it, so one skewed client cannot close every open bucket. A click older than the watermark is late.
+ * It is still added while within {@code allowedLateness} of the watermark; older clicks are dropped to a side
+ * output (counters plus the most recent few) instead of changing numbers that may already have been served. So
+ * minute buckets that end before {@code watermark - allowedLateness} are final.
+ *
+ * <p>Clicks carrying an id are deduplicated through a {@link RotatingBloomFilter}. The lateness check, the
+ * dedup check and the rollup update run under one lock, so no click is counted twice or lands in a finalized
+ * bucket, even when batches race.
+ */
+class ClickStreamIngestor {
+    private static final int RECENT_TOO_LATE = 100;
+
+    private final Consumer<ClickEvent> sink;
+    private final RotatingBloomFilter seen;
+    private final Clock clock;
+    private final long maxOutOfOrdernessMillis;
+    private final long allowedLatenessMillis;
+    private final Deque<ClickEvent> recentTooLate = new ArrayDeque<>();
+    private long maxEventMillis = Long.MIN_VALUE;
+    private long accepted;
+    private long lateAccepted;
+    private long duplicates;
+    private long tooLate;
+
+    ClickStreamIngestor(Consumer<ClickEvent> sink, RotatingBloomFilter seen, Clock clock,
+                        Duration maxOutOfOrderness, Duration allowedLateness) {
+        this.sink = sink;
+        this.seen = seen;
+        this.clock = clock;
+        this.maxOutOfOrdernessMillis = maxOutOfOrderness.toMillis();
+        this.allowedLatenessMillis = allowedLateness.toMillis();
+    }
+
+    synchronized IngestOutcome offer(ClickEvent event, boolean deduplicate) {
+        long eventMillis = event.occurredAt().toEpochMilli();
+        long watermark = watermarkMillis();
+        if (watermark != Long.MIN_VALUE && eventMillis < watermark - allowedLatenessMillis) {
+            tooLate++;
+            recentTooLate.addLast(event);
+            if (recentTooLate.size() > RECENT_TOO_LATE) {
+                recentTooLate.removeFirst();
+            }
+            return IngestOutcome.TOO_LATE;
+        }
+        if (deduplicate && !seen.add(event.id())) {
+            duplicates++;
+            return IngestOutcome.DUPLICATE;
+        }
+        sink.accept(event);
+        accepted++;
+        maxEventMillis = Math.max(maxEventMillis, Math.min(eventMillis, clock.millis()));
+        if (eventMillis < watermark) {
+            lateAccepted++;
+            return IngestOutcome.LATE_ACCEPTED;
+        }
+        return IngestOutcome.ACCEPTED;
+    }
+
+    synchronized StreamIngestReport offerAll(List<ClickEvent> events) {
+        int[] counts = new int[IngestOutcome.values().length];
+        for (ClickEvent event : events) {
+            counts[offer(event, true).ordinal()]++;
+        }
+        return new StreamIngestReport(
+                counts[IngestOutcome.ACCEPTED.ordinal()] + counts[IngestOutcome.LATE_ACCEPTED.ordinal()],
+                counts[IngestOutcome.LATE_ACCEPTED.ordinal()],
+                counts[IngestOutcome.DUPLICATE.ordinal()],
+                counts[IngestOutcome.TOO_LATE.ordinal()],
+                watermark(),
+                finalizedThrough()
+        );
+    }
+
+    synchronized IngestStats stats() {
+        return new IngestStats(accepted, lateAccepted, duplicates, tooLate, watermark(), finalizedThrough(),
+                seen.guaranteedWindow(), seen.memoryBytes(), new ArrayList<>(recentTooLate));
+    }
+
+    private long watermarkMillis() {
+        return maxEventMillis == Long.MIN_VALUE ? Long.MIN_VALUE : maxEventMillis - maxOutOfOrdernessMillis;
+    }
+
+    private Instant watermark() {
+        long watermark = watermarkMillis();
+        return watermark == Long.MIN_VALUE ? null : Instant.ofEpochMilli(watermark);
+    }
+
+    /** End of the last minute bucket that can no longer change, or null before the first event. */
+    private Instant finalizedThrough() {
+        long watermark = watermarkMillis();
+        if (watermark == Long.MIN_VALUE) {
+            return null;
+        }
+        return Instant.ofEpochMilli(BucketInterval.MINUTE.floor(watermark - allowedLatenessMillis));
+    }
+}
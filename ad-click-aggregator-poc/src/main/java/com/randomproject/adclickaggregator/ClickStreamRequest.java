@@ -0,0 +1,12 @@
+package com.randomproject.adclickaggregator;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ClickStreamRequest(
+        @NotEmpty @Size(max = 5000) List<@Valid ClickIngestRequest> clicks
+) {
+}
@@ -5,6 +5,14 @@ public enum GroupBy {
     CAMPAIGN,
     PUBLISHER;
 
+    public String keyOf(ClickEvent event) {
+        return switch (this) {
+            case AD -> event.adId();
+            case CAMPAIGN -> event.campaignId();
+            case PUBLISHER -> event.publisherId();
+        };
+    }
+
     public static GroupBy from(String raw) {
         if (raw == null || raw.isBlank()) {
             return CAMPAIGN;
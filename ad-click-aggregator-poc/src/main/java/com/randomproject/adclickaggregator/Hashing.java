@@ -0,0 +1,25 @@
+package com.randomproject.adclickaggregator;
+
+/** 64-bit string hashing shared by the distinct-count sketches and the dedup filter. */
+final class Hashing {
+    private Hashing() {
+    }
+
+    /** 64-bit FNV-1a over the string's chars, finished with the MurmurHash3 fmix64 avalanche. */
+    static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return fmix64(h);
+    }
+
+    static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
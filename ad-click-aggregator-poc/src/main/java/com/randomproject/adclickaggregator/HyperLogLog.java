@@ -0,0 +1,114 @@
+package com.randomproject.adclickaggregator;
+
+/**
+ * HyperLogLog distinct-count sketch with 2^12 registers (about 1.6% standard error).
+ *
+ * <p>Small sets stay sparse: up to {@value #SPARSE_LIMIT} distinct 64-bit hashes are kept in an open-addressing
+ * table and counted exactly, which keeps per-minute, per-group sketches a few hundred bytes instead of 4 KB. Past
+ * that the sketch switches to dense registers. Sketches merge without loss, so rollups can combine them across
+ * buckets. Not thread-safe; callers guard each sketch with the lock of the bucket that owns it.
+ */
+public final class HyperLogLog {
+    private static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final int SPARSE_LIMIT = 128;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private long[] sparse = new long[8];
+    private int sparseSize;
+    private byte[] registers;
+
+    public void add(String value) {
+        addHash(Hashing.hash64(value));
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.registers == null) {
+            for (long hash : other.sparse) {
+                if (hash != 0) {
+                    addHash(hash);
+                }
+            }
+            return;
+        }
+        densify();
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        if (registers == null) {
+            return sparseSize;
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /** Adds a value by its {@link Hashing#hash64} hash, for callers that cache hashes of repeated values. */
+    void addHash(long hash) {
+        if (registers != null) {
+            int index = (int) (hash >>> (64 - PRECISION));
+            byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+            if (rank > registers[index]) {
+                registers[index] = rank;
+            }
+            return;
+        }
+        // 0 marks an empty slot, so a zero hash is stored as 1.
+        long stored = hash == 0 ? 1 : hash;
+        int mask = sparse.length - 1;
+        int slot = (int) (stored ^ (stored >>> 32)) & mask;
+        while (sparse[slot] != 0) {
+            if (sparse[slot] == stored) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        sparse[slot] = stored;
+        sparseSize++;
+        if (sparseSize > SPARSE_LIMIT) {
+            densify();
+        } else if (sparseSize * 2 > sparse.length) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        long[] previous = sparse;
+        sparse = new long[previous.length * 2];
+        sparseSize = 0;
+        for (long hash : previous) {
+            if (hash != 0) {
+                addHash(hash);
+            }
+        }
+    }
+
+    private void densify() {
+        if (registers != null) {
+            return;
+        }
+        long[] previous = sparse;
+        registers = new byte[REGISTERS];
+        sparse = null;
+        for (long hash : previous) {
+            if (hash != 0) {
+                addHash(hash);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.randomproject.adclickaggregator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only dictionary that maps an id string to a dense {@code int} code, so segments store each repeated ad,
+ * campaign or publisher id once instead of once per click. The {@link Hashing#hash64} of every value is cached
+ * next to it for the distinct-count sketches. Codes never change once assigned. Not thread-safe; the owning
+ * {@link ClickSegmentStore} guards writes and hands readers an immutable {@link View}.
+ */
+final class IdDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private long[] hashes = new long[16];
+    private int size;
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        values[size] = value;
+        hashes[size] = Hashing.hash64(value);
+        codes.put(value, size);
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Codes assigned so far. Slots below {@code size} are never written again, so the view shares the arrays
+     * rather than copying them.
+     */
+    View view() {
+        return new View(values, hashes, size);
+    }
+
+    long memoryBytes() {
+        long bytes = 16L * values.length;
+        for (int i = 0; i < size; i++) {
+            // String header and value array, plus a HashMap node and a boxed code.
+            bytes += 40 + values[i].length() + 64;
+        }
+        return bytes;
+    }
+
+    record View(String[] values, long[] hashes, int size) {
+    }
+}
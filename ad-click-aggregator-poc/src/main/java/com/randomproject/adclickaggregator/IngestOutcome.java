@@ -0,0 +1,8 @@
+package com.randomproject.adclickaggregator;
+
+public enum IngestOutcome {
+    ACCEPTED,
+    LATE_ACCEPTED,
+    DUPLICATE,
+    TOO_LATE
+}
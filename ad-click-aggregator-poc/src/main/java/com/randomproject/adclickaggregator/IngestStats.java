@@ -0,0 +1,17 @@
+package com.randomproject.adclickaggregator;
+
+import java.time.Instant;
+import java.util.List;
+
+public record IngestStats(
+        long accepted,
+        long lateAccepted,
+        long duplicates,
+        long tooLate,
+        Instant watermark,
+        Instant finalizedThrough,
+        long dedupWindow,
+        long dedupMemoryBytes,
+        List<ClickEvent> recentTooLate
+) {
+}
@@ -0,0 +1,16 @@
+package com.randomproject.adclickaggregator;
+
+/** Where summary and time-series queries read from. */
+public enum QuerySource {
+    /** Pre-aggregated minute, hour and day buckets; ranges snap outward to whole minutes. */
+    ROLLUPS,
+    /** Columnar click segments; ranges are exact to the millisecond, at the cost of scanning every click in range. */
+    SEGMENTS;
+
+    public static QuerySource from(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return ROLLUPS;
+        }
+        return QuerySource.valueOf(raw.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,85 @@
+package com.randomproject.adclickaggregator;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-aggregated clicks for one time bucket: overall totals and distinct-count sketches, plus per-value totals for
+ * every {@link GroupBy} dimension. Writers and readers synchronize on the bucket, so a reader merges a consistent
+ * view of it.
+ */
+class RollupBucket {
+    private long clicks;
+    private long spendCents;
+    private final HyperLogLog ads = new HyperLogLog();
+    private final HyperLogLog campaigns = new HyperLogLog();
+    private final HyperLogLog publishers = new HyperLogLog();
+    private final Map<GroupBy, Map<String, GroupTotals>> groups = new EnumMap<>(GroupBy.class);
+
+    RollupBucket() {
+        for (GroupBy groupBy : GroupBy.values()) {
+            groups.put(groupBy, new HashMap<>());
+        }
+    }
+
+    synchronized void add(ClickEvent event) {
+        clicks++;
+        spendCents += event.costCents();
+        ads.add(event.adId());
+        campaigns.add(event.campaignId());
+        publishers.add(event.publisherId());
+        for (GroupBy groupBy : GroupBy.values()) {
+            groups.get(groupBy).computeIfAbsent(groupBy.keyOf(event), ignored -> new GroupTotals()).add(event);
+        }
+    }
+
+    synchronized void mergeInto(OverviewTotals totals) {
+        totals.clicks += clicks;
+        totals.spendCents += spendCents;
+        totals.ads.merge(ads);
+        totals.campaigns.merge(campaigns);
+        totals.publishers.merge(publishers);
+    }
+
+    synchronized void mergeInto(GroupBy groupBy, Map<String, GroupTotals> totals) {
+        groups.get(groupBy).forEach((key, group) -> totals.computeIfAbsent(key, ignored -> new GroupTotals()).merge(group));
+    }
+
+    synchronized void forEachGroup(GroupBy groupBy, GroupVisitor visitor) {
+        groups.get(groupBy).forEach((key, group) -> visitor.visit(key, group.clicks, group.spendCents));
+    }
+
+    interface GroupVisitor {
+        void visit(String groupKey, long clicks, long spendCents);
+    }
+
+    static final class OverviewTotals {
+        long clicks;
+        long spendCents;
+        final HyperLogLog ads = new HyperLogLog();
+        final HyperLogLog campaigns = new HyperLogLog();
+        final HyperLogLog publishers = new HyperLogLog();
+    }
+
+    static final class GroupTotals {
+        long clicks;
+        long spendCents;
+        final HyperLogLog ads = new HyperLogLog();
+        final HyperLogLog publishers = new HyperLogLog();
+
+        private void add(ClickEvent event) {
+            clicks++;
+            spendCents += event.costCents();
+            ads.add(event.adId());
+            publishers.add(event.publisherId());
+        }
+
+        private void merge(GroupTotals other) {
+            clicks += other.clicks;
+            spendCents += other.spendCents;
+            ads.merge(other.ads);
+            publishers.merge(other.publishers);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.randomproject.adclickaggregator;
+
+import java.util.Arrays;
+
+/**
+ * Bounded-memory "seen before" check for click ids.
+ *
+ * <p>Ids go into the newest of {@code generations} Bloom filters, each sized for {@code capacity} ids at the
+ * configured false-positive rate. When the newest filter is full, the oldest is cleared and becomes the newest.
+ * An id is therefore remembered for at least {@code (generations - 1) * capacity} later ids, and memory stays
+ * fixed however long the stream runs. A false positive rejects a new click as a duplicate; that is the safe side
+ * for billing, since a click is never counted twice. Not thread-safe.
+ */
+class RotatingBloomFilter {
+    private final long[][] filters;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+    private int newest;
+    private long newestCount;
+
+    RotatingBloomFilter(int generations, long capacity, double falsePositiveRate) {
+        if (generations < 2 || capacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("need at least 2 generations, capacity > 0 and a rate in (0, 1)");
+        }
+        double optimalBits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long words = Math.max(1, (long) Math.ceil(optimalBits / 64));
+        this.bits = words * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+        this.capacity = capacity;
+        this.filters = new long[generations][Math.toIntExact(words)];
+    }
+
+    /** Records {@code id} and returns true, or returns false when it was (probably) recorded before. */
+    boolean add(String id) {
+        long h1 = Hashing.hash64(id);
+        long h2 = Hashing.fmix64(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (long[] filter : filters) {
+            if (contains(filter, h1, h2)) {
+                return false;
+            }
+        }
+        if (newestCount == capacity) {
+            newest = (newest + 1) % filters.length;
+            Arrays.fill(filters[newest], 0L);
+            newestCount = 0;
+        }
+        long[] filter = filters[newest];
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            filter[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        newestCount++;
+        return true;
+    }
+
+    /** Minimum number of most recent ids that are guaranteed to be remembered. */
+    long guaranteedWindow() {
+        return (filters.length - 1) * capacity + newestCount;
+    }
+
+    long memoryBytes() {
+        return filters.length * bits / 8;
+    }
+
+    private boolean contains(long[] filter, long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((filter[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
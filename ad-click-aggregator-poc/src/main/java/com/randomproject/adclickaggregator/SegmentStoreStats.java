@@ -0,0 +1,12 @@
+package com.randomproject.adclickaggregator;
+
+public record SegmentStoreStats(
+        int sealedSegments,
+        long clicks,
+        int distinctAds,
+        int distinctCampaigns,
+        int distinctPublishers,
+        long memoryBytes,
+        double bytesPerClick
+) {
+}
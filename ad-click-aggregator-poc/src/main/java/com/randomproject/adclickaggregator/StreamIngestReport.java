@@ -0,0 +1,17 @@
+package com.randomproject.adclickaggregator;
+
+import java.time.Instant;
+
+/**
+ * Result of one stream batch. {@code accepted} includes {@code lateAccepted}; duplicates and too-late clicks are
+ * not counted in any aggregate. Minute buckets that end at or before {@code finalizedThrough} will not change.
+ */
+public record StreamIngestReport(
+        int accepted,
+        int lateAccepted,
+        int duplicates,
+        int tooLate,
+        Instant watermark,
+        Instant finalizedThrough
+) {
+}
@@ -0,0 +1,98 @@
+package com.randomproject.adclickaggregator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Random clicks and a brute-force scan that the click stores' query results are checked against. */
+final class ClickFixtures {
+    static final Instant BASE = Instant.parse("2026-02-01T00:00:00Z");
+    static final String[] ADS = {"AD-001", "AD-002", "AD-003", "AD-004", "AD-005"};
+    static final String[] CAMPAIGNS = {"CMP-ALPHA", "CMP-BETA", "CMP-GAMMA"};
+    static final String[] PUBLISHERS = {"PUB-NORTH", "PUB-EAST", "PUB-WEST", "PUB-SOUTH"};
+
+    private ClickFixtures() {
+    }
+
+    /** {@code count} clicks spread uniformly over {@code spanMillis} from {@link #BASE}. */
+    static List<ClickEvent> randomClicks(Random random, int count, long spanMillis) {
+        List<ClickEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new ClickEvent("c-" + i,
+                    ADS[random.nextInt(ADS.length)],
+                    CAMPAIGNS[random.nextInt(CAMPAIGNS.length)],
+                    PUBLISHERS[random.nextInt(PUBLISHERS.length)],
+                    BASE.plusMillis((long) (random.nextDouble() * spanMillis)),
+                    random.nextInt(100)));
+        }
+        return events;
+    }
+
+    /** Runs {@code check} over {@code rounds} ordered ranges drawn from {@code instants}, some with an open end. */
+    static void forRandomRanges(int rounds, Supplier<Instant> instants, BiConsumer<Instant, Instant> check) {
+        for (int round = 0; round < rounds; round++) {
+            Instant from = instants.get();
+            Instant to = instants.get();
+            if (to.isBefore(from)) {
+                Instant swap = from;
+                from = to;
+                to = swap;
+            }
+            check.accept(round % 7 == 0 ? null : from, round % 5 == 0 ? null : to);
+        }
+    }
+
+    /** Compares every group-by and interval of a store against a scan of the clicks in {@code [from, to)}. */
+    static void assertMatchesScan(List<ClickEvent> events, Instant from, Instant to,
+                                  Summaries summaries, TimeSeries timeseries) {
+        Predicate<ClickEvent> inRange = event -> (from == null || !event.occurredAt().isBefore(from))
+                && (to == null || event.occurredAt().isBefore(to));
+        List<ClickEvent> expected = events.stream().filter(inRange).toList();
+
+        for (GroupBy groupBy : GroupBy.values()) {
+            Map<String, List<ClickEvent>> grouped = expected.stream().collect(Collectors.groupingBy(groupBy::keyOf));
+            List<ClickSummary> actual = summaries.summarize(groupBy, from, to);
+            assertThat(actual).hasSize(grouped.size());
+            assertThat(actual).isSortedAccordingTo(Comparator.comparingLong(ClickSummary::clicks).reversed());
+            for (ClickSummary summary : actual) {
+                List<ClickEvent> group = grouped.get(summary.groupKey());
+                assertThat(summary.clicks()).isEqualTo(group.size());
+                assertThat(summary.spendCents()).isEqualTo(group.stream().mapToLong(ClickEvent::costCents).sum());
+                assertThat(summary.uniqueAds()).isEqualTo(group.stream().map(ClickEvent::adId).distinct().count());
+                assertThat(summary.uniquePublishers())
+                        .isEqualTo(group.stream().map(ClickEvent::publisherId).distinct().count());
+            }
+
+            for (BucketInterval interval : BucketInterval.values()) {
+                Map<String, List<ClickEvent>> expectedPoints = expected.stream().collect(Collectors.groupingBy(
+                        event -> groupBy.keyOf(event) + "@" + event.occurredAt().truncatedTo(interval.chronoUnit())));
+                List<TimeSeriesPoint> series = timeseries.timeseries(groupBy, interval, from, to);
+                assertThat(series).isSortedAccordingTo(Comparator.comparing(TimeSeriesPoint::bucketStart));
+                assertThat(series).hasSize(expectedPoints.size());
+                for (TimeSeriesPoint point : series) {
+                    List<ClickEvent> bucket = expectedPoints.get(point.groupKey() + "@" + point.bucketStart());
+                    assertThat(bucket).isNotNull();
+                    assertThat(point.clicks()).isEqualTo(bucket.size());
+                    assertThat(point.spendCents()).isEqualTo(bucket.stream().mapToLong(ClickEvent::costCents).sum());
+                }
+            }
+        }
+    }
+
+    interface Summaries {
+        List<ClickSummary> summarize(GroupBy groupBy, Instant from, Instant to);
+    }
+
+    interface TimeSeries {
+        List<TimeSeriesPoint> timeseries(GroupBy groupBy, BucketInterval interval, Instant from, Instant to);
+    }
+}
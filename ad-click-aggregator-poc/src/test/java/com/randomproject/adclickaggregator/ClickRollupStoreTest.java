@@ -0,0 +1,71 @@
+package com.randomproject.adclickaggregator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static com.randomproject.adclickaggregator.ClickFixtures.BASE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickRollupStoreTest {
+    private final Random random = new Random(11);
+    private final ClickRollupStore store = new ClickRollupStore();
+    private List<ClickEvent> events;
+
+    @BeforeEach
+    void ingest() {
+        events = ClickFixtures.randomClicks(random, 5_000, 3L * 24 * 3600 * 1000);
+        events.forEach(store::add);
+    }
+
+    @Test
+    void rollupsMatchAScanOfTheRawClicks() {
+        // Rollups answer at minute granularity, so the ranges are whole minutes.
+        ClickFixtures.forRandomRanges(50, this::randomMinute, this::assertMatchesScan);
+        assertMatchesScan(null, null);
+    }
+
+    @Test
+    void rangesSnapOutwardToWholeMinutes() {
+        Instant from = BASE.plus(90, ChronoUnit.MINUTES).plusSeconds(20);
+        Instant to = BASE.plus(30, ChronoUnit.HOURS).plusSeconds(5);
+
+        assertThat(store.overview(from, to)).isEqualTo(store.overview(
+                from.truncatedTo(ChronoUnit.MINUTES), to.truncatedTo(ChronoUnit.MINUTES).plus(1, ChronoUnit.MINUTES)));
+    }
+
+    @Test
+    void wideRangesAreCoveredByFewBuckets() {
+        int[] visited = new int[1];
+        store.cover(BASE.plusSeconds(17 * 60), BASE.plus(3, ChronoUnit.DAYS), BucketInterval.DAY,
+                (start, bucket) -> visited[0]++);
+
+        // 43 minutes and 23 hours up to the first midnight, then two whole days.
+        assertThat(visited[0]).isLessThanOrEqualTo(43 + 23 + 2);
+        assertThat(store.bucketCount(BucketInterval.DAY)).isEqualTo(3);
+    }
+
+    private void assertMatchesScan(Instant from, Instant to) {
+        Predicate<ClickEvent> inRange = event -> (from == null || !event.occurredAt().isBefore(from))
+                && (to == null || event.occurredAt().isBefore(to));
+        List<ClickEvent> expected = events.stream().filter(inRange).toList();
+
+        ClickOverview overview = store.overview(from, to);
+        assertThat(overview.totalClicks()).isEqualTo(expected.size());
+        assertThat(overview.totalSpendCents()).isEqualTo(expected.stream().mapToLong(ClickEvent::costCents).sum());
+        assertThat(overview.uniqueAds()).isEqualTo(expected.stream().map(ClickEvent::adId).distinct().count());
+        assertThat(overview.uniquePublishers())
+                .isEqualTo(expected.stream().map(ClickEvent::publisherId).distinct().count());
+
+        ClickFixtures.assertMatchesScan(events, from, to, store::summarize, store::timeseries);
+    }
+
+    private Instant randomMinute() {
+        return BASE.plus(random.nextInt(3 * 24 * 60 + 120) - 60, ChronoUnit.MINUTES);
+    }
+}
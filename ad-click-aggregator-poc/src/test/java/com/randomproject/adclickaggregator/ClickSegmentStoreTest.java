@@ -0,0 +1,97 @@
+package com.randomproject.adclickaggregator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.randomproject.adclickaggregator.ClickFixtures.ADS;
+import static com.randomproject.adclickaggregator.ClickFixtures.BASE;
+import static com.randomproject.adclickaggregator.ClickFixtures.CAMPAIGNS;
+import static com.randomproject.adclickaggregator.ClickFixtures.PUBLISHERS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickSegmentStoreTest {
+    private final Random random = new Random(17);
+
+    @Test
+    void segmentScansMatchAScanOfTheRawClicksAtMillisecondRanges() {
+        for (boolean parallel : new boolean[] {false, true}) {
+            ClickSegmentStore store = new ClickSegmentStore(700, parallel);
+            List<ClickEvent> events = ingest(store, 5_000, 3L * 24 * 3600 * 1000);
+
+            assertMatchesScan(store, events, null, null);
+            ClickFixtures.forRandomRanges(30, this::randomInstant,
+                    (from, to) -> assertMatchesScan(store, events, from, to));
+        }
+    }
+
+    @Test
+    void clicksFarApartInTimeStartNewSegments() {
+        ClickSegmentStore store = new ClickSegmentStore(1_000, false);
+        List<ClickEvent> events = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            // 30 days apart: beyond the reach of an int millisecond offset from the segment's first click.
+            ClickEvent event = new ClickEvent("c-" + i, ADS[i % ADS.length], CAMPAIGNS[i % CAMPAIGNS.length],
+                    PUBLISHERS[i % PUBLISHERS.length], BASE.plus(30L * (i % 4), ChronoUnit.DAYS), i);
+            events.add(event);
+            store.add(event);
+        }
+
+        assertThat(store.stats().sealedSegments()).isGreaterThan(0);
+        assertMatchesScan(store, events, null, null);
+        assertMatchesScan(store, events, BASE.plus(29, ChronoUnit.DAYS), BASE.plus(61, ChronoUnit.DAYS));
+    }
+
+    @Test
+    void storesAClickInAFewDozenBytes() {
+        ClickSegmentStore store = new ClickSegmentStore(ClickSegmentStore.DEFAULT_SEGMENT_ROWS, false);
+        ingest(store, 200_000, 24L * 3600 * 1000);
+
+        SegmentStoreStats stats = store.stats();
+        assertThat(stats.clicks()).isEqualTo(200_000);
+        assertThat(stats.sealedSegments()).isEqualTo(3);
+        assertThat(stats.distinctAds()).isEqualTo(ADS.length);
+        assertThat(stats.bytesPerClick()).isLessThan(32);
+    }
+
+    @Test
+    void activeViewIgnoresLaterAppendsAndColumnGrowth() {
+        ClickSegment.Builder builder = new ClickSegment.Builder(4_096);
+        for (int i = 0; i < 1_024; i++) {
+            builder.append(1_000L + i, i, i + 1, i + 2, i);
+        }
+        ClickSegment view = builder.view();
+        for (int i = 1_024; i < 3_000; i++) {
+            builder.append(1_000L + i, -1, -1, -1, -1);
+        }
+        ClickSegment sealed = builder.build();
+
+        assertThat(view.rows()).isEqualTo(1_024);
+        assertThat(view.maxMillis()).isEqualTo(2_023L);
+        for (int i = 0; i < view.rows(); i++) {
+            assertThat(view.ads()[i]).isEqualTo(i);
+            assertThat(view.costCents()[i]).isEqualTo(i);
+        }
+        assertThat(sealed.rows()).isEqualTo(3_000);
+        assertThat(sealed.offsets()).hasSize(3_000);
+        assertThat(sealed.ads()[2_999]).isEqualTo(-1);
+    }
+
+    private List<ClickEvent> ingest(ClickSegmentStore store, int count, long spanMillis) {
+        List<ClickEvent> events = ClickFixtures.randomClicks(random, count, spanMillis);
+        events.forEach(store::add);
+        return events;
+    }
+
+    private static void assertMatchesScan(ClickSegmentStore store, List<ClickEvent> events, Instant from, Instant to) {
+        ClickFixtures.assertMatchesScan(events, from, to, store::summarize, store::timeseries);
+    }
+
+    private Instant randomInstant() {
+        return BASE.plusMillis((long) ((random.nextDouble() * 3.2 - 0.1) * 24 * 3600 * 1000));
+    }
+}
@@ -0,0 +1,100 @@
+package com.randomproject.adclickaggregator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickStreamIngestorTest {
+    private static final Instant NOW = Instant.parse("2026-02-01T12:00:00Z");
+
+    private final List<ClickEvent> sink = new ArrayList<>();
+    private final ClickStreamIngestor ingestor = new ClickStreamIngestor(sink::add,
+            new RotatingBloomFilter(2, 1_000, 0.001), Clock.fixed(NOW, ZoneOffset.UTC),
+            Duration.ofSeconds(30), Duration.ofMinutes(5));
+
+    @Test
+    void retriedClickIdsAreCountedOnce() {
+        StreamIngestReport first = ingestor.offerAll(List.of(click("c-1", NOW), click("c-2", NOW)));
+        StreamIngestReport retry = ingestor.offerAll(List.of(click("c-1", NOW), click("c-2", NOW), click("c-3", NOW)));
+
+        assertThat(first.accepted()).isEqualTo(2);
+        assertThat(retry.accepted()).isEqualTo(1);
+        assertThat(retry.duplicates()).isEqualTo(2);
+        assertThat(sink).extracting(ClickEvent::id).containsExactly("c-1", "c-2", "c-3");
+    }
+
+    @Test
+    void outOfOrderClicksWithinAllowedLatenessAreAdded() {
+        ingestor.offerAll(List.of(click("c-1", NOW)));
+
+        StreamIngestReport report = ingestor.offerAll(List.of(
+                click("c-2", NOW.minusSeconds(20)),
+                click("c-3", NOW.minusSeconds(90)),
+                click("c-4", NOW.minusSeconds(30 + 5 * 60 + 1))));
+
+        assertThat(report.accepted()).isEqualTo(2);
+        assertThat(report.lateAccepted()).isEqualTo(1);
+        assertThat(report.tooLate()).isEqualTo(1);
+        assertThat(report.watermark()).isEqualTo(NOW.minusSeconds(30));
+        assertThat(report.finalizedThrough()).isEqualTo(Instant.parse("2026-02-01T11:54:00Z"));
+        assertThat(sink).extracting(ClickEvent::id).containsExactly("c-1", "c-2", "c-3");
+
+        IngestStats stats = ingestor.stats();
+        assertThat(stats.tooLate()).isEqualTo(1);
+        assertThat(stats.recentTooLate()).extracting(ClickEvent::id).containsExactly("c-4");
+    }
+
+    @Test
+    void finalizedBucketsNeverChange() {
+        ingestor.offerAll(List.of(click("c-1", NOW)));
+        Instant finalizedThrough = ingestor.stats().finalizedThrough();
+
+        IngestOutcome outcome = ingestor.offer(click("c-2", finalizedThrough.minusMillis(1)), true);
+
+        assertThat(outcome).isEqualTo(IngestOutcome.TOO_LATE);
+        assertThat(sink).hasSize(1);
+    }
+
+    @Test
+    void futureEventTimesDoNotRunTheWatermarkAhead() {
+        ingestor.offerAll(List.of(click("c-1", NOW.plus(Duration.ofDays(1)))));
+
+        assertThat(ingestor.stats().watermark()).isEqualTo(NOW.minusSeconds(30));
+        assertThat(ingestor.offer(click("c-2", NOW.minusSeconds(60)), true)).isEqualTo(IngestOutcome.LATE_ACCEPTED);
+    }
+
+    @Test
+    void dedupWindowRotatesInBoundedMemory() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(3, 1_000, 0.001);
+        long bytes = filter.memoryBytes();
+        int falsePositives = 0;
+        boolean[] recorded = new boolean[10_000];
+        for (int i = 0; i < 10_000; i++) {
+            recorded[i] = filter.add("click-" + i);
+            if (!recorded[i]) {
+                falsePositives++;
+            }
+            // Every id recorded within the guaranteed window is still remembered.
+            int recent = Math.max(0, i - 1_999);
+            if (recorded[recent]) {
+                assertThat(filter.add("click-" + recent)).isFalse();
+            }
+        }
+
+        assertThat(filter.memoryBytes()).isEqualTo(bytes);
+        assertThat(filter.guaranteedWindow()).isGreaterThanOrEqualTo(2_000);
+        assertThat(falsePositives).isLessThan(50);
+        assertThat(filter.add("click-0")).isTrue();
+    }
+
+    private static ClickEvent click(String id, Instant occurredAt) {
+        return new ClickEvent(id, "AD-001", "CMP-ALPHA", "PUB-NORTH", occurredAt, 25);
+    }
+}
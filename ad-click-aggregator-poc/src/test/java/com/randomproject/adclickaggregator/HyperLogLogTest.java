@@ -0,0 +1,50 @@
+package com.randomproject.adclickaggregator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void smallSetsAreCountedExactly() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add("AD-" + (i % 100));
+        }
+        assertThat(sketch.estimate()).isEqualTo(100);
+    }
+
+    @Test
+    void largeSetsStayWithinFewPercent() {
+        for (int distinct : new int[]{500, 10_000, 250_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("publisher-" + i);
+            }
+            assertThat((double) sketch.estimate()).isCloseTo(distinct, within(distinct * 0.05));
+        }
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            left.add("ad-" + i);
+            right.add("ad-" + (i + 10_000));
+        }
+        for (int i = 0; i < 50; i++) {
+            small.add("ad-" + (i + 100_000));
+        }
+
+        HyperLogLog union = new HyperLogLog();
+        union.merge(small);
+        union.merge(left);
+        union.merge(right);
+
+        assertThat((double) union.estimate()).isCloseTo(30_050, within(30_050 * 0.05));
+    }
+}
@@ -0,0 +1,79 @@
+package com.poc.logging.benchmark;
+
+import com.poc.logging.filters.KeywordAutomaton;
+import com.poc.logging.filters.KeywordFilter;
+import com.poc.logging.filters.KeywordScan;
+import com.poc.logging.filters.LogFilter;
+import com.poc.logging.model.LogEntry;
+import com.poc.logging.model.LogLevel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Keyword-rule matching cost per log line as the number of rules grows. {@code perRuleLowerCase} reproduces the
+ * previous filter, which lower-cased the message and ran {@code contains} once per rule. {@code compiledScan}
+ * scans the message once with a {@link KeywordAutomaton} and answers every filter from the scan, as
+ * {@code AlertingService.evaluate} does. Throughput is in log lines per µs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertRuleBenchmark {
+  private static final String[] WORDS = {"order", "matching", "engine", "latency", "spike", "trade", "rejected",
+      "margin", "payment", "gateway", "timeout", "retry", "session", "router", "settlement", "ledger"};
+
+  @Param({"1", "10", "50", "100"})
+  public int rules;
+
+  private LogEntry entry;
+  private List<String> keywords;
+  private List<LogFilter> filters;
+  private KeywordAutomaton automaton;
+
+  @Setup
+  public void setUp() {
+    keywords = new ArrayList<>();
+    filters = new ArrayList<>();
+    for (int i = 0; i < rules; i++) {
+      String keyword = WORDS[i % WORDS.length] + " " + WORDS[(i * 7 + 3) % WORDS.length] + (i < WORDS.length ? "" : i);
+      keywords.add(keyword);
+      filters.add(new KeywordFilter(keyword));
+    }
+    automaton = KeywordAutomaton.compile(keywords);
+    entry = new LogEntry();
+    entry.setLevel(LogLevel.WARN);
+    entry.setMessage("Order O-9912 routed to matching engine shard 3 after Gateway Timeout; retry scheduled for "
+        + "session S-1049, trade rejected: insufficient margin on ledger account 77");
+  }
+
+  @Benchmark
+  public void perRuleLowerCase(Blackhole blackhole) {
+    for (String keyword : keywords) {
+      blackhole.consume(entry.getMessage().toLowerCase().contains(keyword));
+    }
+  }
+
+  @Benchmark
+  public void compiledScan(Blackhole blackhole) {
+    KeywordScan scan = automaton.scan(entry.getMessage());
+    for (LogFilter filter : filters) {
+      blackhole.consume(filter.matches(entry, scan));
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.poc.logging.benchmark;
+
+import com.poc.logging.model.LogEntry;
+import com.poc.logging.pipeline.PiiScrubber;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-pass {@link PiiScrubber} against the previous two {@code replaceAll} passes, on a clean line and on a
+ * line with one email and one card number. Throughput is in log lines per µs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PiiScrubberBenchmark {
+  private static final Pattern EMAIL = Pattern.compile("[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,}", Pattern.CASE_INSENSITIVE);
+  private static final Pattern CARD = Pattern.compile("\\b\\d{13,16}\\b");
+
+  @Param({"CLEAN", "SENSITIVE"})
+  public String line;
+
+  private final PiiScrubber scrubber = new PiiScrubber();
+  private final LogEntry entry = new LogEntry();
+
+  private String message() {
+    return line.equals("CLEAN")
+        ? "Order O-9912 routed to matching engine shard 3 after gateway timeout; retry 2 of 5 scheduled"
+        : "User john.doe@example.com attempted payment with card 4111111111111111 from session S-1049";
+  }
+
+  @Benchmark
+  public String twoRegexPasses() {
+    String message = EMAIL.matcher(message()).replaceAll("[REDACTED_EMAIL]");
+    return CARD.matcher(message).replaceAll("[REDACTED_CARD]");
+  }
+
+  @Benchmark
+  public String singlePass() {
+    entry.setMessage(message());
+    return scrubber.handle(entry).getMessage();
+  }
+}
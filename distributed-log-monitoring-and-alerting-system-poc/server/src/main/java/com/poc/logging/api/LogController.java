@@ -1,45 +1,74 @@
 package com.poc.logging.api;
 
+import com.poc.logging.core.IngestPipeline;
+import com.poc.logging.core.LogCollector;
 import com.poc.logging.core.LogCollectorFactory;
-import com.poc.logging.core.LogProcessingService;
 import com.poc.logging.model.Alert;
+import com.poc.logging.model.IngestResult;
+import com.poc.logging.model.IngestStats;
+import com.poc.logging.model.LogBatch;
 import com.poc.logging.model.LogEntry;
+import com.poc.logging.model.LogLevel;
 import com.poc.logging.store.AlertStore;
 import com.poc.logging.store.LogStore;
 import jakarta.validation.Valid;
+import java.time.Instant;
 import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api")
 public class LogController {
-  private final LogProcessingService logProcessingService;
+  private final IngestPipeline ingestPipeline;
   private final LogStore logStore;
   private final AlertStore alertStore;
 
-  public LogController(LogProcessingService logProcessingService, LogStore logStore, AlertStore alertStore) {
-    this.logProcessingService = logProcessingService;
+  public LogController(IngestPipeline ingestPipeline, LogStore logStore, AlertStore alertStore) {
+    this.ingestPipeline = ingestPipeline;
     this.logStore = logStore;
     this.alertStore = alertStore;
   }
 
   @PostMapping("/logs")
-  @ResponseStatus(HttpStatus.ACCEPTED)
-  public LogEntry ingest(@Valid @RequestBody LogEntry entry) {
+  public ResponseEntity<IngestResult> ingest(@Valid @RequestBody LogEntry entry) {
     LogCollectorFactory.getCollector().collect(entry);
-    return logProcessingService.process(entry);
+    return respond(ingestPipeline.submit(entry));
+  }
+
+  @PostMapping("/logs/bulk")
+  public ResponseEntity<IngestResult> ingestBulk(@Valid @RequestBody LogBatch batch) {
+    LogCollector collector = LogCollectorFactory.getCollector();
+    batch.getEntries().forEach(collector::collect);
+    return respond(ingestPipeline.submit(batch.getEntries()));
+  }
+
+  @GetMapping("/ingest/stats")
+  public IngestStats ingestStats() {
+    return ingestPipeline.stats();
   }
 
   @GetMapping("/logs")
-  public List<LogEntry> listLogs() {
-    return logStore.list();
+  public List<LogEntry> listLogs(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+      @RequestParam(required = false) LogLevel level,
+      @RequestParam(required = false) Integer limit
+  ) {
+    if (from == null && to == null && level == null && limit == null) {
+      return logStore.list();
+    }
+    return logStore.query(from, to, level, limit == null ? Integer.MAX_VALUE : Math.max(limit, 0));
   }
 
   @GetMapping("/alerts")
@@ -52,4 +81,14 @@ public class LogController {
   public void clearAlerts() {
     alertStore.clear();
   }
+
+  private static ResponseEntity<IngestResult> respond(IngestResult result) {
+    if (result.getRejected() > 0 && !result.isRetryable()) {
+      return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(result);
+    }
+    if (result.getRejected() > 0) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(result);
+    }
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+  }
 }
@@ -1,50 +1,139 @@
 package com.poc.logging.core;
 
+import com.poc.logging.filters.KeywordAutomaton;
+import com.poc.logging.filters.KeywordScan;
 import com.poc.logging.model.Alert;
 import com.poc.logging.model.AlertRule;
 import com.poc.logging.model.LogEntry;
 import com.poc.logging.observability.AlertObserver;
-import java.time.Instant;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class AlertingService {
-  private final List<AlertObserver> observers = new ArrayList<>();
-  private final List<AlertRule> rules = new ArrayList<>();
-  private final Map<String, Integer> counters = new ConcurrentHashMap<>();
+  private static final int WINDOW_BUCKETS = 10;
+
+  private final List<AlertObserver> observers = new CopyOnWriteArrayList<>();
+  private final Clock clock;
+  private final int stripes;
+  private volatile CompiledRules compiled = new CompiledRules(List.of(), KeywordAutomaton.empty());
+
+  public AlertingService() {
+    this(Clock.systemUTC());
+  }
+
+  public AlertingService(Clock clock) {
+    this.clock = clock;
+    this.stripes = Math.min(8, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors())));
+  }
 
   public void registerObserver(AlertObserver observer) {
     observers.add(observer);
   }
 
-  public void registerRule(AlertRule rule) {
-    rules.add(rule);
+  /**
+   * Adds a rule and recompiles the keyword automaton over every registered rule. Registration is rare, so it pays
+   * the compile cost once and {@link #evaluate} reads an immutable snapshot without locking. Counter state of the
+   * rules already registered carries over.
+   */
+  public synchronized void registerRule(AlertRule rule) {
+    List<RuleState> rules = new ArrayList<>(compiled.rules());
+    rules.add(new RuleState(rule));
+    List<String> keywords = new ArrayList<>();
+    rules.forEach(registered -> registered.rule.getFilter().collectKeywords(keywords::add));
+    compiled = new CompiledRules(List.copyOf(rules), KeywordAutomaton.compile(keywords));
   }
 
   public void evaluate(LogEntry entry) {
-    for (AlertRule rule : rules) {
-      if (!rule.getFilter().matches(entry)) {
+    CompiledRules current = compiled;
+    // One pass over the message answers every keyword filter of every rule.
+    KeywordScan scan = current.automaton().scan(entry.getMessage());
+    long now = clock.millis();
+    for (RuleState state : current.rules()) {
+      if (!state.rule.getFilter().matches(entry, scan)) {
         continue;
       }
-      int count = counters.merge(rule.getName(), 1, Integer::sum);
-      if (count >= rule.getThreshold()) {
-        counters.put(rule.getName(), 0);
-        Alert alert = new Alert(
-            rule.getName(),
-            String.format("Threshold met for rule '%s' (%d)", rule.getName(), rule.getThreshold()),
-            Instant.now(),
-            entry.getMetadata()
-        );
-        notifyObservers(alert);
+      String key = state.rule.groupKey(entry);
+      boolean fired = state.rule.getWindow() == null ? state.countSinceLastFire(key) : state.countInWindow(key, now);
+      if (fired) {
+        notifyObservers(alert(state.rule, key, entry, now));
       }
     }
   }
 
+  private Alert alert(AlertRule rule, String key, LogEntry entry, long now) {
+    StringBuilder message = new StringBuilder(String.format("Threshold met for rule '%s' (%d", rule.getName(),
+        rule.getThreshold()));
+    if (rule.getWindow() != null) {
+      message.append(" within ").append(rule.getWindow().toSeconds()).append('s');
+    }
+    message.append(')');
+    Map<String, String> context = new HashMap<>(entry.getMetadata());
+    if (rule.getGroupBy() != null) {
+      message.append(" for ").append(rule.getGroupBy()).append('=').append(key);
+      context.put(rule.getGroupBy(), key);
+    }
+    return new Alert(rule.getName(), message.toString(), clock.instant(), context);
+  }
+
   private void notifyObservers(Alert alert) {
     for (AlertObserver observer : observers) {
       observer.onAlert(alert);
     }
   }
+
+  private record CompiledRules(List<RuleState> rules, KeywordAutomaton automaton) {
+  }
+
+  /**
+   * Per-rule counters, keyed by group value. Only the maps are shared; counting is lock-free, and a windowed counter
+   * takes its own lock only to fire.
+   */
+  private final class RuleState {
+    private final AlertRule rule;
+    private final Map<String, AtomicInteger> totals = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindowCounter> windows = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+
+    private RuleState(AlertRule rule) {
+      this.rule = rule;
+    }
+
+    private boolean countSinceLastFire(String key) {
+      AtomicInteger total = totals.computeIfAbsent(key, ignored -> new AtomicInteger());
+      int count = total.incrementAndGet();
+      // Only the thread that resets the counter fires, so concurrent workers cannot double-fire one threshold.
+      return count >= rule.getThreshold() && total.compareAndSet(count, 0);
+    }
+
+    private boolean countInWindow(String key, long now) {
+      long windowMillis = rule.getWindow().toMillis();
+      sweepIdleKeys(now, windowMillis);
+      SlidingWindowCounter counter = windows.computeIfAbsent(key,
+          ignored -> new SlidingWindowCounter(windowMillis, WINDOW_BUCKETS, stripes));
+      counter.increment(now);
+      // Firing takes the threshold's worth of matches out of the window it counted them in, so a match racing the
+      // fire is counted towards this alert or the next one. The drain re-checks the sum, so only one racer fires.
+      return counter.sum(now) >= rule.getThreshold() && counter.drain(rule.getThreshold(), now);
+    }
+
+    /**
+     * Drops keys with no match for a whole window, at most once per window, so high-cardinality keys age out. A
+     * match that looked the counter up just before it was dropped lands on the dropped counter and is not counted:
+     * at most one match per thread evaluating that key at the moment it has been idle for a whole window.
+     */
+    private void sweepIdleKeys(long now, long windowMillis) {
+      long due = nextSweepMillis.get();
+      if (now < due || !nextSweepMillis.compareAndSet(due, now + windowMillis)) {
+        return;
+      }
+      windows.values().removeIf(counter -> now - counter.getLastTouchedMillis() > windowMillis);
+    }
+  }
 }
@@ -13,8 +13,10 @@ import com.poc.logging.pipeline.PiiScrubber;
 import com.poc.logging.pipeline.TimestampNormalizer;
 import com.poc.logging.store.AlertStore;
 import com.poc.logging.store.LogStore;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -38,8 +40,11 @@ public class AppConfig {
   }
 
   @Bean
-  public LogStore logStore() {
-    return new LogStore(200);
+  public LogStore logStore(
+      @Value("${log-store.capacity:200}") int capacity,
+      @Value("${log-store.segment-size:64}") int segmentSize
+  ) {
+    return new LogStore(capacity, segmentSize);
   }
 
   @Bean
@@ -54,6 +59,14 @@ public class AppConfig {
         new ErrorLevelFilter(LogLevel.ERROR)
     ));
 
+    service.registerRule(new AlertRule(
+        "error_burst_by_source",
+        5,
+        Duration.ofSeconds(60),
+        "source",
+        new ErrorLevelFilter(LogLevel.ERROR)
+    ));
+
     service.registerRule(new AlertRule(
         "trade_rejected",
         2,
@@ -76,4 +89,17 @@ public class AppConfig {
   public LogProcessingService logProcessingService(LogTransformer transformerChain, AlertingService alertingService, LogStore logStore) {
     return new LogProcessingService(transformerChain, alertingService, logStore);
   }
+
+  @Bean(destroyMethod = "shutdown")
+  public IngestPipeline ingestPipeline(
+      LogProcessingService logProcessingService,
+      @Value("${ingest.queue-capacity:10000}") int queueCapacity,
+      @Value("${ingest.max-batch:256}") int maxBatch,
+      @Value("${ingest.workers:2}") int workers,
+      @Value("${ingest.overflow-policy:REJECT}") OverflowPolicy overflowPolicy
+  ) {
+    IngestPipeline pipeline = new IngestPipeline(logProcessingService, queueCapacity, maxBatch, overflowPolicy);
+    pipeline.start(workers);
+    return pipeline;
+  }
 }
@@ -0,0 +1,180 @@
+package com.poc.logging.core;
+
+import com.poc.logging.model.IngestResult;
+import com.poc.logging.model.IngestStats;
+import com.poc.logging.model.LogEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded hand-off between the HTTP threads and the processing chain.
+ *
+ * <p>Requests only reserve queue space and enqueue, so a burst costs the caller one semaphore acquire instead of
+ * the full transform-store-alert path. Worker threads drain up to {@code maxBatch} entries at a time and hand the
+ * batch to {@link LogProcessingService#processBatch}. Space is released only after a batch is processed, so the
+ * capacity bounds everything that is accepted but not yet stored.
+ *
+ * <p>Submitters check {@code running} and enqueue under the read side of {@link #lifecycle}; {@link #shutdown}
+ * flips it under the write side. Once shutdown holds the write lock no request can still be between the check and
+ * the enqueue, so everything that was answered as accepted is in the queue and gets drained.
+ */
+public class IngestPipeline {
+  private final LogProcessingService processingService;
+  private final OverflowPolicy overflowPolicy;
+  private final int capacity;
+  private final int maxBatch;
+  private final BlockingQueue<LogEntry> queue;
+  private final Semaphore space;
+  private final List<Thread> workers = new ArrayList<>();
+  private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+  private final AtomicLong accepted = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong processed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+  private volatile boolean running;
+
+  public IngestPipeline(LogProcessingService processingService, int capacity, int maxBatch,
+      OverflowPolicy overflowPolicy) {
+    if (capacity <= 0 || maxBatch <= 0) {
+      throw new IllegalArgumentException("capacity and maxBatch must be positive");
+    }
+    this.processingService = processingService;
+    this.capacity = capacity;
+    this.maxBatch = maxBatch;
+    this.overflowPolicy = overflowPolicy;
+    this.queue = new LinkedBlockingQueue<>(capacity);
+    this.space = new Semaphore(capacity);
+  }
+
+  public synchronized void start(int workerCount) {
+    if (running) {
+      return;
+    }
+    lifecycle.writeLock().lock();
+    try {
+      running = true;
+    } finally {
+      lifecycle.writeLock().unlock();
+    }
+    for (int i = 0; i < workerCount; i++) {
+      Thread worker = new Thread(this::runWorker, "log-ingest-" + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  /**
+   * Stops accepting work, lets the workers drain what is already queued, and waits for them. Whatever is still
+   * queued after that, for example because no worker was started, is processed on the calling thread.
+   */
+  public synchronized void shutdown() throws InterruptedException {
+    lifecycle.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      lifecycle.writeLock().unlock();
+    }
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    workers.clear();
+    List<LogEntry> batch = new ArrayList<>(maxBatch);
+    while (queue.drainTo(batch, maxBatch) > 0) {
+      process(batch);
+    }
+  }
+
+  public IngestResult submit(LogEntry entry) {
+    return submit(List.of(entry));
+  }
+
+  /**
+   * Enqueues a request. Under {@link OverflowPolicy#REJECT} the request is all-or-nothing, and a request larger
+   * than the whole queue is rejected as not retryable because it could never fit. Under
+   * {@link OverflowPolicy#DROP} the entries that fit are accepted and the tail is dropped.
+   */
+  public IngestResult submit(List<LogEntry> entries) {
+    int wanted = entries.size();
+    if (overflowPolicy == OverflowPolicy.REJECT && wanted > capacity) {
+      rejected.addAndGet(wanted);
+      return new IngestResult(0, wanted, 0, false);
+    }
+    lifecycle.readLock().lock();
+    try {
+      int granted = running ? reserve(wanted) : 0;
+      if (granted == 0 && (overflowPolicy == OverflowPolicy.REJECT || !running)) {
+        rejected.addAndGet(wanted);
+        return new IngestResult(0, wanted, 0, true);
+      }
+      for (int i = 0; i < granted; i++) {
+        // Cannot fail: the semaphore never hands out more space than the queue has.
+        queue.offer(entries.get(i));
+      }
+      accepted.addAndGet(granted);
+      dropped.addAndGet(wanted - granted);
+      return new IngestResult(granted, 0, wanted - granted, true);
+    } finally {
+      lifecycle.readLock().unlock();
+    }
+  }
+
+  public IngestStats stats() {
+    return new IngestStats(accepted.get(), rejected.get(), dropped.get(), processed.get(), failed.get(),
+        batches.get(), queue.size(), capacity);
+  }
+
+  private int reserve(int wanted) {
+    if (overflowPolicy == OverflowPolicy.REJECT) {
+      return space.tryAcquire(wanted) ? wanted : 0;
+    }
+    while (true) {
+      int take = Math.min(space.availablePermits(), wanted);
+      if (take <= 0) {
+        return 0;
+      }
+      if (space.tryAcquire(take)) {
+        return take;
+      }
+    }
+  }
+
+  private void runWorker() {
+    List<LogEntry> batch = new ArrayList<>(maxBatch);
+    while (running || !queue.isEmpty()) {
+      try {
+        LogEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, maxBatch - 1);
+        process(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void process(List<LogEntry> batch) {
+    try {
+      int failures = processingService.processBatch(batch);
+      processed.addAndGet(batch.size() - failures);
+      failed.addAndGet(failures);
+      batches.incrementAndGet();
+    } finally {
+      space.release(batch.size());
+      batch.clear();
+    }
+  }
+}
@@ -3,8 +3,14 @@ package com.poc.logging.core;
 import com.poc.logging.model.LogEntry;
 import com.poc.logging.pipeline.LogTransformer;
 import com.poc.logging.store.LogStore;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class LogProcessingService {
+  private static final Logger log = LoggerFactory.getLogger(LogProcessingService.class);
+
   private final LogTransformer transformerChain;
   private final AlertingService alertingService;
   private final LogStore logStore;
@@ -15,10 +21,23 @@ public class LogProcessingService {
     this.logStore = logStore;
   }
 
-  public LogEntry process(LogEntry entry) {
-    LogEntry transformed = transformerChain.handle(entry);
-    logStore.add(transformed);
-    alertingService.evaluate(transformed);
-    return transformed;
+  /**
+   * Transforms a micro-batch, stores it with one append, then evaluates alerts in arrival order. An entry that
+   * fails to transform is skipped without failing the rest of the batch. Returns the number of skipped entries.
+   */
+  public int processBatch(List<LogEntry> entries) {
+    List<LogEntry> transformed = new ArrayList<>(entries.size());
+    for (LogEntry entry : entries) {
+      try {
+        transformed.add(transformerChain.handle(entry));
+      } catch (RuntimeException e) {
+        log.warn("Dropping log entry from {} that failed to transform", entry.getSource(), e);
+      }
+    }
+    logStore.addAll(transformed);
+    for (LogEntry entry : transformed) {
+      alertingService.evaluate(entry);
+    }
+    return entries.size() - transformed.size();
   }
 }
@@ -0,0 +1,9 @@
+package com.poc.logging.core;
+
+/** What the ingest pipeline does with a request that does not fit in its queue. */
+public enum OverflowPolicy {
+  /** Refuse the whole request so the agent can back off and retry it. Surfaces as HTTP 429, or 413 for a request larger than the whole queue. */
+  REJECT,
+  /** Accept what fits and drop the rest, counting the drops. The request still succeeds. */
+  DROP
+}
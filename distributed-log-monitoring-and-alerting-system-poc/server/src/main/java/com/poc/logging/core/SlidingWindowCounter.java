@@ -0,0 +1,110 @@
+package com.poc.logging.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count of events over the trailing window, kept in time buckets.
+ *
+ * <p>Each bucket is one {@code long} that packs the bucket's period number (upper 40 bits) with its count (lower
+ * 24 bits). That lets a writer detect a stale bucket and restart it in the same CAS that records the event, so
+ * no increment is lost to a separate reset. Writers are spread across stripes by thread so concurrent increments
+ * for a hot key do not all contend on one word. Reading sums {@code stripes * buckets} words, a constant.
+ *
+ * <p>The window slides one bucket at a time, so a count covers between {@code window - window / buckets} and
+ * {@code window} of history.
+ */
+class SlidingWindowCounter {
+  private static final int COUNT_BITS = 24;
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+  private static final long PERIOD_MASK = (1L << (64 - COUNT_BITS)) - 1;
+
+  private final long bucketMillis;
+  private final int buckets;
+  private final int stripeMask;
+  private final AtomicLongArray cells;
+  private final AtomicLong lastTouchedMillis = new AtomicLong();
+
+  SlidingWindowCounter(long windowMillis, int buckets, int stripes) {
+    if (Integer.bitCount(stripes) != 1) {
+      throw new IllegalArgumentException("stripes must be a power of two");
+    }
+    this.buckets = buckets;
+    this.bucketMillis = Math.max(1, windowMillis / buckets);
+    this.stripeMask = stripes - 1;
+    this.cells = new AtomicLongArray(stripes * buckets);
+  }
+
+  void increment(long nowMillis) {
+    long period = (nowMillis / bucketMillis) & PERIOD_MASK;
+    int index = (int) (Thread.currentThread().getId() & stripeMask) * buckets + (int) (period % buckets);
+    while (true) {
+      long cell = cells.get(index);
+      long next;
+      if (cell >>> COUNT_BITS == period) {
+        if ((cell & COUNT_MASK) == COUNT_MASK) {
+          break;
+        }
+        next = cell + 1;
+      } else {
+        next = (period << COUNT_BITS) | 1;
+      }
+      if (cells.compareAndSet(index, cell, next)) {
+        break;
+      }
+    }
+    lastTouchedMillis.lazySet(nowMillis);
+  }
+
+  long sum(long nowMillis) {
+    long period = (nowMillis / bucketMillis) & PERIOD_MASK;
+    long total = 0;
+    for (int i = 0; i < cells.length(); i++) {
+      long cell = cells.get(i);
+      long age = (period - (cell >>> COUNT_BITS)) & PERIOD_MASK;
+      if (age < buckets) {
+        total += cell & COUNT_MASK;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Takes {@code threshold} events out of the window, oldest buckets first, if it holds at least that many. Each
+   * bucket gives up counts in the same CAS writers use, so an increment racing the drain is either taken or stays
+   * for the next one; none is lost. Drains are serialized on the counter, and only run once a threshold is crossed.
+   */
+  synchronized boolean drain(long threshold, long nowMillis) {
+    if (sum(nowMillis) < threshold) {
+      return false;
+    }
+    long period = (nowMillis / bucketMillis) & PERIOD_MASK;
+    long remaining = threshold;
+    for (int age = buckets - 1; age >= 0 && remaining > 0; age--) {
+      long bucketPeriod = (period - age) & PERIOD_MASK;
+      int bucket = (int) (bucketPeriod % buckets);
+      for (int stripe = 0; stripe <= stripeMask && remaining > 0; stripe++) {
+        remaining -= take(stripe * buckets + bucket, bucketPeriod, remaining);
+      }
+    }
+    return true;
+  }
+
+  /** Removes up to {@code limit} from one cell, unless a writer has already restarted it for a later period. */
+  private long take(int index, long period, long limit) {
+    while (true) {
+      long cell = cells.get(index);
+      if (cell >>> COUNT_BITS != period) {
+        return 0;
+      }
+      long taken = Math.min(cell & COUNT_MASK, limit);
+      if (taken == 0 || cells.compareAndSet(index, cell, cell - taken)) {
+        return taken;
+      }
+    }
+  }
+
+  long getLastTouchedMillis() {
+    return lastTouchedMillis.get();
+  }
+}
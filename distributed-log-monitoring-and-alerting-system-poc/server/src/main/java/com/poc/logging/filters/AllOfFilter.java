@@ -2,6 +2,7 @@ package com.poc.logging.filters;
 
 import com.poc.logging.model.LogEntry;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class AllOfFilter implements LogFilter {
   private final List<LogFilter> filters;
@@ -17,4 +18,24 @@ public class AllOfFilter implements LogFilter {
     }
     return filters.stream().allMatch(filter -> filter.matches(entry));
   }
+
+  @Override
+  public boolean matches(LogEntry entry, KeywordScan scan) {
+    if (filters == null || filters.isEmpty()) {
+      return false;
+    }
+    for (LogFilter filter : filters) {
+      if (!filter.matches(entry, scan)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void collectKeywords(Consumer<String> keywords) {
+    if (filters != null) {
+      filters.forEach(filter -> filter.collectKeywords(keywords));
+    }
+  }
 }
@@ -0,0 +1,208 @@
+package com.poc.logging.filters;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aho-Corasick automaton over a fixed set of keywords, compiled to a dense transition table.
+ *
+ * <p>{@link #scan} walks a message once, whatever the number of keywords, and reports every keyword that occurs
+ * in it. Matching is case-insensitive: keywords are lower-cased at compile time and message characters are
+ * lower-cased one at a time during the scan, so no lower-cased copy of the message is allocated.
+ */
+public final class KeywordAutomaton {
+  private static final KeywordAutomaton EMPTY = compile(List.of());
+
+  private final Map<String, Integer> ids;
+  private final int[] asciiSymbols;
+  private final Map<Character, Integer> otherSymbols;
+  private final int width;
+  private final int[] transitions;
+  private final int[][] outputs;
+
+  private KeywordAutomaton(Map<String, Integer> ids, int[] asciiSymbols, Map<Character, Integer> otherSymbols,
+      int width, int[] transitions, int[][] outputs) {
+    this.ids = ids;
+    this.asciiSymbols = asciiSymbols;
+    this.otherSymbols = otherSymbols;
+    this.width = width;
+    this.transitions = transitions;
+    this.outputs = outputs;
+  }
+
+  public static KeywordAutomaton empty() {
+    return EMPTY;
+  }
+
+  public static KeywordAutomaton compile(Collection<String> keywords) {
+    Set<String> distinct = new LinkedHashSet<>();
+    for (String keyword : keywords) {
+      distinct.add(normalize(keyword));
+    }
+    Map<String, Integer> ids = new HashMap<>();
+    for (String keyword : distinct) {
+      ids.put(keyword, ids.size());
+    }
+
+    // Symbol 0 stands for every character that appears in no keyword; it always leads back to the root.
+    int[] asciiSymbols = new int[128];
+    Map<Character, Integer> otherSymbols = new HashMap<>();
+    int width = 1;
+    for (String keyword : distinct) {
+      for (int i = 0; i < keyword.length(); i++) {
+        char c = keyword.charAt(i);
+        if (c < 128) {
+          if (asciiSymbols[c] == 0) {
+            asciiSymbols[c] = width++;
+          }
+        } else if (!otherSymbols.containsKey(c)) {
+          otherSymbols.put(c, width++);
+        }
+      }
+    }
+
+    // Trie first, with -1 marking a missing edge.
+    List<int[]> trie = new ArrayList<>();
+    List<List<Integer>> terminal = new ArrayList<>();
+    trie.add(newRow(width));
+    terminal.add(new ArrayList<>());
+    for (String keyword : distinct) {
+      int state = 0;
+      for (int i = 0; i < keyword.length(); i++) {
+        int symbol = symbol(keyword.charAt(i), asciiSymbols, otherSymbols);
+        if (trie.get(state)[symbol] < 0) {
+          trie.get(state)[symbol] = trie.size();
+          trie.add(newRow(width));
+          terminal.add(new ArrayList<>());
+        }
+        state = trie.get(state)[symbol];
+      }
+      terminal.get(state).add(ids.get(keyword));
+    }
+
+    // Breadth-first pass turns the trie into a DFA: missing edges follow the failure link, and each state's
+    // output includes the outputs of its failure chain.
+    int states = trie.size();
+    int[] transitions = new int[states * width];
+    int[] failure = new int[states];
+    int[][] outputs = new int[states][];
+    Deque<Integer> queue = new ArrayDeque<>();
+    outputs[0] = toArray(terminal.get(0));
+    for (int symbol = 0; symbol < width; symbol++) {
+      int child = trie.get(0)[symbol];
+      if (child < 0) {
+        transitions[symbol] = 0;
+      } else {
+        transitions[symbol] = child;
+        failure[child] = 0;
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      outputs[state] = merge(terminal.get(state), outputs[failure[state]]);
+      for (int symbol = 0; symbol < width; symbol++) {
+        int child = trie.get(state)[symbol];
+        if (child < 0) {
+          transitions[state * width + symbol] = transitions[failure[state] * width + symbol];
+        } else {
+          transitions[state * width + symbol] = child;
+          failure[child] = transitions[failure[state] * width + symbol];
+          queue.add(child);
+        }
+      }
+    }
+    return new KeywordAutomaton(Map.copyOf(ids), asciiSymbols, Map.copyOf(otherSymbols), width, transitions,
+        outputs);
+  }
+
+  /** Every compiled keyword found in {@code text}. A null text matches nothing, not even the empty keyword. */
+  public KeywordScan scan(CharSequence text) {
+    BitSet found = new BitSet(ids.size());
+    if (text == null) {
+      return new KeywordScan(this, found);
+    }
+    int remaining = ids.size();
+    int state = 0;
+    remaining -= mark(found, outputs[0]);
+    for (int i = 0; i < text.length() && remaining > 0; i++) {
+      state = transitions[state * width + symbol(Character.toLowerCase(text.charAt(i)), asciiSymbols,
+          otherSymbols)];
+      int[] output = outputs[state];
+      if (output.length > 0) {
+        remaining -= mark(found, output);
+      }
+    }
+    return new KeywordScan(this, found);
+  }
+
+  public int size() {
+    return ids.size();
+  }
+
+  int idOf(String keyword) {
+    Integer id = ids.get(keyword);
+    if (id == null && keyword != null) {
+      // Callers such as KeywordFilter pass keywords that are already normalized, so this is the rare path.
+      id = ids.get(normalize(keyword));
+    }
+    return id == null ? -1 : id;
+  }
+
+  static String normalize(String keyword) {
+    if (keyword == null) {
+      return "";
+    }
+    StringBuilder lower = new StringBuilder(keyword.length());
+    for (int i = 0; i < keyword.length(); i++) {
+      lower.append(Character.toLowerCase(keyword.charAt(i)));
+    }
+    return lower.toString();
+  }
+
+  private static int symbol(char c, int[] asciiSymbols, Map<Character, Integer> otherSymbols) {
+    if (c < 128) {
+      return asciiSymbols[c];
+    }
+    Integer symbol = otherSymbols.get(c);
+    return symbol == null ? 0 : symbol;
+  }
+
+  private static int mark(BitSet found, int[] output) {
+    int added = 0;
+    for (int id : output) {
+      if (!found.get(id)) {
+        found.set(id);
+        added++;
+      }
+    }
+    return added;
+  }
+
+  private static int[] newRow(int width) {
+    int[] row = new int[width];
+    Arrays.fill(row, -1);
+    return row;
+  }
+
+  private static int[] merge(List<Integer> own, int[] inherited) {
+    int[] merged = Arrays.copyOf(inherited, inherited.length + own.size());
+    for (int i = 0; i < own.size(); i++) {
+      merged[inherited.length + i] = own.get(i);
+    }
+    return merged;
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+}
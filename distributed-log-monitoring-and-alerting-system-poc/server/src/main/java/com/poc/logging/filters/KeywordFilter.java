@@ -1,12 +1,15 @@
 package com.poc.logging.filters;
 
 import com.poc.logging.model.LogEntry;
+import java.util.function.Consumer;
 
 public class KeywordFilter implements LogFilter {
   private final String keyword;
+  // Id of the keyword in the automaton this filter last saw, so repeated evaluations skip the map lookup.
+  private volatile Binding binding;
 
   public KeywordFilter(String keyword) {
-    this.keyword = keyword == null ? "" : keyword.toLowerCase();
+    this.keyword = KeywordAutomaton.normalize(keyword);
   }
 
   @Override
@@ -14,6 +17,36 @@ public class KeywordFilter implements LogFilter {
     if (entry == null || entry.getMessage() == null) {
       return false;
     }
-    return entry.getMessage().toLowerCase().contains(keyword);
+    String message = entry.getMessage();
+    for (int i = 0; i + keyword.length() <= message.length(); i++) {
+      if (message.regionMatches(true, i, keyword, 0, keyword.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean matches(LogEntry entry, KeywordScan scan) {
+    if (scan == null) {
+      return matches(entry);
+    }
+    Binding current = binding;
+    if (current == null || current.automaton != scan.automaton()) {
+      current = new Binding(scan.automaton(), scan.automaton().idOf(keyword));
+      binding = current;
+    }
+    if (current.id < 0) {
+      return matches(entry);
+    }
+    return entry != null && entry.getMessage() != null && scan.contains(current.id);
+  }
+
+  @Override
+  public void collectKeywords(Consumer<String> keywords) {
+    keywords.accept(keyword);
+  }
+
+  private record Binding(KeywordAutomaton automaton, int id) {
   }
 }
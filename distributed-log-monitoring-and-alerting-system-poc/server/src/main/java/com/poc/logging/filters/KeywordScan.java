@@ -0,0 +1,32 @@
+package com.poc.logging.filters;
+
+import java.util.BitSet;
+
+/** Result of scanning one message with a {@link KeywordAutomaton}: which of its keywords occur in the message. */
+public final class KeywordScan {
+  private final KeywordAutomaton automaton;
+  private final BitSet found;
+
+  KeywordScan(KeywordAutomaton automaton, BitSet found) {
+    this.automaton = automaton;
+    this.found = found;
+  }
+
+  /** Whether {@code keyword} was compiled into the automaton that produced this scan. */
+  public boolean covers(String keyword) {
+    return automaton.idOf(keyword) >= 0;
+  }
+
+  public boolean contains(String keyword) {
+    int id = automaton.idOf(keyword);
+    return id >= 0 && found.get(id);
+  }
+
+  KeywordAutomaton automaton() {
+    return automaton;
+  }
+
+  boolean contains(int id) {
+    return found.get(id);
+  }
+}
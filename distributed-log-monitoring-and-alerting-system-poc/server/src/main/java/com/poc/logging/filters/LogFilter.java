@@ -1,7 +1,20 @@
 package com.poc.logging.filters;
 
 import com.poc.logging.model.LogEntry;
+import java.util.function.Consumer;
 
 public interface LogFilter {
   boolean matches(LogEntry entry);
+
+  /**
+   * Same as {@link #matches(LogEntry)}, but keyword checks may answer from {@code scan}, a single pass over the
+   * message that already covers every keyword registered with the alerting service.
+   */
+  default boolean matches(LogEntry entry, KeywordScan scan) {
+    return matches(entry);
+  }
+
+  /** Reports the keywords this filter looks for, so they can be compiled into one {@link KeywordAutomaton}. */
+  default void collectKeywords(Consumer<String> keywords) {
+  }
 }
@@ -1,16 +1,33 @@
 package com.poc.logging.model;
 
 import com.poc.logging.filters.LogFilter;
+import java.time.Duration;
 
 public class AlertRule {
   private final String name;
   private final int threshold;
   private final LogFilter filter;
+  private final Duration window;
+  private final String groupBy;
 
+  /** Fires every {@code threshold} matches, counted since the last time the rule fired. */
   public AlertRule(String name, int threshold, LogFilter filter) {
+    this(name, threshold, null, null, filter);
+  }
+
+  /**
+   * Fires when {@code threshold} matches arrive within {@code window}. With {@code groupBy}, matches are counted
+   * separately per value of that field (a metadata key, or {@code source} / {@code module}).
+   */
+  public AlertRule(String name, int threshold, Duration window, String groupBy, LogFilter filter) {
+    if (window != null && (window.isNegative() || window.isZero())) {
+      throw new IllegalArgumentException("window must be positive");
+    }
     this.name = name;
     this.threshold = threshold;
     this.filter = filter;
+    this.window = window;
+    this.groupBy = groupBy;
   }
 
   public String getName() {
@@ -24,4 +41,26 @@ public class AlertRule {
   public LogFilter getFilter() {
     return filter;
   }
+
+  public Duration getWindow() {
+    return window;
+  }
+
+  public String getGroupBy() {
+    return groupBy;
+  }
+
+  /** The value this rule groups {@code entry} under, or an empty string when the rule is not grouped. */
+  public String groupKey(LogEntry entry) {
+    if (groupBy == null) {
+      return "";
+    }
+    String value = entry.getMetadata().get(groupBy);
+    if (value == null && "source".equals(groupBy)) {
+      value = entry.getSource();
+    } else if (value == null && "module".equals(groupBy)) {
+      value = entry.getModule();
+    }
+    return value == null ? "unknown" : value;
+  }
 }
@@ -0,0 +1,32 @@
+package com.poc.logging.model;
+
+public class IngestResult {
+  private final int accepted;
+  private final int rejected;
+  private final int dropped;
+  private final boolean retryable;
+
+  public IngestResult(int accepted, int rejected, int dropped, boolean retryable) {
+    this.accepted = accepted;
+    this.rejected = rejected;
+    this.dropped = dropped;
+    this.retryable = retryable;
+  }
+
+  public int getAccepted() {
+    return accepted;
+  }
+
+  public int getRejected() {
+    return rejected;
+  }
+
+  public int getDropped() {
+    return dropped;
+  }
+
+  /** False when resending the same request can never succeed, such as a batch larger than the whole queue. */
+  public boolean isRetryable() {
+    return retryable;
+  }
+}
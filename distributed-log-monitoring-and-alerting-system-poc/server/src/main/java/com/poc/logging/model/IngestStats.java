@@ -0,0 +1,60 @@
+package com.poc.logging.model;
+
+public class IngestStats {
+  private final long accepted;
+  private final long rejected;
+  private final long dropped;
+  private final long processed;
+  private final long failed;
+  private final long batches;
+  private final int queueDepth;
+  private final int queueCapacity;
+
+  public IngestStats(long accepted, long rejected, long dropped, long processed, long failed, long batches,
+      int queueDepth, int queueCapacity) {
+    this.accepted = accepted;
+    this.rejected = rejected;
+    this.dropped = dropped;
+    this.processed = processed;
+    this.failed = failed;
+    this.batches = batches;
+    this.queueDepth = queueDepth;
+    this.queueCapacity = queueCapacity;
+  }
+
+  public long getAccepted() {
+    return accepted;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public long getDropped() {
+    return dropped;
+  }
+
+  public long getProcessed() {
+    return processed;
+  }
+
+  public long getFailed() {
+    return failed;
+  }
+
+  public long getBatches() {
+    return batches;
+  }
+
+  public double getAverageBatchSize() {
+    return batches == 0 ? 0 : (double) (processed + failed) / batches;
+  }
+
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+}
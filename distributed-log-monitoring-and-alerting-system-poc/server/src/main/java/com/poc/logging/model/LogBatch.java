@@ -0,0 +1,21 @@
+package com.poc.logging.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogBatch {
+  @NotEmpty
+  @Size(max = 5000)
+  private List<@Valid LogEntry> entries = new ArrayList<>();
+
+  public List<LogEntry> getEntries() {
+    return entries;
+  }
+
+  public void setEntries(List<LogEntry> entries) {
+    this.entries = entries == null ? new ArrayList<>() : entries;
+  }
+}
@@ -1,31 +1,162 @@
 package com.poc.logging.store;
 
 import com.poc.logging.model.LogEntry;
+import com.poc.logging.model.LogLevel;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Bounded ring of the most recent {@code limit} log entries.
+ *
+ * <p>Writers claim a sequence with one atomic increment and publish into the slot {@code sequence % capacity}, so
+ * ingest is O(1) and never copies the store. The ring is split into fixed-size segments. The writer that fills a
+ * segment seals it with a summary (timestamp range and the set of levels present), which lets time-range and
+ * level queries skip whole segments instead of touching every entry.
+ */
 public class LogStore {
-  private final List<LogEntry> logs = new CopyOnWriteArrayList<>();
+  private static final int DEFAULT_SEGMENT_SIZE = 64;
+
   private final int limit;
+  private final int segmentSize;
+  private final int capacity;
+  private final AtomicReferenceArray<Slot> slots;
+  private final AtomicReferenceArray<Summary> summaries;
+  private final AtomicInteger[] filled;
+  private final AtomicLong nextSequence = new AtomicLong();
+  private final AtomicLong clearedBefore = new AtomicLong();
 
   public LogStore(int limit) {
+    this(limit, DEFAULT_SEGMENT_SIZE);
+  }
+
+  public LogStore(int limit, int segmentSize) {
+    if (limit <= 0 || segmentSize <= 0) {
+      throw new IllegalArgumentException("limit and segmentSize must be positive");
+    }
     this.limit = limit;
+    this.segmentSize = segmentSize;
+    // One spare segment keeps the newest `limit` entries intact while the oldest segment is being overwritten.
+    int segments = (limit + segmentSize - 1) / segmentSize + 1;
+    this.capacity = segments * segmentSize;
+    this.slots = new AtomicReferenceArray<>(capacity);
+    this.summaries = new AtomicReferenceArray<>(segments);
+    this.filled = new AtomicInteger[segments];
+    for (int i = 0; i < segments; i++) {
+      filled[i] = new AtomicInteger();
+    }
   }
 
   public void add(LogEntry entry) {
-    logs.add(entry);
-    if (logs.size() > limit) {
-      logs.remove(0);
+    write(nextSequence.getAndIncrement(), entry);
+  }
+
+  /** Appends a batch with a single sequence claim, keeping the batch contiguous in the ring. */
+  public void addAll(List<LogEntry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    long first = nextSequence.getAndAdd(entries.size());
+    for (int i = 0; i < entries.size(); i++) {
+      write(first + i, entries.get(i));
     }
   }
 
+  /** The retained entries, oldest first. */
   public List<LogEntry> list() {
-    return Collections.unmodifiableList(new ArrayList<>(logs));
+    return query(null, null, null, limit);
+  }
+
+  /**
+   * Retained entries with {@code from <= timestamp < to} and a level of at least {@code minLevel}, oldest first.
+   * Any bound may be null. When more than {@code max} entries match, the newest {@code max} are returned.
+   */
+  public List<LogEntry> query(Instant from, Instant to, LogLevel minLevel, int max) {
+    long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+    long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+    int levelMask = minLevel == null ? -1 : -1 << minLevel.ordinal();
+    long end = nextSequence.get();
+    long start = Math.max(Math.max(0, end - limit), clearedBefore.get());
+    List<LogEntry> matches = new ArrayList<>((int) Math.max(0, Math.min(max, end - start)));
+
+    long sequence = end - 1;
+    while (sequence >= start && matches.size() < max) {
+      long generation = sequence / segmentSize;
+      long segmentStart = Math.max(start, generation * segmentSize);
+      Summary summary = summaries.get(segment(sequence));
+      if (summary != null && summary.generation == generation && !summary.overlaps(fromMillis, toMillis, levelMask)) {
+        sequence = segmentStart - 1;
+        continue;
+      }
+      for (; sequence >= segmentStart && matches.size() < max; sequence--) {
+        Slot slot = slots.get(index(sequence));
+        // A slot whose sequence differs is either still being written or already reused by a newer entry.
+        if (slot != null && slot.sequence == sequence && slot.matches(fromMillis, toMillis, levelMask)) {
+          matches.add(slot.entry);
+        }
+      }
+    }
+    Collections.reverse(matches);
+    return Collections.unmodifiableList(matches);
   }
 
   public void clear() {
-    logs.clear();
+    clearedBefore.accumulateAndGet(nextSequence.get(), Math::max);
+  }
+
+  private void write(long sequence, LogEntry entry) {
+    Instant timestamp = entry.getTimestamp();
+    slots.set(index(sequence), new Slot(
+        sequence,
+        entry,
+        timestamp == null ? Long.MIN_VALUE : timestamp.toEpochMilli(),
+        entry.getLevel() == null ? 0 : 1 << entry.getLevel().ordinal()
+    ));
+    int segment = segment(sequence);
+    if (filled[segment].incrementAndGet() % segmentSize == 0) {
+      seal(sequence / segmentSize);
+    }
+  }
+
+  private void seal(long generation) {
+    long first = generation * segmentSize;
+    long minMillis = Long.MAX_VALUE;
+    long maxMillis = Long.MIN_VALUE;
+    int levels = 0;
+    for (long sequence = first; sequence < first + segmentSize; sequence++) {
+      Slot slot = slots.get(index(sequence));
+      if (slot == null || slot.sequence != sequence) {
+        // A writer from another lap is still in flight. Leave the segment unsummarized so readers scan it.
+        return;
+      }
+      minMillis = Math.min(minMillis, slot.timestampMillis);
+      maxMillis = Math.max(maxMillis, slot.timestampMillis);
+      levels |= slot.levelBit;
+    }
+    summaries.set(segment(first), new Summary(generation, minMillis, maxMillis, levels));
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % capacity);
+  }
+
+  private int segment(long sequence) {
+    return index(sequence) / segmentSize;
+  }
+
+  private record Slot(long sequence, LogEntry entry, long timestampMillis, int levelBit) {
+    boolean matches(long fromMillis, long toMillis, int levelMask) {
+      return timestampMillis >= fromMillis && timestampMillis < toMillis && (levelMask == -1 || (levelBit & levelMask) != 0);
+    }
+  }
+
+  private record Summary(long generation, long minMillis, long maxMillis, int levels) {
+    boolean overlaps(long fromMillis, long toMillis, int levelMask) {
+      return maxMillis >= fromMillis && minMillis < toMillis && (levelMask == -1 || (levels & levelMask) != 0);
+    }
   }
 }
@@ -0,0 +1,147 @@
+package com.poc.logging.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.logging.filters.ErrorLevelFilter;
+import com.poc.logging.model.Alert;
+import com.poc.logging.model.AlertRule;
+import com.poc.logging.model.LogEntry;
+import com.poc.logging.model.LogLevel;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class AlertingServiceTest {
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-02-08T12:00:00Z"));
+  private final List<Alert> alerts = new ArrayList<>();
+
+  @Test
+  void windowedRuleCountsOnlyRecentMatchesPerGroup() {
+    AlertingService service = service(new AlertRule("burst", 3, Duration.ofSeconds(10), "service",
+        new ErrorLevelFilter(LogLevel.ERROR)));
+
+    service.evaluate(error("checkout"));
+    service.evaluate(error("checkout"));
+    service.evaluate(error("search"));
+    assertThat(alerts).isEmpty();
+
+    clock.advance(Duration.ofSeconds(11));
+    service.evaluate(error("checkout"));
+    assertThat(alerts).as("earlier matches slid out of the window").isEmpty();
+
+    service.evaluate(error("checkout"));
+    service.evaluate(error("checkout"));
+    assertThat(alerts).hasSize(1);
+    assertThat(alerts.get(0).getContext()).containsEntry("service", "checkout");
+    assertThat(alerts.get(0).getMessage()).contains("within 10s").contains("service=checkout");
+
+    service.evaluate(error("checkout"));
+    assertThat(alerts).as("firing starts a fresh window").hasSize(1);
+  }
+
+  @Test
+  void unwindowedRuleStillFiresEveryThresholdMatches() {
+    AlertingService service = service(new AlertRule("errors", 2, new ErrorLevelFilter(LogLevel.ERROR)));
+
+    for (int i = 0; i < 5; i++) {
+      service.evaluate(error("checkout"));
+    }
+
+    assertThat(alerts).hasSize(2);
+  }
+
+  @Test
+  void concurrentMatchesFireOncePerThreshold() throws InterruptedException {
+    AlertingService service = service(new AlertRule("burst", 1_000, Duration.ofMinutes(1), "service",
+        new ErrorLevelFilter(LogLevel.ERROR)));
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 250; i++) {
+          service.evaluate(error("checkout"));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(alerts).hasSize(1);
+  }
+
+  @Test
+  void concurrentMatchesRacingAFireAreNotLost() throws InterruptedException {
+    AlertingService service = service(new AlertRule("burst", 100, Duration.ofMinutes(1), "service",
+        new ErrorLevelFilter(LogLevel.ERROR)));
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 2_500; i++) {
+          service.evaluate(error("checkout"));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(alerts).as("every 100 matches fire once, including those racing a fire").hasSize(100);
+  }
+
+  private AlertingService service(AlertRule rule) {
+    AlertingService service = new AlertingService(clock);
+    service.registerObserver(alert -> {
+      synchronized (alerts) {
+        alerts.add(alert);
+      }
+    });
+    service.registerRule(rule);
+    return service;
+  }
+
+  private static LogEntry error(String serviceName) {
+    LogEntry entry = new LogEntry();
+    entry.setSource("agent");
+    entry.setModule("api");
+    entry.setLevel(LogLevel.ERROR);
+    entry.setMessage("request failed");
+    entry.setMetadata(new HashMap<>(Map.of("service", serviceName)));
+    return entry;
+  }
+
+  private static final class MutableClock extends Clock {
+    private volatile Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package com.poc.logging.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.logging.model.IngestResult;
+import com.poc.logging.model.LogEntry;
+import com.poc.logging.model.LogLevel;
+import com.poc.logging.pipeline.AbstractTransformer;
+import com.poc.logging.store.LogStore;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class IngestPipelineTest {
+  @Test
+  void rejectPolicyRefusesWholeRequestOnceQueueIsFull() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    LogStore store = new LogStore(100);
+    IngestPipeline pipeline = pipeline(store, release, OverflowPolicy.REJECT);
+
+    assertThat(pipeline.submit(entries(4)).getAccepted()).isEqualTo(4);
+    IngestResult overflow = pipeline.submit(entries(3));
+    assertThat(overflow.getAccepted()).isZero();
+    assertThat(overflow.getRejected()).isEqualTo(3);
+
+    release.countDown();
+    pipeline.shutdown();
+    assertThat(store.list()).hasSize(4);
+    assertThat(pipeline.stats().getProcessed()).isEqualTo(4);
+    assertThat(pipeline.stats().getRejected()).isEqualTo(3);
+  }
+
+  @Test
+  void rejectPolicyRefusesBatchLargerThanQueueAsNotRetryable() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    LogStore store = new LogStore(100);
+    IngestPipeline pipeline = pipeline(store, release, OverflowPolicy.REJECT);
+
+    IngestResult fits = pipeline.submit(entries(3));
+    IngestResult oversized = pipeline.submit(entries(6));
+
+    release.countDown();
+    pipeline.shutdown();
+    assertThat(fits.isRetryable()).isTrue();
+    assertThat(oversized.getRejected()).isEqualTo(6);
+    assertThat(oversized.isRetryable()).isFalse();
+    assertThat(store.list()).hasSize(3);
+  }
+
+  @Test
+  void shutdownProcessesWhatNoWorkerPickedUp() throws InterruptedException {
+    LogStore store = new LogStore(100);
+    IngestPipeline pipeline = new IngestPipeline(
+        new LogProcessingService(new PassThrough(), new AlertingService(), store), 5, 2, OverflowPolicy.REJECT);
+    pipeline.start(0);
+
+    assertThat(pipeline.submit(entries(5)).getAccepted()).isEqualTo(5);
+    pipeline.shutdown();
+
+    assertThat(store.list()).hasSize(5);
+    assertThat(pipeline.stats().getProcessed()).isEqualTo(5);
+    assertThat(pipeline.stats().getQueueDepth()).isZero();
+  }
+
+  @Test
+  void everythingAcceptedWhileShuttingDownIsProcessed() throws InterruptedException {
+    LogStore store = new LogStore(100_000);
+    IngestPipeline pipeline = new IngestPipeline(
+        new LogProcessingService(new PassThrough(), new AlertingService(), store), 64, 8, OverflowPolicy.DROP);
+    pipeline.start(2);
+    List<Thread> submitters = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread submitter = new Thread(() -> {
+        List<LogEntry> one = entries(1);
+        for (int n = 0; n < 20_000; n++) {
+          pipeline.submit(one);
+        }
+      });
+      submitters.add(submitter);
+      submitter.start();
+    }
+
+    Thread.sleep(20);
+    pipeline.shutdown();
+    for (Thread submitter : submitters) {
+      submitter.join();
+    }
+
+    assertThat(pipeline.stats().getAccepted()).isPositive();
+    assertThat(pipeline.stats().getProcessed()).isEqualTo(pipeline.stats().getAccepted());
+    assertThat(pipeline.stats().getQueueDepth()).isZero();
+  }
+
+  @Test
+  void dropPolicyKeepsWhatFitsAndCountsTheRest() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    LogStore store = new LogStore(100);
+    IngestPipeline pipeline = pipeline(store, release, OverflowPolicy.DROP);
+
+    IngestResult result = pipeline.submit(entries(7));
+    assertThat(result.getAccepted()).isEqualTo(5);
+    assertThat(result.getDropped()).isEqualTo(2);
+
+    release.countDown();
+    pipeline.shutdown();
+    assertThat(store.list()).hasSize(5);
+    assertThat(pipeline.stats().getDropped()).isEqualTo(2);
+  }
+
+  private static final class PassThrough extends AbstractTransformer {
+    @Override
+    protected LogEntry apply(LogEntry entry) {
+      return entry;
+    }
+  }
+
+  /** Queue of five whose single worker blocks on the first entry until {@code release} opens. */
+  private static IngestPipeline pipeline(LogStore store, CountDownLatch release, OverflowPolicy policy) {
+    AbstractTransformer gate = new AbstractTransformer() {
+      @Override
+      protected LogEntry apply(LogEntry entry) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return entry;
+      }
+    };
+    IngestPipeline pipeline = new IngestPipeline(
+        new LogProcessingService(gate, new AlertingService(), store), 5, 2, policy);
+    pipeline.start(1);
+    return pipeline;
+  }
+
+  private static List<LogEntry> entries(int count) {
+    List<LogEntry> entries = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      LogEntry entry = new LogEntry();
+      entry.setSource("agent");
+      entry.setModule("ingest");
+      entry.setLevel(LogLevel.INFO);
+      entry.setMessage("burst " + i);
+      entry.setTimestamp(Instant.parse("2026-02-08T12:00:00Z"));
+      entries.add(entry);
+    }
+    return entries;
+  }
+}
@@ -0,0 +1,42 @@
+package com.poc.logging.filters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class KeywordAutomatonTest {
+  @Test
+  void findsOverlappingAndNestedKeywordsCaseInsensitively() {
+    KeywordAutomaton automaton = KeywordAutomaton.compile(List.of("he", "she", "his", "hers", "Trade Rejected"));
+
+    KeywordScan scan = automaton.scan("USHERS saw a TRADE REJECTED");
+
+    assertThat(scan.contains("he")).isTrue();
+    assertThat(scan.contains("she")).isTrue();
+    assertThat(scan.contains("hers")).isTrue();
+    assertThat(scan.contains("his")).isFalse();
+    assertThat(scan.contains("trade rejected")).isTrue();
+    assertThat(scan.covers("missing")).isFalse();
+  }
+
+  @Test
+  void agreesWithContainsOnRandomText() {
+    Random random = new Random(5);
+    List<String> keywords = List.of("ab", "abc", "bca", "cab", "aaa", "c", "");
+    KeywordAutomaton automaton = KeywordAutomaton.compile(keywords);
+    for (int i = 0; i < 5_000; i++) {
+      StringBuilder text = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int c = 0; c < length; c++) {
+        text.append("abcABx".charAt(random.nextInt(6)));
+      }
+      KeywordScan scan = automaton.scan(text);
+      for (String keyword : keywords) {
+        assertThat(scan.contains(keyword)).as(text + " / " + keyword)
+            .isEqualTo(text.toString().toLowerCase().contains(keyword));
+      }
+    }
+  }
+}
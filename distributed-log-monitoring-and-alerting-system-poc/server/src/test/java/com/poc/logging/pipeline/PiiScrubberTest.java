@@ -0,0 +1,40 @@
+package com.poc.logging.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class PiiScrubberTest {
+  private static final Pattern EMAIL = Pattern.compile("[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,}", Pattern.CASE_INSENSITIVE);
+  private static final Pattern CARD = Pattern.compile("\\b\\d{13,16}\\b");
+
+  @Test
+  void redactsEmailsAndCards() {
+    assertThat(PiiScrubber.scrub("User john.doe@example.com paid with 4111111111111111 today"))
+        .isEqualTo("User [REDACTED_EMAIL] paid with [REDACTED_CARD] today");
+    assertThat(PiiScrubber.scrub("order 12345 routed")).isEqualTo("order 12345 routed");
+  }
+
+  @Test
+  void matchesTwoPassRegexOnRandomText() {
+    Random random = new Random(9);
+    String[] pieces = {"a", "Z", "x.y", "@", ".", "-", "_", "+", "%", " ", "[", "é", "com", "io", "1", "42",
+        "4111111111111111", "12345678901234567", "1234567890123", "@ex.com", "a@b.c", "ops@corp.example.org"};
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder text = new StringBuilder();
+      int parts = random.nextInt(12);
+      for (int p = 0; p < parts; p++) {
+        text.append(pieces[random.nextInt(pieces.length)]);
+      }
+      String input = text.toString();
+      assertThat(PiiScrubber.scrub(input)).as(input).isEqualTo(regexScrub(input));
+    }
+  }
+
+  private static String regexScrub(String message) {
+    message = EMAIL.matcher(message).replaceAll("[REDACTED_EMAIL]");
+    return CARD.matcher(message).replaceAll("[REDACTED_CARD]");
+  }
+}
@@ -0,0 +1,91 @@
+package com.poc.logging.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.logging.model.LogEntry;
+import com.poc.logging.model.LogLevel;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class LogStoreTest {
+  private static final Instant BASE = Instant.parse("2026-02-08T12:00:00Z");
+
+  @Test
+  void keepsNewestEntriesOldestFirst() {
+    LogStore store = new LogStore(10, 4);
+    for (int i = 0; i < 25; i++) {
+      store.add(entry(i, LogLevel.INFO));
+    }
+
+    assertThat(store.list()).extracting(LogEntry::getMessage)
+        .containsExactly("m15", "m16", "m17", "m18", "m19", "m20", "m21", "m22", "m23", "m24");
+  }
+
+  @Test
+  void filtersByTimeRangeAndMinimumLevel() {
+    LogStore store = new LogStore(100, 8);
+    for (int i = 0; i < 100; i++) {
+      store.add(entry(i, i % 10 == 0 ? LogLevel.ERROR : LogLevel.INFO));
+    }
+
+    assertThat(store.query(BASE.plusSeconds(20), BASE.plusSeconds(25), null, 100))
+        .extracting(LogEntry::getMessage)
+        .containsExactly("m20", "m21", "m22", "m23", "m24");
+    assertThat(store.query(null, null, LogLevel.WARN, 100))
+        .extracting(LogEntry::getMessage)
+        .containsExactly("m0", "m10", "m20", "m30", "m40", "m50", "m60", "m70", "m80", "m90");
+    assertThat(store.query(BASE.plusSeconds(35), null, LogLevel.ERROR, 2))
+        .extracting(LogEntry::getMessage)
+        .containsExactly("m80", "m90");
+  }
+
+  @Test
+  void clearHidesExistingEntries() {
+    LogStore store = new LogStore(10, 4);
+    store.add(entry(0, LogLevel.INFO));
+    store.clear();
+    store.add(entry(1, LogLevel.INFO));
+
+    assertThat(store.list()).extracting(LogEntry::getMessage).containsExactly("m1");
+  }
+
+  @Test
+  void concurrentWritersNeverExposeLostOrDuplicatedEntries() throws InterruptedException {
+    LogStore store = new LogStore(1_000, 32);
+    int writers = 4;
+    int perWriter = 5_000;
+    List<Thread> threads = new ArrayList<>();
+    for (int w = 0; w < writers; w++) {
+      int writer = w;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < perWriter; i++) {
+          store.add(entry(writer * perWriter + i, LogLevel.INFO));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    List<LogEntry> retained = store.list();
+    Set<String> distinct = new HashSet<>();
+    retained.forEach(entry -> distinct.add(entry.getMessage()));
+    assertThat(retained).hasSize(1_000);
+    assertThat(distinct).hasSize(1_000);
+  }
+
+  private static LogEntry entry(int i, LogLevel level) {
+    LogEntry entry = new LogEntry();
+    entry.setSource("test");
+    entry.setModule("store");
+    entry.setLevel(level);
+    entry.setMessage("m" + i);
+    entry.setTimestamp(BASE.plusSeconds(i));
+    return entry;
+  }
+}
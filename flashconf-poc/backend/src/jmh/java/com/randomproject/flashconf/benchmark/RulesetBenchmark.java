@@ -0,0 +1,120 @@
+package com.randomproject.flashconf.benchmark;
+
+import com.randomproject.flashconf.AttributeSlots;
+import com.randomproject.flashconf.Condition;
+import com.randomproject.flashconf.EvaluationResult;
+import com.randomproject.flashconf.FeatureFlag;
+import com.randomproject.flashconf.FlagPlan;
+import com.randomproject.flashconf.Operator;
+import com.randomproject.flashconf.RulesetPlan;
+import com.randomproject.flashconf.TargetRule;
+import com.randomproject.flashconf.TargetingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating a full ruleset for one client as flag and rule counts grow. {@code interpreted} walks every
+ * flag through {@link TargetingEngine#evaluate}, as {@code RulesetService} did on each cache miss; {@code compiled}
+ * evaluates the {@link RulesetPlan} the service now keeps. Throughput is in rulesets per µs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RulesetBenchmark {
+    private static final String[] COUNTRIES = {"US", "CA", "DE", "FR", "IN", "BR", "JP", "GB"};
+    private static final String[] SEGMENTS = {"beta", "internal", "enterprise", "free", "pro"};
+    private static final int CLIENTS = 64;
+
+    @Param({"10", "100", "500"})
+    public int flags;
+
+    @Param({"1", "5", "20"})
+    public int rulesPerFlag;
+
+    private final TargetingEngine engine = new TargetingEngine();
+    private List<FeatureFlag> flagList;
+    private RulesetPlan plan;
+    private List<Map<String, String>> clients;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        flagList = new ArrayList<>();
+        plan = RulesetPlan.empty();
+        for (int f = 0; f < flags; f++) {
+            List<TargetRule> rules = new ArrayList<>();
+            for (int r = 0; r < rulesPerFlag; r++) {
+                List<String> countries = new ArrayList<>();
+                for (int c = 0; c < 4; c++) {
+                    countries.add(COUNTRIES[random.nextInt(COUNTRIES.length)]);
+                }
+                rules.add(new TargetRule("rule-" + r, true, List.of(
+                        new Condition("country", Operator.IN, countries),
+                        new Condition("segment", Operator.EQUALS, List.of(SEGMENTS[random.nextInt(SEGMENTS.length)]))),
+                        r % 2 == 0 ? 30 : null, "userId"));
+            }
+            FeatureFlag flag = new FeatureFlag("flag-" + f, "", false, rules, Instant.now());
+            flagList.add(flag);
+            AttributeSlots slots = plan.getSlots().withAll(FlagPlan.referencedAttributes(flag));
+            plan = plan.with(engine.compile(flag, slots), slots);
+        }
+        clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("userId", "user-" + random.nextInt(1_000_000));
+            attributes.put("country", COUNTRIES[random.nextInt(COUNTRIES.length)]);
+            attributes.put("segment", SEGMENTS[random.nextInt(SEGMENTS.length)]);
+            attributes.put("appVersion", "5." + random.nextInt(20));
+            clients.add(attributes);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Boolean> interpreted() {
+        Map<String, String> attributes = nextClient();
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        Map<String, String> debug = new LinkedHashMap<>();
+        for (FeatureFlag flag : flagList) {
+            EvaluationResult evaluation = engine.evaluate(flag, attributes);
+            result.put(flag.getKey(), evaluation.isEnabled());
+            debug.put(flag.getKey(), evaluation.getReason());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, Boolean> compiled() {
+        Map<String, String> attributes = nextClient();
+        Map<String, Boolean> result = new LinkedHashMap<>(plan.size() * 2);
+        Map<String, String> debug = new LinkedHashMap<>(plan.size() * 2);
+        plan.evaluate(attributes, result, debug);
+        return result;
+    }
+
+    private Map<String, String> nextClient() {
+        next = (next + 1) & (CLIENTS - 1);
+        return clients.get(next);
+    }
+}
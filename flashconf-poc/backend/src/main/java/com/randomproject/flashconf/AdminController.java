@@ -56,6 +56,11 @@ public class AdminController {
         return service.deleteFlag(key, actor).isPresent() ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/cache/stats")
+    public RulesetCacheStats cacheStats() {
+        return service.cacheStats();
+    }
+
     @GetMapping("/audit")
     public List<ChangeLogEntry> auditTrail() {
         return service.auditTrail();
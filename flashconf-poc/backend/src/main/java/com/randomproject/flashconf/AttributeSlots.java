@@ -0,0 +1,74 @@
+package com.randomproject.flashconf;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only numbering of the attribute names that rules reference. Compiled plans read attributes by slot
+ * from a {@code String[]} bound once per request instead of probing the request map per condition. Adding a
+ * name returns a new instance and keeps existing slots, so plans compiled earlier stay valid.
+ */
+public final class AttributeSlots {
+    private static final AttributeSlots EMPTY = new AttributeSlots(Map.of(), new String[0]);
+
+    private final Map<String, Integer> slots;
+    private final String[] names;
+
+    private AttributeSlots(Map<String, Integer> slots, String[] names) {
+        this.slots = slots;
+        this.names = names;
+    }
+
+    public static AttributeSlots empty() {
+        return EMPTY;
+    }
+
+    public AttributeSlots withAll(Collection<String> attributes) {
+        Map<String, Integer> extended = null;
+        for (String attribute : attributes) {
+            if (attribute == null || slots.containsKey(attribute)
+                    || (extended != null && extended.containsKey(attribute))) {
+                continue;
+            }
+            if (extended == null) {
+                extended = new HashMap<>(slots);
+            }
+            extended.put(attribute, extended.size());
+        }
+        if (extended == null) {
+            return this;
+        }
+        String[] extendedNames = new String[extended.size()];
+        extended.forEach((name, slot) -> extendedNames[slot] = name);
+        return new AttributeSlots(Map.copyOf(extended), extendedNames);
+    }
+
+    /** Slot for {@code attribute}, or -1 when no rule references it. */
+    public int slotOf(String attribute) {
+        Integer slot = attribute == null ? null : slots.get(attribute);
+        return slot == null ? -1 : slot;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /** Values of the request's attributes by slot; attributes no rule references are skipped. */
+    public String[] bind(Map<String, String> attributes) {
+        String[] values = new String[names.length];
+        if (attributes.size() < names.length) {
+            for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                int slot = slotOf(entry.getKey());
+                if (slot >= 0) {
+                    values[slot] = entry.getValue();
+                }
+            }
+        } else {
+            for (int slot = 0; slot < names.length; slot++) {
+                values[slot] = attributes.get(names[slot]);
+            }
+        }
+        return values;
+    }
+}
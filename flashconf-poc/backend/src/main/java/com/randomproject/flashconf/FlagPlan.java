@@ -0,0 +1,166 @@
+package com.randomproject.flashconf;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable evaluation plan for one {@link FeatureFlag}, compiled on upsert. Conditions read attributes by slot,
+ * {@code IN}/{@code NOT_IN} lists become hash sets, and every possible {@link EvaluationResult} is built up front,
+ * so {@link #evaluate} allocates nothing.
+ */
+public final class FlagPlan {
+    private final String key;
+    private final RulePlan[] rules;
+    private final EvaluationResult defaultResult;
+    private final Set<String> referencedAttributes;
+
+    private FlagPlan(String key, RulePlan[] rules, EvaluationResult defaultResult, Set<String> referencedAttributes) {
+        this.key = key;
+        this.rules = rules;
+        this.defaultResult = defaultResult;
+        this.referencedAttributes = referencedAttributes;
+    }
+
+    /** Attribute names the flag's rules read, including rollout attributes. */
+    public static Set<String> referencedAttributes(FeatureFlag flag) {
+        Set<String> attributes = new LinkedHashSet<>();
+        if (flag.getRules() == null) {
+            return attributes;
+        }
+        for (TargetRule rule : flag.getRules()) {
+            if (rule.getConditions() != null) {
+                for (Condition condition : rule.getConditions()) {
+                    if (condition.getAttribute() != null) {
+                        attributes.add(condition.getAttribute());
+                    }
+                }
+            }
+            if (rule.getRolloutPercent() != null) {
+                attributes.add(TargetingEngine.rolloutAttribute(rule));
+            }
+        }
+        return attributes;
+    }
+
+    /** Compiles {@code flag}; {@code slots} must already contain every attribute the flag references. */
+    public static FlagPlan compile(FeatureFlag flag, AttributeSlots slots) {
+        List<RulePlan> rules = new ArrayList<>();
+        if (flag.getRules() != null) {
+            for (TargetRule rule : flag.getRules()) {
+                rules.add(RulePlan.compile(flag.getKey(), rule, slots));
+            }
+        }
+        return new FlagPlan(flag.getKey(), rules.toArray(new RulePlan[0]),
+                new EvaluationResult(flag.isEnabled(), "default"), Set.copyOf(referencedAttributes(flag)));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Set<String> getReferencedAttributes() {
+        return referencedAttributes;
+    }
+
+    public EvaluationResult evaluate(String[] values) {
+        for (RulePlan rule : rules) {
+            if (rule.matches(values)) {
+                return rule.result(key, values);
+            }
+        }
+        return defaultResult;
+    }
+
+    private static final class RulePlan {
+        private final ConditionPlan[] conditions;
+        private final int rolloutPercent;
+        private final int rolloutSlot;
+        private final EvaluationResult matched;
+        private final EvaluationResult blocked;
+
+        private RulePlan(ConditionPlan[] conditions, int rolloutPercent, int rolloutSlot, EvaluationResult matched,
+                         EvaluationResult blocked) {
+            this.conditions = conditions;
+            this.rolloutPercent = rolloutPercent;
+            this.rolloutSlot = rolloutSlot;
+            this.matched = matched;
+            this.blocked = blocked;
+        }
+
+        static RulePlan compile(String flagKey, TargetRule rule, AttributeSlots slots) {
+            List<ConditionPlan> conditions = new ArrayList<>();
+            if (rule.getConditions() != null) {
+                for (Condition condition : rule.getConditions()) {
+                    conditions.add(ConditionPlan.compile(condition, slots));
+                }
+            }
+            boolean rollout = rule.getRolloutPercent() != null;
+            return new RulePlan(
+                    conditions.toArray(new ConditionPlan[0]),
+                    rollout ? Math.max(0, Math.min(100, rule.getRolloutPercent())) : -1,
+                    rollout ? slots.slotOf(TargetingEngine.rolloutAttribute(rule)) : -1,
+                    new EvaluationResult(rule.isEnabled(), "rule:" + rule.getId()),
+                    new EvaluationResult(false, "rule:" + rule.getId() + " (rollout) blocked"));
+        }
+
+        boolean matches(String[] values) {
+            for (ConditionPlan condition : conditions) {
+                if (!condition.matches(values)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        EvaluationResult result(String flagKey, String[] values) {
+            if (rolloutPercent < 0) {
+                return matched;
+            }
+            String bucketKey = rolloutSlot < 0 ? null : values[rolloutSlot];
+            if (bucketKey == null || MurmurHash3.bucket(flagKey, bucketKey) >= rolloutPercent) {
+                return blocked;
+            }
+            return matched;
+        }
+    }
+
+    private static final class ConditionPlan {
+        private final int slot;
+        private final Operator operator;
+        private final String operand;
+        private final Set<String> operands;
+
+        private ConditionPlan(int slot, Operator operator, String operand, Set<String> operands) {
+            this.slot = slot;
+            this.operator = operator;
+            this.operand = operand;
+            this.operands = operands;
+        }
+
+        static ConditionPlan compile(Condition condition, AttributeSlots slots) {
+            List<String> values = condition.getValues();
+            // A missing operator or value list never matches, as in the interpreter.
+            Operator operator = values == null ? null : condition.getOperator();
+            String operand = values == null || values.isEmpty() ? null : values.get(0);
+            Set<String> operands = values == null ? Set.of() : new HashSet<>(values);
+            return new ConditionPlan(slots.slotOf(condition.getAttribute()), operator, operand, operands);
+        }
+
+        boolean matches(String[] values) {
+            if (operator == null) {
+                return false;
+            }
+            String value = slot < 0 ? null : values[slot];
+            return switch (operator) {
+                case EQUALS -> value == null ? operand == null : value.equals(operand);
+                case NOT_EQUALS -> value != null && !value.equals(operand);
+                case IN -> value != null && operands.contains(value);
+                case NOT_IN -> value != null && !operands.contains(value);
+                case CONTAINS -> value != null && operand != null && value.contains(operand);
+            };
+        }
+    }
+}
@@ -23,8 +23,9 @@ public class FlashConfConfiguration {
     public RulesetService rulesetService(CentralConfigStore store,
                                          TargetingEngine engine,
                                          @Value("${flashconf.cache.ttl-seconds:10}") int ttlSeconds,
-                                         @Value("${flashconf.cache.max-size:1000}") int maxSize) {
-        return new RulesetService(store, engine, Duration.ofSeconds(ttlSeconds), maxSize);
+                                         @Value("${flashconf.cache.max-size:1000}") int maxSize,
+                                         @Value("${flashconf.ruleset.history-size:1024}") int historySize) {
+        return new RulesetService(store, engine, Duration.ofSeconds(ttlSeconds), maxSize, historySize);
     }
 
     @Bean
@@ -32,9 +33,11 @@ public class FlashConfConfiguration {
         return new AuditLog(maxEntries);
     }
 
-    @Bean
-    public SseHub sseHub() {
-        return new SseHub();
+    @Bean(destroyMethod = "shutdown")
+    public SseHub sseHub(RulesetService rulesetService,
+                         @Value("${flashconf.sse.sender-threads:4}") int senderThreads,
+                         @Value("${flashconf.sse.max-pending-clients:10000}") int maxPendingClients) {
+        return new SseHub(rulesetService, senderThreads, maxPendingClients);
     }
 
     @Bean
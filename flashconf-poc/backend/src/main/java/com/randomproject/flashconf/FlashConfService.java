@@ -37,8 +37,8 @@ public class FlashConfService {
         );
         store.upsert(flag);
         recordAudit(before, flag, request.getActor(), before == null ? "CREATE" : "UPDATE");
-        rulesetService.invalidateAll();
-        sseHub.broadcastRulesets(rulesetService);
+        rulesetService.refresh(flag.getKey());
+        sseHub.publish();
         return flag;
     }
 
@@ -46,8 +46,8 @@ public class FlashConfService {
         Optional<FeatureFlag> removed = store.delete(key);
         removed.ifPresent(flag -> {
             recordAudit(flag, null, actor, "DELETE");
-            rulesetService.invalidateAll();
-            sseHub.broadcastRulesets(rulesetService);
+            rulesetService.refresh(key);
+            sseHub.publish();
         });
         return removed;
     }
@@ -56,6 +56,10 @@ public class FlashConfService {
         return rulesetService.getRuleset(clientId, attributes);
     }
 
+    public RulesetCacheStats cacheStats() {
+        return rulesetService.cacheStats();
+    }
+
     public List<ChangeLogEntry> auditTrail() {
         return auditLog.list();
     }
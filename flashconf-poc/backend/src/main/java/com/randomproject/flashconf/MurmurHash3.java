@@ -0,0 +1,109 @@
+package com.randomproject.flashconf;
+
+/**
+ * MurmurHash3 x86_32 over the UTF-8 bytes of a string, encoded on the fly so hashing allocates nothing.
+ */
+public final class MurmurHash3 {
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private MurmurHash3() {
+    }
+
+    public static int hash32(String text, int seed) {
+        return hash32(text, null, seed);
+    }
+
+    /**
+     * Rollout bucket in {@code [0, 100)} for {@code value}, salted with the flag key so one user does not land in
+     * the same bucket for every flag. Hashes the bytes of {@code salt + ":" + value} without concatenating.
+     */
+    public static int bucket(String salt, String value) {
+        return (int) ((hash32(salt, value, 0) & 0xffffffffL) % 100);
+    }
+
+    private static int hash32(String first, String second, int seed) {
+        int h = seed;
+        int block = 0;
+        int filled = 0;
+        int length = 0;
+        int total = second == null ? first.length() : first.length() + 1 + second.length();
+        for (int i = 0; i < total; i++) {
+            char c = charAt(first, second, i);
+            int codePoint;
+            if (Character.isHighSurrogate(c) && i + 1 < total
+                    && Character.isLowSurrogate(charAt(first, second, i + 1))) {
+                codePoint = Character.toCodePoint(c, charAt(first, second, ++i));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate: String.getBytes(UTF_8) writes '?', so hash the same byte.
+                codePoint = '?';
+            } else {
+                codePoint = c;
+            }
+            int bytes;
+            int encoded;
+            if (codePoint < 0x80) {
+                bytes = 1;
+                encoded = codePoint;
+            } else if (codePoint < 0x800) {
+                bytes = 2;
+                encoded = (0xc0 | (codePoint >>> 6)) | ((0x80 | (codePoint & 0x3f)) << 8);
+            } else if (codePoint < 0x10000) {
+                bytes = 3;
+                encoded = (0xe0 | (codePoint >>> 12))
+                        | ((0x80 | ((codePoint >>> 6) & 0x3f)) << 8)
+                        | ((0x80 | (codePoint & 0x3f)) << 16);
+            } else {
+                bytes = 4;
+                encoded = (0xf0 | (codePoint >>> 18))
+                        | ((0x80 | ((codePoint >>> 12) & 0x3f)) << 8)
+                        | ((0x80 | ((codePoint >>> 6) & 0x3f)) << 16)
+                        | ((0x80 | (codePoint & 0x3f)) << 24);
+            }
+            for (int b = 0; b < bytes; b++) {
+                block |= ((encoded >>> (8 * b)) & 0xff) << (8 * filled);
+                length++;
+                if (++filled == 4) {
+                    h = mixH(h, mixK(block));
+                    block = 0;
+                    filled = 0;
+                }
+            }
+        }
+        if (filled > 0) {
+            h ^= mixK(block);
+        }
+        return fmix(h ^ length);
+    }
+
+    private static char charAt(String first, String second, int index) {
+        if (index < first.length()) {
+            return first.charAt(index);
+        }
+        if (index == first.length()) {
+            return ':';
+        }
+        return second.charAt(index - first.length() - 1);
+    }
+
+    private static int mixK(int k) {
+        k *= C1;
+        k = Integer.rotateLeft(k, 15);
+        return k * C2;
+    }
+
+    private static int mixH(int h, int k) {
+        h ^= k;
+        h = Integer.rotateLeft(h, 13);
+        return h * 5 + 0xe6546b64;
+    }
+
+    private static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -1,24 +1,23 @@
 package com.randomproject.flashconf;
 
-import java.util.Map;
-import java.util.Objects;
-import java.util.TreeMap;
+import java.util.Arrays;
 
+/**
+ * Cache key for an evaluated ruleset: the request's values for the attributes rules reference, by slot. Attributes
+ * no rule reads, and the client id, cannot change the result, so requests that differ only in those share an
+ * entry. The key reuses the array bound for evaluation instead of copying the request's attributes.
+ */
 public class RulesetCacheKey {
-    private final String clientId;
-    private final Map<String, String> attributes;
+    private final String[] values;
+    private final int hash;
 
-    public RulesetCacheKey(String clientId, Map<String, String> attributes) {
-        this.clientId = clientId == null ? "unknown" : clientId;
-        this.attributes = new TreeMap<>(attributes);
+    public RulesetCacheKey(String[] values) {
+        this.values = values;
+        this.hash = Arrays.hashCode(values);
     }
 
-    public String getClientId() {
-        return clientId;
-    }
-
-    public Map<String, String> getAttributes() {
-        return attributes;
+    String[] getValues() {
+        return values;
     }
 
     @Override
@@ -26,11 +25,11 @@ public class RulesetCacheKey {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         RulesetCacheKey that = (RulesetCacheKey) o;
-        return Objects.equals(clientId, that.clientId) && Objects.equals(attributes, that.attributes);
+        return hash == that.hash && Arrays.equals(values, that.values);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(clientId, attributes);
+        return hash;
     }
 }
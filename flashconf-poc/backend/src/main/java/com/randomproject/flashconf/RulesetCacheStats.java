@@ -0,0 +1,82 @@
+package com.randomproject.flashconf;
+
+/**
+ * Ruleset cache counters since startup, split by cause. Misses are {@code cold} when no entry existed and
+ * {@code stale} when the entry predates the current ruleset version. A flag edit either patches each cached
+ * entry, or leaves it unchanged when that flag's result for the entry did not move. Only edits that reference a
+ * new attribute invalidate the whole cache. Removals count Caffeine evictions by size and expiry, and explicit
+ * invalidations.
+ */
+public class RulesetCacheStats {
+    private final long size;
+    private final long hits;
+    private final long coldMisses;
+    private final long staleMisses;
+    private final long flagRefreshes;
+    private final long entriesPatched;
+    private final long entriesUnchanged;
+    private final long newAttributeInvalidations;
+    private final long evictedBySize;
+    private final long evictedByExpiry;
+    private final long removedExplicitly;
+
+    public RulesetCacheStats(long size, long hits, long coldMisses, long staleMisses, long flagRefreshes,
+                             long entriesPatched, long entriesUnchanged, long newAttributeInvalidations,
+                             long evictedBySize, long evictedByExpiry, long removedExplicitly) {
+        this.size = size;
+        this.hits = hits;
+        this.coldMisses = coldMisses;
+        this.staleMisses = staleMisses;
+        this.flagRefreshes = flagRefreshes;
+        this.entriesPatched = entriesPatched;
+        this.entriesUnchanged = entriesUnchanged;
+        this.newAttributeInvalidations = newAttributeInvalidations;
+        this.evictedBySize = evictedBySize;
+        this.evictedByExpiry = evictedByExpiry;
+        this.removedExplicitly = removedExplicitly;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getColdMisses() {
+        return coldMisses;
+    }
+
+    public long getStaleMisses() {
+        return staleMisses;
+    }
+
+    public long getFlagRefreshes() {
+        return flagRefreshes;
+    }
+
+    public long getEntriesPatched() {
+        return entriesPatched;
+    }
+
+    public long getEntriesUnchanged() {
+        return entriesUnchanged;
+    }
+
+    public long getNewAttributeInvalidations() {
+        return newAttributeInvalidations;
+    }
+
+    public long getEvictedBySize() {
+        return evictedBySize;
+    }
+
+    public long getEvictedByExpiry() {
+        return evictedByExpiry;
+    }
+
+    public long getRemovedExplicitly() {
+        return removedExplicitly;
+    }
+}
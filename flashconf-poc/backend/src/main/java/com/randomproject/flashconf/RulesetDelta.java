@@ -0,0 +1,89 @@
+package com.randomproject.flashconf;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flags that changed between {@code fromVersion} and {@code version}, evaluated for one client. Flags in
+ * {@code removed} were deleted; every other flag the client holds is unchanged.
+ */
+public class RulesetDelta {
+    private String clientId;
+    private long fromVersion;
+    private long version;
+    private Map<String, Boolean> flags;
+    private Map<String, String> debug;
+    private List<String> removed;
+    private Instant evaluatedAt;
+
+    public RulesetDelta() {
+    }
+
+    public RulesetDelta(String clientId, long fromVersion, long version, Map<String, Boolean> flags,
+                        Map<String, String> debug, List<String> removed, Instant evaluatedAt) {
+        this.clientId = clientId;
+        this.fromVersion = fromVersion;
+        this.version = version;
+        this.flags = flags;
+        this.debug = debug;
+        this.removed = removed;
+        this.evaluatedAt = evaluatedAt;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    public void setFromVersion(long fromVersion) {
+        this.fromVersion = fromVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Map<String, Boolean> getFlags() {
+        return flags;
+    }
+
+    public void setFlags(Map<String, Boolean> flags) {
+        this.flags = flags;
+    }
+
+    public Map<String, String> getDebug() {
+        return debug;
+    }
+
+    public void setDebug(Map<String, String> debug) {
+        this.debug = debug;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<String> removed) {
+        this.removed = removed;
+    }
+
+    public Instant getEvaluatedAt() {
+        return evaluatedAt;
+    }
+
+    public void setEvaluatedAt(Instant evaluatedAt) {
+        this.evaluatedAt = evaluatedAt;
+    }
+}
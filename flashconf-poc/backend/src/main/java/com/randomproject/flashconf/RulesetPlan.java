@@ -0,0 +1,121 @@
+package com.randomproject.flashconf;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of every compiled flag, ordered by key. A flag change builds a new snapshot that shares the
+ * untouched {@link FlagPlan}s, so readers evaluate against a consistent set of flags without locking. Every
+ * change bumps the version by one, which clients use to ask for the flags changed since the version they hold.
+ */
+public final class RulesetPlan {
+    private static final RulesetPlan EMPTY = new RulesetPlan(0, AttributeSlots.empty(), new FlagPlan[0]);
+
+    private final long version;
+    private final AttributeSlots slots;
+    private final FlagPlan[] flags;
+
+    private RulesetPlan(long version, AttributeSlots slots, FlagPlan[] flags) {
+        this.version = version;
+        this.slots = slots;
+        this.flags = flags;
+    }
+
+    public static RulesetPlan empty() {
+        return EMPTY;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public AttributeSlots getSlots() {
+        return slots;
+    }
+
+    public int size() {
+        return flags.length;
+    }
+
+    /** Adds or replaces {@code plan}; {@code extended} must be this snapshot's slots plus any the plan added. */
+    public RulesetPlan with(FlagPlan plan, AttributeSlots extended) {
+        int index = indexOf(plan.getKey());
+        FlagPlan[] next;
+        if (index >= 0) {
+            next = flags.clone();
+            next[index] = plan;
+        } else {
+            int insertAt = -index - 1;
+            next = new FlagPlan[flags.length + 1];
+            System.arraycopy(flags, 0, next, 0, insertAt);
+            next[insertAt] = plan;
+            System.arraycopy(flags, insertAt, next, insertAt + 1, flags.length - insertAt);
+        }
+        return new RulesetPlan(version + 1, extended, next);
+    }
+
+    /** Plan for flag {@code key}, or null when the snapshot has no such flag. */
+    public FlagPlan find(String key) {
+        int index = indexOf(key);
+        return index < 0 ? null : flags[index];
+    }
+
+    public RulesetPlan without(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return this;
+        }
+        FlagPlan[] next = new FlagPlan[flags.length - 1];
+        System.arraycopy(flags, 0, next, 0, index);
+        System.arraycopy(flags, index + 1, next, index, flags.length - index - 1);
+        return new RulesetPlan(version + 1, slots, next);
+    }
+
+    /** Evaluates every flag for one client, binding its attributes to slots once for the whole ruleset. */
+    public void evaluate(Map<String, String> attributes, Map<String, Boolean> flagsOut, Map<String, String> debugOut) {
+        evaluate(slots.bind(attributes), flagsOut, debugOut);
+    }
+
+    /** Evaluates every flag against attribute values already bound to this snapshot's slots. */
+    public void evaluate(String[] values, Map<String, Boolean> flagsOut, Map<String, String> debugOut) {
+        for (FlagPlan flag : flags) {
+            EvaluationResult result = flag.evaluate(values);
+            flagsOut.put(flag.getKey(), result.isEnabled());
+            debugOut.put(flag.getKey(), result.getReason());
+        }
+    }
+
+    /** Evaluates only the flags in {@code keys}; keys of deleted flags are added to {@code removedOut}. */
+    public void evaluate(Map<String, String> attributes, Collection<String> keys, Map<String, Boolean> flagsOut,
+                         Map<String, String> debugOut, List<String> removedOut) {
+        String[] values = slots.bind(attributes);
+        for (String key : keys) {
+            int index = indexOf(key);
+            if (index < 0) {
+                removedOut.add(key);
+                continue;
+            }
+            EvaluationResult result = flags[index].evaluate(values);
+            flagsOut.put(key, result.isEnabled());
+            debugOut.put(key, result.getReason());
+        }
+    }
+
+    private int indexOf(String key) {
+        int low = 0;
+        int high = flags.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = flags[mid].getKey().compareTo(key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
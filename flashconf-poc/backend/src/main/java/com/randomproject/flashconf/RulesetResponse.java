@@ -10,18 +10,20 @@ public class RulesetResponse {
     private Map<String, String> debug;
     private Instant evaluatedAt;
     private boolean cacheHit;
+    private long version;
 
     public RulesetResponse() {
     }
 
     public RulesetResponse(String clientId, Map<String, String> attributes, Map<String, Boolean> flags,
-                           Map<String, String> debug, Instant evaluatedAt, boolean cacheHit) {
+                           Map<String, String> debug, Instant evaluatedAt, boolean cacheHit, long version) {
         this.clientId = clientId;
         this.attributes = attributes;
         this.flags = flags;
         this.debug = debug;
         this.evaluatedAt = evaluatedAt;
         this.cacheHit = cacheHit;
+        this.version = version;
     }
 
     public String getClientId() {
@@ -71,4 +73,12 @@ public class RulesetResponse {
     public void setCacheHit(boolean cacheHit) {
         this.cacheHit = cacheHit;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
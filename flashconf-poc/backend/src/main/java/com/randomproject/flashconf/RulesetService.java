@@ -2,52 +2,235 @@ package com.randomproject.flashconf;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Serves evaluated rulesets from a {@link RulesetPlan}, with a Caffeine cache in front.
+ *
+ * <p>Cache keys hold only the attributes some rule references, so a flag edit can be applied to every cached
+ * ruleset in place: the changed flag is evaluated against each key and the entry is rewritten only if that flag's
+ * result moved. The whole cache is dropped only when an edit references an attribute no rule read before, since
+ * that changes what a key has to hold.
+ */
 public class RulesetService {
     private final CentralConfigStore store;
     private final TargetingEngine engine;
-    private final Cache<RulesetCacheKey, RulesetResponse> cache;
+    private final Cache<RulesetCacheKey, CachedRuleset> cache;
+    private final int historySize;
+    private final Deque<FlagVersion> history = new ArrayDeque<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coldMisses = new LongAdder();
+    private final LongAdder staleMisses = new LongAdder();
+    private final LongAdder flagRefreshes = new LongAdder();
+    private final LongAdder entriesPatched = new LongAdder();
+    private final LongAdder entriesUnchanged = new LongAdder();
+    private final LongAdder newAttributeInvalidations = new LongAdder();
+    private final Map<RemovalCause, LongAdder> removals = new EnumMap<>(RemovalCause.class);
+    private volatile RulesetPlan plan = RulesetPlan.empty();
 
-    public RulesetService(CentralConfigStore store, TargetingEngine engine, Duration ttl, int maxSize) {
+    public RulesetService(CentralConfigStore store, TargetingEngine engine, Duration ttl, int maxSize,
+                          int historySize) {
         this.store = store;
         this.engine = engine;
+        this.historySize = historySize;
+        for (RemovalCause cause : RemovalCause.values()) {
+            removals.put(cause, new LongAdder());
+        }
         this.cache = Caffeine.newBuilder()
                 .expireAfterWrite(ttl)
                 .maximumSize(maxSize)
+                .executor(Runnable::run)
+                .removalListener((RulesetCacheKey key, CachedRuleset value, RemovalCause cause) ->
+                        removals.get(cause).increment())
                 .build();
+        store.snapshot().keySet().forEach(this::refresh);
     }
 
     public RulesetResponse getRuleset(String clientId, Map<String, String> attributes) {
-        RulesetCacheKey key = new RulesetCacheKey(clientId, attributes);
-        RulesetResponse cached = cache.getIfPresent(key);
-        if (cached != null) {
-            cached.setCacheHit(true);
-            return cached;
+        RulesetPlan current = plan;
+        String[] values = current.getSlots().bind(attributes);
+        RulesetCacheKey key = new RulesetCacheKey(values);
+        CachedRuleset cached = cache.getIfPresent(key);
+        // An entry computed against an older plan can be put after the refresh that patched the cache.
+        if (cached != null && cached.version() == current.getVersion()) {
+            hits.increment();
+            return cached.toResponse(clientId, attributes, true);
         }
-        RulesetResponse computed = computeRuleset(clientId, attributes);
+        (cached == null ? coldMisses : staleMisses).increment();
+        CachedRuleset computed = computeRuleset(current, values);
         cache.put(key, computed);
-        computed.setCacheHit(false);
-        return computed;
+        return computed.toResponse(clientId, attributes, false);
     }
 
     public void invalidateAll() {
         cache.invalidateAll();
     }
 
-    private RulesetResponse computeRuleset(String clientId, Map<String, String> attributes) {
-        Map<String, FeatureFlag> snapshot = store.snapshot();
+    /**
+     * Recompiles flag {@code key} from the store, or drops it when it was deleted, then brings cached rulesets up
+     * to date. Only the changed flag is compiled; the other plans are shared with the previous snapshot.
+     *
+     * @return the ruleset version that includes the change
+     */
+    public synchronized long refresh(String key) {
+        RulesetPlan current = plan;
+        FeatureFlag flag = store.get(key).orElse(null);
+        RulesetPlan next;
+        if (flag == null) {
+            next = current.without(key);
+        } else {
+            AttributeSlots slots = current.getSlots().withAll(FlagPlan.referencedAttributes(flag));
+            next = current.with(engine.compile(flag, slots), slots);
+        }
+        if (next == current) {
+            return current.getVersion();
+        }
+        plan = next;
+        history.addLast(new FlagVersion(next.getVersion(), key));
+        if (history.size() > historySize) {
+            history.removeFirst();
+        }
+        flagRefreshes.increment();
+        if (next.getSlots() != current.getSlots()) {
+            newAttributeInvalidations.increment();
+            invalidateAll();
+        } else {
+            patchCache(current.getVersion(), next.getVersion(), key, next.find(key));
+        }
+        return next.getVersion();
+    }
+
+    /** Re-evaluates flag {@code key} for each cached ruleset of {@code fromVersion}, restamped as {@code toVersion}. */
+    private void patchCache(long fromVersion, long toVersion, String key, FlagPlan changed) {
+        cache.asMap().replaceAll((cacheKey, entry) -> {
+            if (entry.version() != fromVersion) {
+                return entry;
+            }
+            EvaluationResult result = changed == null ? null : changed.evaluate(cacheKey.getValues());
+            CachedRuleset patched = entry.with(key, result, toVersion);
+            (patched.flags() == entry.flags() ? entriesUnchanged : entriesPatched).increment();
+            return patched;
+        });
+    }
+
+    public RulesetCacheStats cacheStats() {
+        return new RulesetCacheStats(
+                cache.estimatedSize(),
+                hits.sum(),
+                coldMisses.sum(),
+                staleMisses.sum(),
+                flagRefreshes.sum(),
+                entriesPatched.sum(),
+                entriesUnchanged.sum(),
+                newAttributeInvalidations.sum(),
+                removals.get(RemovalCause.SIZE).sum(),
+                removals.get(RemovalCause.EXPIRED).sum(),
+                removals.get(RemovalCause.EXPLICIT).sum()
+        );
+    }
+
+    public long currentVersion() {
+        return plan.getVersion();
+    }
+
+    /**
+     * Flags changed since {@code fromVersion}, evaluated for one client. Empty when the client needs a full ruleset
+     * instead: its version is older than the retained history, or newer than the current one (the server restarted).
+     */
+    public Optional<RulesetDelta> delta(String clientId, Map<String, String> attributes, long fromVersion) {
+        RulesetPlan current;
+        Set<String> changed;
+        synchronized (this) {
+            current = plan;
+            changed = changedSince(fromVersion, current.getVersion());
+        }
+        if (changed == null) {
+            return Optional.empty();
+        }
         Map<String, Boolean> flags = new LinkedHashMap<>();
         Map<String, String> debug = new LinkedHashMap<>();
-        for (FeatureFlag flag : snapshot.values()) {
-            EvaluationResult result = engine.evaluate(flag, attributes);
-            flags.put(flag.getKey(), result.isEnabled());
-            debug.put(flag.getKey(), result.getReason());
+        List<String> removed = new ArrayList<>();
+        current.evaluate(attributes, changed, flags, debug, removed);
+        return Optional.of(new RulesetDelta(clientId, fromVersion, current.getVersion(), flags, debug, removed,
+                Instant.now()));
+    }
+
+    private Set<String> changedSince(long fromVersion, long toVersion) {
+        if (fromVersion < 0 || fromVersion > toVersion) {
+            return null;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        if (fromVersion == toVersion) {
+            return keys;
+        }
+        // Versions are consecutive, so the history covers the gap only if it still holds fromVersion + 1.
+        FlagVersion oldest = history.peekFirst();
+        if (oldest == null || oldest.version() > fromVersion + 1) {
+            return null;
+        }
+        for (FlagVersion change : history) {
+            if (change.version() > fromVersion) {
+                keys.add(change.key());
+            }
+        }
+        return keys;
+    }
+
+    private CachedRuleset computeRuleset(RulesetPlan current, String[] values) {
+        Map<String, Boolean> flags = new LinkedHashMap<>(current.size() * 2);
+        Map<String, String> debug = new LinkedHashMap<>(current.size() * 2);
+        current.evaluate(values, flags, debug);
+        return new CachedRuleset(current.getVersion(), Collections.unmodifiableMap(flags),
+                Collections.unmodifiableMap(debug), Instant.now());
+    }
+
+    private record FlagVersion(long version, String key) {
+    }
+
+    /** Evaluated flags shared by every request with the same key; responses wrap it per request. */
+    private record CachedRuleset(long version, Map<String, Boolean> flags, Map<String, String> debug,
+                                 Instant evaluatedAt) {
+
+        /** This ruleset with flag {@code key} set to {@code result}, or removed when it is null. */
+        CachedRuleset with(String key, EvaluationResult result, long toVersion) {
+            boolean unchanged = result == null
+                    ? !flags.containsKey(key)
+                    : Boolean.valueOf(result.isEnabled()).equals(flags.get(key))
+                    && result.getReason().equals(debug.get(key));
+            if (unchanged) {
+                return new CachedRuleset(toVersion, flags, debug, evaluatedAt);
+            }
+            Map<String, Boolean> nextFlags = new TreeMap<>(flags);
+            Map<String, String> nextDebug = new TreeMap<>(debug);
+            if (result == null) {
+                nextFlags.remove(key);
+                nextDebug.remove(key);
+            } else {
+                nextFlags.put(key, result.isEnabled());
+                nextDebug.put(key, result.getReason());
+            }
+            return new CachedRuleset(toVersion, Collections.unmodifiableMap(nextFlags),
+                    Collections.unmodifiableMap(nextDebug), Instant.now());
+        }
+
+        RulesetResponse toResponse(String clientId, Map<String, String> attributes, boolean cacheHit) {
+            return new RulesetResponse(clientId, attributes, flags, debug, evaluatedAt, cacheHit, version);
         }
-        return new RulesetResponse(clientId, attributes, flags, debug, Instant.now(), false);
     }
 }
@@ -4,6 +4,7 @@ import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -29,17 +30,11 @@ public class SdkController {
     }
 
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter stream(@RequestParam Map<String, String> params) {
+    public SseEmitter stream(@RequestParam Map<String, String> params,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         Map<String, String> attributes = new HashMap<>(params);
         String clientId = attributes.remove("clientId");
-        SseEmitter emitter = service.getSseHub().register(clientId, attributes);
-        RulesetResponse initial = service.ruleset(clientId, attributes);
-        try {
-            emitter.send(SseEmitter.event()
-                    .name("ruleset")
-                    .data(initial, MediaType.APPLICATION_JSON));
-        } catch (Exception ignored) {
-        }
-        return emitter;
+        SseHub hub = service.getSseHub();
+        return hub.register(clientId, attributes, hub.versionOf(lastEventId));
     }
 }
@@ -5,37 +5,170 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Pushes ruleset changes to SDK clients over SSE.
+ *
+ * <p>A flag change only marks every client as behind; a bounded pool of sender threads then brings each client up
+ * to date with a {@code ruleset-delta} event holding just the flags changed since the version it last received.
+ * Each client has at most one pending send: changes that land while a send is queued or running fold into the
+ * next delta, so a burst of edits costs a slow client one catch-up event, not one event per edit. Clients that
+ * are new, or whose version is no longer covered by the change history, get a full {@code ruleset} event. Event
+ * ids are {@code <epoch>-<version>}, so a reconnecting {@code EventSource} resumes from its {@code Last-Event-ID};
+ * the epoch changes on restart, when versions start over.
+ */
 public class SseHub {
-    private final Map<String, ClientRegistration> clients = new ConcurrentHashMap<>();
+    private static final long NONE = -1;
 
-    public SseEmitter register(String clientId, Map<String, String> attributes) {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, ClientSession> clients = new ConcurrentHashMap<>();
+    private final RulesetService rulesetService;
+    private final ThreadPoolExecutor senders;
+
+    public SseHub(RulesetService rulesetService, int senderThreads, int maxPendingClients) {
+        this.rulesetService = rulesetService;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPendingClients), runnable -> {
+                    Thread thread = new Thread(runnable, "sse-sender-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Registers a client and queues its first event: a delta from {@code lastSeenVersion} when the history still
+     * covers it, otherwise the full ruleset. Pass a negative version for a fresh client.
+     */
+    public SseEmitter register(String clientId, Map<String, String> attributes, long lastSeenVersion) {
         SseEmitter emitter = new SseEmitter(0L);
         String id = clientId == null ? "client-" + System.nanoTime() : clientId;
-        ClientRegistration registration = new ClientRegistration(id, attributes, emitter);
-        clients.put(id, registration);
+        long sentVersion = lastSeenVersion < 0 ? NONE : lastSeenVersion;
+        ClientSession session = new ClientSession(id, attributes, emitter, sentVersion);
+        ClientSession replaced = clients.put(id, session);
+        if (replaced != null) {
+            replaced.close();
+        }
 
-        emitter.onCompletion(() -> clients.remove(id));
-        emitter.onTimeout(() -> clients.remove(id));
-        emitter.onError((ex) -> clients.remove(id));
+        emitter.onCompletion(() -> remove(session));
+        emitter.onTimeout(() -> remove(session));
+        emitter.onError((ex) -> remove(session));
 
+        session.schedule();
         return emitter;
     }
 
-    public void broadcastRulesets(RulesetService service) {
-        for (ClientRegistration registration : clients.values()) {
+    /** Ruleset version named by a {@code Last-Event-ID} this hub issued, or -1 for a missing or foreign id. */
+    public long versionOf(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoch + "-")) {
+            return NONE;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException ex) {
+            return NONE;
+        }
+    }
+
+    /** Schedules every connected client to catch up with the current ruleset version. Does not block on sends. */
+    public void publish() {
+        for (ClientSession session : clients.values()) {
+            session.schedule();
+        }
+    }
+
+    public int connectedClients() {
+        return clients.size();
+    }
+
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void remove(ClientSession session) {
+        session.closed = true;
+        clients.remove(session.clientId, session);
+    }
+
+    private final class ClientSession {
+        private final String clientId;
+        private final Map<String, String> attributes;
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long sentVersion;
+        private volatile boolean closed;
+
+        private ClientSession(String clientId, Map<String, String> attributes, SseEmitter emitter, long sentVersion) {
+            this.clientId = clientId;
+            this.attributes = attributes;
+            this.emitter = emitter;
+            this.sentVersion = sentVersion;
+        }
+
+        private void schedule() {
+            if (closed || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
             try {
-                RulesetResponse response = service.getRuleset(registration.clientId(), registration.attributes());
-                registration.emitter().send(SseEmitter.event()
-                        .name("ruleset")
-                        .data(response, MediaType.APPLICATION_JSON));
-            } catch (IOException ex) {
-                registration.emitter().completeWithError(ex);
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                // Senders are saturated: drop the connection. The client reconnects with Last-Event-ID and resumes.
+                scheduled.set(false);
+                close();
             }
         }
-    }
 
-    private record ClientRegistration(String clientId, Map<String, String> attributes, SseEmitter emitter) {
+        private void drain() {
+            try {
+                while (!closed && sentVersion != rulesetService.currentVersion()) {
+                    sendNext();
+                }
+            } catch (IOException | IllegalStateException ex) {
+                remove(this);
+                emitter.completeWithError(ex);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            // A change published after the loop's last check but before the flag was cleared would otherwise wait
+            // for the next publish.
+            if (!closed && sentVersion != rulesetService.currentVersion()) {
+                schedule();
+            }
+        }
+
+        private void sendNext() throws IOException {
+            Optional<RulesetDelta> delta = sentVersion == NONE
+                    ? Optional.empty()
+                    : rulesetService.delta(clientId, attributes, sentVersion);
+            if (delta.isPresent()) {
+                RulesetDelta changes = delta.get();
+                emitter.send(SseEmitter.event()
+                        .id(epoch + "-" + changes.getVersion())
+                        .name("ruleset-delta")
+                        .data(changes, MediaType.APPLICATION_JSON));
+                sentVersion = changes.getVersion();
+                return;
+            }
+            RulesetResponse full = rulesetService.getRuleset(clientId, attributes);
+            emitter.send(SseEmitter.event()
+                    .id(epoch + "-" + full.getVersion())
+                    .name("ruleset")
+                    .data(full, MediaType.APPLICATION_JSON));
+            sentVersion = full.getVersion();
+        }
+
+        private void close() {
+            remove(this);
+            emitter.complete();
+        }
     }
 }
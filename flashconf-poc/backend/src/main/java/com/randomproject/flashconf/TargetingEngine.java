@@ -1,18 +1,26 @@
 package com.randomproject.flashconf;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+/**
+ * Evaluates targeting rules. {@link #compile} turns a flag into a {@link FlagPlan} for the ruleset hot path;
+ * {@link #evaluate} interprets the flag directly and gives the same results.
+ */
 public class TargetingEngine {
+    private static final String DEFAULT_ROLLOUT_ATTRIBUTE = "userId";
+
+    public FlagPlan compile(FeatureFlag flag, AttributeSlots slots) {
+        return FlagPlan.compile(flag, slots);
+    }
 
     public EvaluationResult evaluate(FeatureFlag flag, Map<String, String> attributes) {
         if (flag.getRules() != null) {
             for (TargetRule rule : flag.getRules()) {
                 if (ruleMatches(rule, attributes)) {
                     if (rule.getRolloutPercent() != null) {
-                        if (!passesRollout(rule, attributes)) {
+                        if (!passesRollout(flag.getKey(), rule, attributes)) {
                             return new EvaluationResult(false, "rule:" + rule.getId() + " (rollout) blocked");
                         }
                     }
@@ -52,7 +60,7 @@ public class TargetingEngine {
             case NOT_EQUALS -> value != null && !Objects.equals(value, first(values));
             case IN -> value != null && values.contains(value);
             case NOT_IN -> value != null && !values.contains(value);
-            case CONTAINS -> value != null && value.contains(first(values));
+            case CONTAINS -> value != null && !values.isEmpty() && value.contains(first(values));
         };
     }
 
@@ -60,23 +68,16 @@ public class TargetingEngine {
         return values.isEmpty() ? null : values.get(0);
     }
 
-    private boolean passesRollout(TargetRule rule, Map<String, String> attributes) {
+    private boolean passesRollout(String flagKey, TargetRule rule, Map<String, String> attributes) {
         int pct = Math.max(0, Math.min(100, rule.getRolloutPercent()));
-        String rolloutAttr = rule.getRolloutAttribute() == null ? "userId" : rule.getRolloutAttribute();
-        String key = attributes.get(rolloutAttr);
+        String key = attributes.get(rolloutAttribute(rule));
         if (key == null) {
             return false;
         }
-        int hash = Math.abs(murmurHash(key)) % 100;
-        return hash < pct;
+        return MurmurHash3.bucket(flagKey, key) < pct;
     }
 
-    private int murmurHash(String value) {
-        byte[] data = value.getBytes(StandardCharsets.UTF_8);
-        int h = 0;
-        for (byte b : data) {
-            h = (h * 31) + b;
-        }
-        return h;
+    static String rolloutAttribute(TargetRule rule) {
+        return rule.getRolloutAttribute() == null ? DEFAULT_ROLLOUT_ATTRIBUTE : rule.getRolloutAttribute();
     }
 }
@@ -0,0 +1,160 @@
+package com.randomproject.flashconf;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RulesetServiceTest {
+    private static final Map<String, String> ATTRIBUTES = Map.of("userId", "u-1", "country", "US");
+
+    private final CentralConfigStore store = new CentralConfigStore();
+
+    @Test
+    void deltaCarriesOnlyFlagsChangedSinceTheClientsVersion() {
+        RulesetService service = service(16);
+        long base = upsert(service, "a", "US");
+        upsert(service, "b", "CA");
+        long latest = upsert(service, "c", "US");
+
+        RulesetDelta delta = service.delta("web", ATTRIBUTES, base).orElseThrow();
+
+        assertThat(delta.getFromVersion()).isEqualTo(base);
+        assertThat(delta.getVersion()).isEqualTo(latest);
+        assertThat(delta.getFlags()).containsOnlyKeys("b", "c").containsEntry("b", false).containsEntry("c", true);
+        assertThat(delta.getDebug()).containsEntry("c", "rule:country");
+        assertThat(delta.getRemoved()).isEmpty();
+    }
+
+    @Test
+    void deletedFlagsAreListedAsRemoved() {
+        RulesetService service = service(16);
+        long base = upsert(service, "a", "US");
+        upsert(service, "b", "US");
+        store.delete("a");
+        service.refresh("a");
+
+        RulesetDelta delta = service.delta("web", ATTRIBUTES, base).orElseThrow();
+
+        assertThat(delta.getFlags()).containsOnlyKeys("b");
+        assertThat(delta.getRemoved()).containsExactly("a");
+    }
+
+    @Test
+    void clientAtCurrentVersionGetsAnEmptyDelta() {
+        RulesetService service = service(16);
+        long latest = upsert(service, "a", "US");
+
+        RulesetDelta delta = service.delta("web", ATTRIBUTES, latest).orElseThrow();
+
+        assertThat(delta.getFlags()).isEmpty();
+        assertThat(delta.getRemoved()).isEmpty();
+        assertThat(service.getRuleset("web", ATTRIBUTES).getVersion()).isEqualTo(latest);
+    }
+
+    @Test
+    void versionsOutsideTheHistoryNeedAFullRuleset() {
+        RulesetService service = service(2);
+        long first = upsert(service, "a", "US");
+        upsert(service, "b", "US");
+        long covered = upsert(service, "c", "US");
+        upsert(service, "d", "US");
+
+        assertThat(service.delta("web", ATTRIBUTES, first)).isEmpty();
+        assertThat(service.delta("web", ATTRIBUTES, covered)).isPresent();
+        assertThat(service.delta("web", ATTRIBUTES, service.currentVersion() + 5)).isEmpty();
+        assertThat(service.delta("web", ATTRIBUTES, -1)).isEmpty();
+    }
+
+    @Test
+    void requestsDifferingOnlyInUnreferencedAttributesShareAnEntry() {
+        RulesetService service = service(16);
+        upsert(service, "a", "US");
+
+        RulesetResponse first = service.getRuleset("web", Map.of("country", "US", "sessionId", "s-1"));
+        RulesetResponse second = service.getRuleset("ios", Map.of("country", "US", "sessionId", "s-2"));
+
+        assertThat(first.isCacheHit()).isFalse();
+        assertThat(second.isCacheHit()).isTrue();
+        assertThat(second.getClientId()).isEqualTo("ios");
+        assertThat(second.getAttributes()).containsEntry("sessionId", "s-2");
+        assertThat(second.getFlags()).isEqualTo(first.getFlags());
+    }
+
+    @Test
+    void flagEditPatchesCachedRulesetsInsteadOfDroppingThem() {
+        RulesetService service = service(16);
+        upsert(service, "a", "US");
+        upsert(service, "b", "US");
+        Map<String, String> us = Map.of("country", "US");
+        Map<String, String> ca = Map.of("country", "CA");
+        service.getRuleset("web", us);
+        service.getRuleset("web", ca);
+
+        long version = upsert(service, "a", "CA");
+
+        RulesetResponse usAfter = service.getRuleset("web", us);
+        RulesetResponse caAfter = service.getRuleset("web", ca);
+        assertThat(usAfter.isCacheHit()).isTrue();
+        assertThat(caAfter.isCacheHit()).isTrue();
+        assertThat(usAfter.getVersion()).isEqualTo(version);
+        assertThat(usAfter.getFlags()).containsEntry("a", false).containsEntry("b", true);
+        assertThat(caAfter.getFlags()).containsEntry("a", true).containsEntry("b", false);
+
+        store.delete("b");
+        service.refresh("b");
+        assertThat(service.getRuleset("web", us).getFlags()).containsOnlyKeys("a");
+
+        RulesetCacheStats stats = service.cacheStats();
+        assertThat(stats.getHits()).isEqualTo(3);
+        assertThat(stats.getColdMisses()).isEqualTo(2);
+        assertThat(stats.getEntriesPatched()).isEqualTo(4);
+        assertThat(stats.getEntriesUnchanged()).isZero();
+        assertThat(stats.getRemovedExplicitly()).isZero();
+    }
+
+    @Test
+    void newlyReferencedAttributeInvalidatesTheCache() {
+        RulesetService service = service(16);
+        upsert(service, "a", "US");
+        service.getRuleset("web", ATTRIBUTES);
+        long invalidationsBefore = service.cacheStats().getNewAttributeInvalidations();
+
+        TargetRule rule = new TargetRule("segment", true,
+                List.of(new Condition("segment", Operator.IN, List.of("beta"))), null, null);
+        store.upsert(new FeatureFlag("b", "", false, List.of(rule), Instant.now()));
+        service.refresh("b");
+
+        assertThat(service.getRuleset("web", ATTRIBUTES).isCacheHit()).isFalse();
+        assertThat(service.cacheStats().getNewAttributeInvalidations()).isEqualTo(invalidationsBefore + 1);
+        assertThat(service.cacheStats().getRemovedExplicitly()).isEqualTo(1);
+    }
+
+    @Test
+    void editThatDoesNotChangeAnEntrysResultKeepsItsMaps() {
+        RulesetService service = service(16);
+        upsert(service, "a", "US");
+        service.getRuleset("web", Map.of("country", "DE"));
+
+        upsert(service, "a", "CA");
+
+        assertThat(service.getRuleset("web", Map.of("country", "DE")).isCacheHit()).isTrue();
+        assertThat(service.cacheStats().getEntriesUnchanged()).isEqualTo(1);
+        assertThat(service.cacheStats().getEntriesPatched()).isZero();
+    }
+
+    private RulesetService service(int historySize) {
+        return new RulesetService(store, new TargetingEngine(), Duration.ofSeconds(10), 10, historySize);
+    }
+
+    private long upsert(RulesetService service, String key, String country) {
+        TargetRule rule = new TargetRule("country", true,
+                List.of(new Condition("country", Operator.EQUALS, List.of(country))), null, null);
+        store.upsert(new FeatureFlag(key, "", false, List.of(rule), Instant.now()));
+        return service.refresh(key);
+    }
+}
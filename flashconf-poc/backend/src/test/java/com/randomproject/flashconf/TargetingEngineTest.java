@@ -0,0 +1,177 @@
+package com.randomproject.flashconf;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TargetingEngineTest {
+    private static final String[] ATTRIBUTES = {"userId", "country", "segment", "plan", "accountId"};
+    private static final String[] VALUES = {"US", "CA", "DE", "beta", "pro", "free", "u-1", "u-42", "u-977", ""};
+
+    private final TargetingEngine engine = new TargetingEngine();
+
+    @Test
+    void murmurMatchesReferenceVectors() {
+        assertThat(MurmurHash3.hash32("", 0)).isZero();
+        assertThat(MurmurHash3.hash32("hello", 0)).isEqualTo(0x248bfa47);
+        assertThat(MurmurHash3.hash32("The quick brown fox jumps over the lazy dog", 0)).isEqualTo(0x2e4ff723);
+        assertThat(MurmurHash3.hash32("Hello, world!", 1234)).isEqualTo(0xfaf6cdb3);
+    }
+
+    @Test
+    void murmurHashesUtf8Encoding() {
+        for (String text : List.of("ü", "日本語", "😀x", "a\ud800b", "trailing\udc00")) {
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            assertThat(MurmurHash3.hash32(text, 0)).as(text).isEqualTo(referenceHash(utf8));
+        }
+    }
+
+    @Test
+    void bucketIsSaltedByFlagKey() {
+        assertThat(MurmurHash3.bucket("flag-a", "u-1"))
+                .isEqualTo((int) ((referenceHash("flag-a:u-1".getBytes(StandardCharsets.UTF_8)) & 0xffffffffL) % 100));
+        int differing = 0;
+        for (int i = 0; i < 100; i++) {
+            if (MurmurHash3.bucket("flag-a", "u-" + i) != MurmurHash3.bucket("flag-b", "u-" + i)) {
+                differing++;
+            }
+        }
+        assertThat(differing).isGreaterThan(80);
+    }
+
+    @Test
+    void compiledPlanAgreesWithInterpreter() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<FeatureFlag> flags = new ArrayList<>();
+            for (int f = 0; f < 5; f++) {
+                flags.add(randomFlag(random, "flag-" + round + "-" + f));
+            }
+            CentralConfigStore store = new CentralConfigStore();
+            flags.forEach(store::upsert);
+            RulesetService service = new RulesetService(store, engine, Duration.ofSeconds(10), 10, 16);
+
+            for (int request = 0; request < 20; request++) {
+                Map<String, String> attributes = randomAttributes(random);
+                RulesetResponse response = service.getRuleset("client", attributes);
+                for (FeatureFlag flag : flags) {
+                    EvaluationResult expected = engine.evaluate(flag, attributes);
+                    assertThat(response.getFlags().get(flag.getKey())).isEqualTo(expected.isEnabled());
+                    assertThat(response.getDebug().get(flag.getKey())).isEqualTo(expected.getReason());
+                }
+                service.invalidateAll();
+            }
+        }
+    }
+
+    @Test
+    void refreshRecompilesOnlyTheChangedFlag() {
+        CentralConfigStore store = new CentralConfigStore();
+        store.upsert(new FeatureFlag("a", "", false, List.of(rule("r1", "country", Operator.IN, "US")), Instant.now()));
+        RulesetService service = new RulesetService(store, engine, Duration.ofSeconds(10), 10, 16);
+        Map<String, String> attributes = Map.of("country", "US", "segment", "beta");
+        assertThat(service.getRuleset("c", attributes).getFlags()).containsEntry("a", true);
+
+        store.upsert(new FeatureFlag("b", "", false, List.of(rule("r2", "segment", Operator.EQUALS, "beta")), Instant.now()));
+        service.refresh("b");
+        RulesetResponse response = service.getRuleset("c", attributes);
+        assertThat(response.isCacheHit()).isFalse();
+        assertThat(response.getFlags()).containsEntry("a", true).containsEntry("b", true);
+
+        store.delete("a");
+        service.refresh("a");
+        assertThat(service.getRuleset("c", attributes).getFlags()).containsOnlyKeys("b");
+    }
+
+    private static FeatureFlag randomFlag(Random random, String key) {
+        List<TargetRule> rules = new ArrayList<>();
+        int ruleCount = random.nextInt(4);
+        for (int r = 0; r < ruleCount; r++) {
+            List<Condition> conditions = new ArrayList<>();
+            int conditionCount = random.nextInt(3);
+            for (int c = 0; c < conditionCount; c++) {
+                Operator[] operators = Operator.values();
+                Operator operator = random.nextInt(10) == 0 ? null : operators[random.nextInt(operators.length)];
+                List<String> values = random.nextInt(10) == 0 ? null : randomValues(random);
+                conditions.add(new Condition(ATTRIBUTES[random.nextInt(ATTRIBUTES.length)], operator, values));
+            }
+            Integer rollout = random.nextBoolean() ? random.nextInt(120) - 10 : null;
+            String rolloutAttribute = random.nextBoolean() ? null : ATTRIBUTES[random.nextInt(ATTRIBUTES.length)];
+            rules.add(new TargetRule("r" + r, random.nextBoolean(), conditions, rollout, rolloutAttribute));
+        }
+        return new FeatureFlag(key, "", random.nextBoolean(), rules, Instant.now());
+    }
+
+    private static List<String> randomValues(Random random) {
+        List<String> values = new ArrayList<>();
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            values.add(VALUES[random.nextInt(VALUES.length)]);
+        }
+        return values;
+    }
+
+    private static Map<String, String> randomAttributes(Random random) {
+        Map<String, String> attributes = new HashMap<>();
+        for (String attribute : ATTRIBUTES) {
+            if (random.nextInt(4) != 0) {
+                attributes.put(attribute, VALUES[random.nextInt(VALUES.length)]);
+            }
+        }
+        if (random.nextBoolean()) {
+            attributes.put("unreferenced", "x");
+        }
+        return attributes;
+    }
+
+    private static TargetRule rule(String id, String attribute, Operator operator, String value) {
+        return new TargetRule(id, true, List.of(new Condition(attribute, operator, List.of(value))), null, null);
+    }
+
+    /** Straightforward MurmurHash3 x86_32 over a byte array, seed 0. */
+    private static int referenceHash(byte[] data) {
+        int h = 0;
+        int blocks = data.length / 4;
+        for (int i = 0; i < blocks; i++) {
+            int k = (data[4 * i] & 0xff) | (data[4 * i + 1] & 0xff) << 8
+                    | (data[4 * i + 2] & 0xff) << 16 | (data[4 * i + 3] & 0xff) << 24;
+            h ^= mix(k);
+            h = Integer.rotateLeft(h, 13) * 5 + 0xe6546b64;
+        }
+        int k = 0;
+        int tail = blocks * 4;
+        switch (data.length & 3) {
+            case 3:
+                k ^= (data[tail + 2] & 0xff) << 16;
+            case 2:
+                k ^= (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k ^= data[tail] & 0xff;
+                h ^= mix(k);
+            default:
+                break;
+        }
+        h ^= data.length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int mix(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        return k * 0x1b873593;
+    }
+}
@@ -67,6 +67,25 @@ export function FeatureFlagProvider({ clientId, attributes, children }) {
       });
     });
 
+    // Deltas carry only the flags changed since the last event; merge them over the current state.
+    eventSource.addEventListener("ruleset-delta", (event) => {
+      const data = JSON.parse(event.data);
+      setState((prev) => {
+        const flags = { ...prev.flags, ...(data.flags || {}) };
+        const debug = { ...prev.debug, ...(data.debug || {}) };
+        (data.removed || []).forEach((key) => {
+          delete flags[key];
+          delete debug[key];
+        });
+        return {
+          status: "ready",
+          flags,
+          debug,
+          lastUpdated: data.evaluatedAt || new Date().toISOString()
+        };
+      });
+    });
+
     eventSource.onerror = () => {
       if (active) {
         setState((prev) => ({ ...prev, status: "loading" }));
@@ -0,0 +1,63 @@
+package com.randomproject.ratelimiter.benchmark;
+
+import com.randomproject.ratelimiter.RateLimiterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks per second through {@link RateLimiterService#check} for each algorithm over one hot key or 1024 distinct
+ * keys. {@code serialized=true} wraps every check in one shared monitor, the way the service used to, as the
+ * baseline the lock-free limiters are compared against. The thread count comes from {@link ThreadSweep}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RateLimiterCheckBenchmark {
+    @Param({"fixed_window", "sliding_window", "token_bucket", "gcra"})
+    public String algorithm;
+
+    @Param({"1", "1024"})
+    public int keys;
+
+    @Param({"false", "true"})
+    public boolean serialized;
+
+    private final Object monitor = new Object();
+    private RateLimiterService service;
+    private String[] keyNames;
+
+    @Setup
+    public void setUp() {
+        service = new RateLimiterService(1_000, 1, algorithm);
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "client:" + i;
+        }
+    }
+
+    @Benchmark
+    public Object check() {
+        String key = keyNames[ThreadLocalRandom.current().nextInt(keys)];
+        if (serialized) {
+            synchronized (monitor) {
+                return service.check(key, null, null, null);
+            }
+        }
+        return service.check(key, null, null, null);
+    }
+}
@@ -0,0 +1,52 @@
+package com.randomproject.ratelimiter.benchmark;
+
+import com.randomproject.ratelimiter.RateLimiterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A key-cardinality scan: every check is for a key never seen before, so once the store fills each one evicts
+ * another. Measures checks per microsecond at a given store capacity, with tenant and global quotas on or off.
+ * The thread count comes from {@link ThreadSweep}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx256m"})
+public class RateLimiterKeyChurnBenchmark {
+    @Param({"1024", "65536"})
+    public int capacity;
+
+    @Param({"false", "true"})
+    public boolean scoped;
+
+    private final AtomicLong nextKey = new AtomicLong();
+    private RateLimiterService service;
+
+    @Setup
+    public void setUp() {
+        service = scoped
+                ? new RateLimiterService(10, 60, "sliding_window", capacity, 1024, 1_000_000, 1, 1_000_000, 1)
+                : new RateLimiterService(10, 60, "sliding_window", capacity, 1024, 0, 60, 0, 1);
+    }
+
+    @Benchmark
+    public Object checkNewKey() {
+        long key = nextKey.incrementAndGet();
+        return service.check("scan" + (key & 1023) + ":" + key, null, null, null);
+    }
+}
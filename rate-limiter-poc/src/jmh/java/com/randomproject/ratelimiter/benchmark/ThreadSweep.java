@@ -0,0 +1,60 @@
+package com.randomproject.ratelimiter.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Runs the selected benchmarks once per thread count so contention shows up as a curve instead of a single point.
+ * The benchmarks themselves carry no {@code @Threads}; this is where the thread dimension comes from.
+ *
+ * <p>Arguments: the JMH include regex, then a comma-separated list of thread counts where {@code max} means one
+ * thread per available processor. Defaults to every benchmark at {@code 1,2,4,8,max}.
+ */
+public final class ThreadSweep {
+    private ThreadSweep() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        String counts = args.length > 1 ? args[1] : "1,2,4,8,max";
+        List<RunResult> results = new ArrayList<>();
+        for (String count : counts.split(",")) {
+            int threads = count.trim().equalsIgnoreCase("max") ? Threads.MAX : Integer.parseInt(count.trim());
+            Collection<RunResult> run = new Runner(new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .build()).run();
+            results.addAll(run);
+        }
+        System.out.println();
+        System.out.println("Thread sweep (" + Runtime.getRuntime().availableProcessors() + " processors)");
+        for (RunResult result : results) {
+            Result<?> score = result.getPrimaryResult();
+            String benchmark = result.getParams().getBenchmark();
+            System.out.printf("%-60s %-55s threads=%-3d %12.3f +- %8.3f %s%n",
+                    benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1),
+                    params(result),
+                    result.getParams().getThreads(),
+                    score.getScore(),
+                    score.getScoreError(),
+                    score.getScoreUnit());
+        }
+    }
+
+    private static String params(RunResult result) {
+        TreeMap<String, String> params = new TreeMap<>();
+        for (String key : result.getParams().getParamsKeys()) {
+            params.put(key, result.getParams().getParam(key));
+        }
+        return params.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.randomproject.ratelimiter;
+
+/**
+ * Fixed window that starts at the first check after the previous one expired. Packed as
+ * {@code [count: 20 bits][window start: 44 bits]}.
+ */
+final class FixedWindowLimiter extends KeyLimiter {
+    private final long windowMicros;
+
+    FixedWindowLimiter(String key, RateLimitPolicy policy, long nowNanos) {
+        super(key, policy, nowNanos, 0);
+        this.windowMicros = policy.windowMicros();
+    }
+
+    @Override
+    protected long refresh(long state, long nowNanos) {
+        long now = packedMicros(nowNanos);
+        return elapsedMicros(state & TIME_MASK, now) >= windowMicros ? now : state;
+    }
+
+    @Override
+    protected boolean admits(long state, int cost, long nowNanos) {
+        return (state >>> TIME_BITS) + cost <= limit;
+    }
+
+    @Override
+    protected long consume(long state, int cost, long nowNanos) {
+        return state + ((long) cost << TIME_BITS);
+    }
+
+    @Override
+    protected long restore(long state, int cost, long nowNanos) {
+        return state - (Math.min(cost, state >>> TIME_BITS) << TIME_BITS);
+    }
+
+    @Override
+    protected Permit describe(long state, boolean allowed, int cost, long nowNanos) {
+        int count = (int) (state >>> TIME_BITS);
+        long start = nanosOf(state & TIME_MASK, nowNanos);
+        long end = start + policy.windowNanos();
+        return new Permit(allowed, limit - count, count, start, end, allowed ? 0 : Math.max(0, end - nowNanos));
+    }
+}
@@ -0,0 +1,49 @@
+package com.randomproject.ratelimiter;
+
+/**
+ * Generic cell rate algorithm. Each permit is worth an emission interval {@code T = window / limit}; the state is the
+ * theoretical arrival time (TAT) by which every permit granted so far would have been paid off at that rate. A
+ * check is allowed if granting it pushes the TAT no more than {@code limit * T} past now, which allows a burst of
+ * {@code limit} after idling. The state is the TAT itself, in nanoseconds since the limiter was created.
+ */
+final class GcraLimiter extends KeyLimiter {
+    private final long interval;
+    private final long tolerance;
+
+    GcraLimiter(String key, RateLimitPolicy policy, long nowNanos) {
+        super(key, policy, nowNanos, 0);
+        this.interval = Math.max(1, policy.windowNanos() / policy.limit());
+        this.tolerance = interval * policy.limit();
+    }
+
+    @Override
+    protected long refresh(long state, long nowNanos) {
+        return state;
+    }
+
+    @Override
+    protected boolean admits(long state, int cost, long nowNanos) {
+        long now = nowNanos - baseNanos;
+        return Math.max(state, now) + cost * interval - now <= tolerance;
+    }
+
+    @Override
+    protected long consume(long state, int cost, long nowNanos) {
+        return Math.max(state, nowNanos - baseNanos) + cost * interval;
+    }
+
+    @Override
+    protected long restore(long state, int cost, long nowNanos) {
+        long now = nowNanos - baseNanos;
+        return state <= now ? state : Math.max(now, state - cost * interval);
+    }
+
+    @Override
+    protected Permit describe(long state, boolean allowed, int cost, long nowNanos) {
+        long now = nowNanos - baseNanos;
+        long backlog = Math.max(state, now) - now;
+        int remaining = (int) Math.min(limit, (tolerance - backlog) / interval);
+        long retryAfter = allowed ? 0 : backlog + cost * interval - tolerance;
+        return new Permit(allowed, remaining, limit - remaining, nowNanos - policy.windowNanos(), nowNanos + backlog, retryAfter);
+    }
+}
@@ -0,0 +1,184 @@
+package com.randomproject.ratelimiter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free limiter for one key. All of its mutable state is one packed {@code long}: a check reads it, computes the
+ * next value, and publishes that with compare-and-set, retrying only if another thread published first. A denied
+ * check that changes nothing writes nothing, so a key hammered past its limit stays cheap to check.
+ *
+ * <p>Times are {@link System#nanoTime()} readings. Limiters that pack a timestamp beside their counters store it as
+ * microseconds since the limiter was created, modulo 2^44 (about 203 days), and read differences as signed 44-bit
+ * values. A thread whose clock reading is slightly older than the stored one then sees a small negative elapsed time
+ * instead of a huge positive one.
+ */
+abstract class KeyLimiter {
+    /** Largest limit a 20-bit packed counter can hold, rounded down. */
+    static final int MAX_LIMIT = 1_000_000;
+    /** Longest window; well inside the half of the 44-bit timestamp range that differences can span. */
+    static final int MAX_WINDOW_SECONDS = 30 * 24 * 3600;
+
+    protected static final int TIME_BITS = 44;
+    protected static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    protected static final int COUNT_BITS = 20;
+    protected static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long TOUCH_RESOLUTION_NANOS = 1_000_000;
+
+    protected final String key;
+    protected final RateLimitPolicy policy;
+    protected final int limit;
+    protected final long baseNanos;
+    private final AtomicLong state;
+    private volatile long touchedNanos;
+    /** Index in the owning {@link LimiterStore}'s slot table; set before the limiter is published. */
+    private int slot = -1;
+
+    KeyLimiter(String key, RateLimitPolicy policy, long nowNanos, long initialState) {
+        this.key = key;
+        this.policy = policy;
+        this.limit = policy.limit();
+        this.baseNanos = nowNanos;
+        this.state = new AtomicLong(initialState);
+        this.touchedNanos = nowNanos;
+    }
+
+    static KeyLimiter create(String key, RateLimitPolicy policy, long nowNanos) {
+        return switch (policy.algorithm()) {
+            case FIXED_WINDOW -> new FixedWindowLimiter(key, policy, nowNanos);
+            case SLIDING_WINDOW -> new SlidingWindowLimiter(key, policy, nowNanos);
+            case TOKEN_BUCKET -> new TokenBucketLimiter(key, policy, nowNanos);
+            case GCRA -> new GcraLimiter(key, policy, nowNanos);
+        };
+    }
+
+    String key() {
+        return key;
+    }
+
+    RateLimitPolicy policy() {
+        return policy;
+    }
+
+    /** Last check, to within a millisecond. */
+    long touchedNanos() {
+        return touchedNanos;
+    }
+
+    int slot() {
+        return slot;
+    }
+
+    void slot(int slot) {
+        this.slot = slot;
+    }
+
+    Permit tryAcquire(int cost, long nowNanos) {
+        long current;
+        long next;
+        boolean allowed;
+        do {
+            current = state.get();
+            long refreshed = refresh(current, nowNanos);
+            allowed = admits(refreshed, cost, nowNanos);
+            next = allowed ? consume(refreshed, cost, nowNanos) : refreshed;
+        } while (next != current && !state.compareAndSet(current, next));
+        touch(nowNanos);
+        return describe(next, allowed, cost, nowNanos);
+    }
+
+    /** Takes as many of {@code max} permits as are available, in one compare-and-set, and returns how many. */
+    int acquireUpTo(int max, long nowNanos) {
+        long current;
+        long next;
+        int granted;
+        do {
+            current = state.get();
+            long refreshed = refresh(current, nowNanos);
+            granted = Math.min(max, describe(refreshed, true, 0, nowNanos).remaining());
+            while (granted > 0 && !admits(refreshed, granted, nowNanos)) {
+                // Remaining is rounded for display; never grant past what admits() allows.
+                granted--;
+            }
+            next = granted > 0 ? consume(refreshed, granted, nowNanos) : refreshed;
+        } while (next != current && !state.compareAndSet(current, next));
+        touch(nowNanos);
+        return granted;
+    }
+
+    /** Current standing, without spending anything. */
+    Permit peek(long nowNanos) {
+        return describe(refresh(state.get(), nowNanos), true, 0, nowNanos);
+    }
+
+    /**
+     * Gives back {@code cost} permits a check at {@code nowNanos} took, because an enclosing scope then denied the
+     * request. Best effort: if this limiter's window rolled over in between, the permits are already gone.
+     */
+    void release(int cost, long nowNanos) {
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = restore(refresh(current, nowNanos), cost, nowNanos);
+        } while (next != current && !state.compareAndSet(current, next));
+    }
+
+    /** How long until {@code cost} permits would be allowed, assuming no other traffic. */
+    long retryAfterNanos(int cost, long nowNanos) {
+        long refreshed = refresh(state.get(), nowNanos);
+        return admits(refreshed, cost, nowNanos) ? 0 : describe(refreshed, false, cost, nowNanos).retryAfterNanos();
+    }
+
+    /** True when the limiter is back to its full limit, so dropping it and starting over later loses nothing. */
+    boolean isIdle(long nowNanos) {
+        return peek(nowNanos).used() == 0;
+    }
+
+    private void touch(long nowNanos) {
+        if (nowNanos - touchedNanos > TOUCH_RESOLUTION_NANOS) {
+            // Coarse so a hot key is not one more contended write per check.
+            touchedNanos = nowNanos;
+        }
+    }
+
+    /** State as of {@code nowNanos}: windows rolled or tokens refilled, nothing spent. */
+    protected abstract long refresh(long state, long nowNanos);
+
+    protected abstract boolean admits(long state, int cost, long nowNanos);
+
+    protected abstract long consume(long state, int cost, long nowNanos);
+
+    /** Undoes {@link #consume}, never going below empty. */
+    protected abstract long restore(long state, int cost, long nowNanos);
+
+    protected abstract Permit describe(long state, boolean allowed, int cost, long nowNanos);
+
+    /** {@code nowNanos} as a packed timestamp. */
+    protected final long packedMicros(long nowNanos) {
+        return ((nowNanos - baseNanos) / 1_000) & TIME_MASK;
+    }
+
+    /** Signed microseconds from packed timestamp {@code from} to packed timestamp {@code to}. */
+    protected static long elapsedMicros(long from, long to) {
+        return ((to - from) & TIME_MASK) << (64 - TIME_BITS) >> (64 - TIME_BITS);
+    }
+
+    /** The {@code System.nanoTime()} reading a packed timestamp stands for, resolved near {@code nowNanos}. */
+    protected final long nanosOf(long packed, long nowNanos) {
+        return nowNanos + elapsedMicros(packedMicros(nowNanos), packed) * 1_000;
+    }
+
+    /**
+     * Outcome of a check in {@code System.nanoTime()} terms. {@code windowEndNanos} is when the key is back to its
+     * full limit, or when its fixed window resets.
+     */
+    record Permit(
+            boolean allowed,
+            int remaining,
+            int used,
+            long windowStartNanos,
+            long windowEndNanos,
+            long retryAfterNanos
+    ) {
+    }
+}
@@ -0,0 +1,255 @@
+package com.randomproject.ratelimiter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-capacity home for limiters, so memory stays flat however many distinct keys arrive. Limiters live in a
+ * preallocated slot table and are found by key through a concurrent map; a limiter is only reachable from the map
+ * while it owns its slot, and every slot change is a compare-and-set on the limiter it expects to find there.
+ *
+ * <p>Reclaiming is amortized over new keys, with no background thread:
+ * <ul>
+ *     <li>Each new key advances a sweep hand a few slots and frees any limiter there that is idle: back to its
+ *     full limit and untouched for a second, so dropping it loses nothing.</li>
+ *     <li>A new key arriving at a full table samples a few slots and takes the first idle limiter's slot. Otherwise it
+ *     takes the sampled limiter holding the least usage, the least recently used among equals (approximate LRU).
+ *     Taking a limiter that still holds usage is a pressure eviction: that key starts over with a full limit and
+ *     can be granted its usage again, so these and the usage they drop are counted and reported.</li>
+ * </ul>
+ *
+ * Preferring the least usage over pure recency matters under a key-cardinality attack: each scanning key holds a
+ * permit or two, so they evict one another, while a real client near its limit is sampled, and kept, like any other.
+ */
+final class LimiterStore {
+    private static final int EVICTION_SAMPLES = 8;
+    private static final int SWEEP_SLOTS = 4;
+    private static final long IDLE_GRACE_NANOS = 1_000_000_000L;
+
+    private final String name;
+    private final int capacity;
+    private final Map<String, KeyLimiter> index = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<KeyLimiter> slots;
+    private final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger neverUsedFrom = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger sweepHand = new AtomicInteger();
+    private final LongAdder idleEvictions = new LongAdder();
+    private final LongAdder pressureEvictions = new LongAdder();
+    private final LongAdder pressureEvictedUsage = new LongAdder();
+    private volatile long lastPressureIdleNanos = -1;
+
+    LimiterStore(String name, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity of the " + name + " store must be at least 1.");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    KeyLimiter get(String key) {
+        return index.get(key);
+    }
+
+    /** The limiter for {@code key} under {@code policy}, replacing one with a different policy. */
+    KeyLimiter getOrCreate(String key, RateLimitPolicy policy, long nowNanos) {
+        KeyLimiter existing = index.get(key);
+        if (existing != null && existing.policy().equals(policy)) {
+            return existing;
+        }
+        sweep(nowNanos);
+        KeyLimiter created = KeyLimiter.create(key, policy, nowNanos);
+        claimSlot(created, nowNanos);
+        KeyLimiter[] replaced = new KeyLimiter[1];
+        KeyLimiter winner = index.compute(key, (ignored, current) -> {
+            if (current != null && current.policy().equals(policy)) {
+                return current;
+            }
+            replaced[0] = current;
+            return created;
+        });
+        if (winner != created) {
+            vacate(created);
+            return winner;
+        }
+        if (replaced[0] != null) {
+            vacate(replaced[0]);
+        }
+        if (slots.get(created.slot()) != created) {
+            // Evicted between claiming its slot and being indexed; the evictor's index removal may have run first.
+            index.remove(key, created);
+        }
+        return created;
+    }
+
+    boolean remove(String key) {
+        KeyLimiter removed = index.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        vacate(removed);
+        return true;
+    }
+
+    void clear() {
+        for (int slot = 0; slot < slots.length(); slot++) {
+            KeyLimiter limiter = slots.get(slot);
+            if (limiter != null) {
+                index.remove(limiter.key(), limiter);
+                vacate(limiter);
+            }
+        }
+    }
+
+    /**
+     * Up to {@code max} limiters, most recently checked first. Scans the slot table without locking and keeps only
+     * the newest {@code max} in a heap, so a full store is never copied or sorted whole.
+     */
+    List<KeyLimiter> mostRecent(int max) {
+        if (max <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Touched> newest = new PriorityQueue<>(max + 1, Comparator.comparingLong(Touched::touchedNanos));
+        int end = Math.min(capacity, neverUsedFrom.get());
+        for (int slot = 0; slot < end; slot++) {
+            KeyLimiter limiter = slots.get(slot);
+            if (limiter == null) {
+                continue;
+            }
+            long touched = limiter.touchedNanos();
+            if (newest.size() < max) {
+                newest.add(new Touched(limiter, touched));
+            } else if (touched > newest.peek().touchedNanos()) {
+                newest.poll();
+                newest.add(new Touched(limiter, touched));
+            }
+        }
+        List<KeyLimiter> result = new ArrayList<>(newest.size());
+        while (!newest.isEmpty()) {
+            result.add(newest.poll().limiter());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    RateLimitStoreStats stats() {
+        long pressureIdle = lastPressureIdleNanos;
+        return new RateLimitStoreStats(
+                name,
+                capacity,
+                size.get(),
+                idleEvictions.sum(),
+                pressureEvictions.sum(),
+                pressureEvictedUsage.sum(),
+                pressureIdle < 0 ? null : pressureIdle / 1_000_000);
+    }
+
+    private void claimSlot(KeyLimiter limiter, long nowNanos) {
+        while (true) {
+            int slot = freeSlot();
+            if (slot < 0) {
+                if (evictInto(limiter, nowNanos)) {
+                    return;
+                }
+                continue;
+            }
+            limiter.slot(slot);
+            if (slots.compareAndSet(slot, null, limiter)) {
+                size.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private int freeSlot() {
+        Integer freed = freeSlots.poll();
+        if (freed != null) {
+            return freed;
+        }
+        int next = neverUsedFrom.getAndUpdate(current -> current < capacity ? current + 1 : current);
+        return next < capacity ? next : -1;
+    }
+
+    /** Moves {@code limiter} into a sampled victim's slot. False if the sample found nothing or lost a race. */
+    private boolean evictInto(KeyLimiter limiter, long nowNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        KeyLimiter victim = null;
+        int victimUsed = Integer.MAX_VALUE;
+        boolean settled = false;
+        for (int i = 0; i < EVICTION_SAMPLES && !settled; i++) {
+            KeyLimiter candidate = slots.get(random.nextInt(capacity));
+            if (candidate == null) {
+                // Being vacated; its slot is on its way to the free queue.
+                continue;
+            }
+            int used = candidate.peek(nowNanos).used();
+            settled = used == 0 && nowNanos - candidate.touchedNanos() >= IDLE_GRACE_NANOS;
+            if (settled || used < victimUsed || used == victimUsed && candidate.touchedNanos() < victim.touchedNanos()) {
+                victim = candidate;
+                victimUsed = used;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+        int slot = victim.slot();
+        limiter.slot(slot);
+        if (!slots.compareAndSet(slot, victim, limiter)) {
+            return false;
+        }
+        index.remove(victim.key(), victim);
+        if (victimUsed == 0) {
+            idleEvictions.increment();
+        } else {
+            pressureEvictions.increment();
+            pressureEvictedUsage.add(victimUsed);
+            lastPressureIdleNanos = Math.max(0, nowNanos - victim.touchedNanos());
+        }
+        return true;
+    }
+
+    private void sweep(long nowNanos) {
+        int end = Math.min(capacity, neverUsedFrom.get());
+        if (end == 0) {
+            return;
+        }
+        for (int i = 0; i < SWEEP_SLOTS; i++) {
+            int slot = Math.floorMod(sweepHand.getAndIncrement(), end);
+            KeyLimiter limiter = slots.get(slot);
+            if (limiter != null && isIdle(limiter, nowNanos) && slots.compareAndSet(slot, limiter, null)) {
+                index.remove(limiter.key(), limiter);
+                size.decrementAndGet();
+                freeSlots.offer(slot);
+                idleEvictions.increment();
+            }
+        }
+    }
+
+    private void vacate(KeyLimiter limiter) {
+        int slot = limiter.slot();
+        if (slots.compareAndSet(slot, limiter, null)) {
+            size.decrementAndGet();
+            freeSlots.offer(slot);
+        }
+    }
+
+    /** The grace period keeps a limiter that was just created, and not yet checked, from looking idle. */
+    private static boolean isIdle(KeyLimiter limiter, long nowNanos) {
+        return nowNanos - limiter.touchedNanos() >= IDLE_GRACE_NANOS && limiter.isIdle(nowNanos);
+    }
+
+    private record Touched(KeyLimiter limiter, long touchedNanos) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.randomproject.ratelimiter;
+
+import java.util.Locale;
+
+/** How a key's limiter spends its {@code limit} permits per {@code windowSeconds}. */
+public enum RateLimitAlgorithm {
+    /** Counter that resets a full window after the first request. Allows up to 2x the limit across a boundary. */
+    FIXED_WINDOW,
+    /** Sliding-window counter: the previous window's count, weighted by how much of it still overlaps. */
+    SLIDING_WINDOW,
+    /** Bucket of {@code limit} tokens that refills continuously at {@code limit} per window. */
+    TOKEN_BUCKET,
+    /**
+     * Generic cell rate algorithm: one theoretical arrival time per key, with a burst tolerance of {@code limit}.
+     * Admits the same traffic as the token bucket, without tracking tokens or rounding refills.
+     */
+    GCRA;
+
+    public static RateLimitAlgorithm from(String raw, RateLimitAlgorithm fallback) {
+        if (raw == null || raw.isBlank()) {
+            return fallback;
+        }
+        try {
+            return valueOf(raw.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Algorithm must be one of fixed_window, sliding_window, token_bucket, or gcra.");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.randomproject.ratelimiter;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record RateLimitBatchRequest(
+        @NotEmpty
+        @Size(max = RateLimiterService.MAX_BATCH_CHECKS)
+        List<@Valid RateLimitRequest> checks
+) {
+}
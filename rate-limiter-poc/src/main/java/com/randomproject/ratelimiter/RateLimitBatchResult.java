@@ -0,0 +1,11 @@
+package com.randomproject.ratelimiter;
+
+import java.util.List;
+
+/** Decisions for a batch of checks, in request order. */
+public record RateLimitBatchResult(
+        int allowed,
+        int denied,
+        List<RateLimitDecision> decisions
+) {
+}
@@ -1,9 +1,14 @@
 package com.randomproject.ratelimiter;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.Instant;
 
+/** Outcome of a check, for the key. {@code deniedBy} is the scope that refused it, or null when allowed. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record RateLimitDecision(
         String key,
+        RateLimitAlgorithm algorithm,
         boolean allowed,
         int limit,
         int remaining,
@@ -11,6 +16,8 @@ public record RateLimitDecision(
         Instant windowStart,
         Instant windowEnd,
         int count,
-        Instant updatedAt
+        Instant updatedAt,
+        long retryAfterMillis,
+        RateLimitScope deniedBy
 ) {
 }
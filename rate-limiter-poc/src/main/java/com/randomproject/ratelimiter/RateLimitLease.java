@@ -0,0 +1,23 @@
+package com.randomproject.ratelimiter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * Permits reserved for a caller to spend locally. {@code granted} may be fewer than {@code requested}, down to zero,
+ * with {@code limitedBy} naming the scope that ran short. Zero grants open no lease and carry {@code
+ * retryAfterMillis} instead of an id.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RateLimitLease(
+        String leaseId,
+        String key,
+        RateLimitAlgorithm algorithm,
+        int requested,
+        int granted,
+        Instant expiresAt,
+        long retryAfterMillis,
+        RateLimitScope limitedBy
+) {
+}
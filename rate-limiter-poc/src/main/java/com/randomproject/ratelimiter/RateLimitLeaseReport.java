@@ -0,0 +1,11 @@
+package com.randomproject.ratelimiter;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record RateLimitLeaseReport(
+        @NotNull
+        @Min(0)
+        Integer used
+) {
+}
@@ -0,0 +1,29 @@
+package com.randomproject.ratelimiter;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+public record RateLimitLeaseRequest(
+        @NotBlank
+        @Size(max = 64)
+        @Pattern(regexp = "^[A-Za-z0-9._:-]+$")
+        String key,
+        @Min(1)
+        @Max(KeyLimiter.MAX_LIMIT)
+        Integer permits,
+        @Min(1)
+        @Max(RateLimiterService.MAX_LEASE_SECONDS)
+        Integer ttlSeconds,
+        @Min(1)
+        @Max(KeyLimiter.MAX_LIMIT)
+        Integer limit,
+        @Min(1)
+        @Max(KeyLimiter.MAX_WINDOW_SECONDS)
+        Integer windowSeconds,
+        @Pattern(regexp = "(?i)^(fixed[_-]window|sliding[_-]window|token[_-]bucket|gcra)$")
+        String algorithm
+) {
+}
@@ -0,0 +1,11 @@
+package com.randomproject.ratelimiter;
+
+/** A reported lease: of the {@code granted} permits, {@code returned} unused ones went back to the limiters. */
+public record RateLimitLeaseReturn(
+        String leaseId,
+        String key,
+        int granted,
+        int used,
+        int returned
+) {
+}
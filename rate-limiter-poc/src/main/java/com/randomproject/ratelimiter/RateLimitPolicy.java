@@ -0,0 +1,16 @@
+package com.randomproject.ratelimiter;
+
+/** Resolved policy for one key; a limiter is replaced, and its state reset, when a check asks for a different one. */
+public record RateLimitPolicy(
+        RateLimitAlgorithm algorithm,
+        int limit,
+        int windowSeconds
+) {
+    long windowNanos() {
+        return windowSeconds * 1_000_000_000L;
+    }
+
+    long windowMicros() {
+        return windowSeconds * 1_000_000L;
+    }
+}
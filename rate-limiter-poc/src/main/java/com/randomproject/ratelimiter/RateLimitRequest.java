@@ -1,5 +1,6 @@
 package com.randomproject.ratelimiter;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -11,10 +12,14 @@ public record RateLimitRequest(
         @Pattern(regexp = "^[A-Za-z0-9._:-]+$")
         String key,
         @Min(1)
+        @Max(KeyLimiter.MAX_LIMIT)
         Integer limit,
         @Min(1)
+        @Max(KeyLimiter.MAX_WINDOW_SECONDS)
         Integer windowSeconds,
         @Min(1)
-        Integer cost
+        Integer cost,
+        @Pattern(regexp = "(?i)^(fixed[_-]window|sliding[_-]window|token[_-]bucket|gcra)$")
+        String algorithm
 ) {
 }
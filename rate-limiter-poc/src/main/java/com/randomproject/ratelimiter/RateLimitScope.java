@@ -0,0 +1,11 @@
+package com.randomproject.ratelimiter;
+
+/** Levels of the quota hierarchy a check passes through, most specific first. */
+public enum RateLimitScope {
+    /** The client key's own policy. */
+    KEY,
+    /** Shared by every key with the same prefix before its first {@code ':'}. */
+    TENANT,
+    /** Shared by every key. */
+    GLOBAL
+}
@@ -4,6 +4,7 @@ import java.time.Instant;
 
 public record RateLimitSnapshot(
         String key,
+        RateLimitAlgorithm algorithm,
         int limit,
         int remaining,
         int count,
@@ -0,0 +1,19 @@
+package com.randomproject.ratelimiter;
+
+/**
+ * Occupancy of one limiter store, and how hard new keys are pushing on it. {@code pressureEvictions} counts limiters
+ * dropped while they still held usage, to make room for new keys, and {@code pressureEvictedUsage} the permits they
+ * held: at most that many requests could be granted again because of evictions. {@code
+ * lastPressureEvictionIdleMillis} is how long the latest one had gone unchecked; a small value means the store is
+ * too small for the keys that are actually active.
+ */
+public record RateLimitStoreStats(
+        String name,
+        int capacity,
+        int size,
+        long idleEvictions,
+        long pressureEvictions,
+        long pressureEvictedUsage,
+        Long lastPressureEvictionIdleMillis
+) {
+}
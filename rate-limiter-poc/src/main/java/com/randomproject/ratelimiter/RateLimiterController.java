@@ -18,6 +18,7 @@ import java.util.List;
 
 @Controller
 public class RateLimiterController {
+    private static final int UI_BUCKETS = 50;
     private final RateLimiterService service;
 
     public RateLimiterController(RateLimiterService service) {
@@ -28,7 +29,12 @@ public class RateLimiterController {
     public String home(Model model) {
         model.addAttribute("defaultLimit", service.getDefaultLimit());
         model.addAttribute("defaultWindowSeconds", service.getDefaultWindowSeconds());
-        model.addAttribute("buckets", service.snapshots());
+        model.addAttribute("defaultAlgorithm", service.getDefaultAlgorithm());
+        model.addAttribute("algorithms", RateLimitAlgorithm.values());
+        model.addAttribute("tenantPolicy", service.getTenantPolicy());
+        model.addAttribute("globalPolicy", service.getGlobalPolicy());
+        model.addAttribute("buckets", service.snapshots(UI_BUCKETS));
+        model.addAttribute("stores", service.stats());
         return "index";
     }
 
@@ -37,13 +43,16 @@ public class RateLimiterController {
                                @RequestParam(value = "limit", required = false) Integer limit,
                                @RequestParam(value = "windowSeconds", required = false) Integer windowSeconds,
                                @RequestParam(value = "cost", required = false) Integer cost,
+                               @RequestParam(value = "algorithm", required = false) String algorithm,
                                RedirectAttributes redirectAttributes) {
         try {
-            RateLimitDecision decision = service.check(key, limit, windowSeconds, cost);
+            RateLimitDecision decision = service.check(key, algorithm, limit, windowSeconds, cost);
             redirectAttributes.addFlashAttribute("decision", decision);
             redirectAttributes.addFlashAttribute(
                     "message",
-                    decision.allowed() ? "Allowed request for " + decision.key() : "Rate limited: " + decision.key());
+                    decision.allowed()
+                            ? "Allowed request for " + decision.key()
+                            : "Rate limited by " + decision.deniedBy().name().toLowerCase() + " quota: " + decision.key());
         } catch (IllegalArgumentException ex) {
             redirectAttributes.addFlashAttribute("message", ex.getMessage());
         }
@@ -63,7 +72,8 @@ public class RateLimiterController {
     @ResponseBody
     public ResponseEntity<RateLimitDecision> apiCheck(@Valid @RequestBody RateLimitRequest request) {
         try {
-            RateLimitDecision decision = service.check(request.key(), request.limit(), request.windowSeconds(), request.cost());
+            RateLimitDecision decision = service.check(request.key(), request.algorithm(), request.limit(),
+                    request.windowSeconds(), request.cost());
             HttpStatus status = decision.allowed() ? HttpStatus.OK : HttpStatus.TOO_MANY_REQUESTS;
             return ResponseEntity.status(status).body(decision);
         } catch (IllegalArgumentException ex) {
@@ -71,10 +81,54 @@ public class RateLimiterController {
         }
     }
 
+    @PostMapping("/api/limits/check-batch")
+    @ResponseBody
+    public ResponseEntity<RateLimitBatchResult> apiCheckBatch(@Valid @RequestBody RateLimitBatchRequest request) {
+        try {
+            return ResponseEntity.ok(service.checkAll(request.checks()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/api/limits/leases")
+    @ResponseBody
+    public ResponseEntity<RateLimitLease> apiLease(@Valid @RequestBody RateLimitLeaseRequest request) {
+        try {
+            RateLimitLease lease = service.lease(request.key(), request.algorithm(), request.limit(),
+                    request.windowSeconds(), request.permits(), request.ttlSeconds());
+            HttpStatus status = lease.granted() > 0 ? HttpStatus.CREATED : HttpStatus.TOO_MANY_REQUESTS;
+            return ResponseEntity.status(status).body(lease);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/api/limits/leases/{leaseId}/report")
+    @ResponseBody
+    public ResponseEntity<RateLimitLeaseReturn> apiReportLease(@PathVariable String leaseId,
+                                                               @Valid @RequestBody RateLimitLeaseReport report) {
+        try {
+            return service.report(leaseId, report.used())
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/api/limits")
     @ResponseBody
-    public List<RateLimitSnapshot> apiLimits() {
-        return service.snapshots();
+    public List<RateLimitSnapshot> apiLimits(@RequestParam(value = "max", defaultValue = "100") int max) {
+        return service.snapshots(Math.min(Math.max(max, 0), 10_000));
+    }
+
+    @GetMapping("/api/limits/stats")
+    @ResponseBody
+    public List<RateLimitStoreStats> apiStats() {
+        return service.stats();
     }
 
     @PostMapping("/api/limits/{key}/reset")
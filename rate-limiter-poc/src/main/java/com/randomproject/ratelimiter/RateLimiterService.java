@@ -1,28 +1,86 @@
 package com.randomproject.ratelimiter;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.Instant;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 import java.util.regex.Pattern;
 
+/**
+ * Per-key rate limits under optional tenant and global quotas. Each key has a {@link KeyLimiter} in a bounded
+ * {@link LimiterStore}; checks on different keys never contend, and checks on the same key race only on that
+ * limiter's compare-and-set. A key's tenant is the part before its first {@code ':'}, with its own limiter in a
+ * second store, and one limiter covers every key.
+ *
+ * <p>A check takes its cost from the key, then the tenant, then the global limiter, and stops at the first that
+ * denies it, giving back what the ones before it took. Nothing locks, so for the instant between a take and its
+ * give-back another check can see a scope as fuller than it ends up.
+ *
+ * <p>Callers that would otherwise check once per request can check many keys in one {@link #checkAll} call, or
+ * {@link #lease} a block of permits, spend them locally, and {@link #report} what they used.
+ */
 @Service
 public class RateLimiterService {
     private static final Pattern KEY_PATTERN = Pattern.compile("^[A-Za-z0-9._:-]+$");
-    private final Map<String, RateLimitBucket> buckets = new ConcurrentHashMap<>();
+    private static final int DEFAULT_KEY_CAPACITY = 100_000;
+    private static final int DEFAULT_TENANT_CAPACITY = 10_000;
+    static final int MAX_BATCH_CHECKS = 1_000;
+    static final int MAX_LEASE_SECONDS = 3_600;
+    private static final int DEFAULT_LEASE_SECONDS = 10;
+    private static final int MAX_OPEN_LEASES = 10_000;
     private final int defaultLimit;
     private final int defaultWindowSeconds;
+    private final RateLimitAlgorithm defaultAlgorithm;
+    private final LimiterStore keyLimiters;
+    private final LimiterStore tenantLimiters;
+    private final RateLimitPolicy tenantPolicy;
+    private final RateLimitPolicy globalPolicy;
+    private final LongSupplier nanoClock;
+    private volatile KeyLimiter globalLimiter;
+    private final Map<String, OpenLease> leases = new ConcurrentHashMap<>();
 
+    public RateLimiterService(int defaultLimit, int defaultWindowSeconds, String defaultAlgorithm) {
+        this(defaultLimit, defaultWindowSeconds, defaultAlgorithm, DEFAULT_KEY_CAPACITY, DEFAULT_TENANT_CAPACITY, 0, 60, 0, 1);
+    }
+
+    @Autowired
     public RateLimiterService(
             @Value("${rate.default-limit:10}") int defaultLimit,
-            @Value("${rate.default-window-seconds:60}") int defaultWindowSeconds) {
+            @Value("${rate.default-window-seconds:60}") int defaultWindowSeconds,
+            @Value("${rate.default-algorithm:sliding_window}") String defaultAlgorithm,
+            @Value("${rate.store.capacity:100000}") int keyCapacity,
+            @Value("${rate.tenant.capacity:10000}") int tenantCapacity,
+            @Value("${rate.tenant.limit:0}") int tenantLimit,
+            @Value("${rate.tenant.window-seconds:60}") int tenantWindowSeconds,
+            @Value("${rate.global.limit:0}") int globalLimit,
+            @Value("${rate.global.window-seconds:1}") int globalWindowSeconds) {
+        this(defaultLimit, defaultWindowSeconds, defaultAlgorithm, keyCapacity, tenantCapacity, tenantLimit,
+                tenantWindowSeconds, globalLimit, globalWindowSeconds, System::nanoTime);
+    }
+
+    /** {@code nanoClock} stands in for {@link System#nanoTime()}, so tests can step time. */
+    RateLimiterService(int defaultLimit, int defaultWindowSeconds, String defaultAlgorithm, int keyCapacity,
+                       int tenantCapacity, int tenantLimit, int tenantWindowSeconds, int globalLimit,
+                       int globalWindowSeconds, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
         this.defaultLimit = defaultLimit;
         this.defaultWindowSeconds = defaultWindowSeconds;
+        this.defaultAlgorithm = RateLimitAlgorithm.from(defaultAlgorithm, RateLimitAlgorithm.SLIDING_WINDOW);
+        this.keyLimiters = new LimiterStore("keys", keyCapacity);
+        this.tenantPolicy = scopePolicy("Tenant", tenantLimit, tenantWindowSeconds);
+        this.tenantLimiters = tenantPolicy == null ? null : new LimiterStore("tenants", tenantCapacity);
+        this.globalPolicy = scopePolicy("Global", globalLimit, globalWindowSeconds);
+        this.globalLimiter =
+                globalPolicy == null ? null : KeyLimiter.create("global", globalPolicy, nanoClock.getAsLong());
     }
 
     public int getDefaultLimit() {
@@ -33,41 +91,336 @@ public class RateLimiterService {
         return defaultWindowSeconds;
     }
 
-    public synchronized RateLimitDecision check(String key, Integer limit, Integer windowSeconds, Integer cost) {
-        String normalizedKey = normalizeKey(key);
-        int resolvedLimit = normalizeLimit(limit);
-        int resolvedWindowSeconds = normalizeWindowSeconds(windowSeconds);
-        int resolvedCost = normalizeCost(cost);
-        if (resolvedCost > resolvedLimit) {
-            throw new IllegalArgumentException("Cost cannot exceed the limit.");
+    public RateLimitAlgorithm getDefaultAlgorithm() {
+        return defaultAlgorithm;
+    }
+
+    /** Quota shared by each tenant's keys, or null when tenants are not limited. */
+    public RateLimitPolicy getTenantPolicy() {
+        return tenantPolicy;
+    }
+
+    /** Quota shared by all keys, or null when there is none. */
+    public RateLimitPolicy getGlobalPolicy() {
+        return globalPolicy;
+    }
+
+    public RateLimitDecision check(String key, Integer limit, Integer windowSeconds, Integer cost) {
+        return check(key, null, limit, windowSeconds, cost);
+    }
+
+    public RateLimitDecision check(String key, String algorithm, Integer limit, Integer windowSeconds, Integer cost) {
+        long nowNanos = nanoClock.getAsLong();
+        Scopes scopes = resolve(key, algorithm, limit, windowSeconds, cost, "Cost", nowNanos);
+        return evaluate(scopes, nowNanos, Instant.now());
+    }
+
+    /**
+     * Checks every (key, cost) in {@code checks}, in order, as of one clock reading. All of them are validated before
+     * any is charged, so a bad entry fails the batch without spending permits; after that each check stands alone,
+     * and entries for the same key draw on it one after another.
+     */
+    public RateLimitBatchResult checkAll(List<RateLimitRequest> checks) {
+        if (checks == null || checks.isEmpty()) {
+            throw new IllegalArgumentException("Provide at least one check.");
+        }
+        if (checks.size() > MAX_BATCH_CHECKS) {
+            throw new IllegalArgumentException("A batch can hold at most " + MAX_BATCH_CHECKS + " checks.");
+        }
+        long nowNanos = nanoClock.getAsLong();
+        List<Scopes> resolved = new ArrayList<>(checks.size());
+        for (int i = 0; i < checks.size(); i++) {
+            RateLimitRequest check = checks.get(i);
+            if (check == null) {
+                throw new IllegalArgumentException("Check " + i + " is empty.");
+            }
+            try {
+                resolved.add(resolve(check.key(), check.algorithm(), check.limit(), check.windowSeconds(), check.cost(),
+                        "Cost", nowNanos));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Check " + i + ": " + ex.getMessage());
+            }
         }
         Instant now = Instant.now();
-        RateLimitBucket bucket = buckets.get(normalizedKey);
-        if (bucket == null) {
-            bucket = new RateLimitBucket(normalizedKey, resolvedLimit, resolvedWindowSeconds, now);
-            buckets.put(normalizedKey, bucket);
+        List<RateLimitDecision> decisions = new ArrayList<>(resolved.size());
+        int allowed = 0;
+        for (Scopes scopes : resolved) {
+            RateLimitDecision decision = evaluate(scopes, nowNanos, now);
+            decisions.add(decision);
+            if (decision.allowed()) {
+                allowed++;
+            }
+        }
+        return new RateLimitBatchResult(allowed, decisions.size() - allowed, decisions);
+    }
+
+    /**
+     * Reserves up to {@code permits} from the key and its tenant and global quotas, for the caller to spend without
+     * asking again. The permits are taken now, so spending them never exceeds any limit; {@link #report} gives the
+     * unused ones back. A lease that is not reported within its TTL counts as fully used.
+     */
+    public RateLimitLease lease(String key, String algorithm, Integer limit, Integer windowSeconds, Integer permits,
+                                Integer ttlSeconds) {
+        long ttlNanos = normalizeTtlSeconds(ttlSeconds) * 1_000_000_000L;
+        long nowNanos = nanoClock.getAsLong();
+        Scopes scopes = resolve(key, algorithm, limit, windowSeconds, permits, "Permits", nowNanos);
+        reserveLeaseRoom(nowNanos);
+
+        int requested = scopes.amount();
+        int granted = scopes.key().acquireUpTo(requested, nowNanos);
+        RateLimitScope limitedBy = granted < requested ? RateLimitScope.KEY : null;
+        KeyLimiter limiting = scopes.key();
+        if (granted > 0 && scopes.tenant() != null) {
+            int tenantGranted = scopes.tenant().acquireUpTo(granted, nowNanos);
+            if (tenantGranted < granted) {
+                scopes.key().release(granted - tenantGranted, nowNanos);
+                granted = tenantGranted;
+                limitedBy = RateLimitScope.TENANT;
+                limiting = scopes.tenant();
+            }
         }
-        bucket.updatePolicy(resolvedLimit, resolvedWindowSeconds, now);
-        return bucket.attempt(resolvedCost, now);
+        if (granted > 0 && scopes.global() != null) {
+            int globalGranted = scopes.global().acquireUpTo(granted, nowNanos);
+            if (globalGranted < granted) {
+                if (scopes.tenant() != null) {
+                    scopes.tenant().release(granted - globalGranted, nowNanos);
+                }
+                scopes.key().release(granted - globalGranted, nowNanos);
+                granted = globalGranted;
+                limitedBy = RateLimitScope.GLOBAL;
+                limiting = scopes.global();
+            }
+        }
+
+        RateLimitAlgorithm leasedAlgorithm = scopes.key().policy().algorithm();
+        if (granted == 0) {
+            return new RateLimitLease(null, scopes.key().key(), leasedAlgorithm, requested, 0, null,
+                    toMillis(limiting.retryAfterNanos(1, nowNanos)), limitedBy);
+        }
+        String leaseId = UUID.randomUUID().toString();
+        leases.put(leaseId, new OpenLease(scopes, granted, nowNanos + ttlNanos));
+        return new RateLimitLease(leaseId, scopes.key().key(), leasedAlgorithm, requested, granted,
+                Instant.now().plusNanos(ttlNanos), 0, limitedBy);
+    }
+
+    /**
+     * Closes a lease, giving its unused permits back to every scope it drew on. Empty if the lease is unknown,
+     * already reported, or expired. Like any give-back, permits from a window that has since rolled over are gone.
+     */
+    public Optional<RateLimitLeaseReturn> report(String leaseId, Integer used) {
+        if (used == null || used < 0) {
+            throw new IllegalArgumentException("Used must be zero or more.");
+        }
+        OpenLease lease = leaseId == null ? null : leases.get(leaseId);
+        if (lease == null) {
+            return Optional.empty();
+        }
+        long nowNanos = nanoClock.getAsLong();
+        if (nowNanos - lease.expiresNanos() > 0) {
+            leases.remove(leaseId, lease);
+            return Optional.empty();
+        }
+        if (used > lease.granted()) {
+            throw new IllegalArgumentException("Used cannot exceed the " + lease.granted() + " permits granted.");
+        }
+        if (!leases.remove(leaseId, lease)) {
+            return Optional.empty();
+        }
+        int unused = lease.granted() - used;
+        if (unused > 0) {
+            Scopes scopes = lease.scopes();
+            scopes.key().release(unused, nowNanos);
+            if (scopes.tenant() != null) {
+                scopes.tenant().release(unused, nowNanos);
+            }
+            if (scopes.global() != null) {
+                scopes.global().release(unused, nowNanos);
+            }
+        }
+        return Optional.of(new RateLimitLeaseReturn(leaseId, lease.scopes().key().key(), lease.granted(), used, unused));
+    }
+
+    public int openLeases() {
+        return leases.size();
     }
 
-    public synchronized List<RateLimitSnapshot> snapshots() {
+    /** Up to {@code max} key limiters, most recently checked first. */
+    public List<RateLimitSnapshot> snapshots(int max) {
+        long nowNanos = nanoClock.getAsLong();
         Instant now = Instant.now();
-        return buckets.values().stream()
-                .map(bucket -> bucket.snapshot(now))
-                .sorted(Comparator.comparing(RateLimitSnapshot::updatedAt).reversed())
+        return keyLimiters.mostRecent(max).stream()
+                .map(limiter -> toSnapshot(limiter, nowNanos, now))
                 .toList();
     }
 
-    public synchronized boolean reset(String key) {
+    public List<RateLimitStoreStats> stats() {
+        List<RateLimitStoreStats> stats = new ArrayList<>(2);
+        stats.add(keyLimiters.stats());
+        if (tenantLimiters != null) {
+            stats.add(tenantLimiters.stats());
+        }
+        return stats;
+    }
+
+    public boolean reset(String key) {
         if (!StringUtils.hasText(key)) {
             return false;
         }
-        return buckets.remove(key.trim()) != null;
+        return keyLimiters.remove(key.trim());
+    }
+
+    public void resetAll() {
+        keyLimiters.clear();
+        if (tenantLimiters != null) {
+            tenantLimiters.clear();
+        }
+        if (globalPolicy != null) {
+            globalLimiter = KeyLimiter.create("global", globalPolicy, nanoClock.getAsLong());
+        }
+        leases.clear();
     }
 
-    public synchronized void resetAll() {
-        buckets.clear();
+    /**
+     * Validates one check or lease and finds, or creates, the limiters it draws on. Creating a limiter spends nothing,
+     * so a batch can resolve every entry before charging any.
+     */
+    private Scopes resolve(String key, String algorithm, Integer limit, Integer windowSeconds, Integer amount,
+                           String amountName, long nowNanos) {
+        RateLimitPolicy policy = new RateLimitPolicy(
+                RateLimitAlgorithm.from(algorithm, defaultAlgorithm),
+                normalizeLimit(limit),
+                normalizeWindowSeconds(windowSeconds));
+        int resolvedAmount = normalizeAmount(amount, amountName);
+        if (resolvedAmount > policy.limit()) {
+            throw new IllegalArgumentException(amountName + " cannot exceed the limit.");
+        }
+        KeyLimiter limiter = limiterFor(key, policy, nowNanos);
+        KeyLimiter tenantLimiter = null;
+        String tenant = tenantLimiters == null ? null : tenantOf(limiter.key());
+        if (tenant != null) {
+            if (resolvedAmount > tenantPolicy.limit()) {
+                throw new IllegalArgumentException(amountName + " cannot exceed the tenant limit.");
+            }
+            tenantLimiter = tenantLimiters.getOrCreate(tenant, tenantPolicy, nowNanos);
+        }
+        KeyLimiter global = globalLimiter;
+        if (global != null && resolvedAmount > globalPolicy.limit()) {
+            throw new IllegalArgumentException(amountName + " cannot exceed the global limit.");
+        }
+        return new Scopes(limiter, tenantLimiter, global, resolvedAmount);
+    }
+
+    private RateLimitDecision evaluate(Scopes scopes, long nowNanos, Instant now) {
+        KeyLimiter limiter = scopes.key();
+        int cost = scopes.amount();
+        KeyLimiter.Permit permit = limiter.tryAcquire(cost, nowNanos);
+        if (!permit.allowed()) {
+            return toDecision(limiter, permit, RateLimitScope.KEY, permit, nowNanos, now);
+        }
+        if (scopes.tenant() != null) {
+            KeyLimiter.Permit tenantPermit = scopes.tenant().tryAcquire(cost, nowNanos);
+            if (!tenantPermit.allowed()) {
+                limiter.release(cost, nowNanos);
+                return toDecision(limiter, limiter.peek(nowNanos), RateLimitScope.TENANT, tenantPermit, nowNanos, now);
+            }
+        }
+        if (scopes.global() != null) {
+            KeyLimiter.Permit globalPermit = scopes.global().tryAcquire(cost, nowNanos);
+            if (!globalPermit.allowed()) {
+                if (scopes.tenant() != null) {
+                    scopes.tenant().release(cost, nowNanos);
+                }
+                limiter.release(cost, nowNanos);
+                return toDecision(limiter, limiter.peek(nowNanos), RateLimitScope.GLOBAL, globalPermit, nowNanos, now);
+            }
+        }
+        return toDecision(limiter, permit, null, permit, nowNanos, now);
+    }
+
+    /** Makes room for one more open lease by dropping expired ones, or refuses when all are live. */
+    private void reserveLeaseRoom(long nowNanos) {
+        if (leases.size() < MAX_OPEN_LEASES) {
+            return;
+        }
+        leases.values().removeIf(lease -> nowNanos - lease.expiresNanos() > 0);
+        if (leases.size() >= MAX_OPEN_LEASES) {
+            throw new IllegalStateException("Too many open leases; report or let some expire first.");
+        }
+    }
+
+    /**
+     * The key's limiter for {@code policy}. Keys are only stored once validated, so a hit on the raw key skips
+     * validation; a miss validates, then creates or replaces the limiter.
+     */
+    private KeyLimiter limiterFor(String key, RateLimitPolicy policy, long nowNanos) {
+        KeyLimiter limiter = key == null ? null : keyLimiters.get(key);
+        if (limiter != null && limiter.policy().equals(policy)) {
+            return limiter;
+        }
+        return keyLimiters.getOrCreate(normalizeKey(key), policy, nowNanos);
+    }
+
+    /**
+     * The key's standing in {@code permit}, allowed unless {@code deniedBy} names the scope that refused it, with
+     * that scope's {@code limiting} permit supplying the retry delay.
+     */
+    private RateLimitDecision toDecision(KeyLimiter limiter, KeyLimiter.Permit permit, RateLimitScope deniedBy,
+                                         KeyLimiter.Permit limiting, long nowNanos, Instant now) {
+        RateLimitPolicy policy = limiter.policy();
+        return new RateLimitDecision(
+                limiter.key(),
+                policy.algorithm(),
+                deniedBy == null,
+                policy.limit(),
+                permit.remaining(),
+                policy.windowSeconds(),
+                toInstant(permit.windowStartNanos(), nowNanos, now),
+                toInstant(permit.windowEndNanos(), nowNanos, now),
+                permit.used(),
+                now,
+                toMillis(limiting.retryAfterNanos()),
+                deniedBy);
+    }
+
+    private RateLimitSnapshot toSnapshot(KeyLimiter limiter, long nowNanos, Instant now) {
+        RateLimitPolicy policy = limiter.policy();
+        KeyLimiter.Permit permit = limiter.peek(nowNanos);
+        return new RateLimitSnapshot(
+                limiter.key(),
+                policy.algorithm(),
+                policy.limit(),
+                permit.remaining(),
+                permit.used(),
+                policy.windowSeconds(),
+                toInstant(permit.windowStartNanos(), nowNanos, now),
+                toInstant(permit.windowEndNanos(), nowNanos, now),
+                toInstant(limiter.touchedNanos(), nowNanos, now));
+    }
+
+    private static Instant toInstant(long nanos, long nowNanos, Instant now) {
+        return now.plusNanos(nanos - nowNanos);
+    }
+
+    private static long toMillis(long nanos) {
+        return (nanos + 999_999) / 1_000_000;
+    }
+
+    private static String tenantOf(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 ? key.substring(0, separator) : null;
+    }
+
+    private RateLimitPolicy scopePolicy(String scope, int limit, int windowSeconds) {
+        if (limit == 0) {
+            return null;
+        }
+        if (limit < 0 || limit > KeyLimiter.MAX_LIMIT) {
+            throw new IllegalArgumentException(scope + " limit must be between 0 (off) and " + KeyLimiter.MAX_LIMIT + ".");
+        }
+        if (windowSeconds <= 0 || windowSeconds > KeyLimiter.MAX_WINDOW_SECONDS) {
+            throw new IllegalArgumentException(scope + " window seconds must be between 1 and " + KeyLimiter.MAX_WINDOW_SECONDS + ".");
+        }
+        return new RateLimitPolicy(defaultAlgorithm, limit, windowSeconds);
     }
 
     private String normalizeKey(String key) {
@@ -86,6 +439,9 @@ public class RateLimiterService {
         if (resolved <= 0) {
             throw new IllegalArgumentException("Limit must be at least 1.");
         }
+        if (resolved > KeyLimiter.MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be at most " + KeyLimiter.MAX_LIMIT + ".");
+        }
         return resolved;
     }
 
@@ -94,14 +450,32 @@ public class RateLimiterService {
         if (resolved <= 0) {
             throw new IllegalArgumentException("Window seconds must be at least 1.");
         }
+        if (resolved > KeyLimiter.MAX_WINDOW_SECONDS) {
+            throw new IllegalArgumentException("Window seconds must be at most " + KeyLimiter.MAX_WINDOW_SECONDS + " (30 days).");
+        }
         return resolved;
     }
 
-    private int normalizeCost(Integer cost) {
-        int resolved = cost == null ? 1 : cost;
+    private int normalizeAmount(Integer amount, String name) {
+        int resolved = amount == null ? 1 : amount;
         if (resolved <= 0) {
-            throw new IllegalArgumentException("Cost must be at least 1.");
+            throw new IllegalArgumentException(name + " must be at least 1.");
+        }
+        return resolved;
+    }
+
+    private int normalizeTtlSeconds(Integer ttlSeconds) {
+        int resolved = ttlSeconds == null ? DEFAULT_LEASE_SECONDS : ttlSeconds;
+        if (resolved <= 0 || resolved > MAX_LEASE_SECONDS) {
+            throw new IllegalArgumentException("Lease TTL must be between 1 and " + MAX_LEASE_SECONDS + " seconds.");
         }
         return resolved;
     }
+
+    /** The limiters one check or lease draws on; {@code tenant} and {@code global} are null when not limited. */
+    private record Scopes(KeyLimiter key, KeyLimiter tenant, KeyLimiter global, int amount) {
+    }
+
+    private record OpenLease(Scopes scopes, int granted, long expiresNanos) {
+    }
 }
@@ -0,0 +1,99 @@
+package com.randomproject.ratelimiter;
+
+/**
+ * Sliding-window counter. Windows are aligned to the limiter's creation; a check counts everything in the current
+ * window plus the previous window's count scaled by the share of it the trailing window still covers. That
+ * approximates a sliding log in constant space and removes the fixed window's double burst at the boundary.
+ * Packed as {@code [window index mod 2^24: 24 bits][previous count: 20 bits][current count: 20 bits]}.
+ */
+final class SlidingWindowLimiter extends KeyLimiter {
+    private static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int INDEX_SHIFT = 2 * COUNT_BITS;
+
+    private final long windowMicros;
+
+    SlidingWindowLimiter(String key, RateLimitPolicy policy, long nowNanos) {
+        super(key, policy, nowNanos, 0);
+        this.windowMicros = policy.windowMicros();
+    }
+
+    @Override
+    protected long refresh(long state, long nowNanos) {
+        long index = windowIndex(nowNanos);
+        long behind = indexDelta(state >>> INDEX_SHIFT, index);
+        if (behind <= 0) {
+            // Same window, or a clock reading from just before a window another thread already rolled into.
+            return state;
+        }
+        long previous = behind == 1 ? state & COUNT_MASK : 0;
+        return ((index & INDEX_MASK) << INDEX_SHIFT) | (previous << COUNT_BITS);
+    }
+
+    @Override
+    protected boolean admits(long state, int cost, long nowNanos) {
+        return weightedCount(state, nowNanos) + (long) cost * windowMicros <= (long) limit * windowMicros;
+    }
+
+    @Override
+    protected long consume(long state, int cost, long nowNanos) {
+        return state + cost;
+    }
+
+    @Override
+    protected long restore(long state, int cost, long nowNanos) {
+        return state - Math.min(cost, state & COUNT_MASK);
+    }
+
+    @Override
+    protected Permit describe(long state, boolean allowed, int cost, long nowNanos) {
+        long weighted = weightedCount(state, nowNanos);
+        int used = (int) ((weighted + windowMicros - 1) / windowMicros);
+        long windowEnd = baseNanos + (stateWindow(state, nowNanos) + 1) * policy.windowNanos();
+        long retryAfter = allowed ? 0 : retryAfterMicros(state, cost, nowNanos) * 1_000;
+        return new Permit(allowed, Math.max(0, limit - used), used, nowNanos - policy.windowNanos(), windowEnd, retryAfter);
+    }
+
+    /** Requests in the trailing window, times {@code windowMicros} to stay in integers. */
+    private long weightedCount(long state, long nowNanos) {
+        long previous = (state >>> COUNT_BITS) & COUNT_MASK;
+        long current = state & COUNT_MASK;
+        return previous * (windowMicros - position(state, nowNanos)) + current * windowMicros;
+    }
+
+    private long retryAfterMicros(long state, int cost, long nowNanos) {
+        long previous = (state >>> COUNT_BITS) & COUNT_MASK;
+        long current = state & COUNT_MASK;
+        long position = position(state, nowNanos);
+        long room = limit - current - cost;
+        if (room >= 0 && previous > 0) {
+            // The previous window's share shrinks until it fits in the room left this window.
+            return Math.max(0, windowMicros - room * windowMicros / previous - position);
+        }
+        // Wait for the next window, where this window's count becomes the shrinking share.
+        long untilNextWindow = windowMicros - position;
+        long roomNext = limit - cost;
+        return untilNextWindow + (current == 0 ? 0 : Math.max(0, windowMicros - roomNext * windowMicros / current));
+    }
+
+    /** Microseconds into the state's window, clamped to it. */
+    private long position(long state, long nowNanos) {
+        long start = stateWindow(state, nowNanos) * windowMicros;
+        return Math.min(windowMicros, Math.max(0, (nowNanos - baseNanos) / 1_000 - start));
+    }
+
+    /** Absolute index of the window the state describes, recovered from its 24-bit index near {@code nowNanos}. */
+    private long stateWindow(long state, long nowNanos) {
+        long index = windowIndex(nowNanos);
+        return index - indexDelta(state >>> INDEX_SHIFT, index);
+    }
+
+    private long windowIndex(long nowNanos) {
+        return Math.max(0, (nowNanos - baseNanos) / 1_000) / windowMicros;
+    }
+
+    /** Signed number of windows from the packed index {@code stored} to {@code index}. */
+    private static long indexDelta(long stored, long index) {
+        return ((index - stored) & INDEX_MASK) << (64 - INDEX_BITS) >> (64 - INDEX_BITS);
+    }
+}
@@ -0,0 +1,68 @@
+package com.randomproject.ratelimiter;
+
+/**
+ * Token bucket holding up to {@code limit} tokens, refilled at {@code limit} per window. Refill is lazy: each check
+ * adds the whole tokens earned since the last refill and advances the refill timestamp by exactly the time they
+ * took, so fractions carry over. Packed as {@code [tokens: 20 bits][last refill: 44 bits]}.
+ */
+final class TokenBucketLimiter extends KeyLimiter {
+    private final long windowMicros;
+
+    TokenBucketLimiter(String key, RateLimitPolicy policy, long nowNanos) {
+        super(key, policy, nowNanos, (long) policy.limit() << TIME_BITS);
+        this.windowMicros = policy.windowMicros();
+    }
+
+    @Override
+    protected long refresh(long state, long nowNanos) {
+        long tokens = state >>> TIME_BITS;
+        long refilledAt = state & TIME_MASK;
+        long now = packedMicros(nowNanos);
+        long elapsed = elapsedMicros(refilledAt, now);
+        if (elapsed <= 0) {
+            return state;
+        }
+        if (tokens == limit || elapsed >= windowMicros) {
+            // Full: the clock restarts so tokens spent from here refill from now.
+            return ((long) limit << TIME_BITS) | now;
+        }
+        long earned = elapsed * limit / windowMicros;
+        if (earned == 0) {
+            return state;
+        }
+        if (tokens + earned >= limit) {
+            return ((long) limit << TIME_BITS) | now;
+        }
+        return ((tokens + earned) << TIME_BITS) | ((refilledAt + earned * windowMicros / limit) & TIME_MASK);
+    }
+
+    @Override
+    protected boolean admits(long state, int cost, long nowNanos) {
+        return state >>> TIME_BITS >= cost;
+    }
+
+    @Override
+    protected long consume(long state, int cost, long nowNanos) {
+        return state - ((long) cost << TIME_BITS);
+    }
+
+    @Override
+    protected long restore(long state, int cost, long nowNanos) {
+        long tokens = Math.min(limit, (state >>> TIME_BITS) + cost);
+        return (tokens << TIME_BITS) | (state & TIME_MASK);
+    }
+
+    @Override
+    protected Permit describe(long state, boolean allowed, int cost, long nowNanos) {
+        int tokens = (int) (state >>> TIME_BITS);
+        long refilledAt = nanosOf(state & TIME_MASK, nowNanos);
+        long fullAt = refilledAt + micros(limit - tokens) * 1_000;
+        long retryAfter = allowed ? 0 : Math.max(0, refilledAt + micros(cost - tokens) * 1_000 - nowNanos);
+        return new Permit(allowed, tokens, limit - tokens, nowNanos - policy.windowNanos(), Math.max(fullAt, nowNanos), retryAfter);
+    }
+
+    /** Microseconds to earn {@code tokens}, rounded up. */
+    private long micros(long tokens) {
+        return (tokens * windowMicros + limit - 1) / limit;
+    }
+}
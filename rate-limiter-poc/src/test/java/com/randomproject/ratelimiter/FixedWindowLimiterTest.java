@@ -0,0 +1,76 @@
+package com.randomproject.ratelimiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixedWindowLimiterTest {
+    private static final long T0 = 1_000_000_000_000L;
+    private static final long SECOND = 1_000_000_000L;
+    /** One lap of the 44-bit packed microsecond timestamp, in nanoseconds. */
+    private static final long WRAP = (1L << 44) * 1_000;
+
+    private final KeyLimiter limiter =
+            KeyLimiter.create("user-1", new RateLimitPolicy(RateLimitAlgorithm.FIXED_WINDOW, 3, 10), T0);
+
+    @Test
+    void admitsUpToTheLimitThenDeniesUntilTheWindowResets() {
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            KeyLimiter.Permit permit = limiter.tryAcquire(1, T0);
+            assertTrue(permit.allowed());
+            assertEquals(remaining, permit.remaining());
+        }
+
+        KeyLimiter.Permit denied = limiter.tryAcquire(1, T0);
+        assertFalse(denied.allowed());
+        assertEquals(10 * SECOND, denied.retryAfterNanos());
+
+        KeyLimiter.Permit later = limiter.tryAcquire(1, T0 + 4 * SECOND);
+        assertFalse(later.allowed());
+        assertEquals(6 * SECOND, later.retryAfterNanos());
+        assertEquals(6 * SECOND, limiter.retryAfterNanos(1, T0 + 4 * SECOND));
+
+        KeyLimiter.Permit reset = limiter.tryAcquire(1, T0 + 10 * SECOND);
+        assertTrue(reset.allowed());
+        assertEquals(2, reset.remaining());
+        assertEquals(0, limiter.retryAfterNanos(1, T0 + 10 * SECOND));
+    }
+
+    @Test
+    void windowStartsAtTheFirstCheckAfterExpiry() {
+        assertTrue(limiter.tryAcquire(3, T0).allowed());
+        KeyLimiter.Permit permit = limiter.tryAcquire(1, T0 + 13 * SECOND);
+
+        assertTrue(permit.allowed());
+        assertEquals(T0 + 13 * SECOND, permit.windowStartNanos());
+        assertEquals(T0 + 23 * SECOND, permit.windowEndNanos());
+    }
+
+    @Test
+    void releaseGivesPermitsBackWithoutGoingBelowEmpty() {
+        assertTrue(limiter.tryAcquire(3, T0).allowed());
+        limiter.release(1, T0);
+        assertTrue(limiter.tryAcquire(1, T0).allowed());
+        assertFalse(limiter.tryAcquire(1, T0).allowed());
+
+        limiter.release(5, T0);
+        assertEquals(3, limiter.peek(T0).remaining());
+    }
+
+    @Test
+    void keepsCountingAcrossThePackedTimestampWrap() {
+        // Checks a quarter lap apart keep every stored timestamp within the signed range of the next one.
+        for (long at = T0; at < T0 + WRAP - 2 * SECOND; at += WRAP / 4) {
+            limiter.tryAcquire(1, at);
+        }
+        long start = T0 + WRAP - 2 * SECOND;
+        assertTrue(limiter.tryAcquire(3, start).allowed());
+
+        KeyLimiter.Permit afterWrap = limiter.tryAcquire(1, start + 7 * SECOND);
+        assertFalse(afterWrap.allowed());
+        assertEquals(3 * SECOND, afterWrap.retryAfterNanos());
+        assertTrue(limiter.tryAcquire(1, start + 10 * SECOND).allowed());
+    }
+}
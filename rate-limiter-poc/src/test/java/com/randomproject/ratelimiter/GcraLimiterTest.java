@@ -0,0 +1,60 @@
+package com.randomproject.ratelimiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GcraLimiterTest {
+    private static final long T0 = 1_000_000_000_000L;
+    private static final long SECOND = 1_000_000_000L;
+
+    // Five permits per ten seconds: one emission interval is 2s.
+    private final KeyLimiter limiter =
+            KeyLimiter.create("user-1", new RateLimitPolicy(RateLimitAlgorithm.GCRA, 5, 10), T0);
+
+    @Test
+    void admitsABurstOfTheLimitThenOnePermitPerInterval() {
+        for (int remaining = 4; remaining >= 0; remaining--) {
+            KeyLimiter.Permit permit = limiter.tryAcquire(1, T0);
+            assertTrue(permit.allowed());
+            assertEquals(remaining, permit.remaining());
+        }
+        KeyLimiter.Permit denied = limiter.tryAcquire(1, T0);
+
+        assertFalse(denied.allowed());
+        assertEquals(2 * SECOND, denied.retryAfterNanos());
+        assertEquals(T0 + 10 * SECOND, denied.windowEndNanos());
+
+        assertFalse(limiter.tryAcquire(1, T0 + 2 * SECOND - 1).allowed());
+        assertTrue(limiter.tryAcquire(1, T0 + 2 * SECOND).allowed());
+        assertFalse(limiter.tryAcquire(1, T0 + 2 * SECOND).allowed());
+    }
+
+    @Test
+    void costEqualToTheLimitNeedsAFullyIdleLimiter() {
+        assertTrue(limiter.tryAcquire(5, T0).allowed());
+        assertFalse(limiter.tryAcquire(1, T0).allowed());
+
+        KeyLimiter.Permit denied = limiter.tryAcquire(5, T0 + 4 * SECOND);
+        assertFalse(denied.allowed());
+        assertEquals(6 * SECOND, denied.retryAfterNanos());
+        assertTrue(limiter.tryAcquire(5, T0 + 10 * SECOND).allowed());
+    }
+
+    @Test
+    void costAboveTheLimitIsNeverAdmitted() {
+        assertFalse(limiter.tryAcquire(6, T0).allowed());
+        assertEquals(5, limiter.peek(T0).remaining());
+    }
+
+    @Test
+    void acquireUpToAndReleaseMoveTheArrivalTime() {
+        assertEquals(5, limiter.acquireUpTo(8, T0));
+        limiter.release(2, T0);
+        assertEquals(2, limiter.peek(T0).remaining());
+        assertEquals(2, limiter.acquireUpTo(8, T0));
+        assertEquals(0, limiter.acquireUpTo(8, T0));
+    }
+}
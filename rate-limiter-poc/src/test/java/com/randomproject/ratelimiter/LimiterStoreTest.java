@@ -0,0 +1,114 @@
+package com.randomproject.ratelimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimiterStoreTest {
+    private static final long T0 = 1_000_000_000_000L;
+    private static final long SECOND = 1_000_000_000L;
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy(RateLimitAlgorithm.FIXED_WINDOW, 10, 60);
+
+    @Test
+    void neverHoldsMoreThanItsCapacity() {
+        LimiterStore store = new LimiterStore("keys", 8);
+        for (int i = 0; i < 100; i++) {
+            store.getOrCreate("key-" + i, POLICY, T0 + i).tryAcquire(1, T0 + i);
+            assertTrue(store.stats().size() <= 8);
+        }
+
+        assertEquals(8, store.stats().size());
+        assertEquals(8, indexedKeys(store, 100));
+        assertEquals(92, store.stats().idleEvictions() + store.stats().pressureEvictions());
+    }
+
+    @Test
+    void neverHoldsMoreThanItsCapacityUnderConcurrentNewKeys() throws Exception {
+        LimiterStore store = new LimiterStore("keys", 64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread * 2_000;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        store.getOrCreate("key-" + (offset + i), POLICY, T0).tryAcquire(1, T0);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(64, store.stats().size());
+        assertEquals(64, indexedKeys(store, 8_000));
+        for (KeyLimiter limiter : store.mostRecent(64)) {
+            // Every indexed limiter still owns its slot.
+            assertSame(limiter, store.get(limiter.key()));
+        }
+    }
+
+    @Test
+    void sweepsIdleKeysBeforeTouchingHotOnes() {
+        LimiterStore store = new LimiterStore("keys", 8);
+        // The idle keys take slots 0-3, where the sweep hand starts.
+        for (int i = 0; i < 4; i++) {
+            store.getOrCreate("idle-" + i, POLICY, T0);
+        }
+        for (int i = 0; i < 4; i++) {
+            store.getOrCreate("hot-" + i, POLICY, T0).tryAcquire(5, T0);
+        }
+
+        long later = T0 + 2 * SECOND;
+        for (int i = 0; i < 4; i++) {
+            store.getOrCreate("new-" + i, POLICY, later);
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertNull(store.get("idle-" + i));
+            KeyLimiter hot = store.get("hot-" + i);
+            assertNotNull(hot);
+            assertEquals(5, hot.peek(later).used());
+            assertNotNull(store.get("new-" + i));
+        }
+        assertEquals(4, store.stats().idleEvictions());
+        assertEquals(0, store.stats().pressureEvictions());
+    }
+
+    @Test
+    void countsUsageDroppedByPressureEvictions() {
+        LimiterStore store = new LimiterStore("keys", 1);
+        store.getOrCreate("busy", POLICY, T0).tryAcquire(3, T0);
+
+        store.getOrCreate("next", POLICY, T0 + SECOND / 10);
+
+        RateLimitStoreStats stats = store.stats();
+        assertNull(store.get("busy"));
+        assertEquals(1, stats.pressureEvictions());
+        assertEquals(3, stats.pressureEvictedUsage());
+        assertEquals(100L, stats.lastPressureEvictionIdleMillis());
+    }
+
+    private static int indexedKeys(LimiterStore store, int keys) {
+        int indexed = 0;
+        for (int i = 0; i < keys; i++) {
+            if (store.get("key-" + i) != null) {
+                indexed++;
+            }
+        }
+        return indexed;
+    }
+}
@@ -0,0 +1,202 @@
+package com.randomproject.ratelimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterServiceTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000_000L);
+
+    /** Fixed windows: an hour per key and per tenant, ten seconds for the global quota. */
+    private RateLimiterService service(int tenantLimit, int globalLimit) {
+        return new RateLimiterService(10, 3600, "fixed_window", 1_000, 100, tenantLimit, 3600, globalLimit, 10,
+                clock::get);
+    }
+
+    @Test
+    void keyDenialChargesNeitherTenantNorGlobal() {
+        RateLimiterService service = service(3, 4);
+
+        assertTrue(check(service, "acme:a", 1).allowed());
+        for (int i = 0; i < 5; i++) {
+            RateLimitDecision denied = check(service, "acme:a", 1);
+            assertFalse(denied.allowed());
+            assertEquals(RateLimitScope.KEY, denied.deniedBy());
+        }
+
+        // The tenant and global quotas only saw the one allowed check.
+        assertTrue(check(service, "acme:b", 10).allowed());
+        assertTrue(check(service, "acme:b", 10).allowed());
+        assertEquals(RateLimitScope.TENANT, check(service, "acme:b", 10).deniedBy());
+        assertTrue(check(service, "other:x", 10).allowed());
+        assertEquals(RateLimitScope.GLOBAL, check(service, "other:x", 10).deniedBy());
+    }
+
+    @Test
+    void tenantDenialGivesBackTheKeyAndChargesNoGlobal() {
+        RateLimiterService service = service(3, 4);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(check(service, "acme:a", 10).allowed());
+        }
+        for (int i = 0; i < 3; i++) {
+            RateLimitDecision denied = check(service, "acme:a", 10);
+            assertEquals(RateLimitScope.TENANT, denied.deniedBy());
+            assertEquals(3, denied.count());
+            assertEquals(7, denied.remaining());
+        }
+
+        assertTrue(check(service, "other:x", 10).allowed());
+        assertEquals(RateLimitScope.GLOBAL, check(service, "other:x", 10).deniedBy());
+    }
+
+    @Test
+    void globalDenialGivesBackTheTenantAndKey() {
+        RateLimiterService service = service(3, 2);
+
+        assertTrue(check(service, "acme:a", 10).allowed());
+        assertTrue(check(service, "acme:a", 10).allowed());
+        for (int i = 0; i < 3; i++) {
+            RateLimitDecision denied = check(service, "acme:a", 10);
+            assertEquals(RateLimitScope.GLOBAL, denied.deniedBy());
+            assertEquals(2, denied.count());
+        }
+
+        // The global window rolls over; the tenant's hour still holds exactly the two allowed checks.
+        clock.addAndGet(10 * SECOND);
+        RateLimitDecision third = check(service, "acme:a", 10);
+        assertTrue(third.allowed());
+        assertNull(third.deniedBy());
+        assertEquals(3, third.count());
+        assertEquals(RateLimitScope.TENANT, check(service, "acme:a", 10).deniedBy());
+    }
+
+    @Test
+    void keysWithoutATenantPrefixOnlyDrawOnTheGlobalQuota() {
+        RateLimiterService service = service(1, 3);
+
+        assertTrue(check(service, "plain-a", 10).allowed());
+        assertTrue(check(service, "plain-b", 10).allowed());
+        assertTrue(check(service, "plain-a", 10).allowed());
+        assertEquals(RateLimitScope.GLOBAL, check(service, "plain-b", 10).deniedBy());
+    }
+
+    @Test
+    void batchChargesEntriesInOrderAsOneClockReading() {
+        RateLimiterService service = service(0, 0);
+
+        RateLimitBatchResult result = service.checkAll(List.of(
+                new RateLimitRequest("user-1", 2, null, 1, null),
+                new RateLimitRequest("user-1", 2, null, 1, null),
+                new RateLimitRequest("user-1", 2, null, 1, null),
+                new RateLimitRequest("user-2", 2, null, 2, null)));
+
+        assertEquals(3, result.allowed());
+        assertEquals(1, result.denied());
+        assertEquals(List.of(true, true, false, true),
+                result.decisions().stream().map(RateLimitDecision::allowed).toList());
+    }
+
+    @Test
+    void invalidBatchEntryRejectsTheBatchWithoutChargingAnyLimiter() {
+        RateLimiterService service = service(5, 5);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> service.checkAll(List.of(
+                new RateLimitRequest("acme:a", 2, null, 1, null),
+                new RateLimitRequest("acme:b", 2, null, 1, null),
+                new RateLimitRequest("acme:c", 2, null, 3, null))));
+        assertTrue(error.getMessage().startsWith("Check 2:"));
+
+        // Nothing was spent: both keys, the tenant, and the global quota are untouched.
+        assertEquals(1, check(service, "acme:a", 2).count());
+        assertEquals(1, check(service, "acme:b", 2).count());
+        assertTrue(check(service, "acme:d", 10).allowed());
+        assertTrue(check(service, "acme:d", 10).allowed());
+        assertTrue(check(service, "acme:d", 10).allowed());
+        assertEquals(RateLimitScope.TENANT, check(service, "acme:d", 10).deniedBy());
+    }
+
+    @Test
+    void leaseGrantsWhatTheTightestScopeAllows() {
+        RateLimiterService service = service(4, 100);
+        assertTrue(check(service, "acme:a", 10).allowed());
+
+        RateLimitLease lease = service.lease("acme:b", null, 10, null, 4, 30);
+
+        assertNotNull(lease.leaseId());
+        assertEquals(4, lease.requested());
+        assertEquals(3, lease.granted());
+        assertEquals(RateLimitScope.TENANT, lease.limitedBy());
+        assertEquals(1, service.openLeases());
+        // The key only keeps what the tenant let through.
+        RateLimitDecision probe = check(service, "acme:b", 10);
+        assertEquals(RateLimitScope.TENANT, probe.deniedBy());
+        assertEquals(3, probe.count());
+
+        RateLimitLease empty = service.lease("acme:c", null, 10, null, 1, 30);
+        assertNull(empty.leaseId());
+        assertEquals(0, empty.granted());
+        assertEquals(RateLimitScope.TENANT, empty.limitedBy());
+        assertEquals(3_600_000, empty.retryAfterMillis());
+        assertEquals(1, service.openLeases());
+    }
+
+    @Test
+    void reportRefundsUnusedPermitsToEveryScopeOnce() {
+        RateLimiterService service = service(5, 5);
+        RateLimitLease lease = service.lease("acme:a", null, 10, null, 5, 30);
+        assertEquals(5, lease.granted());
+        assertEquals(RateLimitScope.TENANT, check(service, "acme:b", 10).deniedBy());
+
+        Optional<RateLimitLeaseReturn> settled = service.report(lease.leaseId(), 2);
+
+        assertTrue(settled.isPresent());
+        assertEquals(3, settled.get().returned());
+        assertTrue(service.report(lease.leaseId(), 0).isEmpty());
+        assertEquals(0, service.openLeases());
+        // Three permits are back in the key, the tenant, and the global quota, and no more.
+        for (int i = 0; i < 3; i++) {
+            assertTrue(check(service, "acme:b", 10).allowed());
+        }
+        assertEquals(RateLimitScope.TENANT, check(service, "acme:b", 10).deniedBy());
+        assertEquals(2, check(service, "acme:a", 10).count());
+    }
+
+    @Test
+    void unreportedLeaseExpiresAsFullyUsed() {
+        RateLimiterService service = service(0, 0);
+        RateLimitLease lease = service.lease("user-1", null, 10, null, 4, 5);
+
+        clock.addAndGet(5 * SECOND + 1);
+
+        assertTrue(service.report(lease.leaseId(), 0).isEmpty());
+        assertEquals(0, service.openLeases());
+        assertEquals(5, check(service, "user-1", 10).count());
+    }
+
+    @Test
+    void reportRejectsMoreUsageThanGranted() {
+        RateLimiterService service = service(0, 0);
+        RateLimitLease lease = service.lease("user-1", null, 10, null, 2, 30);
+
+        assertThrows(IllegalArgumentException.class, () -> service.report(lease.leaseId(), 3));
+        assertThrows(IllegalArgumentException.class, () -> service.report(lease.leaseId(), -1));
+        assertEquals(1, service.openLeases());
+        assertTrue(service.report("missing", 0).isEmpty());
+    }
+
+    private static RateLimitDecision check(RateLimiterService service, String key, int limit) {
+        return service.check(key, limit, null, 1);
+    }
+}
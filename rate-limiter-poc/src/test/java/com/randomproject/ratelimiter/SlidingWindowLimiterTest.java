@@ -0,0 +1,88 @@
+package com.randomproject.ratelimiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowLimiterTest {
+    private static final long T0 = 1_000_000_000_000L;
+    private static final long SECOND = 1_000_000_000L;
+
+    private final KeyLimiter limiter =
+            KeyLimiter.create("user-1", new RateLimitPolicy(RateLimitAlgorithm.SLIDING_WINDOW, 10, 10), T0);
+
+    @Test
+    void admitsUpToTheLimitThenDenies() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(1, T0 + 5 * SECOND).allowed());
+        }
+        KeyLimiter.Permit denied = limiter.tryAcquire(1, T0 + 5 * SECOND);
+
+        assertFalse(denied.allowed());
+        assertEquals(0, denied.remaining());
+        // The next window opens in 5s; a tenth of it must then slide past before the ten requests weigh only nine.
+        assertEquals(6 * SECOND, denied.retryAfterNanos());
+        assertFalse(limiter.tryAcquire(1, T0 + 11 * SECOND - 1).allowed());
+        assertTrue(limiter.tryAcquire(1, T0 + 11 * SECOND).allowed());
+    }
+
+    @Test
+    void burstAtTheWindowBoundaryIsHeldToTheLimit() {
+        KeyLimiter fixed = KeyLimiter.create("user-2", new RateLimitPolicy(RateLimitAlgorithm.FIXED_WINDOW, 10, 10), T0);
+        fixed.tryAcquire(0, T0);
+        int fixedAdmitted = 0;
+        int slidingAdmitted = 0;
+        for (int i = 0; i < 20; i++) {
+            fixedAdmitted += fixed.tryAcquire(1, T0 + 9 * SECOND).allowed() ? 1 : 0;
+            slidingAdmitted += limiter.tryAcquire(1, T0 + 9 * SECOND).allowed() ? 1 : 0;
+        }
+        for (int i = 0; i < 20; i++) {
+            fixedAdmitted += fixed.tryAcquire(1, T0 + 10 * SECOND).allowed() ? 1 : 0;
+            slidingAdmitted += limiter.tryAcquire(1, T0 + 10 * SECOND).allowed() ? 1 : 0;
+        }
+
+        assertEquals(20, fixedAdmitted);
+        assertEquals(10, slidingAdmitted);
+        KeyLimiter.Permit denied = limiter.tryAcquire(1, T0 + 10 * SECOND);
+        assertEquals(SECOND, denied.retryAfterNanos());
+    }
+
+    @Test
+    void weighsThePreviousWindowByTheShareStillCovered() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(1, T0 + 9 * SECOND);
+        }
+        assertTrue(limiter.tryAcquire(1, T0 + 11 * SECOND).allowed());
+
+        // Halfway through window 1: 10 previous * 0.5 + 1 current = 6 of 10 used.
+        KeyLimiter.Permit halfway = limiter.peek(T0 + 15 * SECOND);
+        assertEquals(6, halfway.used());
+        assertEquals(4, halfway.remaining());
+        assertEquals(4, limiter.acquireUpTo(10, T0 + 15 * SECOND));
+        assertFalse(limiter.tryAcquire(1, T0 + 15 * SECOND).allowed());
+
+        // Two windows later nothing carries over.
+        assertEquals(10, limiter.peek(T0 + 30 * SECOND).remaining());
+    }
+
+    @Test
+    void carriesThePreviousWindowAcrossThePackedIndexWrap() {
+        long window = SECOND;
+        KeyLimiter perSecond = KeyLimiter.create("user-3", new RateLimitPolicy(RateLimitAlgorithm.SLIDING_WINDOW, 2, 1), T0);
+        long lap = (1L << 24) * window;
+        // Checks a quarter lap apart keep the stored index within the signed range of the next one.
+        for (long at = T0; at < T0 + lap - window; at += lap / 4) {
+            perSecond.tryAcquire(1, at);
+        }
+        long lastWindowOfLap = T0 + lap - window + window / 2;
+        assertTrue(perSecond.tryAcquire(2, lastWindowOfLap).allowed());
+        assertFalse(perSecond.tryAcquire(1, lastWindowOfLap).allowed());
+
+        // Half of the previous window's two requests still count, so one more fits.
+        long firstWindowOfNextLap = T0 + lap + window / 2;
+        assertTrue(perSecond.tryAcquire(1, firstWindowOfNextLap).allowed());
+        assertFalse(perSecond.tryAcquire(1, firstWindowOfNextLap).allowed());
+    }
+}
@@ -0,0 +1,61 @@
+package com.randomproject.ratelimiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+    private static final long T0 = 1_000_000_000_000L;
+    private static final long SECOND = 1_000_000_000L;
+
+    private final KeyLimiter limiter =
+            KeyLimiter.create("user-1", new RateLimitPolicy(RateLimitAlgorithm.TOKEN_BUCKET, 10, 10), T0);
+
+    @Test
+    void admitsAFullBucketThenDenies() {
+        for (int remaining = 9; remaining >= 0; remaining--) {
+            KeyLimiter.Permit permit = limiter.tryAcquire(1, T0);
+            assertTrue(permit.allowed());
+            assertEquals(remaining, permit.remaining());
+        }
+        KeyLimiter.Permit denied = limiter.tryAcquire(1, T0);
+
+        assertFalse(denied.allowed());
+        assertEquals(SECOND, denied.retryAfterNanos());
+        assertEquals(3 * SECOND, limiter.retryAfterNanos(3, T0));
+        assertEquals(T0 + 10 * SECOND, denied.windowEndNanos());
+    }
+
+    @Test
+    void refillsWholeTokensAndCarriesTheFraction() {
+        limiter.tryAcquire(10, T0);
+
+        assertEquals(2, limiter.acquireUpTo(5, T0 + 2_500_000_000L));
+        KeyLimiter.Permit denied = limiter.tryAcquire(1, T0 + 2_500_000_000L);
+        assertFalse(denied.allowed());
+        // The refill clock advanced to 2s, so the half second already earned counts toward the next token.
+        assertEquals(SECOND / 2, denied.retryAfterNanos());
+        assertTrue(limiter.tryAcquire(1, T0 + 3 * SECOND).allowed());
+    }
+
+    @Test
+    void refillsToTheLimitAndNoFurther() {
+        limiter.tryAcquire(10, T0);
+
+        assertEquals(10, limiter.peek(T0 + 60 * SECOND).remaining());
+        assertTrue(limiter.tryAcquire(10, T0 + 60 * SECOND).allowed());
+        assertFalse(limiter.tryAcquire(1, T0 + 60 * SECOND).allowed());
+    }
+
+    @Test
+    void releaseReturnsTokensUpToTheLimit() {
+        limiter.tryAcquire(4, T0);
+        limiter.release(2, T0);
+        assertEquals(8, limiter.peek(T0).remaining());
+
+        limiter.release(50, T0);
+        assertEquals(10, limiter.peek(T0).remaining());
+    }
+}
@@ -0,0 +1,107 @@
+package com.randomproject.searchautocomplete.benchmark;
+
+import com.randomproject.searchautocomplete.AutocompleteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggestions and selections against {@code terms} synthetic search terms of two or three words from a small
+ * vocabulary, so prefixes share long runs the way real queries do. {@code recordSelection} only buffers the
+ * selection; {@code recordSelectionAndMerge} also merges it into the rankings, as the scheduled merge would, for the
+ * worst case of one selection per merge. {@code upsertAndPublish} rebuilds the whole read snapshot after one write,
+ * and the {@code readWhileWriting} group runs three suggesting threads against one thread upserting scores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class AutocompleteBenchmark {
+    private static final String[] WORDS = {
+            "apple", "app", "best", "cheap", "coffee", "data", "flight", "guide", "hotel", "insurance",
+            "laptop", "near", "me", "pizza", "price", "review", "store", "tickets", "travel", "watch"
+    };
+
+    @Param({"2000", "100000"})
+    public int terms;
+
+    private AutocompleteService service;
+    private String[] termNames;
+    private String[] prefixes;
+
+    @Setup
+    public void setUp() {
+        service = new AutocompleteService(8, 10, 80, 60, 1000);
+        Random random = new Random(42);
+        termNames = new String[terms];
+        for (int i = 0; i < terms; i++) {
+            termNames[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            service.upsertTerm(termNames[i], (long) random.nextInt(1_000));
+        }
+        service.publish();
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String term = termNames[random.nextInt(terms)];
+            prefixes[i] = term.substring(0, 1 + random.nextInt(Math.min(term.length(), 12)));
+        }
+    }
+
+    @Benchmark
+    public Object suggest() {
+        return service.suggest(prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)], null);
+    }
+
+    @Benchmark
+    public Object recordSelection() {
+        return service.recordSelection(termNames[ThreadLocalRandom.current().nextInt(terms)]);
+    }
+
+    @Benchmark
+    public Object recordSelectionAndMerge() {
+        Object selected = service.recordSelection(termNames[ThreadLocalRandom.current().nextInt(terms)]);
+        service.mergeSelections();
+        return selected;
+    }
+
+    @Benchmark
+    public void upsertAndPublish() {
+        upsertRandomScore();
+        service.publish();
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public Object suggestDuringWrites() {
+        return suggest();
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public Object upsertDuringReads() {
+        return upsertRandomScore();
+    }
+
+    private Object upsertRandomScore() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.upsertTerm(termNames[random.nextInt(terms)], (long) random.nextInt(1_000));
+    }
+}
@@ -24,8 +24,10 @@ public class AutocompleteController {
     @GetMapping("/")
     public String home(Model model) {
         model.addAttribute("defaultLimit", service.getDefaultLimit());
-        model.addAttribute("maxPrefixLength", service.getMaxPrefixLength());
-        model.addAttribute("terms", service.allTerms());
+        model.addAttribute("topK", service.getTopK());
+        model.addAttribute("halfLifeMinutes", service.getHalfLifeMinutes());
+        model.addAttribute("publishedIndex", service.getPublishedIndex());
+        model.addAttribute("terms", service.allTerms().stream().map(this::toResponse).toList());
         if (!model.containsAttribute("prefix")) {
             model.addAttribute("prefix", "");
         }
@@ -64,7 +66,8 @@ public class AutocompleteController {
             SearchTerm entry = service.upsertTerm(term, score);
             redirectAttributes.addFlashAttribute(
                     "message",
-                    "Saved term: " + entry.getTerm() + " (score " + entry.getScore() + ")"
+                    "Saved term: " + entry.getTerm() + " (score " + entry.getScore()
+                            + "); suggestions include it after the next index publish"
             );
         } catch (IllegalArgumentException ex) {
             redirectAttributes.addFlashAttribute("message", ex.getMessage());
@@ -78,7 +81,8 @@ public class AutocompleteController {
             SearchTerm entry = service.recordSelection(term);
             redirectAttributes.addFlashAttribute(
                     "message",
-                    "Recorded selection for " + entry.getTerm() + " (score " + entry.getScore() + ")"
+                    "Recorded selection for " + entry.getTerm() + " (" + entry.getPendingSelections()
+                            + " pending until the next ranking merge)"
             );
         } catch (IllegalArgumentException ex) {
             redirectAttributes.addFlashAttribute("message", ex.getMessage());
@@ -93,6 +97,12 @@ public class AutocompleteController {
         return service.suggest(prefix, limit);
     }
 
+    @GetMapping("/api/index")
+    @ResponseBody
+    public PublishedIndex apiIndex() {
+        return service.getPublishedIndex();
+    }
+
     @GetMapping("/api/terms")
     @ResponseBody
     public List<SearchTermResponse> apiTerms() {
@@ -125,6 +135,8 @@ public class AutocompleteController {
         return new SearchTermResponse(
                 entry.getTerm(),
                 entry.getScore(),
+                service.trendScore(entry),
+                entry.getPendingSelections(),
                 entry.getCreatedAt(),
                 entry.getUpdatedAt(),
                 entry.getLastSelectedAt()
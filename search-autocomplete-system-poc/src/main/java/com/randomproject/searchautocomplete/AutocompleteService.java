@@ -1,91 +1,223 @@
 package com.randomproject.searchautocomplete;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 import java.util.regex.Pattern;
 
+/**
+ * Terms by key, plus a {@link RadixTrie} that caches the top terms under every prefix. A write re-ranks the term only
+ * in the caches along its own key.
+ *
+ * <p>The trie is staging for writers, who share the service lock. Suggestions never take it: they read an immutable
+ * {@link IndexSnapshot} from an atomic reference. A builder copies the trie into a new snapshot and swaps it in on a
+ * schedule, or sooner once enough changes are staged, so a burst of writes delays what readers see by at most one
+ * publish and never stalls them. Under the lock, a publish only freezes the paths changed since the last one; the
+ * copy into the snapshot's arrays runs outside it, so writers are held up for the changes, not the trie.
+ *
+ * <p>Terms rank by exponentially decayed popularity with a configurable half-life. Decay is forward: a selection at
+ * time t adds 2^((t - landmark) / halfLife) rather than every score shrinking as time passes. All terms would decay
+ * by the same factor, so ranks only move when a term does and the trie's caches never go stale on their own.
+ *
+ * <p>Selections skip the service lock. Each one bumps a striped counter on its term and queues the term once; a
+ * scheduled merge drains the queue under the lock, weights each term's batch at the merge time, and promotes it in
+ * the trie. A trending term therefore surfaces within one merge interval, and a hot term costs the merge one
+ * re-rank however many selections it absorbed.
+ */
 @Service
 public class AutocompleteService {
     private static final Pattern TERM_PATTERN = Pattern.compile("^[A-Za-z0-9 ._:/&'\\-]+$");
+    /** Weights stay below 2^64 before the landmark moves, far inside double range. */
+    private static final int REBASE_HALF_LIVES = 64;
 
-    private final Map<String, SearchTerm> terms = new HashMap<>();
-    private final Map<String, List<SearchTerm>> prefixIndex = new HashMap<>();
+    private final Map<String, SearchTerm> terms = new ConcurrentHashMap<>();
+    private final Queue<SearchTerm> pendingTerms = new ConcurrentLinkedQueue<>();
+    private final RadixTrie index;
     private final int defaultLimit;
-    private final int maxPrefixLength;
     private final int maxTermLength;
+    private final long halfLifeMillis;
+    private final int publishAfterChanges;
+    private final AtomicReference<IndexSnapshot> published = new AtomicReference<>();
+    private final AtomicBoolean publishQueued = new AtomicBoolean();
+    /** Serializes snapshot builds, which run outside the service lock. */
+    private final Object publishLock = new Object();
+    private final LongSupplier clock;
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autocomplete-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long landmarkMillis;
+    private long stagedVersion;
 
     public AutocompleteService(
             @Value("${autocomplete.default-limit:8}") int defaultLimit,
-            @Value("${autocomplete.max-prefix-length:20}") int maxPrefixLength,
-            @Value("${autocomplete.max-term-length:80}") int maxTermLength) {
+            @Value("${autocomplete.top-k:10}") int topK,
+            @Value("${autocomplete.max-term-length:80}") int maxTermLength,
+            @Value("${autocomplete.half-life-minutes:60}") long halfLifeMinutes,
+            @Value("${autocomplete.publish-after-changes:1000}") int publishAfterChanges) {
+        this(defaultLimit, topK, maxTermLength, halfLifeMinutes, publishAfterChanges, System::currentTimeMillis);
+    }
+
+    AutocompleteService(int defaultLimit, int topK, int maxTermLength, long halfLifeMinutes, int publishAfterChanges,
+                        LongSupplier clock) {
+        if (halfLifeMinutes <= 0) {
+            throw new IllegalArgumentException("Half-life must be at least 1 minute.");
+        }
+        if (publishAfterChanges <= 0) {
+            throw new IllegalArgumentException("Publish-after-changes must be at least 1.");
+        }
         this.defaultLimit = defaultLimit;
-        this.maxPrefixLength = maxPrefixLength;
         this.maxTermLength = maxTermLength;
+        this.halfLifeMillis = halfLifeMinutes * 60_000;
+        this.publishAfterChanges = publishAfterChanges;
+        this.clock = clock;
+        this.landmarkMillis = clock.getAsLong();
+        this.index = new RadixTrie(topK, rankComparator());
         seedDefaults();
+        published.set(index.snapshot(stagedVersion, landmarkMillis, halfLifeMillis));
     }
 
     public int getDefaultLimit() {
         return defaultLimit;
     }
 
-    public int getMaxPrefixLength() {
-        return maxPrefixLength;
+    public int getTopK() {
+        return index.topK();
+    }
+
+    public long getHalfLifeMinutes() {
+        return halfLifeMillis / 60_000;
     }
 
-    public synchronized List<SearchSuggestion> suggest(String prefix, Integer limit) {
+    public PublishedIndex getPublishedIndex() {
+        return published.get().describe();
+    }
+
+    /** Served from the published snapshot without locking; writes show up once the next snapshot is published. */
+    public List<SearchSuggestion> suggest(String prefix, Integer limit) {
         String normalizedPrefix = normalizePrefix(prefix);
         int resolvedLimit = normalizeLimit(limit);
-        List<SearchTerm> source = prefixIndex.get(normalizedPrefix);
-        if (source == null) {
-            source = terms.values().stream()
-                    .filter(term -> term.getKey().startsWith(normalizedPrefix))
-                    .sorted(rankComparator())
-                    .toList();
-        }
-        return source.stream()
-                .limit(resolvedLimit)
-                .map(this::toSuggestion)
-                .toList();
+        return published.get().suggest(normalizedPrefix, resolvedLimit, clock.getAsLong());
     }
 
     public synchronized SearchTerm upsertTerm(String term, Long score) {
         NormalizedTerm normalized = normalizeTerm(term);
         SearchTerm existing = terms.get(normalized.key());
-        Instant now = Instant.now();
+        Instant now = Instant.ofEpochMilli(clock.getAsLong());
+        rebaseIfDue(now.toEpochMilli());
         long resolvedScore = score == null ? 0 : score;
+        // A set score counts as that many selections made now.
+        double popularity = resolvedScore * weightAt(now.toEpochMilli());
         if (existing == null) {
-            SearchTerm created = new SearchTerm(normalized.key(), normalized.display(), resolvedScore, now, now, null);
+            SearchTerm created = new SearchTerm(
+                    normalized.key(), normalized.display(), resolvedScore, popularity, now, now, null);
             terms.put(normalized.key(), created);
-        } else {
-            existing.updateTerm(normalized.display(), now);
-            if (score != null) {
-                existing.updateScore(resolvedScore, now);
-            }
+            index.add(created);
+            staged();
+            return created;
+        }
+        existing.updateTerm(normalized.display(), now);
+        if (score != null) {
+            existing.updateScore(resolvedScore, popularity, now);
         }
-        rebuildIndex();
-        return terms.get(normalized.key());
+        // The display form breaks score ties and a new score may be lower, so the rank can move either way.
+        index.changed(existing);
+        staged();
+        return existing;
     }
 
-    public synchronized SearchTerm recordSelection(String term) {
+    /**
+     * Buffers a selection on the term's striped counter; the next {@link #mergeSelections} applies it. Only a term
+     * seen for the first time takes the lock, to be added to the index.
+     */
+    public SearchTerm recordSelection(String term) {
         NormalizedTerm normalized = normalizeTerm(term);
-        Instant now = Instant.now();
-        SearchTerm existing = terms.get(normalized.key());
-        if (existing == null) {
-            existing = new SearchTerm(normalized.key(), normalized.display(), 0, now, now, null);
-            terms.put(normalized.key(), existing);
+        SearchTerm entry = terms.get(normalized.key());
+        if (entry == null) {
+            entry = addUnselected(normalized);
+        }
+        if (entry.bufferSelection()) {
+            pendingTerms.add(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Folds buffered selections into scores and rankings. Every selection in a batch is weighted at the merge time,
+     * which is at most one interval late; a term selected again while it merges is queued for the next run.
+     */
+    @Scheduled(fixedDelayString = "${autocomplete.merge-interval-ms:1000}")
+    public synchronized void mergeSelections() {
+        long nowMillis = clock.getAsLong();
+        rebaseIfDue(nowMillis);
+        Instant now = Instant.ofEpochMilli(nowMillis);
+        double weight = weightAt(nowMillis);
+        // Bounded, so terms re-queued by constant traffic wait for the next run instead of holding the lock.
+        for (int remaining = terms.size(); remaining > 0; remaining--) {
+            SearchTerm entry = pendingTerms.poll();
+            if (entry == null) {
+                return;
+            }
+            long count = entry.drainSelections();
+            if (count > 0) {
+                entry.mergeSelections(count, weight, now);
+                // More popularity and the latest selection time only ever move a term up.
+                index.promoted(entry);
+                staged();
+            }
         }
-        existing.recordSelection(now);
-        rebuildIndex();
-        return existing;
+    }
+
+    /**
+     * Builds a snapshot from the staged trie and swaps it in, unless nothing changed since the last one. Runs on a
+     * schedule, and on the publisher thread once {@code publishAfterChanges} changes are staged. Only freezing the
+     * changed paths takes the service lock; the build itself runs outside it.
+     */
+    @Scheduled(fixedDelayString = "${autocomplete.publish-interval-ms:1000}")
+    public void publish() {
+        synchronized (publishLock) {
+            publishQueued.set(false);
+            RadixTrie.Staged staged;
+            long version;
+            long landmark;
+            synchronized (this) {
+                if (published.get().version() == stagedVersion) {
+                    return;
+                }
+                staged = index.stage();
+                version = stagedVersion;
+                landmark = landmarkMillis;
+            }
+            published.set(RadixTrie.build(staged, index.topK(), version, landmark, halfLifeMillis));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+
+    /** Decayed popularity as of now, in selections: what the term's merged selections are worth today. */
+    public synchronized double trendScore(SearchTerm term) {
+        return term.getPopularity() / weightAt(clock.getAsLong());
     }
 
     public synchronized List<SearchTerm> allTerms() {
@@ -95,7 +227,7 @@ public class AutocompleteService {
     }
 
     private void seedDefaults() {
-        Instant now = Instant.now();
+        Instant now = Instant.ofEpochMilli(clock.getAsLong());
         seed("apple watch", 42, now);
         seed("apple store", 31, now);
         seed("app store", 28, now);
@@ -116,34 +248,70 @@ public class AutocompleteService {
         seed("crypto portfolio tracker", 13, now);
         seed("data structures", 29, now);
         seed("dog grooming", 11, now);
-        rebuildIndex();
     }
 
     private void seed(String term, long score, Instant now) {
         NormalizedTerm normalized = normalizeTerm(term);
-        SearchTerm entry = new SearchTerm(normalized.key(), normalized.display(), score, now, now, null);
+        SearchTerm entry = new SearchTerm(
+                normalized.key(), normalized.display(), score, score * weightAt(now.toEpochMilli()), now, now, null);
         terms.put(normalized.key(), entry);
+        index.add(entry);
+    }
+
+    private synchronized SearchTerm addUnselected(NormalizedTerm normalized) {
+        SearchTerm existing = terms.get(normalized.key());
+        if (existing != null) {
+            return existing;
+        }
+        Instant now = Instant.ofEpochMilli(clock.getAsLong());
+        SearchTerm created = new SearchTerm(normalized.key(), normalized.display(), 0, 0, now, now, null);
+        terms.put(normalized.key(), created);
+        index.add(created);
+        staged();
+        return created;
     }
 
-    private void rebuildIndex() {
-        prefixIndex.clear();
-        List<SearchTerm> ordered = terms.values().stream().sorted(rankComparator()).toList();
-        prefixIndex.put("", ordered);
-        for (SearchTerm term : ordered) {
-            String key = term.getKey();
-            int limit = Math.min(key.length(), maxPrefixLength);
-            for (int i = 1; i <= limit; i++) {
-                String prefix = key.substring(0, i);
-                prefixIndex.computeIfAbsent(prefix, ignored -> new ArrayList<>()).add(term);
+    /**
+     * Counts a change to the trie, and hands a publish to the publisher thread once enough have built up. After
+     * {@link #shutdown} the publisher rejects it and the change stays staged; nothing is published any more.
+     */
+    private void staged() {
+        stagedVersion++;
+        boolean due = stagedVersion - published.get().version() >= publishAfterChanges;
+        if (due && publishQueued.compareAndSet(false, true)) {
+            try {
+                publisher.execute(this::publish);
+            } catch (RejectedExecutionException ex) {
+                publishQueued.set(false);
             }
         }
-        prefixIndex.replaceAll((prefix, entries) -> entries.stream()
-                .sorted(rankComparator())
-                .toList());
     }
 
-    private Comparator<SearchTerm> rankComparator() {
-        return Comparator.comparingLong(SearchTerm::getScore).reversed()
+    /** The weight of one selection at {@code nowMillis}: it doubles every half-life after the landmark. */
+    private double weightAt(long nowMillis) {
+        return Math.pow(2, (double) (nowMillis - landmarkMillis) / halfLifeMillis);
+    }
+
+    /**
+     * Moves the landmark forward by whole half-lives and scales every popularity to match, before weights grow large
+     * enough to lose precision. Scaling by a power of two keeps comparisons between normal values, but a long-idle
+     * term eventually underflows to a subnormal and then zero, tying with or passing others, so every cache is
+     * re-ranked.
+     */
+    private void rebaseIfDue(long nowMillis) {
+        long halfLives = (nowMillis - landmarkMillis) / halfLifeMillis;
+        if (halfLives < REBASE_HALF_LIVES) {
+            return;
+        }
+        int shift = (int) Math.min(halfLives, 1_000);
+        terms.values().forEach(term -> term.rebasePopularity(shift));
+        index.rebuildAll();
+        landmarkMillis += shift * halfLifeMillis;
+        staged();
+    }
+
+    static Comparator<SearchTerm> rankComparator() {
+        return Comparator.comparingDouble(SearchTerm::getPopularity).reversed()
                 .thenComparing(SearchTerm::getLastSelectedAt, Comparator.nullsLast(Comparator.reverseOrder()))
                 .thenComparing(SearchTerm::getTerm);
     }
@@ -184,10 +352,6 @@ public class AutocompleteService {
         return trimmed.toLowerCase(Locale.ROOT);
     }
 
-    private SearchSuggestion toSuggestion(SearchTerm term) {
-        return new SearchSuggestion(term.getTerm(), term.getScore(), term.getLastSelectedAt());
-    }
-
     private record NormalizedTerm(String display, String key) {
     }
 }
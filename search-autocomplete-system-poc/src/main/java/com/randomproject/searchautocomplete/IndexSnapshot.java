@@ -0,0 +1,170 @@
+package com.randomproject.searchautocomplete;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Immutable, array-backed copy of the {@link RadixTrie} that suggestions are served from. Readers share it with no
+ * locking; the service builds a new one from the trie and swaps it in whole.
+ *
+ * <p>Nodes are numbered breadth-first with the root as 0, so a node's children are consecutive: children of node n
+ * are nodes {@code childStart[n]} up to {@code childStart[n + 1]}, ordered by the first character of their label and
+ * found by binary search. Term fields are indexed by the node where the term ends, null or zero elsewhere, and each
+ * node's top-K is a run of {@code topNodes} already in rank order.
+ */
+final class IndexSnapshot {
+    private final long version;
+    private final int topK;
+    private final long landmarkMillis;
+    private final long halfLifeMillis;
+    private final Instant publishedAt;
+    private final int terms;
+    private final long buildMicros;
+    private final String[] labels;
+    private final int[] childStart;
+    private final int[] topStart;
+    private final int[] topNodes;
+    private final String[] termNames;
+    private final long[] scores;
+    private final double[] popularity;
+    private final Instant[] lastSelectedAt;
+
+    IndexSnapshot(long version, int topK, long landmarkMillis, long halfLifeMillis, Instant publishedAt, int terms,
+                  long buildMicros, String[] labels, int[] childStart, int[] topStart, int[] topNodes,
+                  String[] termNames, long[] scores, double[] popularity, Instant[] lastSelectedAt) {
+        this.version = version;
+        this.topK = topK;
+        this.landmarkMillis = landmarkMillis;
+        this.halfLifeMillis = halfLifeMillis;
+        this.publishedAt = publishedAt;
+        this.terms = terms;
+        this.buildMicros = buildMicros;
+        this.labels = labels;
+        this.childStart = childStart;
+        this.topStart = topStart;
+        this.topNodes = topNodes;
+        this.termNames = termNames;
+        this.scores = scores;
+        this.popularity = popularity;
+        this.lastSelectedAt = lastSelectedAt;
+    }
+
+    long version() {
+        return version;
+    }
+
+    PublishedIndex describe() {
+        return new PublishedIndex(version, terms, labels.length, publishedAt, buildMicros);
+    }
+
+    /**
+     * The best {@code limit} terms whose keys start with {@code prefix}, best first. Up to {@code topK} comes from
+     * the node's run of {@code topNodes}; a larger limit collects and sorts the node's whole subtree.
+     */
+    List<SearchSuggestion> suggest(String prefix, int limit, long nowMillis) {
+        int node = find(prefix);
+        if (node < 0) {
+            return List.of();
+        }
+        List<Integer> ids = new ArrayList<>();
+        int cached = topStart[node + 1] - topStart[node];
+        if (limit <= topK || cached < topK) {
+            for (int i = topStart[node]; i < topStart[node] + Math.min(limit, cached); i++) {
+                ids.add(topNodes[i]);
+            }
+        } else {
+            collectTerms(node, ids);
+            ids.sort(this::compareRank);
+            ids = ids.subList(0, Math.min(limit, ids.size()));
+        }
+        // Popularity is stored at the landmark's scale; dividing out the current weight gives its value as of now.
+        double weight = Math.pow(2, (double) (nowMillis - landmarkMillis) / halfLifeMillis);
+        List<SearchSuggestion> suggestions = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            suggestions.add(new SearchSuggestion(
+                    termNames[id], scores[id], popularity[id] / weight, lastSelectedAt[id]));
+        }
+        return suggestions;
+    }
+
+    /** The node whose subtree holds exactly the keys starting with {@code prefix}, or -1 if there are none. */
+    private int find(String prefix) {
+        int node = 0;
+        int index = 0;
+        while (index < prefix.length()) {
+            int child = child(node, prefix.charAt(index));
+            if (child < 0) {
+                return -1;
+            }
+            String label = labels[child];
+            int common = RadixTrie.commonLength(label, prefix, index);
+            if (index + common == prefix.length()) {
+                // The prefix ends on this edge, so every key below the edge matches it.
+                return child;
+            }
+            if (common < label.length()) {
+                return -1;
+            }
+            node = child;
+            index += common;
+        }
+        return node;
+    }
+
+    private int child(int node, char first) {
+        int low = childStart[node];
+        int high = childStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midFirst = labels[mid].charAt(0);
+            if (midFirst < first) {
+                low = mid + 1;
+            } else if (midFirst > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private void collectTerms(int from, List<Integer> into) {
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(from);
+        while (!pending.isEmpty()) {
+            int node = pending.pop();
+            if (termNames[node] != null) {
+                into.add(node);
+            }
+            for (int child = childStart[node]; child < childStart[node + 1]; child++) {
+                pending.push(child);
+            }
+        }
+    }
+
+    /** The service's rank order: popularity descending, then most recently selected, then by term. */
+    private int compareRank(int left, int right) {
+        int byPopularity = Double.compare(popularity[right], popularity[left]);
+        if (byPopularity != 0) {
+            return byPopularity;
+        }
+        Instant leftSelected = lastSelectedAt[left];
+        Instant rightSelected = lastSelectedAt[right];
+        if (leftSelected != rightSelected) {
+            if (leftSelected == null) {
+                return 1;
+            }
+            if (rightSelected == null) {
+                return -1;
+            }
+            int bySelected = rightSelected.compareTo(leftSelected);
+            if (bySelected != 0) {
+                return bySelected;
+            }
+        }
+        return termNames[left].compareTo(termNames[right]);
+    }
+}
@@ -0,0 +1,12 @@
+package com.randomproject.searchautocomplete;
+
+import java.time.Instant;
+
+public record PublishedIndex(
+        long version,
+        int terms,
+        int nodes,
+        Instant publishedAt,
+        long buildMicros
+) {
+}
@@ -0,0 +1,431 @@
+package com.randomproject.searchautocomplete;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed (radix) trie over normalized term keys. Each edge holds a run of characters, so a key of length L
+ * passes through at most L nodes and usually far fewer. Every node caches the best {@code topK} terms in its
+ * subtree, so the top suggestions for a prefix are one walk down the trie. This is the write side: readers are
+ * served from an immutable {@link IndexSnapshot} built from it in two steps:
+ * <ol>
+ *     <li>{@link #stage}, under the writers' lock, refreezes the nodes changed since the last stage into immutable
+ *     {@link Frozen} copies. Writes mark the nodes on their path, so this costs the changed paths, not the trie.</li>
+ *     <li>{@link #build}, with no lock, numbers the frozen tree and copies it into the snapshot's arrays.</li>
+ * </ol>
+ *
+ * <p>Caches hold the nodes where terms end, so a snapshot can number cached entries by node. Callers mutate a
+ * {@link SearchTerm} and then tell the trie how its rank moved. A term only appears in the caches of the nodes on its
+ * own path, so only those are touched:
+ * <ul>
+ *     <li>{@link #promoted}: the term now ranks higher. Each cache on the path moves it up, or admits it in place of
+ *     its last entry, in O(K).</li>
+ *     <li>{@link #changed}: the rank may have dropped, so a term outside a cache might now belong in it. Each cache on
+ *     the path is rebuilt bottom-up from its children's caches.</li>
+ * </ul>
+ *
+ * <p>Not thread-safe; the service serializes access. Frozen copies are immutable apart from the numbering a build
+ * writes into them, so builds must be serialized too.
+ */
+final class RadixTrie {
+    private static final Comparator<Frozen> BY_FIRST_CHAR = Comparator.comparingInt(node -> node.label.charAt(0));
+
+    private final int topK;
+    private final Comparator<Node> rank;
+    private final Node root = new Node("");
+    private int size;
+
+    RadixTrie(int topK, Comparator<SearchTerm> rank) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("Top-K must be at least 1.");
+        }
+        this.topK = topK;
+        this.rank = Comparator.comparing(node -> node.term, rank);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int topK() {
+        return topK;
+    }
+
+    /** Adds a term whose key is not in the trie yet. */
+    void add(SearchTerm term) {
+        String key = term.getKey();
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int index = 0;
+        while (index < key.length()) {
+            Node child = node.child(key.charAt(index));
+            if (child == null) {
+                child = new Node(key.substring(index));
+                node.putChild(child);
+                path.add(child);
+                node = child;
+                break;
+            }
+            int common = commonLength(child.label, key, index);
+            if (common < child.label.length()) {
+                child = split(node, child, common);
+            }
+            path.add(child);
+            node = child;
+            index += common;
+        }
+        if (node.term != null) {
+            throw new IllegalStateException("Term " + key + " is already indexed.");
+        }
+        node.term = term;
+        size++;
+        for (Node onPath : path) {
+            promoteIn(onPath.top, node);
+            onPath.dirty = true;
+        }
+    }
+
+    /** Re-ranks an indexed term whose rank only went up. */
+    void promoted(SearchTerm term) {
+        List<Node> path = pathTo(term.getKey());
+        Node terminal = path.get(path.size() - 1);
+        for (Node node : path) {
+            promoteIn(node.top, terminal);
+            node.dirty = true;
+        }
+    }
+
+    /** Re-ranks an indexed term whose rank may have gone either way. */
+    void changed(SearchTerm term) {
+        List<Node> path = pathTo(term.getKey());
+        for (int i = path.size() - 1; i >= 0; i--) {
+            rebuildTop(path.get(i));
+            path.get(i).dirty = true;
+        }
+    }
+
+
+    /**
+     * Re-ranks every cache, children before parents, after the ranking fields of every term changed at once. A
+     * rebase scales all popularities by the same power of two, but long-idle terms underflow toward zero, where they
+     * lose precision or tie, so the old cache order cannot be trusted. Linear in nodes times K; rebases are rare.
+     */
+    void rebuildAll() {
+        List<Node> nodes = breadthFirst();
+        for (int n = nodes.size() - 1; n >= 0; n--) {
+            rebuildTop(nodes.get(n));
+            nodes.get(n).dirty = true;
+        }
+    }
+
+    /**
+     * The best {@code limit} terms whose keys start with {@code prefix}, best first, read live from the caches. Up to
+     * {@code topK} comes from the node's cache; a larger limit collects and sorts the node's whole subtree. The
+     * service serves readers from snapshots instead; this is the reference they are checked against.
+     */
+    List<SearchTerm> suggest(String prefix, int limit) {
+        Node node = find(prefix);
+        if (node == null) {
+            return List.of();
+        }
+        List<Node> ranked;
+        if (limit <= topK || node.top.size() < topK) {
+            ranked = node.top.subList(0, Math.min(limit, node.top.size()));
+        } else {
+            ranked = new ArrayList<>();
+            collect(node, ranked);
+            ranked.sort(rank);
+            ranked = ranked.subList(0, Math.min(limit, ranked.size()));
+        }
+        return ranked.stream().map(terminal -> terminal.term).toList();
+    }
+
+    /**
+     * Freezes the trie, and each term's ranking fields as they are now. Only nodes changed since the last stage are
+     * copied; the rest share their earlier frozen copy. Run it under the writers' lock, then {@link #build} outside.
+     */
+    Staged stage() {
+        return new Staged(freeze(root), size);
+    }
+
+    /** Stages and builds in one step, for callers that already hold the only reference to the trie. */
+    IndexSnapshot snapshot(long version, long landmarkMillis, long halfLifeMillis) {
+        return build(stage(), topK, version, landmarkMillis, halfLifeMillis);
+    }
+
+    /**
+     * Copies a staged trie into an immutable {@link IndexSnapshot}. One breadth-first pass numbers the nodes and a
+     * second fills the arrays, so a build is linear in nodes plus cached entries. Touches nothing the writers
+     * share, so it needs no lock, but builds of the same trie must not overlap.
+     */
+    static IndexSnapshot build(Staged staged, int topK, long version, long landmarkMillis, long halfLifeMillis) {
+        long started = System.nanoTime();
+        // Breadth-first, so each node's children, already in first-character order, are numbered together.
+        List<Frozen> nodes = new ArrayList<>();
+        nodes.add(staged.root());
+        int cachedEntries = 0;
+        for (int n = 0; n < nodes.size(); n++) {
+            Frozen node = nodes.get(n);
+            node.snapshotIndex = n;
+            cachedEntries += node.top.length;
+            nodes.addAll(Arrays.asList(node.children));
+        }
+
+        int count = nodes.size();
+        String[] labels = new String[count];
+        int[] childStart = new int[count + 1];
+        int[] topStart = new int[count + 1];
+        int[] topNodes = new int[cachedEntries];
+        String[] termNames = new String[count];
+        long[] scores = new long[count];
+        double[] popularity = new double[count];
+        Instant[] lastSelectedAt = new Instant[count];
+        int nextChild = 1;
+        int nextTop = 0;
+        for (int n = 0; n < count; n++) {
+            Frozen node = nodes.get(n);
+            labels[n] = node.label;
+            childStart[n] = nextChild;
+            nextChild += node.children.length;
+            topStart[n] = nextTop;
+            for (Frozen cached : node.top) {
+                topNodes[nextTop++] = cached.snapshotIndex;
+            }
+            termNames[n] = node.term;
+            scores[n] = node.score;
+            popularity[n] = node.popularity;
+            lastSelectedAt[n] = node.lastSelectedAt;
+        }
+        childStart[count] = nextChild;
+        topStart[count] = nextTop;
+        return new IndexSnapshot(
+                version,
+                topK,
+                landmarkMillis,
+                halfLifeMillis,
+                Instant.now(),
+                staged.size(),
+                (System.nanoTime() - started) / 1_000,
+                labels,
+                childStart,
+                topStart,
+                topNodes,
+                termNames,
+                scores,
+                popularity,
+                lastSelectedAt);
+    }
+
+    /** Refreezes {@code node} and its changed descendants; children first, so cached entries below are current. */
+    private static Frozen freeze(Node node) {
+        if (!node.dirty) {
+            return node.frozen;
+        }
+        Frozen[] children = new Frozen[node.children == null ? 0 : node.children.size()];
+        if (node.children != null) {
+            int i = 0;
+            for (Node child : node.children.values()) {
+                children[i++] = freeze(child);
+            }
+            Arrays.sort(children, BY_FIRST_CHAR);
+        }
+        Frozen[] top = new Frozen[node.top.size()];
+        Frozen frozen = new Frozen(node.label, children, top, node.term);
+        for (int i = 0; i < top.length; i++) {
+            Node cached = node.top.get(i);
+            top[i] = cached == node ? frozen : cached.frozen;
+        }
+        node.frozen = frozen;
+        node.dirty = false;
+        return frozen;
+    }
+
+    /** The node whose subtree holds exactly the keys starting with {@code prefix}, or null if there are none. */
+    private Node find(String prefix) {
+        Node node = root;
+        int index = 0;
+        while (index < prefix.length()) {
+            Node child = node.child(prefix.charAt(index));
+            if (child == null) {
+                return null;
+            }
+            int common = commonLength(child.label, prefix, index);
+            if (index + common == prefix.length()) {
+                // The prefix ends on this edge, so every key below the edge matches it.
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            index += common;
+        }
+        return node;
+    }
+
+    private List<Node> pathTo(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int index = 0;
+        while (index < key.length()) {
+            Node child = node.child(key.charAt(index));
+            if (child == null || !key.startsWith(child.label, index)) {
+                throw new IllegalStateException("Term " + key + " is not indexed.");
+            }
+            path.add(child);
+            node = child;
+            index += child.label.length();
+        }
+        if (node.term == null) {
+            throw new IllegalStateException("Term " + key + " is not indexed.");
+        }
+        return path;
+    }
+
+    /** Splits {@code child}'s edge after {@code at} characters; the new middle node covers the same subtree. */
+    private Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        child.label = child.label.substring(at);
+        child.dirty = true;
+        middle.putChild(child);
+        middle.top.addAll(child.top);
+        parent.putChild(middle);
+        return middle;
+    }
+
+    private void promoteIn(List<Node> top, Node term) {
+        int existing = indexOf(top, term);
+        if (existing >= 0) {
+            top.remove(existing);
+        } else if (top.size() == topK && rank.compare(term, top.get(topK - 1)) >= 0) {
+            return;
+        }
+        int insertAt = Collections.binarySearch(top, term, rank);
+        top.add(insertAt < 0 ? -insertAt - 1 : insertAt, term);
+        if (top.size() > topK) {
+            top.remove(topK);
+        }
+    }
+
+    private void rebuildTop(Node node) {
+        List<Node> candidates = new ArrayList<>();
+        if (node.term != null) {
+            candidates.add(node);
+        }
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                candidates.addAll(child.top);
+            }
+        }
+        candidates.sort(rank);
+        node.top.clear();
+        node.top.addAll(candidates.subList(0, Math.min(topK, candidates.size())));
+    }
+
+    private List<Node> breadthFirst() {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int n = 0; n < nodes.size(); n++) {
+            Node node = nodes.get(n);
+            if (node.children != null) {
+                nodes.addAll(node.children.values());
+            }
+        }
+        return nodes;
+    }
+
+    private static void collect(Node from, List<Node> into) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(from);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (node.term != null) {
+                into.add(node);
+            }
+            if (node.children != null) {
+                node.children.values().forEach(pending::push);
+            }
+        }
+    }
+
+    private static int indexOf(List<Node> top, Node term) {
+        for (int i = 0; i < top.size(); i++) {
+            if (top.get(i) == term) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Length of the common prefix of {@code label} and {@code key} from {@code offset}. */
+    static int commonLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int common = 0;
+        while (common < max && label.charAt(common) == key.charAt(offset + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private static final class Node {
+        private String label;
+        private Map<Character, Node> children;
+        private SearchTerm term;
+        private final List<Node> top = new ArrayList<>(2);
+        /** Changed since {@link #frozen} was taken; set on every node a write passes through. */
+        private boolean dirty = true;
+        private Frozen frozen;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            return children == null ? null : children.get(first);
+        }
+
+        private void putChild(Node child) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            children.put(child.label.charAt(0), child);
+        }
+    }
+
+    /** The frozen root and term count of one {@link #stage}. */
+    record Staged(Frozen root, int size) {
+    }
+
+    /** Immutable copy of a node and its term's ranking fields, shared by every stage until the node changes. */
+    static final class Frozen {
+        private final String label;
+        private final Frozen[] children;
+        private final Frozen[] top;
+        private final String term;
+        private final long score;
+        private final double popularity;
+        private final Instant lastSelectedAt;
+        /** Position in the snapshot being built; only meaningful during {@link #build}. */
+        private int snapshotIndex;
+
+        private Frozen(String label, Frozen[] children, Frozen[] top, SearchTerm term) {
+            this.label = label;
+            this.children = children;
+            this.top = top;
+            this.term = term == null ? null : term.getTerm();
+            this.score = term == null ? 0 : term.getScore();
+            this.popularity = term == null ? 0 : term.getPopularity();
+            this.lastSelectedAt = term == null ? null : term.getLastSelectedAt();
+        }
+    }
+}
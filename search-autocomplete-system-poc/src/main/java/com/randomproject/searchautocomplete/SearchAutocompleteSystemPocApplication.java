@@ -2,8 +2,10 @@ package com.randomproject.searchautocomplete;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SearchAutocompleteSystemPocApplication {
     public static void main(String[] args) {
         SpringApplication.run(SearchAutocompleteSystemPocApplication.class, args);
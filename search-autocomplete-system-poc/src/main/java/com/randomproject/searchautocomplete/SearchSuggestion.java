@@ -5,6 +5,7 @@ import java.time.Instant;
 public record SearchSuggestion(
         String term,
         long score,
+        double trendScore,
         Instant lastSelectedAt
 ) {
 }
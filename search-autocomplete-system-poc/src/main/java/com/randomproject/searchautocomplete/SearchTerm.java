@@ -1,19 +1,31 @@
 package com.randomproject.searchautocomplete;
 
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * A term and its ranking state. {@code score} counts the set score plus every merged selection; {@code popularity}
+ * is the same signal with exponential decay, kept relative to the service's landmark time so it only changes when
+ * the term does. Selections land in a striped counter first and are merged under the service lock.
+ */
 public class SearchTerm {
     private final String key;
     private String term;
     private long score;
+    private double popularity;
     private Instant createdAt;
     private Instant updatedAt;
     private Instant lastSelectedAt;
+    private final LongAdder pendingSelections = new LongAdder();
+    private final AtomicBoolean queued = new AtomicBoolean();
 
-    public SearchTerm(String key, String term, long score, Instant createdAt, Instant updatedAt, Instant lastSelectedAt) {
+    public SearchTerm(String key, String term, long score, double popularity, Instant createdAt, Instant updatedAt,
+                      Instant lastSelectedAt) {
         this.key = key;
         this.term = term;
         this.score = score;
+        this.popularity = popularity;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
         this.lastSelectedAt = lastSelectedAt;
@@ -31,6 +43,10 @@ public class SearchTerm {
         return score;
     }
 
+    public double getPopularity() {
+        return popularity;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -43,19 +59,55 @@ public class SearchTerm {
         return lastSelectedAt;
     }
 
+    /** Selections recorded but not merged into the score and rankings yet. */
+    public long getPendingSelections() {
+        return pendingSelections.sum();
+    }
+
     public void updateTerm(String term, Instant updatedAt) {
         this.term = term;
         this.updatedAt = updatedAt;
     }
 
-    public void updateScore(long score, Instant updatedAt) {
+    public void updateScore(long score, double popularity, Instant updatedAt) {
         this.score = score;
+        this.popularity = popularity;
         this.updatedAt = updatedAt;
     }
 
-    public void recordSelection(Instant selectedAt) {
-        this.score += 1;
+    /**
+     * Counts one selection without locking. True when the caller must queue the term for the next merge; a term
+     * that is already queued is not queued again, so a hot term costs one counter increment per selection.
+     */
+    boolean bufferSelection() {
+        pendingSelections.increment();
+        return !queued.get() && queued.compareAndSet(false, true);
+    }
+
+    /**
+     * Takes the pending selections. The flag is cleared first, so a selection racing with the drain either is
+     * counted here or queues the term again. Subtracting what was read, rather than resetting the cells, leaves an
+     * increment that lands after the read in the counter for the next drain.
+     */
+    long drainSelections() {
+        queued.set(false);
+        long count = pendingSelections.sum();
+        pendingSelections.add(-count);
+        return count;
+    }
+
+    void mergeSelections(long count, double weight, Instant selectedAt) {
+        this.score += count;
+        this.popularity += count * weight;
         this.lastSelectedAt = selectedAt;
         this.updatedAt = selectedAt;
     }
+
+    /**
+     * Scales popularity by 2^-{@code halfLives}. Exact while the result stays a normal double; below that it loses
+     * precision and finally reaches zero, so the caller re-ranks afterwards.
+     */
+    void rebasePopularity(int halfLives) {
+        this.popularity = Math.scalb(popularity, -halfLives);
+    }
 }
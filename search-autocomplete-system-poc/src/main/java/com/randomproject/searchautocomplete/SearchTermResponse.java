@@ -5,6 +5,8 @@ import java.time.Instant;
 public record SearchTermResponse(
         String term,
         long score,
+        double trendScore,
+        long pendingSelections,
         Instant createdAt,
         Instant updatedAt,
         Instant lastSelectedAt
@@ -0,0 +1,237 @@
+package com.randomproject.searchautocomplete;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AutocompleteServiceTest {
+    private static final long T0 = 1_800_000_000_000L;
+    private static final long HALF_LIFE = 60_000;
+
+    private final AtomicLong clock = new AtomicLong(T0);
+    private final List<AutocompleteService> services = new ArrayList<>();
+
+    @AfterEach
+    void shutDownServices() {
+        services.forEach(AutocompleteService::shutdown);
+    }
+
+    @Test
+    void writesAreInvisibleUntilPublished() {
+        AutocompleteService service = service(1_000);
+        long version = service.getPublishedIndex().version();
+        service.upsertTerm("zebra crossing", 50L);
+        service.recordSelection("zebra crossing");
+        service.mergeSelections();
+
+        assertEquals(List.of(), service.suggest("zeb", 5));
+        assertEquals(version, service.getPublishedIndex().version());
+
+        service.publish();
+
+        List<SearchSuggestion> suggestions = service.suggest("zeb", 5);
+        assertEquals(List.of("zebra crossing"), suggestions.stream().map(SearchSuggestion::term).toList());
+        assertEquals(51, suggestions.get(0).score());
+        assertEquals(version + 2, service.getPublishedIndex().version());
+    }
+
+    @Test
+    void publishingWithNothingStagedKeepsTheSnapshot() {
+        AutocompleteService service = service(1_000);
+        PublishedIndex before = service.getPublishedIndex();
+        service.publish();
+        assertEquals(before, service.getPublishedIndex());
+    }
+
+    @Test
+    void enoughStagedChangesTriggerAPublish() throws InterruptedException {
+        AutocompleteService service = service(3);
+        service.upsertTerm("yak shaving", 1L);
+        service.upsertTerm("yellow pages", 2L);
+        assertEquals(List.of(), service.suggest("y", 5));
+
+        service.upsertTerm("yoga mat", 3L);
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (service.suggest("y", 5).size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(List.of("yoga mat", "yellow pages", "yak shaving"),
+                service.suggest("y", 5).stream().map(SearchSuggestion::term).toList());
+    }
+
+    @Test
+    void writesAfterShutdownStayStaged() {
+        AutocompleteService service = service(1);
+        long version = service.getPublishedIndex().version();
+        service.shutdown();
+
+        assertDoesNotThrow(() -> service.upsertTerm("late write", 1L));
+        assertDoesNotThrow(() -> service.upsertTerm("later write", 1L));
+        assertEquals(version, service.getPublishedIndex().version());
+    }
+
+    @Test
+    void selectionOneHalfLifeAfterTheLandmarkWeighsTwo() {
+        AutocompleteService service = service(1_000);
+        clock.addAndGet(HALF_LIFE);
+        service.recordSelection("zebra crossing");
+        service.mergeSelections();
+
+        SearchTerm term = term(service, "zebra crossing");
+        assertEquals(2.0, term.getPopularity(), 1e-9);
+        assertEquals(1.0, service.trendScore(term), 1e-9);
+        clock.addAndGet(HALF_LIFE);
+        assertEquals(0.5, service.trendScore(term), 1e-9);
+    }
+
+    @Test
+    void rebaseKeepsRankOrderAndTrendScores() {
+        AutocompleteService service = service(1_000);
+        for (int minute = 0; minute < 40; minute++) {
+            for (int selection = 0; selection <= minute % 7; selection++) {
+                service.recordSelection("term " + minute);
+            }
+            service.mergeSelections();
+            clock.addAndGet(HALF_LIFE / 2);
+        }
+        List<String> before = keys(service.allTerms());
+        List<Double> trendBefore = service.allTerms().stream().map(service::trendScore).toList();
+
+        clock.addAndGet(70 * HALF_LIFE);
+        service.mergeSelections();
+
+        assertEquals(before, keys(service.allTerms()));
+        List<Double> trendAfter = service.allTerms().stream().map(service::trendScore).toList();
+        for (int i = 0; i < trendBefore.size(); i++) {
+            // Seventy half-lives later every trend has halved seventy times, whatever the landmark moved by.
+            assertEquals(trendBefore.get(i) * Math.pow(2, -70), trendAfter.get(i), trendAfter.get(i) * 1e-9);
+        }
+        assertTrue(service.allTerms().get(0).getPopularity() < 1e6);
+    }
+
+    @Test
+    void publishAfterARebaseServesRescaledTrends() {
+        AutocompleteService service = service(1_000);
+        for (int i = 0; i < 5; i++) {
+            for (int selection = 0; selection <= i; selection++) {
+                service.recordSelection("trend " + i);
+            }
+        }
+        service.mergeSelections();
+        service.publish();
+
+        clock.addAndGet(70 * HALF_LIFE);
+        service.recordSelection("fresh trend");
+        service.mergeSelections();
+        service.publish();
+
+        List<SearchSuggestion> suggestions = service.suggest("trend", 5);
+        assertEquals(List.of("trend 4", "trend 3", "trend 2", "trend 1", "trend 0"),
+                suggestions.stream().map(SearchSuggestion::term).toList());
+        for (SearchSuggestion suggestion : suggestions) {
+            double expected = service.trendScore(term(service, suggestion.term()));
+            assertEquals(expected, suggestion.trendScore(), expected * 1e-9);
+        }
+    }
+
+    @Test
+    void repeatedRebasesKeepIdleTermsInRankOrder() {
+        AutocompleteService service = service(1_000);
+        // Never selected, so once their popularity underflows to zero they tie and rank alphabetically instead.
+        for (int i = 0; i < 6; i++) {
+            service.upsertTerm("idle " + (char) ('a' + i), (long) (i + 1));
+        }
+        for (int rebase = 0; rebase < 20; rebase++) {
+            clock.addAndGet(64 * HALF_LIFE);
+            service.recordSelection("active " + rebase);
+            service.mergeSelections();
+            service.publish();
+
+            List<String> expected = service.allTerms().stream()
+                    .map(SearchTerm::getTerm)
+                    .filter(term -> term.startsWith("idle"))
+                    .limit(3)
+                    .toList();
+            assertEquals(expected, service.suggest("idle", 3).stream().map(SearchSuggestion::term).toList(),
+                    "after rebase " + rebase);
+        }
+        assertEquals(0.0, term(service, "idle f").getPopularity());
+        assertEquals(List.of("idle a", "idle b", "idle c"),
+                service.suggest("idle", 3).stream().map(SearchSuggestion::term).toList());
+    }
+
+    @Test
+    void concurrentSelectionsAndMergesLoseNoCounts() throws InterruptedException {
+        AutocompleteService service = service(1_000);
+        int writers = 4;
+        int selectionsPerWriter = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int writer = 0; writer < writers; writer++) {
+            int offset = writer;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < selectionsPerWriter; i++) {
+                    service.recordSelection("hot term " + ((i + offset) % 3));
+                }
+            }));
+        }
+        Thread merger = new Thread(() -> {
+            await(start);
+            while (writing.get()) {
+                service.mergeSelections();
+            }
+        });
+        threads.forEach(Thread::start);
+        merger.start();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writing.set(false);
+        merger.join();
+        service.mergeSelections();
+
+        long merged = 0;
+        for (int key = 0; key < 3; key++) {
+            SearchTerm term = term(service, "hot term " + key);
+            merged += term.getScore();
+            assertEquals(0, term.getPendingSelections());
+        }
+        assertEquals((long) writers * selectionsPerWriter, merged);
+    }
+
+    private AutocompleteService service(int publishAfterChanges) {
+        AutocompleteService service =
+                new AutocompleteService(8, 10, 80, HALF_LIFE / 60_000, publishAfterChanges, clock::get);
+        services.add(service);
+        return service;
+    }
+
+    private static SearchTerm term(AutocompleteService service, String key) {
+        return service.allTerms().stream().filter(term -> term.getKey().equals(key)).findFirst().orElseThrow();
+    }
+
+    private static List<String> keys(List<SearchTerm> terms) {
+        return terms.stream().map(SearchTerm::getKey).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
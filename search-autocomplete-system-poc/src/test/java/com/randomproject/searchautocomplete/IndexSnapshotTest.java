@@ -0,0 +1,112 @@
+package com.randomproject.searchautocomplete;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.randomproject.searchautocomplete.RadixTrieTest.term;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexSnapshotTest {
+    private static final long HALF_LIFE = 60_000;
+    private static final String[] WORDS = {"car", "card", "care", "cart", "cat", "c", "dog", "do"};
+    private static final List<String> PREFIXES =
+            List.of("", "c", "ca", "car", "card", "card d", "cart c", "ca ", "d", "do", "dog c", "e");
+
+    @Test
+    void findsPrefixesThatEndMidEdge() {
+        RadixTrie trie = new RadixTrie(2, AutocompleteService.rankComparator());
+        trie.add(term("international", 9));
+        trie.add(term("internet", 7));
+        trie.add(term("interval", 5));
+        IndexSnapshot snapshot = trie.snapshot(1, 0, HALF_LIFE);
+
+        // "inter" is a node; "interna" and "intern" end inside the edges below it.
+        assertEquals(List.of("international", "internet"), names(snapshot.suggest("inter", 2, 0)));
+        assertEquals(List.of("international", "internet"), names(snapshot.suggest("intern", 5, 0)));
+        assertEquals(List.of("international"), names(snapshot.suggest("interna", 5, 0)));
+        assertEquals(List.of("interval"), names(snapshot.suggest("interv", 5, 0)));
+        assertEquals(List.of(), names(snapshot.suggest("internets", 5, 0)));
+        assertEquals(List.of(), names(snapshot.suggest("intx", 5, 0)));
+    }
+
+    @Test
+    void limitAboveTopKSortsTheWholeSubtree() {
+        RadixTrie trie = new RadixTrie(2, AutocompleteService.rankComparator());
+        for (int i = 0; i < 6; i++) {
+            trie.add(term("item " + i, i));
+        }
+        IndexSnapshot snapshot = trie.snapshot(1, 0, HALF_LIFE);
+
+        assertEquals(List.of("item 5", "item 4"), names(snapshot.suggest("it", 2, 0)));
+        assertEquals(List.of("item 5", "item 4", "item 3", "item 2", "item 1"), names(snapshot.suggest("it", 5, 0)));
+        assertEquals(List.of("item 5", "item 4", "item 3", "item 2", "item 1", "item 0"),
+                names(snapshot.suggest("item ", 50, 0)));
+    }
+
+    @Test
+    void matchesTheLiveTrieOverRandomChanges() {
+        Random random = new Random(7);
+        RadixTrie trie = new RadixTrie(3, AutocompleteService.rankComparator());
+        Map<String, SearchTerm> terms = new HashMap<>();
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        for (int operation = 0; operation < 10_000; operation++) {
+            String key = WORDS[random.nextInt(WORDS.length)]
+                    + (random.nextBoolean() ? " " + WORDS[random.nextInt(WORDS.length)] : "");
+            SearchTerm existing = terms.get(key);
+            if (existing == null) {
+                SearchTerm created = term(key, random.nextInt(20));
+                terms.put(key, created);
+                trie.add(created);
+            } else if (random.nextInt(3) == 0) {
+                long score = random.nextInt(20);
+                existing.updateScore(score, score, now);
+                trie.changed(existing);
+            } else {
+                existing.mergeSelections(1 + random.nextInt(3), 1, now.plusSeconds(operation));
+                trie.promoted(existing);
+            }
+
+            if (operation % 97 == 0) {
+                assertMatchesTrie(trie, trie.snapshot(operation, 0, HALF_LIFE));
+            }
+        }
+        assertTrue(trie.size() > 50);
+    }
+
+    @Test
+    void reportsTrendAsOfTheReadTime() {
+        RadixTrie trie = new RadixTrie(2, AutocompleteService.rankComparator());
+        trie.add(term("trend", 8));
+        IndexSnapshot snapshot = trie.snapshot(1, 0, HALF_LIFE);
+
+        SearchSuggestion suggestion = snapshot.suggest("tr", 1, 2 * HALF_LIFE).get(0);
+        assertEquals(8, suggestion.score());
+        assertEquals(2.0, suggestion.trendScore(), 1e-9);
+    }
+
+    private static void assertMatchesTrie(RadixTrie trie, IndexSnapshot snapshot) {
+        for (String prefix : PREFIXES) {
+            for (int limit : new int[]{1, 3, 4, 1_000}) {
+                List<SearchTerm> expected = trie.suggest(prefix, limit);
+                List<SearchSuggestion> actual = snapshot.suggest(prefix, limit, 0);
+                String context = "prefix '" + prefix + "', limit " + limit;
+                assertEquals(expected.stream().map(SearchTerm::getTerm).toList(), names(actual), context);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getScore(), actual.get(i).score(), context);
+                    assertEquals(expected.get(i).getPopularity(), actual.get(i).trendScore(), context);
+                    assertEquals(expected.get(i).getLastSelectedAt(), actual.get(i).lastSelectedAt(), context);
+                }
+            }
+        }
+    }
+
+    private static List<String> names(List<SearchSuggestion> suggestions) {
+        return suggestions.stream().map(SearchSuggestion::term).toList();
+    }
+}
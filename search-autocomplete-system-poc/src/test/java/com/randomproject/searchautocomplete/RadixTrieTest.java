@@ -0,0 +1,112 @@
+package com.randomproject.searchautocomplete;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RadixTrieTest {
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    /** Short, overlapping words so keys share prefixes and edges split at every depth. */
+    private static final String[] WORDS = {"a", "ab", "abc", "abd", "b", "ba", "bab", "x"};
+    private static final List<String> PREFIXES = List.of("", "a", "ab", "abc", "abc ", "ab a", "b", "ba", "bab b", "x", "z");
+
+    @Test
+    void splitsEdgesAndAnswersPrefixesThatEndMidEdge() {
+        RadixTrie trie = new RadixTrie(2, AutocompleteService.rankComparator());
+        SearchTerm application = term("application", 5);
+        SearchTerm apple = term("apple", 3);
+        SearchTerm app = term("app", 1);
+        trie.add(application);
+        trie.add(apple);
+        trie.add(app);
+
+        assertEquals(List.of(application, apple, app), trie.suggest("ap", 10));
+        assertEquals(List.of(application, apple), trie.suggest("appl", 2));
+        assertEquals(List.of(application, apple, app), trie.suggest("app", 3));
+        assertEquals(List.of(application), trie.suggest("applic", 5));
+        assertEquals(List.of(), trie.suggest("apples", 5));
+        assertEquals(List.of(), trie.suggest("b", 5));
+        assertEquals(3, trie.size());
+        assertThrows(IllegalStateException.class, () -> trie.add(term("apple", 9)));
+    }
+
+    @Test
+    void demotionLetsTheNextBestTermIntoTheCache() {
+        RadixTrie trie = new RadixTrie(2, AutocompleteService.rankComparator());
+        SearchTerm first = term("coffee", 30);
+        SearchTerm second = term("cocoa", 20);
+        SearchTerm third = term("cola", 10);
+        trie.add(first);
+        trie.add(second);
+        trie.add(third);
+        assertEquals(List.of(first, second), trie.suggest("co", 2));
+
+        first.updateScore(1, 1, NOW);
+        trie.changed(first);
+
+        assertEquals(List.of(second, third), trie.suggest("co", 2));
+        assertEquals(List.of(second, third, first), trie.suggest("co", 3));
+    }
+
+    @Test
+    void matchesBruteForceRankingOverRandomUpsertsAndPromotions() {
+        Random random = new Random(42);
+        RadixTrie trie = new RadixTrie(3, AutocompleteService.rankComparator());
+        Map<String, SearchTerm> terms = new HashMap<>();
+        for (int operation = 0; operation < 20_000; operation++) {
+            String key = WORDS[random.nextInt(WORDS.length)]
+                    + (random.nextBoolean() ? " " + WORDS[random.nextInt(WORDS.length)] : "")
+                    + (random.nextInt(4) == 0 ? String.valueOf(random.nextInt(20)) : "");
+            SearchTerm existing = terms.get(key);
+            if (existing == null) {
+                SearchTerm created = term(key, random.nextInt(30));
+                terms.put(key, created);
+                trie.add(created);
+            } else if (random.nextInt(3) == 0) {
+                // Upserted score: may move the term down, out of caches it used to hold.
+                long score = random.nextInt(30);
+                existing.updateScore(score, score, NOW);
+                trie.changed(existing);
+            } else {
+                existing.mergeSelections(1 + random.nextInt(3), 1, NOW.plusSeconds(operation));
+                trie.promoted(existing);
+            }
+
+            if (operation % 101 == 0) {
+                assertMatchesBruteForce(trie, terms);
+            }
+        }
+        assertMatchesBruteForce(trie, terms);
+        assertEquals(terms.size(), trie.size());
+        assertTrue(trie.size() > 200);
+    }
+
+    static void assertMatchesBruteForce(RadixTrie trie, Map<String, SearchTerm> terms) {
+        for (String prefix : PREFIXES) {
+            List<SearchTerm> matching = new ArrayList<>();
+            for (SearchTerm term : terms.values()) {
+                if (term.getKey().startsWith(prefix)) {
+                    matching.add(term);
+                }
+            }
+            matching.sort(AutocompleteService.rankComparator());
+            for (int limit : new int[]{1, 3, 5, 1_000}) {
+                assertEquals(matching.subList(0, Math.min(limit, matching.size())), trie.suggest(prefix, limit),
+                        "prefix '" + prefix + "', limit " + limit);
+            }
+        }
+    }
+
+    static SearchTerm term(String key, long score) {
+        return new SearchTerm(key, key, score, score, NOW, NOW, null);
+    }
+}
@@ -0,0 +1,139 @@
+package com.poc.matchingengine.benchmark;
+
+import com.poc.matchingengine.engine.EngineShard;
+import com.poc.matchingengine.engine.JournalSettings;
+import com.poc.matchingengine.engine.OrderBookType;
+import com.poc.matchingengine.engine.WaitStrategyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end matching throughput: {@code producers} threads route an {@link OrderFlow} to the shards by symbol
+ * hash, as {@code MatchingEngineService} does, and publish through each shard's ring buffer while the shard
+ * threads match. An invocation submits {@link #BATCH} orders split across the producers and returns once every
+ * shard has processed its share, so the score is orders matched per µs rather than orders enqueued. Producers are
+ * a {@code @Param} rather than {@code @Threads} so they sweep together with the symbol mix and crossing ratio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(EngineShardBenchmark.BATCH)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class EngineShardBenchmark {
+  static final int BATCH = 1 << 14;
+
+  @Param({"1", "4", "16"})
+  public int producers;
+
+  @Param({"1", "4"})
+  public int shards;
+
+  @Param({"UNIFORM", "SKEWED"})
+  public OrderFlow.SymbolMix symbolMix;
+
+  @Param({"0.1", "0.5", "0.9"})
+  public double crossingRatio;
+
+  @Param({"PRICE_LADDER"})
+  public OrderBookType bookType;
+
+  @Param({"YIELDING"})
+  public WaitStrategyType waitStrategy;
+
+  private OrderFlow flow;
+  private int[] route;
+  private long[] ordersPerShard;
+  private ExecutorService pool;
+  private final List<Callable<Void>> slices = new ArrayList<>();
+  private EngineShard[] engineShards;
+  private long[] lastSequence;
+  private long batches;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    flow = new OrderFlow(BATCH, symbolMix, crossingRatio);
+    route = new int[BATCH];
+    ordersPerShard = new long[shards];
+    for (int i = 0; i < BATCH; i++) {
+      route[i] = Math.floorMod(flow.symbol(i).hashCode(), shards);
+      ordersPerShard[route[i]]++;
+    }
+    pool = Executors.newFixedThreadPool(producers);
+    for (int p = 0; p < producers; p++) {
+      int from = p * BATCH / producers;
+      int to = (p + 1) * BATCH / producers;
+      slices.add(() -> {
+        submit(from, to);
+        return null;
+      });
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void startShards() {
+    engineShards = new EngineShard[shards];
+    lastSequence = new long[shards];
+    for (int i = 0; i < shards; i++) {
+      engineShards[i] = new EngineShard(i, 65_536, waitStrategy.create(), 5, bookType, JournalSettings.disabled(),
+          (snapshot, delta, trades) -> { });
+      engineShards[i].start();
+      lastSequence[i] = -1;
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void stopShards() {
+    for (EngineShard shard : engineShards) {
+      shard.stop();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void stopProducers() {
+    pool.shutdownNow();
+  }
+
+  @Benchmark
+  public long submitAndMatch() throws Exception {
+    for (Future<Void> slice : pool.invokeAll(slices)) {
+      slice.get();
+    }
+    batches++;
+    for (int i = 0; i < shards; i++) {
+      lastSequence[i] += ordersPerShard[i];
+      while (engineShards[i].getLastProcessedSequence() < lastSequence[i]) {
+        Thread.yield();
+      }
+    }
+    return lastSequence[0];
+  }
+
+  private void submit(int from, int to) {
+    long firstOrderNumber = batches * BATCH;
+    for (int i = from; i < to; i++) {
+      engineShards[route[i]].submit(flow.order(i, firstOrderNumber + i));
+    }
+  }
+}
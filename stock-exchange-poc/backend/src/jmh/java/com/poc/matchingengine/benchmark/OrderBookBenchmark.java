@@ -0,0 +1,88 @@
+package com.poc.matchingengine.benchmark;
+
+import com.poc.matchingengine.engine.MatchingEngine;
+import com.poc.matchingengine.engine.OrderBook;
+import com.poc.matchingengine.engine.OrderBookType;
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded matching cost, which is what one engine shard pays per command, over an {@link OrderFlow}.
+ * {@link EngineShardBenchmark} covers the same flow end to end through the shards' ring buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBookBenchmark {
+  private static final int STREAM_SIZE = 1 << 16;
+
+  @Param({"TREE_MAP", "PRICE_LADDER"})
+  public OrderBookType bookType;
+
+  @Param({"UNIFORM", "SKEWED"})
+  public OrderFlow.SymbolMix symbolMix;
+
+  @Param({"0.1", "0.5", "0.9"})
+  public double crossingRatio;
+
+  private OrderFlow flow;
+  private OrderBook[] books;
+  private MatchingEngine engine;
+  private int cursor;
+  private long sequence;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    flow = new OrderFlow(STREAM_SIZE, symbolMix, crossingRatio);
+  }
+
+  @Setup(Level.Iteration)
+  public void resetBooks() {
+    books = new OrderBook[OrderFlow.SYMBOLS];
+    for (int i = 0; i < OrderFlow.SYMBOLS; i++) {
+      books[i] = bookType.create(flow.symbolAt(i));
+    }
+    engine = new MatchingEngine(5, bookType, (snapshot, delta, trades) -> { });
+    cursor = 0;
+    sequence = 0;
+  }
+
+  @Benchmark
+  public List<Trade> bookProcess() {
+    int i = cursor++ & (STREAM_SIZE - 1);
+    return books[flow.symbolIndex(i)].process(nextOrder(i));
+  }
+
+  @Benchmark
+  public void engineHandleOrder(Blackhole blackhole) {
+    int i = cursor++ & (STREAM_SIZE - 1);
+    Order order = nextOrder(i);
+    engine.handleOrder(order);
+    blackhole.consume(order);
+  }
+
+  private Order nextOrder(int i) {
+    Order order = flow.order(i, sequence);
+    order.setSequence(sequence++);
+    return order;
+  }
+}
@@ -0,0 +1,72 @@
+package com.poc.matchingengine.benchmark;
+
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.OrderType;
+
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Pre-generated order stream shared by the matching benchmarks, so they measure matching rather than the random
+ * generator. {@code crossingRatio} is the share of orders priced through the touch; crossing orders are sized so
+ * the books neither drain nor grow without bound. {@code SKEWED} sends 80% of flow to one symbol.
+ */
+public final class OrderFlow {
+  static final int SYMBOLS = 16;
+  private static final long MID = 10_000;
+  private static final Instant NOW = Instant.parse("2026-01-05T14:30:00Z");
+
+  public enum SymbolMix {
+    UNIFORM,
+    SKEWED
+  }
+
+  private final String[] symbols = new String[SYMBOLS];
+  private final int[] symbolIndex;
+  private final OrderSide[] sides;
+  private final long[] prices;
+  private final long[] quantities;
+
+  OrderFlow(int size, SymbolMix symbolMix, double crossingRatio) {
+    symbolIndex = new int[size];
+    sides = new OrderSide[size];
+    prices = new long[size];
+    quantities = new long[size];
+    Random random = new Random(17);
+    long crossingQty = Math.max(1, Math.round(5.5 * (1 - crossingRatio) / crossingRatio));
+    for (int i = 0; i < SYMBOLS; i++) {
+      symbols[i] = "SYM" + i;
+    }
+    for (int i = 0; i < size; i++) {
+      symbolIndex[i] = symbolMix == SymbolMix.SKEWED && random.nextInt(10) < 8 ? 0 : random.nextInt(SYMBOLS);
+      boolean buy = random.nextBoolean();
+      sides[i] = buy ? OrderSide.BUY : OrderSide.SELL;
+      if (random.nextDouble() < crossingRatio) {
+        prices[i] = buy ? MID + 20 : MID - 20;
+        quantities[i] = 1 + random.nextInt((int) (crossingQty * 2));
+      } else {
+        long offset = 1 + random.nextInt(20);
+        prices[i] = buy ? MID - offset : MID + offset;
+        quantities[i] = 1 + random.nextInt(10);
+      }
+    }
+  }
+
+  String symbol(int i) {
+    return symbols[symbolIndex[i]];
+  }
+
+  int symbolIndex(int i) {
+    return symbolIndex[i];
+  }
+
+  String symbolAt(int index) {
+    return symbols[index];
+  }
+
+  /** A fresh order for stream slot {@code i}; the caller assigns its sequence. */
+  Order order(int i, long orderNumber) {
+    return new Order("O" + orderNumber, symbol(i), sides[i], OrderType.LIMIT, prices[i], quantities[i], NOW);
+  }
+}
@@ -0,0 +1,96 @@
+package com.poc.matchingengine.benchmark;
+
+import com.poc.matchingengine.engine.RingBufferQueue;
+import com.poc.matchingengine.engine.WaitStrategyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claim-and-publish cost for 1, 4 and 16 producers racing on {@link RingBufferQueue#next()} while one consumer
+ * thread drains in batches, as the engine shard does. Throughput is reported in ops/µs (multiply by 10^6 for
+ * ops/sec); sample mode reports p50/p99/p999 per publish in µs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RingBufferQueueBenchmark {
+  private static final Object EVENT = new Object();
+
+  @Param({"1024"})
+  public int ringSize;
+
+  @Param({"BUSY_SPIN", "YIELDING", "BLOCKING", "TIMED_PARK"})
+  public WaitStrategyType waitStrategy;
+
+  private RingBufferQueue<Object> queue;
+  private Thread consumer;
+  private volatile boolean running;
+
+  @Setup
+  public void start() {
+    queue = new RingBufferQueue<>(ringSize, waitStrategy.create());
+    running = true;
+    consumer = new Thread(this::drain, "ring-buffer-benchmark-consumer");
+    consumer.setDaemon(true);
+    consumer.start();
+  }
+
+  @TearDown
+  public void stop() throws InterruptedException {
+    running = false;
+    consumer.interrupt();
+    consumer.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public long producers01() {
+    return claimAndPublish();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long producers04() {
+    return claimAndPublish();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public long producers16() {
+    return claimAndPublish();
+  }
+
+  private long claimAndPublish() {
+    long sequence = queue.next();
+    queue.publish(sequence, EVENT);
+    return sequence;
+  }
+
+  private void drain() {
+    long next = 0;
+    while (running) {
+      long available = queue.waitForAvailable(next);
+      if (available < next) {
+        continue;
+      }
+      queue.markConsumed(next, available);
+      next = available + 1;
+    }
+  }
+}
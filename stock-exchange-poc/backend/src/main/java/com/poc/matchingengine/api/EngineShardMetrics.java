@@ -0,0 +1,56 @@
+package com.poc.matchingengine.api;
+
+public class EngineShardMetrics {
+  private final int shard;
+  private final long lastProcessedSequence;
+  private final long queueDepth;
+  private final long processedCommands;
+  private final double avgBatchSize;
+  private final double avgProcessingMicros;
+  private final double maxProcessingMicros;
+
+  public EngineShardMetrics(
+      int shard,
+      long lastProcessedSequence,
+      long queueDepth,
+      long processedCommands,
+      double avgBatchSize,
+      double avgProcessingMicros,
+      double maxProcessingMicros) {
+    this.shard = shard;
+    this.lastProcessedSequence = lastProcessedSequence;
+    this.queueDepth = queueDepth;
+    this.processedCommands = processedCommands;
+    this.avgBatchSize = avgBatchSize;
+    this.avgProcessingMicros = avgProcessingMicros;
+    this.maxProcessingMicros = maxProcessingMicros;
+  }
+
+  public int getShard() {
+    return shard;
+  }
+
+  public long getLastProcessedSequence() {
+    return lastProcessedSequence;
+  }
+
+  public long getQueueDepth() {
+    return queueDepth;
+  }
+
+  public long getProcessedCommands() {
+    return processedCommands;
+  }
+
+  public double getAvgBatchSize() {
+    return avgBatchSize;
+  }
+
+  public double getAvgProcessingMicros() {
+    return avgProcessingMicros;
+  }
+
+  public double getMaxProcessingMicros() {
+    return maxProcessingMicros;
+  }
+}
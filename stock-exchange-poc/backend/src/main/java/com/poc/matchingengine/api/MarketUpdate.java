@@ -1,21 +1,21 @@
 package com.poc.matchingengine.api;
 
-import com.poc.matchingengine.model.OrderBookSnapshot;
+import com.poc.matchingengine.model.OrderBookDelta;
 import com.poc.matchingengine.model.Trade;
 
 import java.util.List;
 
 public class MarketUpdate {
-  private final OrderBookSnapshot snapshot;
+  private final OrderBookDelta delta;
   private final List<Trade> trades;
 
-  public MarketUpdate(OrderBookSnapshot snapshot, List<Trade> trades) {
-    this.snapshot = snapshot;
+  public MarketUpdate(OrderBookDelta delta, List<Trade> trades) {
+    this.delta = delta;
     this.trades = trades;
   }
 
-  public OrderBookSnapshot getSnapshot() {
-    return snapshot;
+  public OrderBookDelta getDelta() {
+    return delta;
   }
 
   public List<Trade> getTrades() {
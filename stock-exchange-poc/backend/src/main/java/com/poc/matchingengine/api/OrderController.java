@@ -9,8 +9,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api")
 @Tag(name = "Orders & Market Data")
@@ -28,9 +31,15 @@ public class OrderController {
   }
 
   @GetMapping("/engine/sequence")
-  @Operation(summary = "Get last processed engine sequence")
-  public long currentSequence() {
-    return engineService.currentSequence();
+  @Operation(summary = "Get last processed sequence of the shard that owns a symbol")
+  public long currentSequence(@RequestParam(required = false) String symbol) {
+    return engineService.currentSequence(symbol);
+  }
+
+  @GetMapping("/engine/shards")
+  @Operation(summary = "Get per-shard queue depth and processing latency")
+  public List<EngineShardMetrics> shardMetrics() {
+    return engineService.shardMetrics();
   }
 
   @GetMapping("/market/{symbol}")
@@ -4,9 +4,11 @@ import com.poc.matchingengine.model.OrderSide;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 public class OrderRequest {
   @NotBlank
+  @Size(max = 32)
   private String symbol;
 
   @NotNull
@@ -2,10 +2,12 @@ package com.poc.matchingengine.api;
 
 public class OrderResponse {
   private final String orderId;
+  private final int shard;
   private final long sequence;
 
-  public OrderResponse(String orderId, long sequence) {
+  public OrderResponse(String orderId, int shard, long sequence) {
     this.orderId = orderId;
+    this.shard = shard;
     this.sequence = sequence;
   }
 
@@ -13,6 +15,10 @@ public class OrderResponse {
     return orderId;
   }
 
+  public int getShard() {
+    return shard;
+  }
+
   public long getSequence() {
     return sequence;
   }
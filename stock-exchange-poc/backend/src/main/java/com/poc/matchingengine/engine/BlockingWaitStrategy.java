@@ -0,0 +1,50 @@
+package com.poc.matchingengine.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks waiting threads on a condition until a publish or consume signals them. Uses the least CPU, but every
+ * hand-off pays a lock and a thread wake-up. Signalling is skipped while nobody is waiting.
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private final AtomicInteger waiters = new AtomicInteger();
+
+  @Override
+  public boolean await(BooleanSupplier ready) {
+    if (ready.getAsBoolean()) {
+      return true;
+    }
+    lock.lock();
+    waiters.incrementAndGet();
+    try {
+      while (!ready.getAsBoolean()) {
+        changed.await();
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      waiters.decrementAndGet();
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void signalAll() {
+    if (waiters.get() == 0) {
+      return;
+    }
+    lock.lock();
+    try {
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.OrderType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Point-in-time image of every order book on one shard. The file is written to a temp name and atomically moved
+ * into place, so a crash mid-write leaves the previous snapshot intact. Books are stored as their resting orders in
+ * priority order, which keeps the format independent of the book implementation.
+ */
+public class BookSnapshotStore {
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path file;
+
+  public BookSnapshotStore(Path directory) {
+    this.file = directory.resolve("books.snapshot");
+  }
+
+  public void write(long lastSequence, long highestOrderNumber, Collection<OrderBook> books) {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(file.getParent());
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(lastSequence);
+        out.writeLong(highestOrderNumber);
+        out.writeInt(books.size());
+        for (OrderBook book : books) {
+          List<Order> resting = book.restingOrders();
+          out.writeUTF(book.getSymbol());
+          out.writeLong(book.getNextTradeSequence());
+          out.writeInt(resting.size());
+          for (Order order : resting) {
+            out.writeUTF(order.getOrderId());
+            out.writeByte(order.getSide().ordinal());
+            out.writeLong(order.getPrice());
+            out.writeLong(order.getQuantity());
+            out.writeLong(order.getTimestamp().getEpochSecond());
+            out.writeInt(order.getTimestamp().getNano());
+            out.writeLong(order.getSequence());
+          }
+        }
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write order book snapshot " + file, e);
+    }
+  }
+
+  /** Loads the latest snapshot into fresh books, or returns null if none has been written yet. */
+  public Snapshot load(OrderBookType bookType) {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      int version = in.readInt();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalStateException("Unsupported snapshot format " + version + " in " + file);
+      }
+      long lastSequence = in.readLong();
+      long highestOrderNumber = in.readLong();
+      int bookCount = in.readInt();
+      List<OrderBook> books = new ArrayList<>(bookCount);
+      for (int b = 0; b < bookCount; b++) {
+        String symbol = in.readUTF();
+        long nextTradeSequence = in.readLong();
+        int orderCount = in.readInt();
+        List<Order> resting = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+          String orderId = in.readUTF();
+          OrderSide side = OrderSide.values()[in.readByte()];
+          long price = in.readLong();
+          long quantity = in.readLong();
+          Instant timestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+          Order order = new Order(orderId, symbol, side, OrderType.LIMIT, price, quantity, timestamp);
+          order.setSequence(in.readLong());
+          resting.add(order);
+        }
+        OrderBook book = bookType.create(symbol);
+        book.restore(resting, nextTradeSequence);
+        books.add(book);
+      }
+      return new Snapshot(lastSequence, highestOrderNumber, books);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read order book snapshot " + file, e);
+    }
+  }
+
+  public static class Snapshot {
+    private final long lastSequence;
+    private final long highestOrderNumber;
+    private final List<OrderBook> books;
+
+    public Snapshot(long lastSequence, long highestOrderNumber, List<OrderBook> books) {
+      this.lastSequence = lastSequence;
+      this.highestOrderNumber = highestOrderNumber;
+      this.books = books;
+    }
+
+    public long getLastSequence() {
+      return lastSequence;
+    }
+
+    public long getHighestOrderNumber() {
+      return highestOrderNumber;
+    }
+
+    public List<OrderBook> getBooks() {
+      return books;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.poc.matchingengine.engine;
+
+import java.util.function.BooleanSupplier;
+
+/** Burns a core in a tight loop. Lowest latency, only sensible with a dedicated core per waiting thread. */
+public class BusySpinWaitStrategy implements WaitStrategy {
+  @Override
+  public boolean await(BooleanSupplier ready) {
+    while (!ready.getAsBoolean()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return false;
+      }
+      Thread.onSpinWait();
+    }
+    return true;
+  }
+
+  @Override
+  public void signalAll() {
+  }
+}
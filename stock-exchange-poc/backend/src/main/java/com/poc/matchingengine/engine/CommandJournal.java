@@ -0,0 +1,285 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.OrderType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only command log for one engine shard, written through memory-mapped segment files.
+ *
+ * <p>Each record is {@code [int bodyLength][int crc32][body]}. Segments are named by the first sequence they may
+ * contain, so sorting file names gives replay order. {@link #append} only copies bytes into the mapping; durability
+ * comes from {@link #commit()}, which the shard calls once per drained batch so one flush covers many commands.
+ * Segments keep their full mapped size; the zeros after the last record mark its end. Recovery stops at the first
+ * zero length, short record, or CRC mismatch and zeroes everything after that point before appending again. Files
+ * are never truncated while mapped, which fails on some platforms and faults on access past the end on others.
+ *
+ * <p>Not thread-safe: only the owning shard thread touches it.
+ */
+public class CommandJournal implements AutoCloseable {
+  private static final String PREFIX = "journal-";
+  private static final String SUFFIX = ".log";
+  private static final int HEADER_BYTES = 8;
+  private static final int MAX_BODY_BYTES = 4096;
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final boolean fsync;
+  private final ByteBuffer scratch = ByteBuffer.allocate(MAX_BODY_BYTES);
+  private final CRC32 crc = new CRC32();
+  private FileChannel channel;
+  private MappedByteBuffer segment;
+  private int committedPosition;
+
+  public CommandJournal(Path directory, int segmentBytes, boolean fsync) {
+    if (segmentBytes < HEADER_BYTES + MAX_BODY_BYTES) {
+      throw new IllegalArgumentException("Journal segment must hold at least one maximum-size record");
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.fsync = fsync;
+  }
+
+  /**
+   * Replays every intact record with a sequence above {@code afterSequence}, in log order, then opens the last
+   * segment for appending. Returns the highest sequence seen, or {@code afterSequence} if nothing was replayed.
+   */
+  public long recover(long afterSequence, BiConsumer<CommandType, Order> replay) {
+    try {
+      Files.createDirectories(directory);
+      List<Path> segments = segments();
+      long highest = afterSequence;
+      for (int i = 0; i < segments.size(); i++) {
+        Path path = segments.get(i);
+        int validEnd;
+        try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+          ByteBuffer data = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+          validEnd = 0;
+          while (true) {
+            Record record = read(data, validEnd);
+            if (record == null) {
+              break;
+            }
+            validEnd = record.nextPosition;
+            if (record.order.getSequence() > afterSequence) {
+              replay.accept(record.type, record.order);
+              highest = Math.max(highest, record.order.getSequence());
+            }
+          }
+        }
+        if (i == segments.size() - 1) {
+          openSegment(path, validEnd);
+        }
+      }
+      if (channel == null) {
+        openSegment(segmentPath(highest + 1), 0);
+      }
+      return highest;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to recover journal in " + directory, e);
+    }
+  }
+
+  public void append(long sequence, CommandType type, Order order) {
+    scratch.clear();
+    scratch.putLong(sequence);
+    scratch.put((byte) type.ordinal());
+    putString(order.getOrderId());
+    putString(order.getSymbol());
+    scratch.put((byte) order.getSide().ordinal());
+    scratch.putLong(order.getPrice());
+    scratch.putLong(order.getQuantity());
+    scratch.putLong(order.getTimestamp().getEpochSecond());
+    scratch.putInt(order.getTimestamp().getNano());
+    scratch.flip();
+    int bodyLength = scratch.remaining();
+    if (segment.remaining() < HEADER_BYTES + bodyLength) {
+      roll(sequence);
+    }
+    crc.reset();
+    crc.update(scratch.duplicate());
+    segment.putInt(bodyLength);
+    segment.putInt((int) crc.getValue());
+    segment.put(scratch);
+  }
+
+  /** Makes everything appended so far durable with one flush. No-op when fsync is disabled (OS write-back). */
+  public void commit() {
+    int position = segment.position();
+    if (fsync && position > committedPosition) {
+      segment.force(committedPosition, position - committedPosition);
+    }
+    committedPosition = position;
+  }
+
+  /**
+   * Seals the current segment and starts a new one at {@code nextSequence}. After a snapshot covering everything
+   * below {@code nextSequence}, {@link #deleteSegmentsBefore} can then drop the sealed files.
+   */
+  public void roll(long nextSequence) {
+    try {
+      sealCurrent();
+      openSegment(segmentPath(nextSequence), 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to roll journal in " + directory, e);
+    }
+  }
+
+  public void deleteSegmentsBefore(long sequence) {
+    try {
+      for (Path path : segments()) {
+        if (startSequence(path) < sequence) {
+          Files.deleteIfExists(path);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to clean journal in " + directory, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      sealCurrent();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to close journal in " + directory, e);
+    }
+  }
+
+  private void sealCurrent() throws IOException {
+    if (channel == null) {
+      return;
+    }
+    segment.force();
+    segment = null;
+    channel.close();
+    channel = null;
+  }
+
+  private void openSegment(Path path, int validEnd) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long existingBytes = channel.size();
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    if (existingBytes < segmentBytes) {
+      // Mapping extended the file; make the new length durable before records depend on it.
+      channel.force(true);
+    }
+    // A torn tail, or records whose pages reached disk ahead of an earlier page, must not join the log once new
+    // appends close the gap, so everything after the last intact record is cleared in place.
+    if (zero(validEnd, (int) Math.min(existingBytes, segmentBytes))) {
+      segment.force();
+    }
+    segment.position(validEnd);
+    committedPosition = validEnd;
+  }
+
+  /** Clears {@code [from, to)} of the current mapping, writing only words that are not already zero. */
+  private boolean zero(int from, int to) {
+    boolean changed = false;
+    int position = from;
+    while (position < to) {
+      if (position % Long.BYTES == 0 && to - position >= Long.BYTES) {
+        if (segment.getLong(position) != 0) {
+          segment.putLong(position, 0L);
+          changed = true;
+        }
+        position += Long.BYTES;
+      } else {
+        if (segment.get(position) != 0) {
+          segment.put(position, (byte) 0);
+          changed = true;
+        }
+        position++;
+      }
+    }
+    return changed;
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+          })
+          .sorted()
+          .toList();
+    }
+  }
+
+  private Path segmentPath(long startSequence) {
+    return directory.resolve(PREFIX + String.format("%020d", startSequence) + SUFFIX);
+  }
+
+  private static long startSequence(Path path) {
+    String name = path.getFileName().toString();
+    return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+  }
+
+  private void putString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    scratch.putShort((short) bytes.length);
+    scratch.put(bytes);
+  }
+
+  private Record read(ByteBuffer data, int position) {
+    if (data.limit() - position < HEADER_BYTES) {
+      return null;
+    }
+    int bodyLength = data.getInt(position);
+    int expectedCrc = data.getInt(position + 4);
+    if (bodyLength <= 0 || bodyLength > MAX_BODY_BYTES || data.limit() - position - HEADER_BYTES < bodyLength) {
+      return null;
+    }
+    ByteBuffer body = data.slice(position + HEADER_BYTES, bodyLength);
+    crc.reset();
+    crc.update(body.duplicate());
+    if ((int) crc.getValue() != expectedCrc) {
+      return null;
+    }
+    long sequence = body.getLong();
+    CommandType type = CommandType.values()[body.get()];
+    String orderId = getString(body);
+    String symbol = getString(body);
+    OrderSide side = OrderSide.values()[body.get()];
+    long price = body.getLong();
+    long quantity = body.getLong();
+    Instant timestamp = Instant.ofEpochSecond(body.getLong(), body.getInt());
+    Order order = new Order(orderId, symbol, side, OrderType.LIMIT, price, quantity, timestamp);
+    order.setSequence(sequence);
+    return new Record(type, order, position + HEADER_BYTES + bodyLength);
+  }
+
+  private static String getString(ByteBuffer body) {
+    byte[] bytes = new byte[body.getShort()];
+    body.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static final class Record {
+    private final CommandType type;
+    private final Order order;
+    private final int nextPosition;
+
+    private Record(CommandType type, Order order, int nextPosition) {
+      this.type = type;
+      this.order = order;
+      this.nextPosition = nextPosition;
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.Order;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One matching partition: a ring buffer, the engine that owns the books for the symbols routed here, and the
+ * single thread that drains the buffer. Sequences are local to the shard, and every symbol lives on exactly
+ * one shard, so per-symbol ordering is the same as with a single engine.
+ *
+ * <p>With journaling enabled, each drained batch is appended to the shard's {@link CommandJournal} and committed
+ * once before any of it is matched, and the books are snapshotted every {@code snapshotInterval} commands. On
+ * start the shard loads the snapshot, replays the journal tail, and continues from the next sequence.
+ */
+public class EngineShard {
+  private final int shardId;
+  private final RingBufferQueue<CommandEvent> ringBuffer;
+  private final MatchingEngine engine;
+  private final OrderBookType bookType;
+  private final CommandJournal journal;
+  private final BookSnapshotStore snapshots;
+  private final long snapshotInterval;
+  private final Thread thread;
+  private final AtomicLong lastProcessedSequence = new AtomicLong(-1);
+  private final AtomicLong processedCommands = new AtomicLong();
+  private final AtomicLong processedBatches = new AtomicLong();
+  private final AtomicLong totalProcessingNanos = new AtomicLong();
+  private final AtomicLong maxProcessingNanos = new AtomicLong();
+  private volatile boolean running = true;
+  private long nextSequence;
+  private long highestOrderNumber;
+  private long commandsSinceSnapshot;
+
+  public EngineShard(
+      int shardId,
+      int ringBufferSize,
+      WaitStrategy waitStrategy,
+      int topLevels,
+      OrderBookType bookType,
+      JournalSettings journalSettings,
+      MarketDataPublisher publisher) {
+    this.shardId = shardId;
+    this.ringBuffer = new RingBufferQueue<>(ringBufferSize, waitStrategy);
+    this.engine = new MatchingEngine(topLevels, bookType, publisher);
+    this.bookType = bookType;
+    if (journalSettings.isEnabled()) {
+      Path directory = journalSettings.shardDirectory(shardId);
+      this.journal = new CommandJournal(directory, journalSettings.getSegmentBytes(), journalSettings.isFsync());
+      this.snapshots = new BookSnapshotStore(directory);
+      this.snapshotInterval = journalSettings.getSnapshotInterval();
+    } else {
+      this.journal = null;
+      this.snapshots = null;
+      this.snapshotInterval = 0;
+    }
+    this.thread = new Thread(this::runLoop, "matching-engine-shard-" + shardId);
+  }
+
+  /** Recovers journaled state, if any, on the calling thread and then starts the engine thread. */
+  public void start() {
+    if (journal != null) {
+      recover();
+    }
+    ringBuffer.startAt(nextSequence);
+    thread.start();
+  }
+
+  public void stop() {
+    running = false;
+    thread.interrupt();
+    try {
+      thread.join(1_000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public long submit(Order order) {
+    long sequence = ringBuffer.next();
+    order.setSequence(sequence);
+    ringBuffer.publish(sequence, new CommandEvent(CommandType.PLACE_ORDER, order));
+    return sequence;
+  }
+
+  public int getShardId() {
+    return shardId;
+  }
+
+  public long getLastProcessedSequence() {
+    return lastProcessedSequence.get();
+  }
+
+  public long getQueueDepth() {
+    return ringBuffer.depth();
+  }
+
+  public long getProcessedCommands() {
+    return processedCommands.get();
+  }
+
+  public long getProcessedBatches() {
+    return processedBatches.get();
+  }
+
+  public long getTotalProcessingNanos() {
+    return totalProcessingNanos.get();
+  }
+
+  public long getMaxProcessingNanos() {
+    return maxProcessingNanos.get();
+  }
+
+  /** Highest numeric order ID ({@code O<n>}) seen during recovery, so the service can continue after it. */
+  public long getHighestOrderNumber() {
+    return highestOrderNumber;
+  }
+
+  private void recover() {
+    long afterSequence = -1L;
+    BookSnapshotStore.Snapshot snapshot = snapshots.load(bookType);
+    if (snapshot != null) {
+      afterSequence = snapshot.getLastSequence();
+      highestOrderNumber = snapshot.getHighestOrderNumber();
+      engine.restore(snapshot.getBooks(), afterSequence);
+    }
+    long lastSequence = journal.recover(afterSequence, (type, order) -> {
+      highestOrderNumber = Math.max(highestOrderNumber, orderNumber(order.getOrderId()));
+      if (type == CommandType.PLACE_ORDER) {
+        engine.handleOrder(order);
+      }
+    });
+    nextSequence = lastSequence + 1;
+    lastProcessedSequence.set(lastSequence);
+  }
+
+  private void runLoop() {
+    while (running) {
+      // Drain everything published so far in one pass and release the slots with a single consumer update.
+      long available = ringBuffer.waitForAvailable(nextSequence);
+      if (available < nextSequence) {
+        if (!running) {
+          break;
+        }
+        continue;
+      }
+      if (journal != null) {
+        journalBatch(nextSequence, available);
+      }
+      for (long sequence = nextSequence; sequence <= available; sequence++) {
+        CommandEvent event = ringBuffer.get(sequence);
+        if (event.getType() == CommandType.PLACE_ORDER) {
+          long startedAt = System.nanoTime();
+          engine.handleOrder(event.getOrder());
+          recordLatency(System.nanoTime() - startedAt);
+          lastProcessedSequence.set(sequence);
+        }
+      }
+      ringBuffer.markConsumed(nextSequence, available);
+      processedBatches.lazySet(processedBatches.get() + 1);
+      if (journal != null) {
+        commandsSinceSnapshot += available - nextSequence + 1;
+        if (commandsSinceSnapshot >= snapshotInterval) {
+          snapshot(available);
+        }
+      }
+      nextSequence = available + 1;
+    }
+    if (journal != null) {
+      // stop() interrupts this thread to wake it, and FileChannel closes itself on an interrupted thread.
+      Thread.interrupted();
+      journal.close();
+    }
+  }
+
+  /** Appends the whole batch, then pays for durability once. Matching starts only after the commit. */
+  private void journalBatch(long fromSequence, long toSequence) {
+    for (long sequence = fromSequence; sequence <= toSequence; sequence++) {
+      CommandEvent event = ringBuffer.get(sequence);
+      journal.append(sequence, event.getType(), event.getOrder());
+      highestOrderNumber = Math.max(highestOrderNumber, orderNumber(event.getOrder().getOrderId()));
+    }
+    journal.commit();
+  }
+
+  private void snapshot(long lastSequence) {
+    snapshots.write(lastSequence, highestOrderNumber, engine.books());
+    journal.roll(lastSequence + 1);
+    journal.deleteSegmentsBefore(lastSequence + 1);
+    commandsSinceSnapshot = 0;
+  }
+
+  private static long orderNumber(String orderId) {
+    long number = 0;
+    for (int i = 1; i < orderId.length(); i++) {
+      char c = orderId.charAt(i);
+      if (c < '0' || c > '9') {
+        return 0;
+      }
+      number = number * 10 + (c - '0');
+    }
+    return number;
+  }
+
+  private void recordLatency(long nanos) {
+    // Single writer: only the shard thread updates these, readers just need visibility.
+    processedCommands.lazySet(processedCommands.get() + 1);
+    totalProcessingNanos.lazySet(totalProcessingNanos.get() + nanos);
+    if (nanos > maxProcessingNanos.get()) {
+      maxProcessingNanos.lazySet(nanos);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.poc.matchingengine.engine;
+
+import java.nio.file.Path;
+
+public class JournalSettings {
+  private final boolean enabled;
+  private final Path directory;
+  private final int segmentBytes;
+  private final boolean fsync;
+  private final long snapshotInterval;
+
+  public JournalSettings(boolean enabled, Path directory, int segmentBytes, boolean fsync, long snapshotInterval) {
+    this.enabled = enabled;
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.fsync = fsync;
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  public static JournalSettings disabled() {
+    return new JournalSettings(false, null, 0, false, 0);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public int getSegmentBytes() {
+    return segmentBytes;
+  }
+
+  public boolean isFsync() {
+    return fsync;
+  }
+
+  public long getSnapshotInterval() {
+    return snapshotInterval;
+  }
+
+  public Path shardDirectory(int shardId) {
+    return directory.resolve("shard-" + shardId);
+  }
+}
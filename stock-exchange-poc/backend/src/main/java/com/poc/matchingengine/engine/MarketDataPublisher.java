@@ -0,0 +1,12 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.OrderBookDelta;
+import com.poc.matchingengine.model.OrderBookSnapshot;
+import com.poc.matchingengine.model.Trade;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface MarketDataPublisher {
+  void publish(OrderBookSnapshot snapshot, OrderBookDelta delta, List<Trade> trades);
+}
@@ -1,32 +1,95 @@
 package com.poc.matchingengine.engine;
 
 import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderBookDelta;
 import com.poc.matchingengine.model.OrderBookSnapshot;
+import com.poc.matchingengine.model.PriceLevel;
 import com.poc.matchingengine.model.Trade;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.BiConsumer;
 
 public class MatchingEngine {
   private final Map<String, OrderBook> books = new HashMap<>();
+  private final Map<String, OrderBookSnapshot> published = new HashMap<>();
   private final int topLevels;
-  private final BiConsumer<OrderBookSnapshot, List<Trade>> publisher;
+  private final OrderBookType bookType;
+  private final MarketDataPublisher publisher;
 
-  public MatchingEngine(int topLevels, BiConsumer<OrderBookSnapshot, List<Trade>> publisher) {
+  public MatchingEngine(int topLevels, OrderBookType bookType, MarketDataPublisher publisher) {
     this.topLevels = topLevels;
+    this.bookType = bookType;
     this.publisher = publisher;
   }
 
   public void handleOrder(Order order) {
-    OrderBook book = books.computeIfAbsent(order.getSymbol(), OrderBook::new);
+    OrderBook book = books.computeIfAbsent(order.getSymbol(), bookType::create);
     List<Trade> trades = book.process(order);
-    OrderBookSnapshot snapshot = new OrderBookSnapshot(
+    OrderBookSnapshot previous = published.get(order.getSymbol());
+    List<PriceLevel> bids = book.topBids(topLevels);
+    List<PriceLevel> asks = book.topAsks(topLevels);
+    OrderBookDelta delta = new OrderBookDelta(
         order.getSymbol(),
         order.getSequence(),
-        book.topBids(topLevels),
-        book.topAsks(topLevels));
-    publisher.accept(snapshot, trades);
+        previous == null ? -1L : previous.getSequence(),
+        diff(previous == null ? List.of() : previous.getBids(), bids),
+        diff(previous == null ? List.of() : previous.getAsks(), asks));
+    if (delta.isEmpty() && trades.isEmpty()) {
+      return;
+    }
+    OrderBookSnapshot snapshot = new OrderBookSnapshot(order.getSymbol(), order.getSequence(), bids, asks);
+    published.put(order.getSymbol(), snapshot);
+    publisher.publish(snapshot, delta, trades);
+  }
+
+  public Collection<OrderBook> books() {
+    return books.values();
+  }
+
+  /**
+   * Installs books recovered from a snapshot and publishes a full image of each, with {@code previousSequence}
+   * of -1 so subscribers treat it as a reset rather than a delta.
+   */
+  public void restore(Collection<OrderBook> restored, long sequence) {
+    for (OrderBook book : restored) {
+      books.put(book.getSymbol(), book);
+      List<PriceLevel> bids = book.topBids(topLevels);
+      List<PriceLevel> asks = book.topAsks(topLevels);
+      OrderBookSnapshot snapshot = new OrderBookSnapshot(book.getSymbol(), sequence, bids, asks);
+      published.put(book.getSymbol(), snapshot);
+      publisher.publish(snapshot, new OrderBookDelta(book.getSymbol(), sequence, -1L, bids, asks), List.of());
+    }
+  }
+
+  /**
+   * Levels whose quantity changed between two visible views, plus zero-quantity entries for prices that left
+   * the view. Both lists are bounded by {@code topLevels}, so the cost is independent of book depth.
+   */
+  private static List<PriceLevel> diff(List<PriceLevel> before, List<PriceLevel> after) {
+    List<PriceLevel> changes = new ArrayList<>();
+    for (PriceLevel level : after) {
+      PriceLevel old = find(before, level.getPrice());
+      if (old == null || old.getQuantity() != level.getQuantity()) {
+        changes.add(level);
+      }
+    }
+    for (PriceLevel level : before) {
+      if (find(after, level.getPrice()) == null) {
+        changes.add(new PriceLevel(level.getPrice(), 0));
+      }
+    }
+    return changes;
+  }
+
+  private static PriceLevel find(List<PriceLevel> levels, long price) {
+    for (PriceLevel level : levels) {
+      if (level.getPrice() == price) {
+        return level;
+      }
+    }
+    return null;
   }
 }
@@ -0,0 +1,20 @@
+package com.poc.matchingengine.engine;
+
+import java.util.function.Function;
+
+public enum OrderBookType {
+  /** Boxed {@code TreeMap<Long, Deque<Order>>} per side. Simple reference implementation. */
+  TREE_MAP(TreeMapOrderBook::new),
+  /** Primitive sorted price ladder with pooled levels and intrusive FIFO order lists. */
+  PRICE_LADDER(PriceLadderOrderBook::new);
+
+  private final Function<String, OrderBook> factory;
+
+  OrderBookType(Function<String, OrderBook> factory) {
+    this.factory = factory;
+  }
+
+  public OrderBook create(String symbol) {
+    return factory.apply(symbol);
+  }
+}
@@ -0,0 +1,254 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.PriceLevel;
+import com.poc.matchingengine.model.Trade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Order book that keeps each side as a primitive sorted price ladder instead of a boxed TreeMap.
+ *
+ * <p>Each side stores its active prices in a {@code long[]} ordered so the best price is always the last
+ * slot, which makes consuming the top of book an O(1) pop and keeps inserts near the touch cheap. Price
+ * levels hold an intrusive FIFO list of resting orders plus a running quantity. Levels and list nodes are
+ * recycled through free lists, so steady-state matching does not allocate book structure. {@link Trade}
+ * objects are still allocated because they escape to the publisher and the recent-trades buffer.
+ */
+public class PriceLadderOrderBook implements OrderBook {
+  private static final int INITIAL_LEVELS = 64;
+
+  private final String symbol;
+  private final Ladder bids = new Ladder(OrderSide.BUY);
+  private final Ladder asks = new Ladder(OrderSide.SELL);
+  private long tradeSequence = 1;
+  private Level freeLevels;
+  private OrderNode freeNodes;
+
+  public PriceLadderOrderBook(String symbol) {
+    this.symbol = symbol;
+  }
+
+  @Override
+  public String getSymbol() {
+    return symbol;
+  }
+
+  @Override
+  public List<Trade> process(Order incoming) {
+    boolean buy = incoming.getSide() == OrderSide.BUY;
+    Ladder opposite = buy ? asks : bids;
+    List<Trade> trades = null;
+    while (incoming.getQuantity() > 0 && !opposite.isEmpty()) {
+      Level best = opposite.best();
+      if (buy ? incoming.getPrice() < best.price : incoming.getPrice() > best.price) {
+        break;
+      }
+      Order resting = best.head.order;
+      long tradedQty = Math.min(incoming.getQuantity(), resting.getQuantity());
+      incoming.setQuantity(incoming.getQuantity() - tradedQty);
+      resting.setQuantity(resting.getQuantity() - tradedQty);
+      best.quantity -= tradedQty;
+      if (trades == null) {
+        trades = new ArrayList<>(4);
+      }
+      trades.add(new Trade(
+          tradeId(),
+          symbol,
+          buy ? incoming.getOrderId() : resting.getOrderId(),
+          buy ? resting.getOrderId() : incoming.getOrderId(),
+          best.price,
+          tradedQty,
+          incoming.getSequence()));
+
+      if (resting.getQuantity() == 0) {
+        releaseNode(best.pollHead());
+        if (best.head == null) {
+          opposite.removeBest();
+          releaseLevel(best);
+        }
+      }
+    }
+    if (incoming.getQuantity() > 0) {
+      Level level = (buy ? bids : asks).levelFor(incoming.getPrice());
+      level.append(acquireNode(incoming));
+      level.quantity += incoming.getQuantity();
+    }
+    return trades == null ? Collections.emptyList() : trades;
+  }
+
+  @Override
+  public List<PriceLevel> topBids(int depth) {
+    return bids.top(depth);
+  }
+
+  @Override
+  public List<PriceLevel> topAsks(int depth) {
+    return asks.top(depth);
+  }
+
+  @Override
+  public List<Order> restingOrders() {
+    List<Order> orders = new ArrayList<>();
+    bids.collectOrders(orders);
+    asks.collectOrders(orders);
+    return orders;
+  }
+
+  @Override
+  public long getNextTradeSequence() {
+    return tradeSequence;
+  }
+
+  @Override
+  public void restore(List<Order> resting, long nextTradeSequence) {
+    for (Order order : resting) {
+      process(order);
+    }
+    tradeSequence = nextTradeSequence;
+  }
+
+  private String tradeId() {
+    return "T" + tradeSequence++;
+  }
+
+  private Level acquireLevel(long price) {
+    Level level = freeLevels;
+    if (level == null) {
+      level = new Level();
+    } else {
+      freeLevels = level.nextFree;
+      level.nextFree = null;
+    }
+    level.price = price;
+    return level;
+  }
+
+  private void releaseLevel(Level level) {
+    level.quantity = 0;
+    level.head = null;
+    level.tail = null;
+    level.nextFree = freeLevels;
+    freeLevels = level;
+  }
+
+  private OrderNode acquireNode(Order order) {
+    OrderNode node = freeNodes;
+    if (node == null) {
+      node = new OrderNode();
+    } else {
+      freeNodes = node.next;
+    }
+    node.order = order;
+    node.next = null;
+    return node;
+  }
+
+  private void releaseNode(OrderNode node) {
+    node.order = null;
+    node.next = freeNodes;
+    freeNodes = node;
+  }
+
+  /**
+   * One side of the book. Prices are stored as sort keys ascending, with bids keyed by price and asks keyed
+   * by negated price, so the best level is always at {@code size - 1} for both sides.
+   */
+  private final class Ladder {
+    private final OrderSide side;
+    private long[] keys = new long[INITIAL_LEVELS];
+    private Level[] levels = new Level[INITIAL_LEVELS];
+    private int size;
+
+    private Ladder(OrderSide side) {
+      this.side = side;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    Level best() {
+      return levels[size - 1];
+    }
+
+    void removeBest() {
+      levels[--size] = null;
+    }
+
+    Level levelFor(long price) {
+      long key = side == OrderSide.BUY ? price : -price;
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      if (index >= 0) {
+        return levels[index];
+      }
+      int insertAt = -index - 1;
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        levels = Arrays.copyOf(levels, size * 2);
+      }
+      int tail = size - insertAt;
+      if (tail > 0) {
+        System.arraycopy(keys, insertAt, keys, insertAt + 1, tail);
+        System.arraycopy(levels, insertAt, levels, insertAt + 1, tail);
+      }
+      Level level = acquireLevel(price);
+      keys[insertAt] = key;
+      levels[insertAt] = level;
+      size++;
+      return level;
+    }
+
+    void collectOrders(List<Order> into) {
+      for (int i = size - 1; i >= 0; i--) {
+        for (OrderNode node = levels[i].head; node != null; node = node.next) {
+          into.add(node.order);
+        }
+      }
+    }
+
+    List<PriceLevel> top(int depth) {
+      int count = Math.min(depth, size);
+      List<PriceLevel> result = new ArrayList<>(count);
+      for (int i = size - 1; i >= size - count; i--) {
+        result.add(new PriceLevel(levels[i].price, levels[i].quantity));
+      }
+      return result;
+    }
+  }
+
+  private static final class Level {
+    private long price;
+    private long quantity;
+    private OrderNode head;
+    private OrderNode tail;
+    private Level nextFree;
+
+    void append(OrderNode node) {
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.next = node;
+      }
+      tail = node;
+    }
+
+    OrderNode pollHead() {
+      OrderNode node = head;
+      head = node.next;
+      if (head == null) {
+        tail = null;
+      }
+      return node;
+    }
+  }
+
+  private static final class OrderNode {
+    private Order order;
+    private OrderNode next;
+  }
+}
@@ -2,7 +2,6 @@ package com.poc.matchingengine.engine;
 
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
-import java.util.concurrent.locks.LockSupport;
 
 public class RingBufferQueue<T> {
   private final Object[] buffer;
@@ -11,8 +10,13 @@ public class RingBufferQueue<T> {
   private final AtomicLong nextSequence = new AtomicLong(0);
   private final AtomicLong consumerSequence = new AtomicLong(-1);
   private final AtomicLongArray published;
+  private final WaitStrategy waitStrategy;
 
   public RingBufferQueue(int size) {
+    this(size, WaitStrategyType.TIMED_PARK.create());
+  }
+
+  public RingBufferQueue(int size, WaitStrategy waitStrategy) {
     if (Integer.bitCount(size) != 1) {
       throw new IllegalArgumentException("Ring buffer size must be power of two");
     }
@@ -20,15 +24,36 @@ public class RingBufferQueue<T> {
     this.mask = size - 1L;
     this.buffer = new Object[size];
     this.published = new AtomicLongArray(size);
+    this.waitStrategy = waitStrategy;
     for (int i = 0; i < size; i++) {
       published.set(i, -1L);
     }
   }
 
+  /**
+   * Moves an idle, never-used queue so the first claimed sequence is {@code sequence}. Used after journal replay
+   * so new commands continue the recovered sequence instead of restarting at zero.
+   */
+  public void startAt(long sequence) {
+    if (nextSequence.get() != 0 || consumerSequence.get() != -1) {
+      throw new IllegalStateException("Ring buffer already in use");
+    }
+    consumerSequence.set(sequence - 1);
+    nextSequence.set(sequence);
+  }
+
   public long next() {
     long seq = nextSequence.getAndIncrement();
-    while (seq - size > consumerSequence.get()) {
-      LockSupport.parkNanos(1L);
+    if (seq - size > consumerSequence.get()) {
+      // The sequence is already claimed, so the producer has to keep waiting even if interrupted; otherwise the
+      // consumer would stall on a slot that is never published.
+      boolean interrupted = false;
+      while (!waitStrategy.await(() -> seq - size <= consumerSequence.get())) {
+        interrupted |= Thread.interrupted();
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
     }
     return seq;
   }
@@ -37,23 +62,66 @@ public class RingBufferQueue<T> {
     int index = (int) (sequence & mask);
     buffer[index] = event;
     published.set(index, sequence);
+    waitStrategy.signalAll();
   }
 
   @SuppressWarnings("unchecked")
   public T waitFor(long sequence) {
-    int index = (int) (sequence & mask);
-    while (published.get(index) != sequence) {
-      if (Thread.currentThread().isInterrupted()) {
-        return null;
-      }
-      LockSupport.parkNanos(1L);
+    if (!awaitPublished(sequence)) {
+      return null;
+    }
+    return (T) buffer[(int) (sequence & mask)];
+  }
+
+  /**
+   * Waits until {@code sequence} is published, then returns the highest sequence such that every slot from
+   * {@code sequence} up to it is published. Producers publish out of order, so the scan stops at the first gap.
+   * Returns {@code sequence - 1} if the consumer is interrupted before anything is available.
+   */
+  public long waitForAvailable(long sequence) {
+    if (!awaitPublished(sequence)) {
+      return sequence - 1;
+    }
+    long highest = sequence;
+    long limit = sequence + size - 1;
+    while (highest < limit && isPublished(highest + 1)) {
+      highest++;
     }
-    return (T) buffer[index];
+    return highest;
+  }
+
+  /** Reads a slot returned by {@link #waitForAvailable}. Only valid until the slot is marked consumed. */
+  @SuppressWarnings("unchecked")
+  public T get(long sequence) {
+    return (T) buffer[(int) (sequence & mask)];
+  }
+
+  /** Claimed sequences the consumer has not finished yet. Approximate while producers are active. */
+  public long depth() {
+    return Math.max(0L, nextSequence.get() - 1 - consumerSequence.get());
   }
 
   public void markConsumed(long sequence) {
     int index = (int) (sequence & mask);
     buffer[index] = null;
     consumerSequence.set(sequence);
+    waitStrategy.signalAll();
+  }
+
+  /** Releases every slot from {@code fromSequence} through {@code toSequence} in one consumer-sequence update. */
+  public void markConsumed(long fromSequence, long toSequence) {
+    for (long seq = fromSequence; seq <= toSequence; seq++) {
+      buffer[(int) (seq & mask)] = null;
+    }
+    consumerSequence.set(toSequence);
+    waitStrategy.signalAll();
+  }
+
+  private boolean awaitPublished(long sequence) {
+    return isPublished(sequence) || waitStrategy.await(() -> isPublished(sequence));
+  }
+
+  private boolean isPublished(long sequence) {
+    return published.get((int) (sequence & mask)) == sequence;
   }
 }
@@ -0,0 +1,44 @@
+package com.poc.matchingengine.engine;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins, then yields, then parks for an exponentially growing interval capped at {@code maxParkNanos}. Idle
+ * threads cost almost no CPU, at the price of up to {@code maxParkNanos} extra latency after a quiet period.
+ */
+public class TimedParkWaitStrategy implements WaitStrategy {
+  private static final int SPIN_TRIES = 100;
+  private static final int YIELD_TRIES = 100;
+
+  private final long maxParkNanos;
+
+  public TimedParkWaitStrategy(long maxParkNanos) {
+    this.maxParkNanos = maxParkNanos;
+  }
+
+  @Override
+  public boolean await(BooleanSupplier ready) {
+    int counter = 0;
+    long parkNanos = 1L;
+    while (!ready.getAsBoolean()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return false;
+      }
+      if (counter < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else if (counter < SPIN_TRIES + YIELD_TRIES) {
+        Thread.yield();
+      } else {
+        LockSupport.parkNanos(parkNanos);
+        parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+      }
+      counter++;
+    }
+    return true;
+  }
+
+  @Override
+  public void signalAll() {
+  }
+}
@@ -0,0 +1,157 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.PriceLevel;
+import com.poc.matchingengine.model.Trade;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TreeMapOrderBook implements OrderBook {
+  private final String symbol;
+  private final NavigableMap<Long, Level> bids = new TreeMap<>(Comparator.reverseOrder());
+  private final NavigableMap<Long, Level> asks = new TreeMap<>();
+  private final AtomicLong tradeSequence = new AtomicLong(1);
+
+  public TreeMapOrderBook(String symbol) {
+    this.symbol = symbol;
+  }
+
+  @Override
+  public String getSymbol() {
+    return symbol;
+  }
+
+  @Override
+  public List<Trade> process(Order incoming) {
+    if (incoming.getSide() == OrderSide.BUY) {
+      return matchBuy(incoming);
+    }
+    return matchSell(incoming);
+  }
+
+  private List<Trade> matchBuy(Order incoming) {
+    List<Trade> trades = new ArrayList<>();
+    while (incoming.getQuantity() > 0 && !asks.isEmpty()) {
+      Long bestAskPrice = asks.firstKey();
+      if (incoming.getPrice() < bestAskPrice) {
+        break;
+      }
+      Level level = asks.get(bestAskPrice);
+      Order resting = level.orders.peekFirst();
+      long tradedQty = Math.min(incoming.getQuantity(), resting.getQuantity());
+      incoming.setQuantity(incoming.getQuantity() - tradedQty);
+      resting.setQuantity(resting.getQuantity() - tradedQty);
+      level.quantity -= tradedQty;
+      trades.add(new Trade(
+          tradeId(), symbol, incoming.getOrderId(), resting.getOrderId(), bestAskPrice, tradedQty, incoming.getSequence()));
+
+      if (resting.getQuantity() == 0) {
+        level.orders.pollFirst();
+        if (level.orders.isEmpty()) {
+          asks.remove(bestAskPrice);
+        }
+      }
+    }
+    if (incoming.getQuantity() > 0) {
+      Level level = bids.computeIfAbsent(incoming.getPrice(), k -> new Level());
+      level.orders.addLast(incoming);
+      level.quantity += incoming.getQuantity();
+    }
+    return trades;
+  }
+
+  private List<Trade> matchSell(Order incoming) {
+    List<Trade> trades = new ArrayList<>();
+    while (incoming.getQuantity() > 0 && !bids.isEmpty()) {
+      Long bestBidPrice = bids.firstKey();
+      if (incoming.getPrice() > bestBidPrice) {
+        break;
+      }
+      Level level = bids.get(bestBidPrice);
+      Order resting = level.orders.peekFirst();
+      long tradedQty = Math.min(incoming.getQuantity(), resting.getQuantity());
+      incoming.setQuantity(incoming.getQuantity() - tradedQty);
+      resting.setQuantity(resting.getQuantity() - tradedQty);
+      level.quantity -= tradedQty;
+      trades.add(new Trade(
+          tradeId(), symbol, resting.getOrderId(), incoming.getOrderId(), bestBidPrice, tradedQty, incoming.getSequence()));
+
+      if (resting.getQuantity() == 0) {
+        level.orders.pollFirst();
+        if (level.orders.isEmpty()) {
+          bids.remove(bestBidPrice);
+        }
+      }
+    }
+    if (incoming.getQuantity() > 0) {
+      Level level = asks.computeIfAbsent(incoming.getPrice(), k -> new Level());
+      level.orders.addLast(incoming);
+      level.quantity += incoming.getQuantity();
+    }
+    return trades;
+  }
+
+  @Override
+  public List<PriceLevel> topBids(int depth) {
+    return aggregate(bids, depth);
+  }
+
+  @Override
+  public List<PriceLevel> topAsks(int depth) {
+    return aggregate(asks, depth);
+  }
+
+  private List<PriceLevel> aggregate(NavigableMap<Long, Level> book, int depth) {
+    List<PriceLevel> levels = new ArrayList<>();
+    for (var entry : book.entrySet()) {
+      levels.add(new PriceLevel(entry.getKey(), entry.getValue().quantity));
+      if (levels.size() >= depth) {
+        break;
+      }
+    }
+    return levels;
+  }
+
+  @Override
+  public List<Order> restingOrders() {
+    List<Order> orders = new ArrayList<>();
+    for (Level level : bids.values()) {
+      orders.addAll(level.orders);
+    }
+    for (Level level : asks.values()) {
+      orders.addAll(level.orders);
+    }
+    return orders;
+  }
+
+  @Override
+  public long getNextTradeSequence() {
+    return tradeSequence.get();
+  }
+
+  @Override
+  public void restore(List<Order> resting, long nextTradeSequence) {
+    for (Order order : resting) {
+      process(order);
+    }
+    tradeSequence.set(nextTradeSequence);
+  }
+
+  private String tradeId() {
+    return "T" + tradeSequence.getAndIncrement();
+  }
+
+  /** Resting orders at one price in arrival order, with their remaining quantity kept as a running total. */
+  private static final class Level {
+    private final Deque<Order> orders = new ArrayDeque<>();
+    private long quantity;
+  }
+}
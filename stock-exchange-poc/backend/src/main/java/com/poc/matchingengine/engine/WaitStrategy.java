@@ -0,0 +1,18 @@
+package com.poc.matchingengine.engine;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a ring-buffer producer or consumer waits when it cannot make progress. Spinning strategies trade CPU for
+ * wake-up latency; the blocking strategy parks threads on a condition and relies on {@link #signalAll()}.
+ */
+public interface WaitStrategy {
+  /**
+   * Waits until {@code ready} returns true. Returns false without waiting further if the calling thread is
+   * interrupted; the interrupt status is left set.
+   */
+  boolean await(BooleanSupplier ready);
+
+  /** Wakes threads blocked in {@link #await}. Called after every publish and consume. */
+  void signalAll();
+}
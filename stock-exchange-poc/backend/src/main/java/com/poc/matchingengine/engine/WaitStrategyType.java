@@ -0,0 +1,20 @@
+package com.poc.matchingengine.engine;
+
+import java.util.function.Supplier;
+
+public enum WaitStrategyType {
+  BUSY_SPIN(BusySpinWaitStrategy::new),
+  YIELDING(YieldingWaitStrategy::new),
+  BLOCKING(BlockingWaitStrategy::new),
+  TIMED_PARK(() -> new TimedParkWaitStrategy(100_000L));
+
+  private final Supplier<WaitStrategy> factory;
+
+  WaitStrategyType(Supplier<WaitStrategy> factory) {
+    this.factory = factory;
+  }
+
+  public WaitStrategy create() {
+    return factory.get();
+  }
+}
@@ -0,0 +1,29 @@
+package com.poc.matchingengine.engine;
+
+import java.util.function.BooleanSupplier;
+
+/** Spins briefly, then yields the core to other runnable threads between checks. */
+public class YieldingWaitStrategy implements WaitStrategy {
+  private static final int SPIN_TRIES = 100;
+
+  @Override
+  public boolean await(BooleanSupplier ready) {
+    int counter = 0;
+    while (!ready.getAsBoolean()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return false;
+      }
+      if (counter < SPIN_TRIES) {
+        counter++;
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void signalAll() {
+  }
+}
@@ -0,0 +1,49 @@
+package com.poc.matchingengine.model;
+
+import java.util.List;
+
+/**
+ * L2 change set for the visible top of book. Each level carries its new aggregate quantity; a quantity of
+ * zero means the price dropped out of the visible depth. {@code previousSequence} is the sequence of the
+ * prior update for the same symbol, so a subscriber that sees a mismatch knows it missed an update and
+ * should reload the snapshot.
+ */
+public class OrderBookDelta {
+  private final String symbol;
+  private final long sequence;
+  private final long previousSequence;
+  private final List<PriceLevel> bids;
+  private final List<PriceLevel> asks;
+
+  public OrderBookDelta(String symbol, long sequence, long previousSequence, List<PriceLevel> bids, List<PriceLevel> asks) {
+    this.symbol = symbol;
+    this.sequence = sequence;
+    this.previousSequence = previousSequence;
+    this.bids = bids;
+    this.asks = asks;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public long getPreviousSequence() {
+    return previousSequence;
+  }
+
+  public List<PriceLevel> getBids() {
+    return bids;
+  }
+
+  public List<PriceLevel> getAsks() {
+    return asks;
+  }
+
+  public boolean isEmpty() {
+    return bids.isEmpty() && asks.isEmpty();
+  }
+}
@@ -1,14 +1,16 @@
 package com.poc.matchingengine.service;
 
+import com.poc.matchingengine.api.EngineShardMetrics;
 import com.poc.matchingengine.api.MarketStateResponse;
 import com.poc.matchingengine.api.MarketUpdate;
 import com.poc.matchingengine.api.OrderRequest;
 import com.poc.matchingengine.api.OrderResponse;
-import com.poc.matchingengine.engine.CommandEvent;
-import com.poc.matchingengine.engine.CommandType;
-import com.poc.matchingengine.engine.MatchingEngine;
-import com.poc.matchingengine.engine.RingBufferQueue;
+import com.poc.matchingengine.engine.EngineShard;
+import com.poc.matchingengine.engine.JournalSettings;
+import com.poc.matchingengine.engine.OrderBookType;
+import com.poc.matchingengine.engine.WaitStrategyType;
 import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderBookDelta;
 import com.poc.matchingengine.model.OrderBookSnapshot;
 import com.poc.matchingengine.model.OrderType;
 import com.poc.matchingengine.model.Trade;
@@ -18,8 +20,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
@@ -28,36 +36,57 @@ import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class MatchingEngineService {
-  private final RingBufferQueue<CommandEvent> ringBuffer;
-  private final MatchingEngine engine;
+  private final EngineShard[] shards;
   private final SimpMessagingTemplate messagingTemplate;
   private final AtomicLong orderSequence = new AtomicLong(1);
-  private final AtomicLong lastProcessedSequence = new AtomicLong(-1);
   private final Map<String, OrderBookSnapshot> lastSnapshot = new ConcurrentHashMap<>();
   private final Map<String, Deque<Trade>> recentTrades = new ConcurrentHashMap<>();
   private final int recentTradeDepth = 20;
-  private volatile boolean running = true;
-  private final Thread engineThread;
 
   public MatchingEngineService(
       SimpMessagingTemplate messagingTemplate,
       @Value("${engine.ring-buffer-size:65536}") int ringBufferSize,
-      @Value("${engine.top-levels:5}") int topLevels) {
+      @Value("${engine.top-levels:5}") int topLevels,
+      @Value("${engine.order-book:TREE_MAP}") OrderBookType orderBookType,
+      @Value("${engine.shards:1}") int shardCount,
+      @Value("${engine.wait-strategy:TIMED_PARK}") WaitStrategyType waitStrategy,
+      @Value("${engine.journal.enabled:false}") boolean journalEnabled,
+      @Value("${engine.journal.directory:data/journal}") String journalDirectory,
+      @Value("${engine.journal.segment-bytes:67108864}") int journalSegmentBytes,
+      @Value("${engine.journal.fsync:true}") boolean journalFsync,
+      @Value("${engine.journal.snapshot-interval:10000}") long snapshotInterval) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("engine.shards must be at least 1");
+    }
     this.messagingTemplate = messagingTemplate;
-    this.ringBuffer = new RingBufferQueue<>(ringBufferSize);
-    this.engine = new MatchingEngine(topLevels, this::publishMarketData);
-    this.engineThread = new Thread(this::runLoop, "matching-engine-thread");
+    JournalSettings journal = journalEnabled
+        ? new JournalSettings(true, Path.of(journalDirectory), journalSegmentBytes, journalFsync, snapshotInterval)
+        : JournalSettings.disabled();
+    if (journal.isEnabled()) {
+      checkShardLayout(journal.getDirectory(), shardCount);
+    }
+    this.shards = new EngineShard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new EngineShard(
+          i, ringBufferSize, waitStrategy.create(), topLevels, orderBookType, journal, this::publishMarketData);
+    }
   }
 
   @PostConstruct
   public void start() {
-    engineThread.start();
+    long highestOrderNumber = 0;
+    for (EngineShard shard : shards) {
+      shard.start();
+      highestOrderNumber = Math.max(highestOrderNumber, shard.getHighestOrderNumber());
+    }
+    orderSequence.set(highestOrderNumber + 1);
   }
 
   @PreDestroy
   public void stop() {
-    running = false;
-    engineThread.interrupt();
+    for (EngineShard shard : shards) {
+      shard.stop();
+    }
   }
 
   public OrderResponse placeOrder(OrderRequest request) {
@@ -71,55 +100,87 @@ public class MatchingEngineService {
         request.getQuantity(),
         Instant.now());
 
-    long sequence = ringBuffer.next();
-    order.setSequence(sequence);
-    ringBuffer.publish(sequence, new CommandEvent(CommandType.PLACE_ORDER, order));
+    EngineShard shard = shardFor(order.getSymbol());
+    long sequence = shard.submit(order);
+    return new OrderResponse(orderId, shard.getShardId(), sequence);
+  }
 
-    return new OrderResponse(orderId, sequence);
+  /**
+   * Sequences are assigned per shard. With a symbol this returns the last processed sequence of the shard that
+   * owns it; without one it returns the last processed sequence of shard 0.
+   */
+  public long currentSequence(String symbol) {
+    EngineShard shard = symbol == null ? shards[0] : shardFor(symbol.toUpperCase());
+    return shard.getLastProcessedSequence();
   }
 
-  public long currentSequence() {
-    return lastProcessedSequence.get();
+  public List<EngineShardMetrics> shardMetrics() {
+    List<EngineShardMetrics> metrics = new ArrayList<>(shards.length);
+    for (EngineShard shard : shards) {
+      long processed = shard.getProcessedCommands();
+      long batches = shard.getProcessedBatches();
+      double avgMicros = processed == 0 ? 0.0 : shard.getTotalProcessingNanos() / (processed * 1_000.0);
+      metrics.add(new EngineShardMetrics(
+          shard.getShardId(),
+          shard.getLastProcessedSequence(),
+          shard.getQueueDepth(),
+          processed,
+          batches == 0 ? 0.0 : (double) processed / batches,
+          avgMicros,
+          shard.getMaxProcessingNanos() / 1_000.0));
+    }
+    return metrics;
   }
 
   public MarketStateResponse marketState(String symbol) {
     String key = symbol.toUpperCase();
     OrderBookSnapshot snapshot = lastSnapshot.get(key);
     Deque<Trade> trades = recentTrades.getOrDefault(key, new ArrayDeque<>());
-    return new MarketStateResponse(snapshot, List.copyOf(trades));
+    synchronized (trades) {
+      return new MarketStateResponse(snapshot, List.copyOf(trades));
+    }
   }
 
-  private void runLoop() {
-    long nextSequence = 0L;
-    while (running) {
-      CommandEvent event = ringBuffer.waitFor(nextSequence);
-      if (event == null) {
-        if (!running) {
-          break;
+  /**
+   * Journals are per shard and symbols are routed by hash, so replaying with a different shard count would put
+   * recovered books on shards that no longer receive their symbols. Refuse to start instead.
+   */
+  private static void checkShardLayout(Path directory, int shardCount) {
+    Path layout = directory.resolve("shards");
+    try {
+      Files.createDirectories(directory);
+      if (Files.exists(layout)) {
+        int recorded = Integer.parseInt(Files.readString(layout, StandardCharsets.UTF_8).trim());
+        if (recorded != shardCount) {
+          throw new IllegalStateException("Journal in " + directory + " was written with " + recorded
+              + " shards but engine.shards is " + shardCount);
         }
-        continue;
-      }
-      if (event != null && event.getType() == CommandType.PLACE_ORDER) {
-        engine.handleOrder(event.getOrder());
-        lastProcessedSequence.set(nextSequence);
+      } else {
+        Files.writeString(layout, Integer.toString(shardCount), StandardCharsets.UTF_8);
       }
-      ringBuffer.markConsumed(nextSequence);
-      nextSequence++;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to check journal layout in " + directory, e);
     }
   }
 
-  private void publishMarketData(OrderBookSnapshot snapshot, List<Trade> trades) {
+  private EngineShard shardFor(String symbol) {
+    return shards[Math.floorMod(symbol.hashCode(), shards.length)];
+  }
+
+  private void publishMarketData(OrderBookSnapshot snapshot, OrderBookDelta delta, List<Trade> trades) {
     lastSnapshot.put(snapshot.getSymbol(), snapshot);
     if (!trades.isEmpty()) {
       Deque<Trade> queue = recentTrades.computeIfAbsent(snapshot.getSymbol(), k -> new ArrayDeque<>());
-      for (Trade trade : trades) {
-        queue.addFirst(trade);
-        if (queue.size() > recentTradeDepth) {
-          queue.removeLast();
+      synchronized (queue) {
+        for (Trade trade : trades) {
+          queue.addFirst(trade);
+          if (queue.size() > recentTradeDepth) {
+            queue.removeLast();
+          }
         }
       }
     }
-    MarketUpdate update = new MarketUpdate(snapshot, trades);
+    MarketUpdate update = new MarketUpdate(delta, trades);
     messagingTemplate.convertAndSend("/topic/market/" + snapshot.getSymbol(), update);
   }
 }
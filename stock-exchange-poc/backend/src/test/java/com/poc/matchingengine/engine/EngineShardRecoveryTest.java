@@ -0,0 +1,174 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderBookSnapshot;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.OrderType;
+import com.poc.matchingengine.model.PriceLevel;
+import com.poc.matchingengine.model.Trade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EngineShardRecoveryTest {
+  private static final Instant NOW = Instant.parse("2026-01-05T14:30:00Z");
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void restartRestoresBooksFromSnapshotPlusJournalTail() throws Exception {
+    Map<String, OrderBookSnapshot> before = new ConcurrentHashMap<>();
+    EngineShard shard = shard(before, new ArrayList<>());
+    shard.start();
+    submitRandomOrders(shard, 1, 2_500);
+    awaitProcessed(shard, 2_499);
+    shard.stop();
+    assertThat(directory.resolve("shard-0").resolve("books.snapshot")).exists();
+
+    Map<String, OrderBookSnapshot> after = new ConcurrentHashMap<>();
+    List<Trade> tradesAfterRestart = new ArrayList<>();
+    EngineShard restarted = shard(after, tradesAfterRestart);
+    restarted.start();
+
+    assertThat(restarted.getLastProcessedSequence()).isEqualTo(2_499L);
+    assertThat(restarted.getHighestOrderNumber()).isEqualTo(2_500L);
+    assertThat(after.keySet()).isEqualTo(before.keySet());
+    for (String symbol : before.keySet()) {
+      assertThat(levels(after.get(symbol).getBids())).isEqualTo(levels(before.get(symbol).getBids()));
+      assertThat(levels(after.get(symbol).getAsks())).isEqualTo(levels(before.get(symbol).getAsks()));
+    }
+
+    tradesAfterRestart.clear();
+    long sequence = restarted.submit(order("O9999", "AAA", OrderSide.BUY, 10_000, 1_000));
+    awaitProcessed(restarted, sequence);
+    restarted.stop();
+    assertThat(sequence).isEqualTo(2_500L);
+    assertThat(tradesAfterRestart).allMatch(trade -> trade.getSequence() == 2_500L);
+  }
+
+  @Test
+  void recoveryDropsTornTailAndKeepsAppending() throws Exception {
+    Path shardDirectory = directory.resolve("shard-0");
+    CommandJournal journal = new CommandJournal(shardDirectory, 1 << 16, true);
+    journal.recover(-1, (type, order) -> { });
+    for (int i = 0; i < 3; i++) {
+      journal.append(i, CommandType.PLACE_ORDER, order("O" + i, "AAA", OrderSide.BUY, 100, 1));
+    }
+    journal.commit();
+    journal.close();
+    Path segment;
+    try (Stream<Path> files = Files.list(shardDirectory)) {
+      segment = files.findFirst().orElseThrow();
+    }
+    assertThat(Files.size(segment)).isEqualTo(1 << 16);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3}), endOfRecords(channel));
+    }
+
+    List<Long> replayed = new ArrayList<>();
+    CommandJournal reopened = new CommandJournal(shardDirectory, 1 << 16, true);
+    long last = reopened.recover(-1, (type, order) -> replayed.add(order.getSequence()));
+    reopened.append(3, CommandType.PLACE_ORDER, order("O3", "AAA", OrderSide.SELL, 100, 1));
+    reopened.commit();
+    reopened.close();
+
+    List<Long> replayedAgain = new ArrayList<>();
+    new CommandJournal(shardDirectory, 1 << 16, true)
+        .recover(-1, (type, order) -> replayedAgain.add(order.getSequence()));
+
+    assertThat(last).isEqualTo(2L);
+    assertThat(replayed).containsExactly(0L, 1L, 2L);
+    assertThat(replayedAgain).containsExactly(0L, 1L, 2L, 3L);
+  }
+
+  @Test
+  void rolledSegmentsKeepTheirSizeAndReplayInOrder() {
+    Path shardDirectory = directory.resolve("shard-0");
+    CommandJournal journal = new CommandJournal(shardDirectory, 1 << 16, true);
+    journal.recover(-1, (type, order) -> { });
+    for (int i = 0; i < 6; i++) {
+      if (i % 2 == 0 && i > 0) {
+        journal.roll(i);
+      }
+      journal.append(i, CommandType.PLACE_ORDER, order("O" + i, "AAA", OrderSide.BUY, 100, 1));
+      journal.commit();
+    }
+    journal.close();
+
+    List<Long> replayed = new ArrayList<>();
+    new CommandJournal(shardDirectory, 1 << 16, true)
+        .recover(-1, (type, order) -> replayed.add(order.getSequence()));
+
+    assertThat(shardDirectory.toFile().listFiles()).hasSize(3)
+        .allSatisfy(file -> assertThat(file.length()).isEqualTo(1 << 16));
+    assertThat(replayed).containsExactly(0L, 1L, 2L, 3L, 4L, 5L);
+  }
+
+  /** Walks the record headers to the zero length that ends a segment. */
+  private static long endOfRecords(FileChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(4);
+    long position = 0;
+    while (true) {
+      header.clear();
+      channel.read(header, position);
+      int bodyLength = header.getInt(0);
+      if (bodyLength == 0) {
+        return position;
+      }
+      position += 8 + bodyLength;
+    }
+  }
+
+  private EngineShard shard(Map<String, OrderBookSnapshot> snapshots, List<Trade> trades) {
+    JournalSettings settings = new JournalSettings(true, directory, 1 << 16, false, 700);
+    return new EngineShard(0, 1024, WaitStrategyType.YIELDING.create(), 50, OrderBookType.PRICE_LADDER, settings,
+        (snapshot, delta, published) -> {
+          snapshots.put(snapshot.getSymbol(), snapshot);
+          synchronized (trades) {
+            trades.addAll(published);
+          }
+        });
+  }
+
+  private static void submitRandomOrders(EngineShard shard, int firstOrderNumber, int count) {
+    Random random = new Random(3);
+    String[] symbols = {"AAA", "BBB", "CCC"};
+    for (int i = 0; i < count; i++) {
+      OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+      shard.submit(order("O" + (firstOrderNumber + i), symbols[random.nextInt(symbols.length)], side,
+          95 + random.nextInt(11), 1 + random.nextInt(20)));
+    }
+  }
+
+  private static void awaitProcessed(EngineShard shard, long sequence) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (shard.getLastProcessedSequence() < sequence && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertThat(shard.getLastProcessedSequence()).isEqualTo(sequence);
+  }
+
+  private static List<String> levels(List<PriceLevel> levels) {
+    return levels.stream().map(level -> level.getPrice() + "x" + level.getQuantity()).toList();
+  }
+
+  private static Order order(String orderId, String symbol, OrderSide side, long price, long quantity) {
+    return new Order(orderId, symbol, side, OrderType.LIMIT, price, quantity, NOW);
+  }
+}
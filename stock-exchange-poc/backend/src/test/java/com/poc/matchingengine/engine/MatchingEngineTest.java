@@ -0,0 +1,86 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderBookDelta;
+import com.poc.matchingengine.model.OrderBookSnapshot;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.OrderType;
+import com.poc.matchingengine.model.PriceLevel;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchingEngineTest {
+  private static final Instant NOW = Instant.parse("2026-01-05T14:30:00Z");
+
+  @Test
+  void appliedDeltasReproduceEverySnapshot() {
+    TreeMap<Long, Long> bids = new TreeMap<>(Comparator.reverseOrder());
+    TreeMap<Long, Long> asks = new TreeMap<>();
+    long[] lastSequence = {-1L};
+    MatchingEngine engine = new MatchingEngine(5, OrderBookType.PRICE_LADDER, (snapshot, delta, trades) -> {
+      assertThat(delta.getPreviousSequence()).isEqualTo(lastSequence[0]);
+      apply(bids, delta.getBids());
+      apply(asks, delta.getAsks());
+      assertThat(render(bids)).isEqualTo(render(snapshot.getBids()));
+      assertThat(render(asks)).isEqualTo(render(snapshot.getAsks()));
+      lastSequence[0] = snapshot.getSequence();
+    });
+
+    Random random = new Random(7);
+    for (int i = 0; i < 5_000; i++) {
+      OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+      engine.handleOrder(order("O" + i, side, 90 + random.nextInt(21), 1 + random.nextInt(20), i));
+    }
+  }
+
+  @Test
+  void restingOutsideVisibleDepthPublishesNothing() {
+    List<OrderBookDelta> deltas = new ArrayList<>();
+    List<OrderBookSnapshot> snapshots = new ArrayList<>();
+    MatchingEngine engine = new MatchingEngine(1, OrderBookType.TREE_MAP, (snapshot, delta, trades) -> {
+      snapshots.add(snapshot);
+      deltas.add(delta);
+    });
+
+    engine.handleOrder(order("O1", OrderSide.BUY, 100, 10, 0));
+    engine.handleOrder(order("O2", OrderSide.BUY, 99, 10, 1));
+    engine.handleOrder(order("O3", OrderSide.BUY, 100, 5, 2));
+
+    assertThat(deltas).hasSize(2);
+    assertThat(deltas.get(1).getPreviousSequence()).isEqualTo(0L);
+    assertThat(deltas.get(1).getBids()).extracting(PriceLevel::getQuantity).containsExactly(15L);
+    assertThat(snapshots.get(1).getSequence()).isEqualTo(2L);
+  }
+
+  private static void apply(TreeMap<Long, Long> side, List<PriceLevel> changes) {
+    for (PriceLevel level : changes) {
+      if (level.getQuantity() == 0) {
+        side.remove(level.getPrice());
+      } else {
+        side.put(level.getPrice(), level.getQuantity());
+      }
+    }
+  }
+
+  private static List<String> render(TreeMap<Long, Long> side) {
+    return side.entrySet().stream().map(e -> e.getKey() + "x" + e.getValue()).toList();
+  }
+
+  private static List<String> render(List<PriceLevel> levels) {
+    return levels.stream().map(level -> level.getPrice() + "x" + level.getQuantity()).toList();
+  }
+
+  private static Order order(String orderId, OrderSide side, long price, long quantity, long sequence) {
+    Order order = new Order(orderId, "ACME", side, OrderType.LIMIT, price, quantity, NOW);
+    order.setSequence(sequence);
+    return order;
+  }
+}
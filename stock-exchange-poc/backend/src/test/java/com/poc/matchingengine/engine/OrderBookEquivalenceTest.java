@@ -0,0 +1,82 @@
+package com.poc.matchingengine.engine;
+
+import com.poc.matchingengine.model.Order;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.OrderType;
+import com.poc.matchingengine.model.PriceLevel;
+import com.poc.matchingengine.model.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderBookEquivalenceTest {
+  private static final Instant NOW = Instant.parse("2026-01-05T14:30:00Z");
+
+  @Test
+  void priceLadderMatchesTreeMapForRandomOrderFlow() {
+    for (long seed = 1; seed <= 5; seed++) {
+      replayAndCompare(new Random(seed), 20_000, 25);
+    }
+  }
+
+  @Test
+  void priceLadderMatchesTreeMapWhenBookIsDeepAndSparse() {
+    replayAndCompare(new Random(42), 10_000, 5_000);
+  }
+
+  @Test
+  void partialFillsKeepTimePriorityWithinLevel() {
+    OrderBook book = OrderBookType.PRICE_LADDER.create("ACME");
+    book.process(order("O1", OrderSide.SELL, 100, 5, 0));
+    book.process(order("O2", OrderSide.SELL, 100, 5, 1));
+
+    List<Trade> trades = book.process(order("O3", OrderSide.BUY, 101, 7, 2));
+
+    assertThat(trades).extracting(Trade::getSellOrderId).containsExactly("O1", "O2");
+    assertThat(trades).extracting(Trade::getQuantity).containsExactly(5L, 2L);
+    assertThat(trades).extracting(Trade::getPrice).containsExactly(100L, 100L);
+    assertThat(book.topAsks(5)).extracting(PriceLevel::getQuantity).containsExactly(3L);
+    assertThat(book.topBids(5)).isEmpty();
+  }
+
+  private void replayAndCompare(Random random, int orders, int priceSpread) {
+    OrderBook reference = OrderBookType.TREE_MAP.create("ACME");
+    OrderBook candidate = OrderBookType.PRICE_LADDER.create("ACME");
+    for (int i = 0; i < orders; i++) {
+      OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+      long price = 1_000 + random.nextInt(priceSpread * 2 + 1) - priceSpread;
+      long quantity = 1 + random.nextInt(50);
+      String orderId = "O" + i;
+
+      List<Trade> expected = reference.process(order(orderId, side, price, quantity, i));
+      List<Trade> actual = candidate.process(order(orderId, side, price, quantity, i));
+
+      assertThat(trades(actual)).isEqualTo(trades(expected));
+      assertThat(levels(candidate.topBids(10))).isEqualTo(levels(reference.topBids(10)));
+      assertThat(levels(candidate.topAsks(10))).isEqualTo(levels(reference.topAsks(10)));
+    }
+    assertThat(levels(candidate.topBids(Integer.MAX_VALUE))).isEqualTo(levels(reference.topBids(Integer.MAX_VALUE)));
+    assertThat(levels(candidate.topAsks(Integer.MAX_VALUE))).isEqualTo(levels(reference.topAsks(Integer.MAX_VALUE)));
+  }
+
+  private static List<String> trades(List<Trade> trades) {
+    return trades.stream()
+        .map(t -> t.getTradeId() + "|" + t.getSymbol() + "|" + t.getBuyOrderId() + "|" + t.getSellOrderId()
+            + "|" + t.getPrice() + "|" + t.getQuantity() + "|" + t.getSequence())
+        .toList();
+  }
+
+  private static List<String> levels(List<PriceLevel> levels) {
+    return levels.stream().map(level -> level.getPrice() + "x" + level.getQuantity()).toList();
+  }
+
+  private static Order order(String orderId, OrderSide side, long price, long quantity, long sequence) {
+    Order order = new Order(orderId, "ACME", side, OrderType.LIMIT, price, quantity, NOW);
+    order.setSequence(sequence);
+    return order;
+  }
+}
@@ -0,0 +1,111 @@
+package com.poc.matchingengine.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferQueueTest {
+
+  @ParameterizedTest
+  @EnumSource(WaitStrategyType.class)
+  void batchConsumerSeesEveryEventInSequenceOrder(WaitStrategyType strategy) throws Exception {
+    RingBufferQueue<Long> queue = new RingBufferQueue<>(64, strategy.create());
+    int producers = 4;
+    int perProducer = 2_000;
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      Thread producer = new Thread(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          long sequence = queue.next();
+          queue.publish(sequence, sequence);
+        }
+      });
+      threads.add(producer);
+      producer.start();
+    }
+
+    long total = (long) producers * perProducer;
+    long next = 0;
+    long batches = 0;
+    while (next < total) {
+      long available = queue.waitForAvailable(next);
+      for (long sequence = next; sequence <= available; sequence++) {
+        assertThat(queue.get(sequence)).isEqualTo(sequence);
+      }
+      queue.markConsumed(next, available);
+      next = available + 1;
+      batches++;
+    }
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    assertThat(next).isEqualTo(total);
+    assertThat(batches).isLessThanOrEqualTo(total);
+    assertThat(queue.depth()).isZero();
+  }
+
+  @Test
+  void sixteenProducersThroughSmallRingLoseAndReorderNothing() throws Exception {
+    // A 16-slot ring forces constant wrap-around and out-of-order publishes from 16 racing producers.
+    RingBufferQueue<long[]> queue = new RingBufferQueue<>(16, WaitStrategyType.TIMED_PARK.create());
+    int producers = 16;
+    int perProducer = 3_000;
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      int producerId = p;
+      Thread producer = new Thread(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          long sequence = queue.next();
+          queue.publish(sequence, new long[] {producerId, i, sequence});
+        }
+      });
+      threads.add(producer);
+      producer.start();
+    }
+
+    long total = (long) producers * perProducer;
+    long[] lastSeen = new long[producers];
+    Arrays.fill(lastSeen, -1L);
+    long next = 0;
+    while (next < total) {
+      long available = queue.waitForAvailable(next);
+      for (long sequence = next; sequence <= available; sequence++) {
+        long[] event = queue.get(sequence);
+        assertThat(event[2]).isEqualTo(sequence);
+        int producerId = (int) event[0];
+        // Each producer claims sequences in program order, so its events must arrive in that order with no gaps.
+        assertThat(event[1]).isEqualTo(lastSeen[producerId] + 1);
+        lastSeen[producerId] = event[1];
+      }
+      queue.markConsumed(next, available);
+      next = available + 1;
+    }
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    assertThat(lastSeen).containsOnly(perProducer - 1L);
+    assertThat(queue.depth()).isZero();
+  }
+
+  @ParameterizedTest
+  @EnumSource(WaitStrategyType.class)
+  void interruptedConsumerReturnsWithoutEvent(WaitStrategyType strategy) {
+    RingBufferQueue<Long> queue = new RingBufferQueue<>(8, strategy.create());
+    Thread.currentThread().interrupt();
+    try {
+      assertThat(queue.waitForAvailable(0)).isEqualTo(-1L);
+      assertThat(queue.waitFor(0)).isNull();
+    } finally {
+      Thread.interrupted();
+    }
+  }
+}
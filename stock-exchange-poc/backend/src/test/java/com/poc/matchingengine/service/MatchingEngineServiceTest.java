@@ -0,0 +1,150 @@
+package com.poc.matchingengine.service;
+
+import com.poc.matchingengine.api.MarketUpdate;
+import com.poc.matchingengine.api.OrderRequest;
+import com.poc.matchingengine.api.OrderResponse;
+import com.poc.matchingengine.engine.OrderBookType;
+import com.poc.matchingengine.engine.WaitStrategyType;
+import com.poc.matchingengine.model.OrderBookDelta;
+import com.poc.matchingengine.model.OrderBookSnapshot;
+import com.poc.matchingengine.model.OrderSide;
+import com.poc.matchingengine.model.PriceLevel;
+import com.poc.matchingengine.model.Trade;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchingEngineServiceTest {
+  private static final String[] SYMBOLS = {"AAA", "BBB", "CCC", "DDD", "EEE", "FFF", "GGG", "HHH"};
+  private static final int SHARDS = 4;
+  private static final int ORDERS = 3_000;
+
+  @Test
+  void symbolsRouteToOneShardWithConsecutiveSequences() throws InterruptedException {
+    List<MarketUpdate> updates = new ArrayList<>();
+    MatchingEngineService service = service(SHARDS, updates);
+    service.start();
+    try {
+      Map<String, Integer> shardBySymbol = new HashMap<>();
+      Map<Integer, Long> nextSequence = new HashMap<>();
+      for (OrderRequest request : orders()) {
+        OrderResponse response = service.placeOrder(request);
+        assertThat(response.getShard()).isEqualTo(Math.floorMod(request.getSymbol().hashCode(), SHARDS));
+        assertThat(shardBySymbol.computeIfAbsent(request.getSymbol(), symbol -> response.getShard()))
+            .isEqualTo(response.getShard());
+        // Sequences are per shard, so each shard counts its own orders from zero.
+        long expected = nextSequence.getOrDefault(response.getShard(), 0L);
+        assertThat(response.getSequence()).isEqualTo(expected);
+        nextSequence.put(response.getShard(), expected + 1);
+      }
+      assertThat(nextSequence).hasSizeGreaterThan(1);
+      awaitProcessed(service, shardBySymbol, nextSequence);
+    } finally {
+      service.stop();
+    }
+
+    // Each symbol's deltas chain from one to the next, in the order its shard processed them.
+    Map<String, Long> lastSequence = new HashMap<>();
+    for (MarketUpdate update : updates) {
+      OrderBookDelta delta = update.getDelta();
+      assertThat(delta.getPreviousSequence()).isEqualTo(lastSequence.getOrDefault(delta.getSymbol(), -1L));
+      assertThat(delta.getSequence()).isGreaterThan(delta.getPreviousSequence());
+      lastSequence.put(delta.getSymbol(), delta.getSequence());
+    }
+  }
+
+  @Test
+  void shardedBooksAndTradesMatchASingleEngine() throws InterruptedException {
+    Map<String, List<String>> sharded = run(SHARDS);
+    Map<String, List<String>> single = run(1);
+
+    assertThat(sharded.keySet()).containsExactlyInAnyOrder(SYMBOLS);
+    assertThat(sharded).isEqualTo(single);
+  }
+
+  /** Per symbol: every trade in the order it was published, then the final top of book. */
+  private static Map<String, List<String>> run(int shards) throws InterruptedException {
+    List<MarketUpdate> updates = new ArrayList<>();
+    MatchingEngineService service = service(shards, updates);
+    service.start();
+    Map<String, List<String>> bySymbol = new LinkedHashMap<>();
+    try {
+      Map<String, Integer> shardBySymbol = new HashMap<>();
+      Map<Integer, Long> nextSequence = new HashMap<>();
+      for (OrderRequest request : orders()) {
+        OrderResponse response = service.placeOrder(request);
+        shardBySymbol.put(request.getSymbol(), response.getShard());
+        nextSequence.merge(response.getShard(), 1L, Long::sum);
+      }
+      awaitProcessed(service, shardBySymbol, nextSequence);
+      synchronized (updates) {
+        for (MarketUpdate update : updates) {
+          for (Trade trade : update.getTrades()) {
+            bySymbol.computeIfAbsent(trade.getSymbol(), symbol -> new ArrayList<>()).add(
+                trade.getBuyOrderId() + "/" + trade.getSellOrderId() + " " + trade.getQuantity() + "@"
+                    + trade.getPrice());
+          }
+        }
+      }
+      for (String symbol : SYMBOLS) {
+        OrderBookSnapshot snapshot = service.marketState(symbol).getSnapshot();
+        List<String> book = bySymbol.computeIfAbsent(symbol, ignored -> new ArrayList<>());
+        book.add("bids " + levels(snapshot.getBids()));
+        book.add("asks " + levels(snapshot.getAsks()));
+      }
+    } finally {
+      service.stop();
+    }
+    return bySymbol;
+  }
+
+  private static MatchingEngineService service(int shards, List<MarketUpdate> updates) {
+    SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> {
+      synchronized (updates) {
+        updates.add((MarketUpdate) message.getPayload());
+      }
+      return true;
+    });
+    return new MatchingEngineService(template, 1024, 5, OrderBookType.PRICE_LADDER, shards,
+        WaitStrategyType.YIELDING, false, "unused", 1 << 16, false, 10_000);
+  }
+
+  private static List<OrderRequest> orders() {
+    Random random = new Random(5);
+    List<OrderRequest> orders = new ArrayList<>(ORDERS);
+    for (int i = 0; i < ORDERS; i++) {
+      OrderRequest request = new OrderRequest();
+      request.setSymbol(SYMBOLS[random.nextInt(SYMBOLS.length)]);
+      request.setSide(random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL);
+      request.setPrice(95 + random.nextInt(11));
+      request.setQuantity(1 + random.nextInt(20));
+      orders.add(request);
+    }
+    return orders;
+  }
+
+  /** Waits until every shard has processed the last sequence it handed out. */
+  private static void awaitProcessed(MatchingEngineService service, Map<String, Integer> shardBySymbol,
+                                     Map<Integer, Long> ordersPerShard) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    for (Map.Entry<String, Integer> entry : shardBySymbol.entrySet()) {
+      long last = ordersPerShard.get(entry.getValue()) - 1;
+      while (service.currentSequence(entry.getKey()) < last && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+      assertThat(service.currentSequence(entry.getKey())).isEqualTo(last);
+    }
+  }
+
+  private static List<String> levels(List<PriceLevel> levels) {
+    return levels.stream().map(level -> level.getPrice() + "x" + level.getQuantity()).toList();
+  }
+}
@@ -5,7 +5,19 @@ import SockJS from "sockjs-client";
 const API_BASE = "http://localhost:8080/api";
 const WS_URL = "http://localhost:8080/ws";
 
-const emptyBook = { bids: [], asks: [], sequence: 0 };
+const emptyBook = { bids: [], asks: [], sequence: -1 };
+
+function applyLevels(levels, changes, descending) {
+  const byPrice = new Map(levels.map((level) => [level.price, level]));
+  changes.forEach((level) => {
+    if (level.quantity === 0) {
+      byPrice.delete(level.price);
+    } else {
+      byPrice.set(level.price, level);
+    }
+  });
+  return [...byPrice.values()].sort((a, b) => (descending ? b.price - a.price : a.price - b.price));
+}
 
 export default function App() {
   const [symbol, setSymbol] = useState("ACME");
@@ -15,6 +27,7 @@ export default function App() {
   const [book, setBook] = useState(emptyBook);
   const [trades, setTrades] = useState([]);
   const [connected, setConnected] = useState(false);
+  const [resyncToken, setResyncToken] = useState(0);
 
   const stompClient = useMemo(() => {
     const client = new Client({
@@ -37,8 +50,23 @@ export default function App() {
     }
     const subscription = stompClient.subscribe(`/topic/market/${symbol}`, (message) => {
       const payload = JSON.parse(message.body);
-      if (payload.snapshot) {
-        setBook(payload.snapshot);
+      const delta = payload.delta;
+      if (delta) {
+        setBook((prev) => {
+          if (prev.stale) {
+            return prev;
+          }
+          if (delta.previousSequence !== prev.sequence) {
+            // Missed an update; drop this delta and mark the book for a snapshot reload.
+            return { ...prev, stale: true };
+          }
+          return {
+            ...prev,
+            sequence: delta.sequence,
+            bids: applyLevels(prev.bids, delta.bids, true),
+            asks: applyLevels(prev.asks, delta.asks, false)
+          };
+        });
       }
       if (payload.trades && payload.trades.length > 0) {
         setTrades((prev) => {
@@ -50,19 +78,23 @@ export default function App() {
     return () => subscription.unsubscribe();
   }, [connected, stompClient, symbol]);
 
+  useEffect(() => {
+    if (book.stale) {
+      setResyncToken((token) => token + 1);
+    }
+  }, [book.stale]);
+
   useEffect(() => {
     fetch(`${API_BASE}/market/${symbol}`)
       .then((res) => res.json())
       .then((data) => {
-        if (data.snapshot) {
-          setBook(data.snapshot);
-        }
+        setBook(data.snapshot || emptyBook);
         if (data.recentTrades) {
           setTrades(data.recentTrades);
         }
       })
       .catch(() => {});
-  }, [symbol]);
+  }, [symbol, resyncToken]);
 
   const submitOrder = async (event) => {
     event.preventDefault();
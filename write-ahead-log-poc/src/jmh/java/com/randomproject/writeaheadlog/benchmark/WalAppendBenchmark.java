@@ -0,0 +1,77 @@
+package com.randomproject.writeaheadlog.benchmark;
+
+import com.randomproject.writeaheadlog.WriteAheadLogService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Acknowledged PUTs per second through {@link WriteAheadLogService} for each fsync policy, on whatever device
+ * backs {@code java.io.tmpdir}, from one writer and from eight writers sharing group commits. Each iteration
+ * writes into a fresh WAL directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class WalAppendBenchmark {
+    @Param({"every_write", "group", "os"})
+    public String fsync;
+
+    private Path directory;
+    private WriteAheadLogService service;
+    private final AtomicLong next = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("wal-bench");
+        service = new WriteAheadLogService(directory.toString(), 64L * 1024 * 1024, fsync, Duration.ofMillis(1),
+                1024 * 1024, 0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        service.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Object put() {
+        return putNext();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object putConcurrent() {
+        return putNext();
+    }
+
+    private Object putNext() {
+        long id = next.getAndIncrement();
+        return service.put("bench-" + id, "key-" + (id & 1023), "value-" + id);
+    }
+}
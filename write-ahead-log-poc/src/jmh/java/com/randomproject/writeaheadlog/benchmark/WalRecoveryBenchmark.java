@@ -0,0 +1,82 @@
+package com.randomproject.writeaheadlog.benchmark;
+
+import com.randomproject.writeaheadlog.WriteAheadLogService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to reopen a WAL holding a checkpoint of {@code keys} keys plus a tail of {@code tail} entries after it: the
+ * checkpoint load and the partitioned tail replay that {@link WriteAheadLogService} runs on startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WalRecoveryBenchmark {
+    @Param({"200000"})
+    public int keys;
+
+    @Param({"200000"})
+    public int tail;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void writeLog() throws IOException {
+        directory = Files.createTempDirectory("wal-recovery-bench");
+        WriteAheadLogService service = open();
+        CompletableFuture<?> last = null;
+        for (int i = 0; i < keys; i++) {
+            last = service.putAsync("seed-" + i, "key-" + i, "value-" + i, false);
+        }
+        last.join();
+        service.createCheckpoint();
+        for (int i = 0; i < tail; i++) {
+            last = service.putAsync("tail-" + i, "key-" + (i * 7 % keys), "updated-" + i, false);
+        }
+        last.join();
+        service.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteLog() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Object recover() {
+        WriteAheadLogService service = open();
+        Object snapshot = service.snapshot();
+        service.close();
+        return snapshot;
+    }
+
+    private WriteAheadLogService open() {
+        return new WriteAheadLogService(directory.toString(), 64L * 1024 * 1024, "os", Duration.ofMillis(1),
+                1024 * 1024, 0);
+    }
+}
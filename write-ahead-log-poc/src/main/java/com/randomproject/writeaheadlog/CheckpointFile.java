@@ -0,0 +1,196 @@
+package com.randomproject.writeaheadlog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The latest checkpoint, stored as a binary image next to the WAL segments:
+ *
+ * <pre>
+ * int  magic "WALC", byte format version
+ * long checkpoint LSN, long createdAt epoch second, int createdAt nanos
+ * then any mix of
+ *   byte 1, string key, string value                          state entry
+ *   byte 2, long LSN, string commandId, byte operation,
+ *           string key, string value, long epoch second, int nanos   command index entry
+ * byte 0, int CRC32C of every byte before it
+ * </pre>
+ *
+ * Strings are an int byte length (-1 for null) followed by UTF-8. Entries are written as they are read from live,
+ * concurrently updated maps, so nothing says up front how many follow. A new checkpoint is written to a temporary
+ * file, forced, and renamed over the old one, so a crash mid-write leaves the previous checkpoint intact.
+ */
+final class CheckpointFile {
+    private static final int MAGIC = 0x57414C43;
+    private static final byte VERSION = 1;
+    private static final byte END = 0;
+    private static final byte STATE = 1;
+    private static final byte COMMAND = 2;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final WalOperation[] OPERATIONS = WalOperation.values();
+
+    private final Path file;
+    private final Path temporary;
+
+    CheckpointFile(Path directory) {
+        this.file = directory.resolve("checkpoint.bin");
+        this.temporary = directory.resolve("checkpoint.bin.tmp");
+    }
+
+    /**
+     * Loads the checkpoint into {@code state} and {@code commandIndex} and returns its description, or empty when
+     * there is none. A checksum mismatch means the file is corrupt, since a torn write never replaces the old one.
+     */
+    Optional<CheckpointView> read(Map<String, String> state, Map<String, WalEntry> commandIndex) {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            long size = Files.size(file);
+            verifyChecksum(size);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES))) {
+                if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                    throw new IllegalStateException("Checkpoint " + file + " has an unknown format.");
+                }
+                long lsn = in.readLong();
+                Instant createdAt = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                int keys = 0;
+                int commands = 0;
+                for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+                    if (tag == STATE) {
+                        state.put(readString(in), readString(in));
+                        keys++;
+                    } else if (tag == COMMAND) {
+                        WalEntry entry = new WalEntry(in.readLong(), readString(in), OPERATIONS[in.readByte()],
+                                readString(in), readString(in), Instant.ofEpochSecond(in.readLong(), in.readInt()));
+                        commandIndex.put(entry.commandId(), entry);
+                        commands++;
+                    } else {
+                        throw new IllegalStateException("Checkpoint " + file + " has an unknown entry tag " + tag + ".");
+                    }
+                }
+                return Optional.of(new CheckpointView(lsn, createdAt, keys, commands, size));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read checkpoint " + file, ex);
+        }
+    }
+
+    /**
+     * Streams {@code state} and {@code commands} to a new checkpoint covering LSNs through {@code lsn}. Both may be
+     * updated while they are written, as long as every update comes from an entry logged after {@code lsn}: replaying
+     * the log after {@code lsn} over the image then converges on the same state, because replaying PUT and DELETE is
+     * idempotent.
+     */
+    CheckpointView write(long lsn, Instant createdAt, Map<String, String> state, Iterable<WalEntry> commands) {
+        try {
+            Files.createDirectories(file.getParent());
+            int keys = 0;
+            int commandCount = 0;
+            long size;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32C());
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, BUFFER_BYTES));
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeLong(lsn);
+                out.writeLong(createdAt.getEpochSecond());
+                out.writeInt(createdAt.getNano());
+                for (Map.Entry<String, String> entry : state.entrySet()) {
+                    out.writeByte(STATE);
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                    keys++;
+                }
+                for (WalEntry entry : commands) {
+                    out.writeByte(COMMAND);
+                    out.writeLong(entry.lsn());
+                    writeString(out, entry.commandId());
+                    out.writeByte(entry.operation().ordinal());
+                    writeString(out, entry.key());
+                    writeString(out, entry.value());
+                    out.writeLong(entry.appendedAt().getEpochSecond());
+                    out.writeInt(entry.appendedAt().getNano());
+                    commandCount++;
+                }
+                out.writeByte(END);
+                out.flush();
+                ByteBuffer trailer = ByteBuffer.allocate(4).putInt(0, (int) checked.getChecksum().getValue());
+                while (trailer.hasRemaining()) {
+                    channel.write(trailer);
+                }
+                channel.force(true);
+                size = channel.size();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new CheckpointView(lsn, createdAt, keys, commandCount, size);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write checkpoint " + file, ex);
+        }
+    }
+
+    private void verifyChecksum(long size) throws IOException {
+        if (size < 4) {
+            throw new IllegalStateException("Checkpoint " + file + " is truncated.");
+        }
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long remaining = size - 4;
+            while (remaining > 0) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new IllegalStateException("Checkpoint " + file + " is truncated.");
+                }
+                crc.update(buffer.flip());
+                remaining -= read;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(4);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer) < 0) {
+                    throw new IllegalStateException("Checkpoint " + file + " is truncated.");
+                }
+            }
+            if (trailer.getInt(0) != (int) crc.getValue()) {
+                throw new IllegalStateException("Checkpoint " + file + " failed its checksum.");
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,24 @@
+package com.randomproject.writeaheadlog;
+
+/**
+ * When appended WAL records are forced from the OS page cache to the device, and so when a write is acknowledged.
+ * Writers always share batches: whatever queues while one batch is being written goes out in the next.
+ */
+public enum FsyncPolicy {
+    /** Force every batch before acknowledging it. An acknowledged write survives power loss. */
+    EVERY_WRITE,
+    /**
+     * Like {@link #EVERY_WRITE}, but the committer waits up to the group-commit interval, or until that many bytes
+     * have queued, before writing a batch. Fewer, larger fsyncs at the cost of up to one interval of added latency.
+     */
+    GROUP,
+    /** Never force; the OS writes pages back on its own schedule. Survives a process crash, not a power loss. */
+    OS;
+
+    public static FsyncPolicy from(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return EVERY_WRITE;
+        }
+        return FsyncPolicy.valueOf(raw.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,124 @@
+package com.randomproject.writeaheadlog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Single committer thread that turns items queued by many writers into batches.
+ *
+ * <p>The thread takes whatever is queued, up to {@code maxBatch}, and hands it to the handler in one call, so
+ * writers that arrive while a batch is being made durable share the next one. With a non-zero linger it also waits
+ * up to that long, or until {@code lingerBytes} have queued, for more writers before handing the batch over.
+ * Writers block when the queue is full. Items still queued at {@link #close} are passed to {@code reject}.
+ */
+final class GroupCommitter<T> implements AutoCloseable {
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BlockingQueue<T> queue;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final long lingerBytes;
+    private final ToLongFunction<T> sizeOf;
+    private final Consumer<List<T>> handler;
+    private final Consumer<T> reject;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    GroupCommitter(String name, int capacity, int maxBatch, long lingerNanos, long lingerBytes,
+                   ToLongFunction<T> sizeOf, Consumer<List<T>> handler, Consumer<T> reject) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.lingerNanos = lingerNanos;
+        this.lingerBytes = lingerBytes;
+        this.sizeOf = sizeOf;
+        this.handler = handler;
+        this.reject = reject;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void submit(T item) {
+        if (!running) {
+            reject.accept(item);
+            return;
+        }
+        try {
+            queue.put(item);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            reject.accept(item);
+            return;
+        }
+        if (!running) {
+            // Raced with close(): the committer may already have drained the queue for the last time.
+            rejectQueued();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        rejectQueued();
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(maxBatch);
+        // The thread is never interrupted: an interrupt during a FileChannel write would close the channel.
+        while (running) {
+            T first = poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+            if (lingerNanos > 0) {
+                linger(batch);
+            }
+            handler.accept(batch);
+            batch.clear();
+        }
+    }
+
+    private void linger(List<T> batch) {
+        long bytes = 0;
+        for (T item : batch) {
+            bytes += sizeOf.applyAsLong(item);
+        }
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatch && bytes < lingerBytes) {
+            long remaining = deadline - System.nanoTime();
+            T next = remaining > 0 ? poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            bytes += sizeOf.applyAsLong(next);
+        }
+    }
+
+    private T poll(long timeout, TimeUnit unit) {
+        try {
+            return queue.poll(timeout, unit);
+        } catch (InterruptedException ex) {
+            return null;
+        }
+    }
+
+    private void rejectQueued() {
+        T item;
+        while ((item = queue.poll()) != null) {
+            reject.accept(item);
+        }
+    }
+}
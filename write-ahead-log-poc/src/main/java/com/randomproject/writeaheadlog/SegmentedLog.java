@@ -0,0 +1,369 @@
+package com.randomproject.writeaheadlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only WAL stored as rolling segment files of {@link WalRecordCodec} records, written through a
+ * {@link FileChannel}.
+ *
+ * <p>Each segment is named after the first LSN it holds. When the active segment would grow past
+ * {@code segmentBytes} it is forced and closed, and the next append starts a new one, so old history can be
+ * dropped a whole file at a time. {@link #appendAll} writes a whole batch of records and then, unless the policy
+ * is {@link FsyncPolicy#OS}, forces them with a single fsync. An I/O error leaves the file in an unknown state, so
+ * it fails the log: nothing more is written until it is reopened, which truncates whatever was torn.
+ *
+ * <p>Opening a log recovers it: the last segment is scanned, and anything after its last whole, checksum-valid
+ * record is a write torn by a crash and is truncated away. Sealed segments were forced when they rolled, so a bad
+ * record in one of them is corruption, and replay fails rather than skipping it. Under {@link FsyncPolicy#OS}
+ * nothing is forced, not even on roll or close, so no LSN is ever reported as synced.
+ */
+final class SegmentedLog implements Closeable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("\\d{20}\\.wal");
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+    private final long truncatedBytes;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private FileChannel active;
+    private Path activeFile;
+    private long activeSize;
+    private long lastLsn;
+    private long syncedLsn;
+    private long unsyncedBytes;
+    private boolean closed;
+    private boolean failed;
+
+    private SegmentedLog(WalOptions options) throws IOException {
+        this.directory = options.directory();
+        this.segmentBytes = options.segmentBytes();
+        this.fsyncPolicy = options.fsyncPolicy();
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .forEach(file -> segments.put(firstLsnOf(file), file));
+        }
+        this.truncatedBytes = recoverTail();
+        this.syncedLsn = fsyncPolicy == FsyncPolicy.OS ? 0 : lastLsn;
+    }
+
+    static SegmentedLog open(WalOptions options) {
+        if (options.segmentBytes() < 1024 || options.segmentBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes must be between 1 KiB and 2 GiB.");
+        }
+        try {
+            return new SegmentedLog(options);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open WAL in " + options.directory(), ex);
+        }
+    }
+
+    void append(WalEntry entry) {
+        appendAll(List.of(entry));
+    }
+
+    /**
+     * Appends {@code entries}, whose LSNs must be ascending and above every LSN already in the log, then forces
+     * them unless the policy is {@link FsyncPolicy#OS}. Records never straddle two segments.
+     */
+    synchronized void appendAll(List<WalEntry> entries) {
+        ensureOpen();
+        long previous = lastLsn;
+        for (WalEntry entry : entries) {
+            if (entry.lsn() <= previous) {
+                throw new IllegalStateException("LSN " + entry.lsn() + " is not after LSN " + previous + ".");
+            }
+            previous = entry.lsn();
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            buffer.clear();
+            for (WalEntry entry : entries) {
+                int size = WalRecordCodec.encodedSize(entry);
+                long pending = activeSize + buffer.position();
+                if (pending > 0 && pending + size > segmentBytes) {
+                    roll();
+                }
+                if (buffer.remaining() < size) {
+                    writeBuffer();
+                    if (buffer.capacity() < size) {
+                        buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+                    }
+                }
+                if (active == null) {
+                    openSegment(entry.lsn());
+                }
+                WalRecordCodec.write(entry, buffer);
+            }
+            writeBuffer();
+            lastLsn = previous;
+            if (fsyncPolicy != FsyncPolicy.OS) {
+                sync();
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            failed = true;
+            throw new IllegalStateException("WAL append failed at LSNs " + entries.get(0).lsn() + "-" + previous
+                    + "; recover to reopen the log.", ex);
+        }
+    }
+
+    /** Forces every appended record to the device. Does nothing under {@link FsyncPolicy#OS}. */
+    synchronized void sync() {
+        ensureOpen();
+        if (fsyncPolicy == FsyncPolicy.OS) {
+            return;
+        }
+        if (active != null && unsyncedBytes > 0) {
+            try {
+                active.force(false);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("WAL fsync failed", ex);
+            }
+        }
+        unsyncedBytes = 0;
+        syncedLsn = lastLsn;
+    }
+
+    /**
+     * Feeds every record with an LSN above {@code afterLsn} to {@code consumer}, in LSN order, straight from the
+     * segment files.
+     */
+    void replay(long afterLsn, Consumer<WalEntry> consumer) {
+        List<Path> files;
+        Path activeAtStart;
+        long activeLimit;
+        synchronized (this) {
+            ensureOpen();
+            Long from = segments.floorKey(afterLsn + 1);
+            files = new ArrayList<>((from == null ? segments : segments.tailMap(from, true)).values());
+            activeAtStart = activeFile;
+            activeLimit = activeSize;
+        }
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // Only bytes appended before the replay started are read from the active segment.
+                long limit = file.equals(activeAtStart) ? activeLimit : channel.size();
+                long validEnd = scan(channel, limit, entry -> {
+                    if (entry.lsn() > afterLsn) {
+                        consumer.accept(entry);
+                    }
+                });
+                if (validEnd != limit) {
+                    throw new IllegalStateException("Corrupt WAL record in " + file.getFileName() + " at byte " + validEnd + ".");
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not read WAL segment " + file, ex);
+            }
+        }
+    }
+
+    /**
+     * Deletes every segment whose records all have LSNs at or below {@code lsn}. The active segment is rolled first
+     * if it is fully covered. Returns the number of files deleted.
+     */
+    synchronized int deleteSegmentsThrough(long lsn) {
+        ensureOpen();
+        try {
+            if (active != null && lastLsn <= lsn) {
+                roll();
+            }
+            int deleted = 0;
+            while (!segments.isEmpty()) {
+                Map.Entry<Long, Path> first = segments.firstEntry();
+                Long next = segments.higherKey(first.getKey());
+                long lastInSegment = next == null ? lastLsn : next - 1;
+                boolean isActive = active != null && next == null;
+                if (isActive || lastInSegment > lsn) {
+                    break;
+                }
+                Files.deleteIfExists(first.getValue());
+                segments.pollFirstEntry();
+                deleted++;
+            }
+            if (deleted > 0) {
+                syncDirectory();
+            }
+            return deleted;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not delete WAL segments", ex);
+        }
+    }
+
+    synchronized long lastLsn() {
+        return lastLsn;
+    }
+
+    /** Highest LSN known to be forced to the device; 0 under {@link FsyncPolicy#OS}, which never forces. */
+    synchronized long syncedLsn() {
+        return syncedLsn;
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    synchronized long sizeBytes() {
+        long total = 0;
+        for (Path file : segments.values()) {
+            try {
+                total += Files.size(file);
+            } catch (IOException ex) {
+                // Deleted under us; it no longer counts.
+            }
+        }
+        return total;
+    }
+
+    /** Bytes of torn tail removed when this log was opened. */
+    long truncatedBytes() {
+        return truncatedBytes;
+    }
+
+    FsyncPolicy fsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /** Forces outstanding records and closes the active segment. */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        if (!failed) {
+            sync();
+        }
+        crash();
+    }
+
+    /**
+     * Stops the log the way a killed process would: nothing more is forced, and records still in the page cache
+     * are left for the OS to write back.
+     */
+    synchronized void crash() {
+        try {
+            if (active != null) {
+                active.close();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not close WAL segment", ex);
+        } finally {
+            active = null;
+            activeFile = null;
+            closed = true;
+        }
+    }
+
+    private long recoverTail() throws IOException {
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        active = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeFile = last.getValue();
+        long size = active.size();
+        long[] lastSeen = {last.getKey() - 1};
+        long validEnd = scan(active, size, entry -> lastSeen[0] = entry.lsn());
+        if (validEnd < size) {
+            active.truncate(validEnd);
+            active.force(true);
+        }
+        active.position(validEnd);
+        activeSize = validEnd;
+        lastLsn = lastSeen[0];
+        return size - validEnd;
+    }
+
+    /** Reads whole, checksum-valid records from the start of a segment up to {@code limit}; returns where they end. */
+    private static long scan(FileChannel channel, long limit, Consumer<WalEntry> consumer) throws IOException {
+        if (limit == 0) {
+            return 0;
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, limit);
+        while (mapped.hasRemaining()) {
+            WalEntry entry = WalRecordCodec.read(mapped);
+            if (entry == null) {
+                break;
+            }
+            consumer.accept(entry);
+        }
+        return mapped.position();
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        int size = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+        buffer.clear();
+        activeSize += size;
+        unsyncedBytes += size;
+    }
+
+    private void roll() throws IOException {
+        writeBuffer();
+        if (fsyncPolicy != FsyncPolicy.OS) {
+            sync();
+        }
+        active.close();
+        active = null;
+        activeFile = null;
+        activeSize = 0;
+    }
+
+    private void openSegment(long firstLsn) throws IOException {
+        Path file = directory.resolve(String.format("%020d.wal", firstLsn));
+        active = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        activeFile = file;
+        segments.put(firstLsn, file);
+        if (fsyncPolicy != FsyncPolicy.OS) {
+            syncDirectory();
+        }
+    }
+
+    /** Makes created and deleted segment files themselves durable. */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ex) {
+            // Not every platform can open a directory for fsync; the files themselves are still forced.
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("WAL is closed.");
+        }
+        if (failed) {
+            throw new IllegalStateException("WAL failed after an I/O error; recover to reopen it.");
+        }
+    }
+
+    private static long firstLsnOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.indexOf('.')));
+    }
+}
@@ -1,8 +1,11 @@
 package com.randomproject.writeaheadlog;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -30,7 +33,10 @@ record WalEntry(
 record CheckpointView(
         long lsn,
         Instant createdAt,
-        Map<String, String> state) {
+        int keyCount,
+        int commandCount,
+        long sizeBytes) {
+    static final CheckpointView NONE = new CheckpointView(0, Instant.EPOCH, 0, 0, 0);
 }
 
 record WalEvent(
@@ -39,6 +45,8 @@ record WalEvent(
         String message) {
 }
 
+/** Outcome of one write; {@code state} is a copy of the whole state only when the caller asked for it. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 record ApplyResult(
         boolean duplicate,
         String message,
@@ -52,11 +60,36 @@ record RecoveryResult(
         Map<String, String> state) {
 }
 
+record WalStorageView(
+        String directory,
+        FsyncPolicy fsyncPolicy,
+        int segmentCount,
+        long sizeBytes,
+        long syncedLsn,
+        long truncatedBytesOnOpen,
+        long commitBatches,
+        long committedEntries) {
+}
+
 record WalSnapshot(
         Map<String, String> state,
         List<WalEntry> log,
         CheckpointView checkpoint,
         List<WalEvent> events,
         int commandIdCount,
-        long nextLsn) {
+        long nextLsn,
+        WalStorageView storage) {
+}
+
+record WalOptions(
+        Path directory,
+        long segmentBytes,
+        FsyncPolicy fsyncPolicy,
+        Duration groupCommitInterval,
+        long groupCommitBytes,
+        int replayPartitions) {
+    static WalOptions defaults(Path directory) {
+        return new WalOptions(directory, 8L * 1024 * 1024, FsyncPolicy.EVERY_WRITE, Duration.ofMillis(10), 1024 * 1024,
+                Runtime.getRuntime().availableProcessors());
+    }
 }
@@ -0,0 +1,136 @@
+package com.randomproject.writeaheadlog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary layout of one WAL record:
+ *
+ * <pre>
+ * int    payload length
+ * int    CRC32C of the payload
+ * long   LSN
+ * long   appendedAt epoch second
+ * int    appendedAt nanos
+ * byte   operation ordinal
+ * string commandId, key, value   (int byte length, -1 for null, then UTF-8 bytes)
+ * </pre>
+ *
+ * The length prefix lets a reader find the next record without parsing this one, and the checksum tells a
+ * complete record from a torn or corrupted one.
+ */
+final class WalRecordCodec {
+    static final int HEADER_BYTES = 8;
+    private static final int FIXED_PAYLOAD_BYTES = 8 + 8 + 4 + 1 + 3 * 4;
+    private static final WalOperation[] OPERATIONS = WalOperation.values();
+
+    private WalRecordCodec() {
+    }
+
+    /** Encoded size of {@code entry}, header included. */
+    static int encodedSize(WalEntry entry) {
+        return HEADER_BYTES + FIXED_PAYLOAD_BYTES
+                + utf8Length(entry.commandId()) + utf8Length(entry.key()) + utf8Length(entry.value());
+    }
+
+    /** Writes {@code entry} at the buffer's position and advances past it. */
+    static void write(WalEntry entry, ByteBuffer out) {
+        int start = out.position();
+        out.position(start + HEADER_BYTES);
+        out.putLong(entry.lsn());
+        out.putLong(entry.appendedAt().getEpochSecond());
+        out.putInt(entry.appendedAt().getNano());
+        out.put((byte) entry.operation().ordinal());
+        putString(out, entry.commandId());
+        putString(out, entry.key());
+        putString(out, entry.value());
+        int end = out.position();
+        out.putInt(start, end - start - HEADER_BYTES);
+        out.putInt(start + 4, checksum(out, start + HEADER_BYTES, end));
+    }
+
+    /**
+     * Decodes the record at the buffer's position and advances past it. Returns null, leaving the position where
+     * it was, when the remaining bytes do not hold a whole record with a matching checksum.
+     */
+    static WalEntry read(ByteBuffer in) {
+        int start = in.position();
+        if (in.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int length = in.getInt(start);
+        if (length < FIXED_PAYLOAD_BYTES || length > in.remaining() - HEADER_BYTES) {
+            return null;
+        }
+        int end = start + HEADER_BYTES + length;
+        if (in.getInt(start + 4) != checksum(in, start + HEADER_BYTES, end)) {
+            return null;
+        }
+        in.position(start + HEADER_BYTES);
+        long lsn = in.getLong();
+        Instant appendedAt = Instant.ofEpochSecond(in.getLong(), in.getInt());
+        int operation = in.get();
+        if (operation < 0 || operation >= OPERATIONS.length) {
+            in.position(start);
+            return null;
+        }
+        WalEntry entry = new WalEntry(lsn, getString(in), OPERATIONS[operation], getString(in), getString(in),
+                appendedAt);
+        in.position(end);
+        return entry;
+    }
+
+    private static int checksum(ByteBuffer buffer, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Bytes {@code value.getBytes(UTF_8)} would produce, without encoding it. */
+    private static int utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate is encoded as '?'.
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
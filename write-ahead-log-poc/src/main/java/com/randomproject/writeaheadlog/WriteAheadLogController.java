@@ -11,9 +11,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 public class WriteAheadLogController {
@@ -73,14 +75,16 @@ public class WriteAheadLogController {
 
     @PostMapping("/api/entries")
     @ResponseBody
-    public ApplyResult put(@Valid @RequestBody PutRequest request) {
-        return service.put(request.commandId(), request.key(), request.value());
+    public CompletableFuture<ApplyResult> put(@Valid @RequestBody PutRequest request,
+                                              @RequestParam(defaultValue = "false") boolean includeState) {
+        return service.putAsync(request.commandId(), request.key(), request.value(), includeState);
     }
 
     @DeleteMapping("/api/entries")
     @ResponseBody
-    public ApplyResult delete(@Valid @RequestBody DeleteRequest request) {
-        return service.delete(request.commandId(), request.key());
+    public CompletableFuture<ApplyResult> delete(@Valid @RequestBody DeleteRequest request,
+                                                 @RequestParam(defaultValue = "false") boolean includeState) {
+        return service.deleteAsync(request.commandId(), request.key(), includeState);
     }
 
     @PostMapping("/api/checkpoint")
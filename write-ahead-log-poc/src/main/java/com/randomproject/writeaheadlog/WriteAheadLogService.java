@@ -1,44 +1,97 @@
 package com.randomproject.writeaheadlog;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
+/**
+ * Key-value state machine behind a durable {@link SegmentedLog}. Every mutation is appended to the on-disk WAL
+ * before it is applied, and startup rebuilds state from the last checkpoint file plus the segments after it.
+ *
+ * <p>Writers do not append themselves. They queue commands for a single {@link GroupCommitter} thread, which
+ * appends whatever has queued as one batch with one fsync and completes each writer's future once its entry is
+ * durable and applied. Locks are always taken in the order {@code checkpointLock}, {@code commitLock}, then the
+ * monitor: the committer and the admin operations hold {@code commitLock}, and state is only changed under the
+ * monitor. State and the command index are concurrent maps so a checkpoint can stream them to disk without holding
+ * any of these locks while writers carry on.
+ */
 @Service
 public class WriteAheadLogService {
     private static final Pattern TOKEN_PATTERN = Pattern.compile("^[A-Za-z0-9._:-]+$");
     private static final int MAX_EVENTS = 18;
-    private static final int MAX_LOG_ENTRIES = 60;
+    private static final int MAX_VISIBLE_LOG_ENTRIES = 60;
+    private static final int COMMIT_QUEUE_CAPACITY = 16_384;
+    private static final int MAX_COMMIT_BATCH = 1_024;
+    private static final int REPLAY_CHUNK = 65_536;
+    private static final int PARALLEL_REPLAY_THRESHOLD = 4_096;
 
     private final Clock clock;
-    private final Map<String, String> state = new LinkedHashMap<>();
-    private final List<WalEntry> log = new ArrayList<>();
-    private final Map<String, WalEntry> commandIndex = new LinkedHashMap<>();
+    private final WalOptions options;
+    private final CheckpointFile checkpointFile;
+    private final Map<String, String> state = new ConcurrentHashMap<>();
+    private final Deque<WalEntry> recentLog = new ArrayDeque<>();
+    private final Map<String, WalEntry> commandIndex = new ConcurrentHashMap<>();
     private final Deque<WalEvent> events = new ArrayDeque<>();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final GroupCommitter<PendingCommand> committer;
 
-    private Checkpoint checkpoint = new Checkpoint(0, Instant.EPOCH, Map.of());
+    private SegmentedLog log;
+    private volatile CheckpointView checkpoint = CheckpointView.NONE;
     private long nextLsn = 1;
+    private long commitBatches;
+    private long committedEntries;
 
-    public WriteAheadLogService() {
-        this(Clock.systemUTC(), true);
+    @Autowired
+    public WriteAheadLogService(@Value("${wal.directory:data/wal}") String directory,
+                                @Value("${wal.segment-bytes:8388608}") long segmentBytes,
+                                @Value("${wal.fsync:every_write}") String fsyncPolicy,
+                                @Value("${wal.group-commit.interval:10ms}") Duration groupCommitInterval,
+                                @Value("${wal.group-commit.bytes:1048576}") long groupCommitBytes,
+                                @Value("${wal.recovery.partitions:0}") int replayPartitions) {
+        this(Clock.systemUTC(), new WalOptions(Path.of(directory), segmentBytes, FsyncPolicy.from(fsyncPolicy),
+                groupCommitInterval, groupCommitBytes,
+                replayPartitions > 0 ? replayPartitions : Runtime.getRuntime().availableProcessors()), true);
     }
 
-    WriteAheadLogService(Clock clock) {
-        this(clock, true);
+    WriteAheadLogService(Clock clock, WalOptions options) {
+        this(clock, options, true);
     }
 
-    WriteAheadLogService(Clock clock, boolean seedData) {
+    /** Opens the WAL in {@code options.directory()} and recovers from it; seeds demo data only into an empty log. */
+    WriteAheadLogService(Clock clock, WalOptions options, boolean seedData) {
         this.clock = clock;
-        if (seedData) {
+        this.options = options;
+        this.checkpointFile = new CheckpointFile(options.directory());
+        long started = System.nanoTime();
+        int replayed = recover();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        // Only GROUP waits for a batch to fill; the other policies write whatever has queued right away.
+        long lingerNanos = options.fsyncPolicy() == FsyncPolicy.GROUP ? options.groupCommitInterval().toNanos() : 0;
+        this.committer = new GroupCommitter<>("wal-committer", COMMIT_QUEUE_CAPACITY, MAX_COMMIT_BATCH, lingerNanos,
+                options.groupCommitBytes(), PendingCommand::encodedSize, this::commitBatch,
+                command -> command.result().completeExceptionally(new IllegalStateException("WAL is closed.")));
+        if (nextLsn > 1) {
+            addEvent("recovery", "Opened WAL at " + options.directory() + ": checkpoint LSN " + checkpoint.lsn() + ", replayed " + replayed + " entr" + (replayed == 1 ? "y" : "ies") + truncationNote() + " in " + elapsedMillis + " ms.");
+        } else if (seedData) {
             seed();
         }
     }
@@ -46,89 +99,274 @@ public class WriteAheadLogService {
     public synchronized WalSnapshot snapshot() {
         return new WalSnapshot(
                 Map.copyOf(state),
-                List.copyOf(log),
-                toCheckpointView(checkpoint),
+                List.copyOf(recentLog),
+                checkpoint,
                 List.copyOf(events),
                 commandIndex.size(),
-                nextLsn);
-    }
-
-    public synchronized ApplyResult put(String commandId, String key, String value) {
-        String normalizedCommandId = normalizeToken(commandId, "commandId");
-        String normalizedKey = normalizeToken(key, "key");
-        String normalizedValue = normalizeValue(value);
-        Optional<WalEntry> duplicate = findDuplicate(normalizedCommandId);
-        if (duplicate.isPresent()) {
-            WalEntry entry = duplicate.get();
-            addEvent("duplicate", "Ignored duplicate command " + normalizedCommandId + " already recorded at LSN " + entry.lsn() + ".");
-            return new ApplyResult(true, "Duplicate command ignored.", entry, Map.copyOf(state));
-        }
-        WalEntry entry = append(normalizedCommandId, WalOperation.PUT, normalizedKey, normalizedValue);
-        state.put(normalizedKey, normalizedValue);
-        addEvent("apply", "Applied PUT " + normalizedKey + " at LSN " + entry.lsn() + ".");
-        return new ApplyResult(false, "PUT appended and applied.", entry, Map.copyOf(state));
-    }
-
-    public synchronized ApplyResult delete(String commandId, String key) {
-        String normalizedCommandId = normalizeToken(commandId, "commandId");
-        String normalizedKey = normalizeToken(key, "key");
-        Optional<WalEntry> duplicate = findDuplicate(normalizedCommandId);
-        if (duplicate.isPresent()) {
-            WalEntry entry = duplicate.get();
-            addEvent("duplicate", "Ignored duplicate command " + normalizedCommandId + " already recorded at LSN " + entry.lsn() + ".");
-            return new ApplyResult(true, "Duplicate command ignored.", entry, Map.copyOf(state));
-        }
-        WalEntry entry = append(normalizedCommandId, WalOperation.DELETE, normalizedKey, null);
-        state.remove(normalizedKey);
-        addEvent("apply", "Applied DELETE " + normalizedKey + " at LSN " + entry.lsn() + ".");
-        return new ApplyResult(false, "DELETE appended and applied.", entry, Map.copyOf(state));
-    }
-
-    public synchronized CheckpointView createCheckpoint() {
-        long checkpointLsn = log.stream().mapToLong(WalEntry::lsn).max().orElse(0);
-        checkpoint = new Checkpoint(checkpointLsn, now(), new LinkedHashMap<>(state));
-        addEvent("checkpoint", "Checkpoint captured state through LSN " + checkpointLsn + ".");
-        return toCheckpointView(checkpoint);
-    }
-
-    public synchronized RecoveryResult simulateCrashAndRecover() {
-        Map<String, String> recovered = new LinkedHashMap<>(checkpoint.state());
-        int replayed = 0;
-        for (WalEntry entry : log) {
-            if (entry.lsn() <= checkpoint.lsn()) {
-                continue;
+                nextLsn,
+                new WalStorageView(
+                        options.directory().toString(),
+                        log.fsyncPolicy(),
+                        log.segmentCount(),
+                        log.sizeBytes(),
+                        log.syncedLsn(),
+                        log.truncatedBytes(),
+                        commitBatches,
+                        committedEntries));
+    }
+
+    /** Appends and applies a PUT, blocking until it is durable under the configured fsync policy. */
+    public ApplyResult put(String commandId, String key, String value) {
+        return await(putAsync(commandId, key, value, false));
+    }
+
+    public ApplyResult delete(String commandId, String key) {
+        return await(deleteAsync(commandId, key, false));
+    }
+
+    /**
+     * Queues a PUT for the committer. The future completes once the entry's batch is durable and applied; it
+     * carries a copy of the whole state only if {@code includeState} is set.
+     */
+    public CompletableFuture<ApplyResult> putAsync(String commandId, String key, String value, boolean includeState) {
+        PendingCommand command = new PendingCommand(normalizeToken(commandId, "commandId"), WalOperation.PUT,
+                normalizeToken(key, "key"), normalizeValue(value), includeState, new CompletableFuture<>());
+        committer.submit(command);
+        return command.result();
+    }
+
+    public CompletableFuture<ApplyResult> deleteAsync(String commandId, String key, boolean includeState) {
+        PendingCommand command = new PendingCommand(normalizeToken(commandId, "commandId"), WalOperation.DELETE,
+                normalizeToken(key, "key"), null, includeState, new CompletableFuture<>());
+        committer.submit(command);
+        return command.result();
+    }
+
+    /**
+     * Writes a fuzzy checkpoint: the checkpoint LSN is the last applied one when it starts, and state and the command
+     * index are then streamed to disk while writers keep committing. Whatever they change after that LSN is also in
+     * the log after it, so replaying from the checkpoint LSN over the image repairs any mix of old and new values.
+     */
+    public CheckpointView createCheckpoint() {
+        checkpointLock.lock();
+        try {
+            long checkpointLsn;
+            synchronized (this) {
+                checkpointLsn = nextLsn - 1;
+            }
+            long started = System.nanoTime();
+            // Under the OS policy the image may hold entries the log has not forced yet; that policy already
+            // accepts losing acknowledged writes on power failure.
+            CheckpointView written = checkpointFile.write(checkpointLsn, now(), state, commandIndex.values());
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            synchronized (this) {
+                checkpoint = written;
+                addEvent("checkpoint", "Checkpoint captured state through LSN " + checkpointLsn + " (" + written.keyCount() + " keys, " + written.sizeBytes() + " bytes) in " + elapsedMillis + " ms without pausing writes.");
+            }
+            return written;
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the WAL without forcing it, as a killed process would, then reopens it and rebuilds state from the
+     * checkpoint file and the segments on disk.
+     */
+    public RecoveryResult simulateCrashAndRecover() {
+        checkpointLock.lock();
+        commitLock.lock();
+        try {
+            synchronized (this) {
+                log.crash();
+                long started = System.nanoTime();
+                int replayed = recover();
+                long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+                addEvent("recovery", "Recovered from checkpoint LSN " + checkpoint.lsn() + " and replayed " + replayed + " log entr" + (replayed == 1 ? "y" : "ies") + truncationNote() + " in " + elapsedMillis + " ms.");
+                return new RecoveryResult(replayed, checkpoint.lsn(), Map.copyOf(state));
             }
-            applyTo(recovered, entry);
-            replayed++;
+        } finally {
+            commitLock.unlock();
+            checkpointLock.unlock();
         }
+    }
+
+    /** Deletes the segment files whose entries are all covered by the checkpoint. */
+    public WalSnapshot compactLog() {
+        commitLock.lock();
+        try {
+            synchronized (this) {
+                if (checkpoint.lsn() == 0) {
+                    throw new IllegalStateException("Create a checkpoint before compacting.");
+                }
+                int deleted = log.deleteSegmentsThrough(checkpoint.lsn());
+                recentLog.removeIf(entry -> entry.lsn() <= checkpoint.lsn());
+                addEvent("compact", "Compacted log through checkpoint LSN " + checkpoint.lsn() + "; deleted " + deleted + " segment file" + (deleted == 1 ? "." : "s."));
+                return snapshot();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /** Stops the committer, failing writes still queued, then forces and closes the WAL. */
+    @PreDestroy
+    public void close() {
+        committer.close();
+        checkpointLock.lock();
+        commitLock.lock();
+        try {
+            synchronized (this) {
+                log.close();
+            }
+        } finally {
+            commitLock.unlock();
+            checkpointLock.unlock();
+        }
+    }
+
+    private int recover() {
+        log = SegmentedLog.open(options);
         state.clear();
-        state.putAll(recovered);
-        addEvent("recovery", "Recovered from checkpoint LSN " + checkpoint.lsn() + " and replayed " + replayed + " log entr" + (replayed == 1 ? "y." : "ies."));
-        return new RecoveryResult(replayed, checkpoint.lsn(), Map.copyOf(state));
+        commandIndex.clear();
+        recentLog.clear();
+        checkpoint = checkpointFile.read(state, commandIndex).orElse(CheckpointView.NONE);
+        int replayed = replayTail(checkpoint.lsn());
+        nextLsn = Math.max(checkpoint.lsn(), log.lastLsn()) + 1;
+        return replayed;
     }
 
-    public synchronized WalSnapshot compactLog() {
-        if (checkpoint.lsn() == 0) {
-            throw new IllegalStateException("Create a checkpoint before compacting.");
+    /**
+     * Replays the log after {@code afterLsn}. Segments are decoded in order on this thread, a chunk at a time, and
+     * each chunk is applied by {@code replayPartitions} parallel tasks (one per core by default), split by key hash. Every key belongs to exactly one
+     * partition and each partition applies its entries in LSN order, so the result is the same as a serial replay.
+     */
+    private int replayTail(long afterLsn) {
+        int partitions = options.replayPartitions();
+        List<WalEntry> chunk = new ArrayList<>();
+        int[] replayed = {0};
+        log.replay(afterLsn, entry -> {
+            chunk.add(entry);
+            remember(entry);
+            replayed[0]++;
+            if (chunk.size() == REPLAY_CHUNK) {
+                applyPartitioned(chunk, partitions);
+                chunk.clear();
+            }
+        });
+        applyPartitioned(chunk, partitions);
+        return replayed[0];
+    }
+
+    private void applyPartitioned(List<WalEntry> chunk, int partitions) {
+        if (partitions == 1 || chunk.size() < PARALLEL_REPLAY_THRESHOLD) {
+            chunk.forEach(this::applyReplayed);
+            return;
+        }
+        List<List<WalEntry>> byPartition = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            byPartition.add(new ArrayList<>(chunk.size() / partitions + 1));
+        }
+        for (WalEntry entry : chunk) {
+            byPartition.get(Math.floorMod(entry.key().hashCode(), partitions)).add(entry);
         }
-        log.removeIf(entry -> entry.lsn() <= checkpoint.lsn());
-        addEvent("compact", "Compacted log through checkpoint LSN " + checkpoint.lsn() + "; retained " + log.size() + " entr" + (log.size() == 1 ? "y." : "ies."));
-        return snapshot();
+        IntStream.range(0, partitions).parallel().forEach(i -> byPartition.get(i).forEach(this::applyReplayed));
     }
 
-    private WalEntry append(String commandId, WalOperation operation, String key, String value) {
-        if (log.size() >= MAX_LOG_ENTRIES) {
-            throw new IllegalStateException("WAL is full for the demo. Checkpoint and compact before writing more entries.");
+    private void applyReplayed(WalEntry entry) {
+        applyTo(state, entry);
+        commandIndex.put(entry.commandId(), entry);
+    }
+
+    /**
+     * Runs on the committer thread. Assigns LSNs to the batch, appends it with one write and (policy permitting)
+     * one fsync, applies it, and only then completes the writers' futures. The log write happens outside the
+     * monitor, so state stays readable during the fsync; {@code commitLock} keeps admin operations out instead.
+     */
+    private void commitBatch(List<PendingCommand> batch) {
+        List<ApplyResult> results = new ArrayList<>(batch.size());
+        commitLock.lock();
+        try {
+            Map<String, WalEntry> assigned = new HashMap<>();
+            List<WalEntry> entries = new ArrayList<>(batch.size());
+            WalEntry[] outcomes = new WalEntry[batch.size()];
+            boolean[] duplicates = new boolean[batch.size()];
+            long lsn = nextLsn;
+            Instant appendedAt = now();
+            for (int i = 0; i < batch.size(); i++) {
+                PendingCommand command = batch.get(i);
+                WalEntry existing = commandIndex.get(command.commandId());
+                if (existing == null) {
+                    existing = assigned.get(command.commandId());
+                }
+                if (existing != null) {
+                    outcomes[i] = existing;
+                    duplicates[i] = true;
+                    continue;
+                }
+                WalEntry entry = new WalEntry(lsn++, command.commandId(), command.operation(), command.key(),
+                        command.value(), appendedAt);
+                assigned.put(entry.commandId(), entry);
+                entries.add(entry);
+                outcomes[i] = entry;
+            }
+            log.appendAll(entries);
+            synchronized (this) {
+                nextLsn = lsn;
+                for (int i = 0; i < batch.size(); i++) {
+                    PendingCommand command = batch.get(i);
+                    WalEntry entry = outcomes[i];
+                    if (duplicates[i]) {
+                        addEvent("duplicate", "Ignored duplicate command " + entry.commandId() + " already recorded at LSN " + entry.lsn() + ".");
+                        results.add(new ApplyResult(true, "Duplicate command ignored.", entry, stateIf(command)));
+                        continue;
+                    }
+                    remember(entry);
+                    commandIndex.put(entry.commandId(), entry);
+                    addEvent("append", "Appended " + entry.operation() + " for key " + entry.key() + " at LSN " + entry.lsn() + ".");
+                    applyTo(state, entry);
+                    addEvent("apply", "Applied " + entry.operation() + " " + entry.key() + " at LSN " + entry.lsn() + ".");
+                    results.add(new ApplyResult(false, entry.operation() + " appended and applied.", entry, stateIf(command)));
+                }
+                commitBatches++;
+                committedEntries += entries.size();
+            }
+        } catch (RuntimeException ex) {
+            batch.forEach(command -> command.result().completeExceptionally(ex));
+            return;
+        } finally {
+            commitLock.unlock();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
         }
-        WalEntry entry = new WalEntry(nextLsn++, commandId, operation, key, value, now());
-        log.add(entry);
-        commandIndex.put(commandId, entry);
-        addEvent("append", "Appended " + operation + " for key " + key + " at LSN " + entry.lsn() + ".");
-        return entry;
     }
 
-    private Optional<WalEntry> findDuplicate(String commandId) {
-        return Optional.ofNullable(commandIndex.get(commandId));
+    private Map<String, String> stateIf(PendingCommand command) {
+        return command.includeState() ? Map.copyOf(state) : null;
+    }
+
+    private static ApplyResult await(CompletableFuture<ApplyResult> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void remember(WalEntry entry) {
+        recentLog.addLast(entry);
+        while (recentLog.size() > MAX_VISIBLE_LOG_ENTRIES) {
+            recentLog.removeFirst();
+        }
+    }
+
+    private String truncationNote() {
+        long truncated = log.truncatedBytes();
+        return truncated == 0 ? "" : "; truncated a torn tail of " + truncated + " byte" + (truncated == 1 ? "" : "s");
     }
 
     private void applyTo(Map<String, String> target, WalEntry entry) {
@@ -164,10 +402,6 @@ public class WriteAheadLogService {
         return normalized;
     }
 
-    private CheckpointView toCheckpointView(Checkpoint checkpoint) {
-        return new CheckpointView(checkpoint.lsn(), checkpoint.createdAt(), Map.copyOf(checkpoint.state()));
-    }
-
     private void addEvent(String type, String message) {
         events.addFirst(new WalEvent(now(), type, message));
         while (events.size() > MAX_EVENTS) {
@@ -179,6 +413,18 @@ public class WriteAheadLogService {
         return Instant.now(clock);
     }
 
+    private record PendingCommand(
+            String commandId,
+            WalOperation operation,
+            String key,
+            String value,
+            boolean includeState,
+            CompletableFuture<ApplyResult> result) {
+        long encodedSize() {
+            return WalRecordCodec.encodedSize(new WalEntry(0, commandId, operation, key, value, Instant.EPOCH));
+        }
+    }
+
     private void seed() {
         put("seed-001", "catalog:shard", "east-1");
         put("seed-002", "lease:owner", "worker-a");
@@ -186,7 +432,4 @@ public class WriteAheadLogService {
         put("seed-003", "lease:owner", "worker-b");
         put("seed-004", "queue:cursor", "42");
     }
-
-    private record Checkpoint(long lsn, Instant createdAt, Map<String, String> state) {
-    }
 }
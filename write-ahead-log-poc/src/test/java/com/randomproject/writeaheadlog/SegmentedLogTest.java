@@ -0,0 +1,180 @@
+package com.randomproject.writeaheadlog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentedLogTest {
+    private static final Instant APPENDED_AT = Instant.parse("2026-05-11T12:00:00.123456789Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rollsSegmentsAndReplaysEveryRecordInOrder() {
+        WalOptions options = options(FsyncPolicy.EVERY_WRITE);
+        try (SegmentedLog log = SegmentedLog.open(options)) {
+            for (long lsn = 1; lsn <= 200; lsn++) {
+                log.append(entry(lsn));
+            }
+            assertThat(log.segmentCount()).isGreaterThan(5);
+            assertThat(log.syncedLsn()).isEqualTo(200);
+        }
+
+        try (SegmentedLog reopened = SegmentedLog.open(options)) {
+            List<WalEntry> replayed = new ArrayList<>();
+            reopened.replay(150, replayed::add);
+
+            assertThat(reopened.lastLsn()).isEqualTo(200);
+            assertThat(reopened.truncatedBytes()).isZero();
+            assertThat(replayed).extracting(WalEntry::lsn).containsExactlyElementsOf(range(151, 200));
+            assertThat(replayed.get(0)).isEqualTo(entry(151));
+        }
+    }
+
+    @Test
+    void neverReportsRecordsAsSyncedUnderTheOsPolicy() {
+        try (SegmentedLog log = SegmentedLog.open(options(FsyncPolicy.OS))) {
+            for (long lsn = 1; lsn <= 100; lsn++) {
+                log.append(entry(lsn));
+            }
+            log.sync();
+
+            assertThat(log.segmentCount()).isGreaterThan(1);
+            assertThat(log.lastLsn()).isEqualTo(100);
+            assertThat(log.syncedLsn()).isZero();
+        }
+    }
+
+    @Test
+    void deletesOnlySegmentsFullyCoveredByTheCheckpoint() {
+        try (SegmentedLog log = SegmentedLog.open(options(FsyncPolicy.OS))) {
+            for (long lsn = 1; lsn <= 200; lsn++) {
+                log.append(entry(lsn));
+            }
+            int before = log.segmentCount();
+
+            int deleted = log.deleteSegmentsThrough(120);
+
+            assertThat(deleted).isPositive();
+            assertThat(log.segmentCount()).isEqualTo(before - deleted);
+            List<WalEntry> replayed = new ArrayList<>();
+            log.replay(120, replayed::add);
+            assertThat(replayed).extracting(WalEntry::lsn).containsExactlyElementsOf(range(121, 200));
+
+            log.deleteSegmentsThrough(200);
+            log.append(entry(201));
+            assertThat(log.segmentCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void truncatesAChecksumMismatchInTheLastSegment() throws IOException {
+        WalOptions options = options(FsyncPolicy.GROUP);
+        try (SegmentedLog log = SegmentedLog.open(options)) {
+            log.append(entry(1));
+            log.append(entry(2));
+        }
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        flipByte(segment, size - 3);
+
+        try (SegmentedLog reopened = SegmentedLog.open(options)) {
+            assertThat(reopened.lastLsn()).isEqualTo(1);
+            assertThat(reopened.truncatedBytes()).isEqualTo(size - Files.size(segment));
+            reopened.append(entry(2));
+            assertThat(reopened.lastLsn()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void failsReplayOnCorruptionInASealedSegment() throws IOException {
+        WalOptions options = options(FsyncPolicy.OS);
+        try (SegmentedLog log = SegmentedLog.open(options)) {
+            for (long lsn = 1; lsn <= 100; lsn++) {
+                log.append(entry(lsn));
+            }
+        }
+        flipByte(segments().get(0), 20);
+
+        try (SegmentedLog reopened = SegmentedLog.open(options)) {
+            assertThatThrownBy(() -> reopened.replay(0, entry -> { }))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Corrupt WAL record");
+        }
+    }
+
+    @Test
+    void rejectsLsnsThatDoNotMoveForward() {
+        try (SegmentedLog log = SegmentedLog.open(options(FsyncPolicy.OS))) {
+            log.append(entry(5));
+
+            assertThatThrownBy(() -> log.append(entry(5))).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void appendsABatchAcrossSegmentsAndSyncsThroughItsLastLsn() {
+        List<WalEntry> batch = new ArrayList<>();
+        for (long lsn = 1; lsn <= 60; lsn++) {
+            batch.add(entry(lsn));
+        }
+        try (SegmentedLog log = SegmentedLog.open(options(FsyncPolicy.EVERY_WRITE))) {
+            log.appendAll(batch);
+
+            assertThat(log.lastLsn()).isEqualTo(60);
+            assertThat(log.syncedLsn()).isEqualTo(60);
+            assertThat(log.segmentCount()).isGreaterThan(1);
+            List<WalEntry> replayed = new ArrayList<>();
+            log.replay(0, replayed::add);
+            assertThat(replayed).isEqualTo(batch);
+        }
+    }
+
+    private WalOptions options(FsyncPolicy policy) {
+        return new WalOptions(directory, 1024, policy, Duration.ofMillis(5), 4096, 1);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) ~one.get(0)).rewind();
+            channel.write(one, position);
+        }
+    }
+
+    private static WalEntry entry(long lsn) {
+        return lsn % 3 == 0
+                ? new WalEntry(lsn, "cmd-" + lsn, WalOperation.DELETE, "key-" + lsn % 7, null, APPENDED_AT)
+                : new WalEntry(lsn, "cmd-" + lsn, WalOperation.PUT, "key-" + lsn % 7, "value-" + lsn, APPENDED_AT);
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> values = new ArrayList<>();
+        for (long value = from; value <= to; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+}
@@ -1,17 +1,49 @@
 package com.randomproject.writeaheadlog;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class WriteAheadLogServiceTest {
-    private final WriteAheadLogService service = new WriteAheadLogService(
-            Clock.fixed(Instant.parse("2026-05-11T12:00:00Z"), ZoneOffset.UTC));
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-05-11T12:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    private final List<WriteAheadLogService> extraServices = new ArrayList<>();
+    private WriteAheadLogService service;
+
+    @BeforeEach
+    void open() {
+        service = new WriteAheadLogService(CLOCK, WalOptions.defaults(directory.resolve("seeded")));
+    }
+
+    @AfterEach
+    void close() {
+        service.close();
+        extraServices.forEach(WriteAheadLogService::close);
+    }
 
     @Test
     void appendsBeforeApplyingState() {
@@ -34,6 +66,157 @@ class WriteAheadLogServiceTest {
         assertThat(service.snapshot().state()).containsEntry("alpha", "one");
     }
 
+    @Test
+    void returnsTheStateCopyOnlyWhenAsked() {
+        ApplyResult lean = service.put("cmd-250", "alpha", "one");
+        ApplyResult full = service.putAsync("cmd-251", "beta", "two", true).join();
+
+        assertThat(lean.state()).isNull();
+        assertThat(full.state()).containsEntry("alpha", "one").containsEntry("beta", "two");
+    }
+
+    @Test
+    void concurrentWritersShareBatchesAndGetDistinctAscendingLsns() throws Exception {
+        WalOptions options = new WalOptions(directory.resolve("group"), 8L * 1024 * 1024, FsyncPolicy.GROUP,
+                Duration.ofMillis(20), 1024 * 1024, 1);
+        WriteAheadLogService grouped = new WriteAheadLogService(CLOCK, options, false);
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<ApplyResult>> results = new ArrayList<>();
+        try {
+            for (int writer = 0; writer < 8; writer++) {
+                int id = writer;
+                results.add(CompletableFuture.supplyAsync(() -> null, writers).thenCompose(ignored -> {
+                    CompletableFuture<ApplyResult> last = null;
+                    for (int i = 0; i < 100; i++) {
+                        last = grouped.putAsync("cmd-" + id + "-" + i, "key-" + id, "value-" + i, false);
+                    }
+                    return last;
+                }));
+            }
+            results.forEach(CompletableFuture::join);
+        } finally {
+            writers.shutdown();
+        }
+
+        WalSnapshot snapshot = grouped.snapshot();
+        assertThat(snapshot.nextLsn()).isEqualTo(801);
+        assertThat(snapshot.commandIdCount()).isEqualTo(800);
+        for (int writer = 0; writer < 8; writer++) {
+            assertThat(snapshot.state()).containsEntry("key-" + writer, "value-99");
+        }
+        assertThat(snapshot.storage().committedEntries()).isEqualTo(800);
+        assertThat(snapshot.storage().commitBatches()).isLessThan(800);
+        grouped.close();
+
+        WriteAheadLogService restarted = new WriteAheadLogService(CLOCK, options, false);
+        assertThat(restarted.snapshot().state()).isEqualTo(snapshot.state());
+        restarted.close();
+    }
+
+    @Test
+    void duplicatesQueuedTogetherAreAppendedOnce() {
+        CompletableFuture<ApplyResult> first = service.putAsync("cmd-260", "alpha", "one", false);
+        CompletableFuture<ApplyResult> second = service.putAsync("cmd-260", "alpha", "two", false);
+
+        assertThat(List.of(first.join().duplicate(), second.join().duplicate())).containsExactly(false, true);
+        assertThat(second.join().entry()).isEqualTo(first.join().entry());
+        assertThat(service.snapshot().state()).containsEntry("alpha", "one");
+    }
+
+    @Test
+    void closeFailsWritesQueuedAfterIt() {
+        WriteAheadLogService closing = new WriteAheadLogService(CLOCK, WalOptions.defaults(directory.resolve("closed")), false);
+        closing.close();
+
+        assertThatThrownBy(() -> closing.put("cmd-270", "alpha", "one"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("closed");
+    }
+
+    @Test
+    void fuzzyCheckpointsTakenDuringWritesRecoverTheFinalState() throws Exception {
+        WalOptions options = new WalOptions(directory.resolve("fuzzy"), 64 * 1024, FsyncPolicy.OS,
+                Duration.ofMillis(10), 1024 * 1024, 4);
+        WriteAheadLogService writer = new WriteAheadLogService(CLOCK, options, false);
+        ExecutorService writers = Executors.newSingleThreadExecutor();
+        CompletableFuture<Void> writes = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                String key = "key-" + (i % 500);
+                if (i % 7 == 0) {
+                    writer.delete("cmd-" + i, key);
+                } else {
+                    writer.put("cmd-" + i, key, "value-" + i);
+                }
+            }
+        }, writers);
+        try {
+            while (!writes.isDone()) {
+                if (writer.createCheckpoint().lsn() > 0) {
+                    writer.compactLog();
+                }
+            }
+            writes.join();
+        } finally {
+            writers.shutdown();
+        }
+        Map<String, String> expected = writer.snapshot().state();
+        writer.close();
+
+        WriteAheadLogService restarted = new WriteAheadLogService(CLOCK, options, false);
+
+        assertThat(restarted.snapshot().state()).isEqualTo(expected);
+        assertThat(restarted.snapshot().commandIdCount()).isEqualTo(20_000);
+        assertThat(restarted.put("cmd-19999", "other", "x").duplicate()).isTrue();
+        restarted.close();
+    }
+
+    @Test
+    void partitionedReplayMatchesSerialReplay() {
+        Map<String, String> recovered = null;
+        for (int partitions : new int[] {1, 4}) {
+            Path walDirectory = directory.resolve("replay-" + partitions);
+            WalOptions options = new WalOptions(walDirectory, 256 * 1024, FsyncPolicy.OS, Duration.ofMillis(10),
+                    1024 * 1024, partitions);
+            WriteAheadLogService writer = new WriteAheadLogService(CLOCK, options, false);
+            for (int i = 0; i < 10_000; i++) {
+                String key = "key-" + (i * 31 % 1_000);
+                if (i % 5 == 0) {
+                    writer.delete("cmd-" + i, key);
+                } else {
+                    writer.putAsync("cmd-" + i, key, "value-" + i, false);
+                }
+            }
+            Map<String, String> expected = writer.putAsync("cmd-last", "last", "done", false)
+                    .thenApply(ignored -> writer.snapshot().state()).join();
+            writer.close();
+
+            WriteAheadLogService restarted = new WriteAheadLogService(CLOCK, options, false);
+            assertThat(restarted.snapshot().state()).isEqualTo(expected);
+            if (recovered != null) {
+                assertThat(restarted.snapshot().state()).isEqualTo(recovered);
+            }
+            recovered = restarted.snapshot().state();
+            restarted.close();
+        }
+    }
+
+    @Test
+    void refusesToRecoverFromACorruptCheckpoint() throws IOException {
+        WalOptions options = WalOptions.defaults(directory.resolve("corrupt-checkpoint"));
+        WriteAheadLogService writer = new WriteAheadLogService(CLOCK, options, false);
+        writer.put("cmd-700", "alpha", "one");
+        writer.createCheckpoint();
+        writer.close();
+        Path checkpoint = options.directory().resolve("checkpoint.bin");
+        byte[] bytes = Files.readAllBytes(checkpoint);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(checkpoint, bytes);
+
+        assertThatThrownBy(() -> new WriteAheadLogService(CLOCK, options, false))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("checksum");
+    }
+
     @Test
     void recoversByReplayingEntriesAfterCheckpoint() {
         service.put("cmd-300", "alpha", "one");
@@ -51,8 +234,8 @@ class WriteAheadLogServiceTest {
 
     @Test
     void compactionRequiresCheckpointAndRetainsOnlyNewerEntries() {
-        WriteAheadLogService freshService = new WriteAheadLogService(
-                Clock.fixed(Instant.parse("2026-05-11T12:00:00Z"), ZoneOffset.UTC));
+        WriteAheadLogService freshService = closedAfterTest(
+                new WriteAheadLogService(CLOCK, WalOptions.defaults(directory.resolve("fresh"))));
         freshService.put("cmd-400", "alpha", "one");
         CheckpointView checkpoint = freshService.createCheckpoint();
         freshService.put("cmd-401", "beta", "two");
@@ -65,12 +248,64 @@ class WriteAheadLogServiceTest {
 
     @Test
     void rejectsCompactionWithoutCheckpoint() {
-        WriteAheadLogService serviceWithoutSeed = new WriteAheadLogService(
-                Clock.fixed(Instant.parse("2026-05-11T12:00:00Z"), ZoneOffset.UTC),
-                false);
+        WriteAheadLogService serviceWithoutSeed = closedAfterTest(new WriteAheadLogService(CLOCK,
+                WalOptions.defaults(directory.resolve("empty")), false));
 
         assertThatThrownBy(serviceWithoutSeed::compactLog)
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("Create a checkpoint");
     }
+
+    @Test
+    void restartRecoversStateAndCommandIdsFromDisk() {
+        WalOptions options = WalOptions.defaults(directory.resolve("restart"));
+        WriteAheadLogService first = new WriteAheadLogService(CLOCK, options, false);
+        first.put("cmd-500", "alpha", "one");
+        first.createCheckpoint();
+        first.compactLog();
+        first.put("cmd-501", "beta", "two");
+        first.delete("cmd-502", "alpha");
+        first.close();
+
+        WriteAheadLogService restarted = new WriteAheadLogService(CLOCK, options, true);
+
+        assertThat(restarted.snapshot().state()).containsExactly(Map.entry("beta", "two"));
+        assertThat(restarted.snapshot().nextLsn()).isEqualTo(4);
+        assertThat(restarted.put("cmd-500", "alpha", "again").duplicate()).isTrue();
+        assertThat(restarted.put("cmd-501", "beta", "again").duplicate()).isTrue();
+        restarted.close();
+    }
+
+    @Test
+    void recoveryTruncatesATornTail() throws IOException {
+        WalOptions options = WalOptions.defaults(directory.resolve("torn"));
+        WriteAheadLogService writer = new WriteAheadLogService(CLOCK, options, false);
+        writer.put("cmd-600", "alpha", "one");
+        writer.put("cmd-601", "beta", "two");
+        writer.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(options.directory())) {
+            segment = files.filter(file -> file.toString().endsWith(".wal")).findFirst().orElseThrow();
+        }
+        // The second record is cut short, as if the process died mid-write.
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        WriteAheadLogService recovered = new WriteAheadLogService(CLOCK, options, true);
+
+        WalSnapshot snapshot = recovered.snapshot();
+        assertThat(snapshot.state()).containsOnlyKeys("alpha");
+        assertThat(snapshot.storage().truncatedBytesOnOpen()).isPositive();
+        assertThat(snapshot.log()).extracting(WalEntry::commandId).containsExactly("cmd-600");
+        ApplyResult retried = recovered.put("cmd-601", "beta", "two");
+        assertThat(retried.duplicate()).isFalse();
+        assertThat(retried.entry().lsn()).isEqualTo(2);
+        recovered.close();
+    }
+
+    private WriteAheadLogService closedAfterTest(WriteAheadLogService opened) {
+        extraServices.add(opened);
+        return opened;
+    }
 }